@@ -0,0 +1,98 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter;
+
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.structures.RenderFrame;
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Draws the game from its own render thread into a page-flipped
+ * BufferStrategy. Frames reach the screen when the render loop shows them,
+ * rather than whenever the RepaintManager gets around to a coalesced
+ * repaint() request. GZSCanvas still does the actual drawing.
+ * @author Darin Beaudreau
+ */
+public class ActiveRenderer extends Canvas {
+    // Final Variables
+    private static final int BUFFER_COUNT = 2;
+    
+    // Member Variables
+    private GZSCanvas canvas;
+    private BufferStrategy strategy; // Created the first time a frame is shown after the renderer becomes displayable.
+    
+    public ActiveRenderer(GZSCanvas canvas_) {
+        this.canvas = canvas_;
+        this.strategy = null;
+        
+        // Swing doesn't paint this component. The game loop does.
+        setIgnoreRepaint(true);
+        setBackground(Color.WHITE);
+        setPreferredSize(new Dimension(Globals.W_WIDTH, Globals.W_HEIGHT));
+        setFocusable(true);
+    }
+    
+    /**
+     * Draws a render frame into the back buffer and flips it onto the screen.
+     * Does nothing until the renderer has been added to a window that is showing.
+     * @param frame The frame to draw.
+     * @param interpolation How far between the frame's tick and the next one to draw, from 0 to 1.
+     * @return Whether a frame was shown.
+     **/
+    public boolean present(RenderFrame frame, double interpolation) {
+        if(this.strategy == null) {
+            if(!this.isDisplayable()) return false;
+            this.createBufferStrategy(ActiveRenderer.BUFFER_COUNT);
+            this.strategy = this.getBufferStrategy();
+        }
+        // Held locally, since the strategy is thrown away on the event thread if the renderer is removed.
+        BufferStrategy bs = this.strategy;
+        if(bs == null) return false;
+        
+        // The buffers can be lost at any time (for example, when the display mode changes),
+        // in which case the frame has to be drawn again.
+        do {
+            do {
+                Graphics2D g2d = (Graphics2D)bs.getDrawGraphics();
+                try {
+                    g2d.setColor(this.getBackground());
+                    g2d.fillRect(0, 0, this.getWidth(), this.getHeight());
+                    this.canvas.render(g2d, frame, interpolation);
+                } finally {
+                    g2d.dispose();
+                }
+            } while(bs.contentsRestored());
+            bs.show();
+        } while(bs.contentsLost());
+        
+        // Some platforms queue up drawing. Make sure the frame actually reaches the screen now.
+        Toolkit.getDefaultToolkit().sync();
+        return true;
+    }
+    
+    @Override
+    public void removeNotify() {
+        // The buffer strategy goes away with the native peer.
+        this.strategy = null;
+        super.removeNotify();
+    }
+}
@@ -17,16 +17,16 @@
 package genericzombieshooter;
 
 import genericzombieshooter.actors.Player;
+import genericzombieshooter.misc.AssetCache;
 import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Images;
-import genericzombieshooter.structures.LightSource;
-import genericzombieshooter.structures.Message;
-import genericzombieshooter.structures.StatusEffect;
+import genericzombieshooter.misc.Profiler;
+import genericzombieshooter.structures.Camera;
+import genericzombieshooter.structures.RenderFrame;
+import genericzombieshooter.structures.components.HeadsUpDisplay;
 import genericzombieshooter.structures.components.LevelScreen;
 import genericzombieshooter.structures.components.StoreWindow;
 import genericzombieshooter.structures.components.WeaponsLoadout;
-import genericzombieshooter.structures.items.NightVision;
-import genericzombieshooter.structures.weapons.Weapon;
 import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
@@ -35,16 +35,13 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.GradientPaint;
-import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.Polygon;
-import java.awt.Stroke;
+import java.awt.Graphics;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.util.Iterator;
-import java.util.List;
 import javax.swing.JPanel;
 
 /**
@@ -53,17 +50,33 @@ import javax.swing.JPanel;
  * @author packetpirate
  */
 public class GZSCanvas extends JPanel {
+    // Final variables.
+    private static final double FLASHLIGHT_DISTANCE = 400;
+    private static final double FLASHLIGHT_ANGLE = Math.toRadians(25);
+    private static final Color SHADOW_COLOR = new Color(0.0f, 0.0f, 0.0f, 0.95f);
+    private static final Color NIGHT_VISION_SHADOW_COLOR = new Color(0.0f, 0.0f, 0.0f, 0.80f);
+    private static final BasicStroke HUD_STROKE = new BasicStroke(1);
+    private static final Font HEADING_FONT = new Font("Impact", Font.BOLD, 20);
+    private static final Font REPORT_FONT = new Font("Arial", Font.PLAIN, 12);
+    
     // Member variables.
     private GZSFramework framework;
     private StoreWindow store;
     private LevelScreen levelScreen;
-    private BufferedImage background;
+    private Camera camera; // Follows the player as they are drawn, between ticks.
+    private BufferedImage shadowBuffer; // The darkness layer, cleared and reused every frame.
+    private BufferedImage flashlight; // The flashlight cone, pointing right from the middle of its left edge.
+    private HeadsUpDisplay hud;
 
     public GZSCanvas(GZSFramework framework, StoreWindow store, LevelScreen levelScreen) {
         this.framework = framework;
         this.store = store;
         this.levelScreen = levelScreen;
-        this.background = Images.BACKGROUND;
+        this.camera = new Camera(Globals.W_WIDTH, Globals.W_HEIGHT, Globals.ARENA.getWidth(), Globals.ARENA.getHeight());
+        this.shadowBuffer = null;
+        this.flashlight = GZSCanvas.createFlashlight();
+        this.hud = new HeadsUpDisplay();
+        framework.getRenderFrames(); // The game only fills in render frames once something will draw them.
 
         setBackground(Color.WHITE);
         setPreferredSize(new Dimension(Globals.W_WIDTH, Globals.W_HEIGHT));
@@ -75,204 +88,146 @@ public class GZSCanvas extends JPanel {
     public void addNotify() {
         super.addNotify();
     }
+    
+    /**
+     * Renders the flashlight cone once so it can be stamped onto the shadow
+     * layer every frame. Everything outside the cone is left opaque so it
+     * doesn't change the shadow.
+     * @return The image of the flashlight cone.
+     **/
+    private static BufferedImage createFlashlight() {
+        double distance = GZSCanvas.FLASHLIGHT_DISTANCE;
+        int width = (int)Math.ceil(distance * Math.cos(GZSCanvas.FLASHLIGHT_ANGLE));
+        int height = (int)Math.ceil(2 * distance * Math.sin(GZSCanvas.FLASHLIGHT_ANGLE));
+        double middle = height / 2.0;
+        
+        BufferedImage image = GZSFramework.createCompatibleImage(width, height);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, width, height);
+        
+        Path2D.Double cone = new Path2D.Double();
+        cone.moveTo(0, middle);
+        cone.lineTo((distance * Math.cos(GZSCanvas.FLASHLIGHT_ANGLE)), (middle - (distance * Math.sin(GZSCanvas.FLASHLIGHT_ANGLE))));
+        cone.lineTo((distance * Math.cos(GZSCanvas.FLASHLIGHT_ANGLE)), (middle + (distance * Math.sin(GZSCanvas.FLASHLIGHT_ANGLE))));
+        cone.closePath();
+        g2d.setPaint(new GradientPaint(new Point2D.Double((distance / 2), middle), new Color(0, 0, 0, 100),
+                                       new Point2D.Double((distance * 0.75), middle), Color.WHITE));
+        g2d.setComposite(AlphaComposite.Src);
+        g2d.fill(cone);
+        g2d.dispose();
+        return image;
+    }
 
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
+        this.render(g2d, this.framework.getRenderFrames().getFront(), Globals.interpolation);
+        g2d.dispose();
+    }
+    
+    /**
+     * Draws a render frame. Called by paintComponent() when the game is drawn
+     * through Swing, or by the ActiveRenderer straight into its back buffer.
+     * @param g2d The graphics object to draw with.
+     * @param frame The frame to draw.
+     * @param interpolation How far between the frame's tick and the next one to draw, from 0 to 1.
+     **/
+    public void render(Graphics2D g2d, RenderFrame frame, double interpolation) {
+        long frameStart = Profiler.start();
+        long t = frameStart;
         AffineTransform saved = g2d.getTransform();
 
-        if(Globals.started) {
+        if(frame.started) {
             Player player = framework.getPlayer();
-            if(!Globals.deathScreen) {
-                if(!Globals.storeOpen && !Globals.levelScreenOpen) {
-                    g2d.drawImage(background, 0, 0, null);
+            if(!frame.deathScreen) {
+                if(!frame.storeOpen && !frame.levelScreenOpen) {
+                    // Keep the camera on the player where they are drawn this frame. The camera
+                    // only stops on whole pixels, so the arena doesn't shimmer as it scrolls.
+                    double offsetX = (frame.playerPrevX - frame.playerX) * (1.0 - interpolation);
+                    double offsetY = (frame.playerPrevY - frame.playerY) * (1.0 - interpolation);
+                    this.camera.follow((frame.playerX + offsetX), (frame.playerY + offsetY));
+                    int cameraX = (int)Math.round(this.camera.getX());
+                    int cameraY = (int)Math.round(this.camera.getY());
+                    g2d.translate(-cameraX, -cameraY);
+                    
+                    Globals.ARENA.draw(g2d, this.camera);
+                    t = Profiler.lap(Profiler.Section.BACKGROUND, t);
 
                     // Draw Items
-                    framework.getItemFactory().draw(g2d);
+                    frame.draw(g2d, 0, frame.itemsEnd, interpolation);
+                    t = Profiler.lap(Profiler.Section.ITEMS_DRAW, t);
 
-                    { // Begin drawing player and ammo.
-                        Stroke oldStroke = g2d.getStroke();
-                        Iterator<Weapon> it = player.getWeaponsMap().values().iterator();
-                        while(it.hasNext()) {
-                            Weapon w = it.next();
-                            w.drawAmmo((Graphics2D)g2d);
-                        }
-                        player.draw(g2d);
-                        g2d.setStroke(oldStroke);
-                    } // End drawing player and ammo.
-
-                    g2d.setTransform(saved);
+                    // Draw player and ammo.
+                    frame.draw(g2d, frame.itemsEnd, frame.ammoEnd, interpolation);
+                    t = Profiler.lap(Profiler.Section.AMMO, t);
 
                     // Draw zombies and zombie particles.
-                    framework.getWave().draw(g2d);
+                    frame.draw(g2d, frame.ammoEnd, frame.getOpCount(), interpolation);
+                    t = Profiler.lap(Profiler.Section.ZOMBIES, t);
 
                     g2d.setTransform(saved); // Restore original transform state.
 
                     { // Draw circle of light around player.
-                        BufferedImage shadowBuffer = new BufferedImage(Globals.W_WIDTH, Globals.W_HEIGHT, BufferedImage.TYPE_INT_ARGB);
-                        Graphics2D sg = (Graphics2D)shadowBuffer.getGraphics();
+                        if(this.shadowBuffer == null) this.shadowBuffer = GZSFramework.createCompatibleImage(Globals.W_WIDTH, Globals.W_HEIGHT);
+                        Graphics2D sg = this.shadowBuffer.createGraphics();
 
                         // For each light source, draw a translucent radial gradient painted rectangle over the "shadow" layer.
-                        float layerOpacity = ((player.hasEffect(NightVision.EFFECT_NAME))?0.80f:0.95f);
                         sg.setComposite(AlphaComposite.Src);
-                        sg.setColor(new Color(0.0f, 0.0f, 0.0f, layerOpacity));
+                        sg.setColor((frame.nightVision?GZSCanvas.NIGHT_VISION_SHADOW_COLOR:GZSCanvas.SHADOW_COLOR));
                         sg.fillRect(0, 0, Globals.W_WIDTH, Globals.W_HEIGHT);
                         sg.setComposite(AlphaComposite.DstIn);
+                        sg.translate(-cameraX, -cameraY);
 
                         { // Draw flashlight gradient.
-                            double distance = 400;
-                            Polygon flashlight = new Polygon();
-                            Point2D.Double startPoint = new Point2D.Double((player.getCenterX() + 4), (player.getCenterY() - 8));
-                            AffineTransform.getRotateInstance(player.getTheta(), player.getCenterX(), player.getCenterY()).transform(startPoint, startPoint);
-                            Point2D.Double endPoint = new Point2D.Double(startPoint.x, startPoint.y);
-                            double theta = player.getTheta() - (Math.PI / 2);
-                            { // Add points to flashlight polygon.
-                                flashlight.addPoint((int)endPoint.x, (int)endPoint.y);
-                                flashlight.addPoint((int)(endPoint.x + (distance * Math.cos(theta - Math.toRadians(25)))), 
-                                                    (int)(endPoint.y + (distance * Math.sin(theta - Math.toRadians(25)))));
-                                flashlight.addPoint((int)(endPoint.x + (distance * Math.cos(theta + Math.toRadians(25)))), 
-                                                    (int)(endPoint.y + (distance * Math.sin(theta + Math.toRadians(25)))));
-                            } // End adding points to flashlight polygon.
-                            startPoint.x += (distance / 2) * Math.cos(theta);
-                            startPoint.y += (distance / 2) * Math.sin(theta);
-                            endPoint.x += (distance * Math.cos(theta)) * 0.75;
-                            endPoint.y += (distance * Math.sin(theta)) * 0.75;
-                            GradientPaint gp = new GradientPaint(startPoint, new Color(0, 0, 0, 100), endPoint, Color.WHITE);
-                            sg.setPaint(gp);
-                            sg.fill(flashlight);
+                            double theta = frame.playerTheta;
+                            double startX = frame.playerX + offsetX + (4 * Math.cos(theta)) + (8 * Math.sin(theta));
+                            double startY = frame.playerY + offsetY + (4 * Math.sin(theta)) - (8 * Math.cos(theta));
+                            AffineTransform shadowTransform = sg.getTransform();
+                            sg.translate(startX, startY);
+                            sg.rotate(theta - (Math.PI / 2));
+                            sg.translate(0, -(this.flashlight.getHeight() / 2.0));
+                            sg.drawImage(this.flashlight, 0, 0, null);
+                            sg.setTransform(shadowTransform);
                         } // End drawing flashlight gradient.
-                        player.getLightSource().draw(sg);
-
-                        // Draw the light sources from flares.
-                        if(player.hasWeapon(Globals.FLARE.getName())) {
-                            List<LightSource> lights = player.getWeapon(Globals.FLARE.getName()).getLights();
-                            synchronized(lights) {
-                                if(!lights.isEmpty()) {
-                                    Iterator<LightSource> it = lights.iterator();
-                                    while(it.hasNext()) {
-                                        LightSource ls = it.next();
-                                        if(ls.isAlive()) ls.draw(sg);
-                                    }
-                                }
-                            }
-                        }
+                        // Draw the player's light and the light sources from flares.
+                        frame.drawLights(sg, offsetX, offsetY);
 
-                        g2d.drawImage(shadowBuffer, 0, 0, null);
+                        g2d.drawImage(this.shadowBuffer, 0, 0, null);
 
                         sg.dispose();
                     } // End drawing circle of light.
+                    t = Profiler.lap(Profiler.Section.LIGHTING, t);
 
                     { // Draw GUI elements.
-                        g2d.setStroke(new BasicStroke(1));
-                        { // Begin drawing the health bar.
-                            // Draw the gray box under the HUD.
-                            g2d.setColor(Color.LIGHT_GRAY);
-                            g2d.fillRect(2, 2, (Player.DEFAULT_HEALTH + 20), 94);
-                            g2d.setColor(Color.BLACK);
-                            g2d.drawRect(2, 2, (Player.DEFAULT_HEALTH + 20), 94);
-                            // Draw the black bar behind the red health bar to act as a border.
-                            g2d.setColor(Color.BLACK);
-                            g2d.fillRect(10, 10, (Player.DEFAULT_HEALTH + 4), 20);
-                            // Draw the black bar behind the experience bar to act as a border.
-                            g2d.fillRect(10, 32, 154, 20);
-
-                            // Only draw the red bar indicating health if player is still alive.
-                            if (player.getHealth() > 0) {
-                                int healthBarWidth = (int)(((double)player.getHealth() / (double)player.getMaxHealth()) * Player.DEFAULT_HEALTH);
-                                g2d.setColor(((player.hasEffect("Poison"))?new Color(39, 161, 18):new Color(209, 21, 33)));
-                                g2d.fillRect(12, 12, healthBarWidth, 16);
-                                g2d.setColor(Color.WHITE);
-                                g2d.drawString(("HP: " + player.getHealth() + "/" + player.getMaxHealth()), 15, 25);
-                            }
-                        } // End drawing the health bar.
-                        { // Draw the experience bar.
-                            int expBarWidth = (int)(((double)player.getExp() / (double)player.getNextLevelExp()) * 150);
-                            g2d.setColor(new Color(67, 158, 22));
-                            g2d.fillRect(12, 34, ((expBarWidth > 150)?150:expBarWidth), 16);
-                            g2d.setColor(Color.WHITE);
-                            g2d.drawString(("LVL: " + player.getLevel()), 15, 47);
-                        } // End drawing the experience bar.
-                        // Draw status messages.
-                        g2d.setColor(Color.BLACK);
-                        g2d.drawString(("Lives: " + player.getLives()), 10, 65);
-                        //g2d.drawString(("Level: " + player.getLevel()), 10, 58);
-                        g2d.drawString(("Cash: $" + player.getCash()), 10, 78);
-                        g2d.drawString(("Ammo: " + player.getWeapon().getAmmoLeft() + "/" + player.getWeapon().getMaxAmmo()),
-                                        10, 91);
-                        { // Draw Status Icons
-                            int x = 5;
-                            int y = 101;
-                            Iterator<StatusEffect> it = player.getStatusEffects().values().iterator();
-                            while(it.hasNext()) {
-                                StatusEffect status = it.next();
-                                if(status.isActive() && (status.getImage() != null)) {
-                                    Composite savedComp = g2d.getComposite();
-                                    BufferedImage image = status.getImage();
-                                    
-                                    // Based on the time until the status effect's expiration, calculate the icon's opacity.
-                                    double opacity = 1.0f;
-                                    if(Globals.gameTime.getElapsedMillis() >= (status.getEndTime() - 3000))
-                                        opacity = ((double)status.getEndTime() - (double)Globals.gameTime.getElapsedMillis()) / 3000;
-                                    // Set the composite to use the calculated opacity value.
-                                    g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float)opacity));
-                                    
-                                    // Draw the image using the composite and then restore the composite to its previous state.
-                                    g2d.drawImage(image, x, y, null);
-                                    g2d.setComposite(savedComp);
-                                    
-                                    // Increase the X value by the icon width + 5.
-                                    x += image.getWidth() + 5;
-                                }
-                            }
-                        } // End Drawing Status Icons
-                        framework.getLoadout().draw((Graphics2D)g2d);
+                        g2d.setStroke(GZSCanvas.HUD_STROKE);
+                        this.hud.draw(g2d, frame, framework.getLoadout());
                         
-                        { // Draw game messages.
-                            synchronized(Globals.GAME_MESSAGES) {
-                                int i = 0;
-                                int x = (int)((Globals.W_WIDTH / 2) - (WeaponsLoadout.BAR_WIDTH / 2));
-                                int y = (int)((Globals.W_HEIGHT - (WeaponsLoadout.BAR_HEIGHT + 15)) - 10);
-                                g2d.setColor(Color.WHITE);
-                                Iterator<Message> it = Globals.GAME_MESSAGES.iterator();
-                                while(it.hasNext()) {
-                                    if(i < 3) {
-                                        Message m = it.next();
-                                        if(m.isAlive()) {
-                                            m.draw(g2d, new Point2D.Double(x, y));
-                                            y -= 12;
-                                        }
-                                    } else break;
-                                }
+                        { // Draw game messages, which fade out every tick so they are drawn each frame.
+                            int x = (int)((Globals.W_WIDTH / 2) - (WeaponsLoadout.BAR_WIDTH / 2));
+                            int y = (int)((Globals.W_HEIGHT - (WeaponsLoadout.BAR_HEIGHT + 15)) - 10);
+                            Composite savedComp = g2d.getComposite();
+                            g2d.setColor(Color.WHITE);
+                            for(int i = 0; i < frame.messageCount; i++) {
+                                g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, frame.messageOpacity[i]));
+                                g2d.drawString(frame.messageText[i], x, y);
+                                g2d.setComposite(savedComp);
+                                y -= 12;
                             }
                         } // End drawing game messages.
-
-                        g2d.setColor(Color.WHITE);
-                        Font font = new Font("Impact", Font.PLAIN, 20);
-                        FontMetrics metrics = g2d.getFontMetrics(font);
-                        g2d.setFont(font);
-                        if(!Globals.waveInProgress) {
-                            long timeLeft = Globals.nextWave - Globals.gameTime.getElapsedMillis();
-                            String s = "Next wave in " + ((timeLeft / 1000) + 1) + "...";
-                            int w = metrics.stringWidth(s);
-                            g2d.drawString(s, (Globals.W_WIDTH - (w + 20)), 24);
-                        } else {
-                            String s = "Current Wave: " + framework.getWave().getWaveNumber();
-                            int w = metrics.stringWidth(s);
-                            g2d.drawString(s, (Globals.W_WIDTH - (w + 20)), 24);
-                        }
-                        g2d.setFont(null);
                     } // End drawing GUI elements.
-                } else if(Globals.storeOpen) {
+                    Profiler.lap(Profiler.Section.HUD, t);
+                } else if(frame.storeOpen) {
                     // Draw the store window.
                     this.store.draw(g2d, player);
-                } else if(Globals.levelScreenOpen) {
+                } else if(frame.levelScreenOpen) {
                     // Draw the experience/leveling window.
                     this.levelScreen.draw(g2d, player);
                 }
             } else {
                 // Draw the death screen.
-                g2d.drawImage(Images.DEATH_SCREEN, 0, 0, null);
+                g2d.drawImage(AssetCache.get(Images.DEATH_SCREEN_PATH), 0, 0, null);
                 
                 Rectangle2D.Double statPane = new Rectangle2D.Double(((Globals.W_WIDTH / 2) - 150), 
                                                                       (Globals.W_HEIGHT / 2), 
@@ -285,9 +240,8 @@ public class GZSCanvas extends JPanel {
                 long currentTime = System.currentTimeMillis();
                 
                 g2d.setColor(Color.WHITE);
-                Font f = new Font("Impact", Font.BOLD, 20);
-                FontMetrics metrics = g2d.getFontMetrics(f);
-                g2d.setFont(f);
+                FontMetrics metrics = g2d.getFontMetrics(GZSCanvas.HEADING_FONT);
+                g2d.setFont(GZSCanvas.HEADING_FONT);
                 { // Draw label.
                     String s = "Final Report";
                     int x = (int)((Globals.W_WIDTH / 2) - (metrics.stringWidth(s) / 2));
@@ -295,9 +249,8 @@ public class GZSCanvas extends JPanel {
                     g2d.drawString(s, x, y);
                 } // End of label drawing.
                 
-                f = new Font("Arial", Font.PLAIN, 12);
-                metrics = g2d.getFontMetrics(f);
-                g2d.setFont(f);
+                metrics = g2d.getFontMetrics(GZSCanvas.REPORT_FONT);
+                g2d.setFont(GZSCanvas.REPORT_FONT);
                 
                 if(currentTime >= (player.getDeathTime() + 1000)) {
                     int killCount = player.killCount;
@@ -331,9 +284,8 @@ public class GZSCanvas extends JPanel {
                     g2d.drawString(s, x, y);
                 }
                 
-                f = new Font("Impact", Font.BOLD, 20);
-                metrics = g2d.getFontMetrics(f);
-                g2d.setFont(f);
+                metrics = g2d.getFontMetrics(GZSCanvas.HEADING_FONT);
+                g2d.setFont(GZSCanvas.HEADING_FONT);
                 
                 if(currentTime >= (player.getDeathTime() + 5000)) {
                     String s = "Click to Continue";
@@ -343,8 +295,10 @@ public class GZSCanvas extends JPanel {
                 }
             }
         } else {
-            g2d.drawImage(Images.START_SCREEN, 0, 0, null);
+            g2d.drawImage(AssetCache.get(Images.START_SCREEN_PATH), 0, 0, null);
         }
-        g2d.dispose();
+        Profiler.lap(Profiler.Section.FRAME, frameStart);
+        Profiler.endFrame();
+        if(Profiler.isOverlayVisible()) Profiler.drawOverlay(g2d, 5, 130);
     }
 }
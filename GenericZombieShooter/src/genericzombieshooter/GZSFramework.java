@@ -17,29 +17,61 @@
 package genericzombieshooter;
 
 import genericzombieshooter.actors.Player;
+import genericzombieshooter.misc.AssetBundle;
+import genericzombieshooter.misc.AssetCache;
+import genericzombieshooter.misc.AssetLoader;
 import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Images;
+import genericzombieshooter.misc.Profiler;
+import genericzombieshooter.misc.Replay;
+import genericzombieshooter.misc.ReplayPlayer;
+import genericzombieshooter.misc.ReplayRecorder;
 import genericzombieshooter.misc.Sounds;
 import genericzombieshooter.structures.GameTime;
 import genericzombieshooter.structures.ItemFactory;
 import genericzombieshooter.structures.Message;
+import genericzombieshooter.structures.RenderFrame;
+import genericzombieshooter.structures.StateBuffer;
+import genericzombieshooter.structures.StatusEffect;
+import genericzombieshooter.structures.TripleBuffer;
 import genericzombieshooter.structures.ZombieWave;
 import genericzombieshooter.structures.components.ErrorWindow;
 import genericzombieshooter.structures.components.LevelScreen;
 import genericzombieshooter.structures.components.StoreWindow;
 import genericzombieshooter.structures.components.WeaponsLoadout;
+import genericzombieshooter.structures.entities.AnimationSystem;
+import genericzombieshooter.structures.entities.EntityWorld;
+import genericzombieshooter.structures.entities.LifetimeSystem;
+import genericzombieshooter.structures.entities.LightSystem;
+import genericzombieshooter.structures.entities.MovementSystem;
+import genericzombieshooter.structures.entities.SpriteSystem;
+import genericzombieshooter.structures.items.Invulnerability;
 import genericzombieshooter.structures.items.NightVision;
 import genericzombieshooter.structures.weapons.Weapon;
+import java.awt.Component;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
 import java.awt.Point;
+import java.awt.Transparency;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
+import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 import kuusisto.tinysound.TinySound;
@@ -51,9 +83,17 @@ import kuusisto.tinysound.TinySound;
  * @author packetpirate
  */
 public class GZSFramework {
+    // Final Variables
+    private static final int STATE_MAGIC = 0x475A5353; // "GZSS"
+    private static final int STATE_VERSION = 7;
+    private static final File SAVE_FILE = new File(System.getProperty("gzs.saveFile", 
+                                                   new File(System.getProperty("user.home"), "GenericZombieShooter.sav").getPath()));
+    
     // Member variables.
     public JFrame frame;
     public GZSCanvas canvas;
+    private ActiveRenderer renderer; // Null when the game is drawn through Swing.
+    public Component getDisplay() { return ((this.renderer != null)?this.renderer:this.canvas); }
     private StoreWindow store;
     private LevelScreen levelScreen;
     
@@ -69,306 +109,573 @@ public class GZSFramework {
     
     private ItemFactory itemFactory;
     public ItemFactory getItemFactory() { return this.itemFactory; }
+    
+    // Input and replays.
+    private final List<Runnable> inputQueue = new ArrayList<Runnable>(); // Input from the window waiting for the next tick.
+    private final List<Runnable> inputToApply = new ArrayList<Runnable>();
+    private ReplayRecorder recorder;
+    public boolean isRecording() { return (this.recorder != null); }
+    private ReplayPlayer replay;
+    public boolean isReplaying() { return (this.replay != null); }
+    private StateBuffer saveBuffer; // Reused by every save and load.
+    private TripleBuffer<RenderFrame> renderFrames; // Only created once something wants to draw the game.
+    private Runnable renderLoop; // Draws the render frames on a thread of their own. Null when the game is drawn through Swing.
 
     public GZSFramework(JFrame frame_) {
         frame = frame_;
         store = new StoreWindow();
         levelScreen = new LevelScreen();
         canvas = new GZSCanvas(this, store, levelScreen);
+        if(Globals.ACTIVE_RENDERING) renderer = new ActiveRenderer(canvas);
+        Component display = getDisplay();
         
-        Globals.gameTime = new GameTime();
-        Globals.started = false;
-        Globals.paused = false;
-        Globals.storeOpen = false;
-        Globals.levelScreenOpen = false;
-        Globals.crashed = false;
-        Globals.deathScreen = false;
-        Globals.waveInProgress = false;
-        Globals.nextWave = Globals.gameTime.getElapsedMillis() + 3000;
-
-        { // Begin initializing member variables.
-            Globals.keys = new boolean[4];
-            for (boolean k : Globals.keys) k = false;
-            Globals.buttons = new boolean[2];
-            for (boolean b : Globals.buttons) b = false;
-
-            Globals.mousePos = new Point(0, 0);
-        } // End member variable initialization.
+        initializeGame();
 
-        { // Begin initializing game objects.
-            player = new Player(((Globals.W_WIDTH / 2) - 24), ((Globals.W_HEIGHT / 2) - 24), 48, 48);
-            currentWave = 1;
-            wave = new ZombieWave(currentWave);
-            loadout = new WeaponsLoadout(player);
-            itemFactory = new ItemFactory();
-        } // End game object initialization.
-
-        { // Begin adding key and mouse listeners to canvas.
-            canvas.addKeyListener(new KeyAdapter() {
+        { // Begin adding key and mouse listeners to the display.
+            // Input is applied on the game thread at the start of the next tick, so that it all happens
+            // at a known point in the simulation and can be recorded.
+            display.addKeyListener(new KeyAdapter() {
                 @Override
                 public void keyPressed(KeyEvent k) {
-                    if(Globals.started) {
-                        int key = k.getKeyCode();
-                        if (key == KeyEvent.VK_W) Globals.keys[0] = true;
-                        if (key == KeyEvent.VK_A) Globals.keys[1] = true;
-                        if (key == KeyEvent.VK_S) Globals.keys[2] = true;
-                        if (key == KeyEvent.VK_D) Globals.keys[3] = true;
-                    }
+                    final int key = k.getKeyCode();
+                    queueInput(new Runnable() {
+                        @Override
+                        public void run() {
+                            if(Globals.started) {
+                                if (key == KeyEvent.VK_W) Globals.keys[0] = true;
+                                if (key == KeyEvent.VK_A) Globals.keys[1] = true;
+                                if (key == KeyEvent.VK_S) Globals.keys[2] = true;
+                                if (key == KeyEvent.VK_D) Globals.keys[3] = true;
+                            }
+                        }
+                    });
                 }
 
                 @Override
                 public void keyReleased(KeyEvent k) {
-                    if(Globals.started) {
-                        int key = k.getKeyCode();
-                        if (key == KeyEvent.VK_W) Globals.keys[0] = false;
-                        if (key == KeyEvent.VK_A) Globals.keys[1] = false;
-                        if (key == KeyEvent.VK_S) Globals.keys[2] = false;
-                        if (key == KeyEvent.VK_D) Globals.keys[3] = false;
-                        if (key == KeyEvent.VK_P) {
-                            if(!Globals.deathScreen && !Globals.crashed && 
-                               !Globals.storeOpen && !Globals.levelScreenOpen) {
-                                if(Globals.paused) {
-                                    Globals.paused = false;
-                                    Sounds.UNPAUSE.play();
-                                } else {
-                                    Globals.paused = true;
-                                    Sounds.PAUSE.play();
-                                }
-                            }
-                        }
-                        if (key == KeyEvent.VK_B) {
-                            if(!Globals.deathScreen && !Globals.crashed && !Globals.levelScreenOpen) {
-                                if(Globals.storeOpen) {
-                                    Globals.storeOpen = false;
-                                    Globals.paused = false;
-                                } else {
-                                    Globals.storeOpen = true;
-                                    Globals.paused = true;
-                                }
-                            }
-                        }
-                        if (key == KeyEvent.VK_T) {
-                            if(!Globals.deathScreen && !Globals.crashed && !Globals.storeOpen) {
-                                if(Globals.levelScreenOpen) {
-                                    Globals.levelScreenOpen = false;
-                                    Globals.paused = false;
-                                } else {
-                                    Globals.levelScreenOpen = true;
-                                    Globals.paused = true;
+                    final int key = k.getKeyCode();
+                    // The profiler overlay isn't part of the game, so it can be toggled right away.
+                    if (Globals.started && (key == KeyEvent.VK_F3)) Profiler.toggleOverlay();
+                    queueInput(new Runnable() {
+                        @Override
+                        public void run() {
+                            if(Globals.started) {
+                                if (key == KeyEvent.VK_W) Globals.keys[0] = false;
+                                if (key == KeyEvent.VK_A) Globals.keys[1] = false;
+                                if (key == KeyEvent.VK_S) Globals.keys[2] = false;
+                                if (key == KeyEvent.VK_D) Globals.keys[3] = false;
+                                if (key == KeyEvent.VK_P) togglePause();
+                                if (key == KeyEvent.VK_B) toggleStore();
+                                if (key == KeyEvent.VK_T) toggleLevelScreen();
+                                if (key == KeyEvent.VK_F5) quickSave();
+                                if (key == KeyEvent.VK_F9) quickLoad();
+                                if(!Globals.deathScreen && !Globals.crashed && !Globals.storeOpen && !Globals.levelScreenOpen) {
+                                    Weapon [] weapons = Globals.getWeapons();
+                                    for(int i = 0; i < weapons.length; i++) {
+                                        if (key == weapons[i].getKey()) selectWeapon(weapons[i].getName());
+                                    }
                                 }
                             }
                         }
-                        if(!Globals.deathScreen && !Globals.crashed && !Globals.storeOpen && !Globals.levelScreenOpen) {
-                            if (key == Globals.HANDGUN.getKey()) {
-                                int r = player.setWeapon(Globals.HANDGUN.getName());
-                                if(r == 1) loadout.setCurrentWeapon(Globals.HANDGUN.getName());
-                            }
-                            if (key == Globals.ASSAULT_RIFLE.getKey()) {
-                                int r = player.setWeapon(Globals.ASSAULT_RIFLE.getName());
-                                if(r == 1) loadout.setCurrentWeapon(Globals.ASSAULT_RIFLE.getName());
-                            }
-                            if (key == Globals.SHOTGUN.getKey()) {
-                                int r = player.setWeapon(Globals.SHOTGUN.getName());
-                                if(r == 1) loadout.setCurrentWeapon(Globals.SHOTGUN.getName());
-                            }
-                            if (key == Globals.FLAMETHROWER.getKey()) {
-                                int r = player.setWeapon(Globals.FLAMETHROWER.getName());
-                                if(r == 1) loadout.setCurrentWeapon(Globals.FLAMETHROWER.getName());
-                            }
-                            if (key == Globals.GRENADE.getKey()) {
-                                int r = player.setWeapon(Globals.GRENADE.getName());
-                                if(r == 1) loadout.setCurrentWeapon(Globals.GRENADE.getName());
-                            }
-                            if (key == Globals.LANDMINE.getKey()) {
-                                int r = player.setWeapon(Globals.LANDMINE.getName());
-                                if(r == 1) loadout.setCurrentWeapon(Globals.LANDMINE.getName());
-                            }
-                            if (key == Globals.FLARE.getKey()) {
-                                int r = player.setWeapon(Globals.FLARE.getName());
-                                if(r == 1) loadout.setCurrentWeapon(Globals.FLARE.getName());
-                            }
-                            if (key == Globals.LASERWIRE.getKey()) {
-                                int r = player.setWeapon(Globals.LASERWIRE.getName());
-                                if(r == 1) loadout.setCurrentWeapon(Globals.LASERWIRE.getName());
-                            }
-                            if (key == Globals.TURRETWEAPON.getKey()) {
-                                int r = player.setWeapon(Globals.TURRETWEAPON.getName());
-                                if(r == 1) loadout.setCurrentWeapon(Globals.TURRETWEAPON.getName());
-                            }
-                            if (key == Globals.TELEPORTER.getKey()) {
-                                int r = player.setWeapon(Globals.TELEPORTER.getName());
-                                if(r == 1) loadout.setCurrentWeapon(Globals.TELEPORTER.getName());
-                            }
-                        }
-                    }
+                    });
                 }
             });
 
-            canvas.addMouseListener(new MouseAdapter() {
+            display.addMouseListener(new MouseAdapter() {
                 @Override
                 public void mouseClicked(MouseEvent m) {
                     if((m.getButton() == MouseEvent.BUTTON1)) {
-                        if(!Globals.started) {
-                            Globals.started = true;
-                            Globals.gameTime.reset();
-                            Globals.nextWave = Globals.gameTime.getElapsedMillis() + 3000;
-                        }
-                        if(Globals.started && Globals.deathScreen) {
-                            Globals.started = false;
-                            Globals.deathScreen = false;
-                            currentWave = 1;
-                            wave = new ZombieWave(currentWave);
-                            player.resetStatistics();
-                        }
-                        if(Globals.started && Globals.storeOpen) store.click(m, player);
-                        else if(Globals.started && Globals.levelScreenOpen) levelScreen.click(m, player);
+                        final int x = m.getX();
+                        final int y = m.getY();
+                        queueInput(new Runnable() {
+                            @Override
+                            public void run() {
+                                click(x, y);
+                            }
+                        });
                     }
                 }
                 @Override
                 public void mousePressed(MouseEvent m) {
-                    if(Globals.started) {
-                        if (m.getButton() == MouseEvent.BUTTON1) Globals.buttons[0] = true;
-                        if (m.getButton() == MouseEvent.BUTTON3) Globals.buttons[1] = true;
-                    }
+                    final int button = m.getButton();
+                    queueInput(new Runnable() {
+                        @Override
+                        public void run() {
+                            if(Globals.started) {
+                                if (button == MouseEvent.BUTTON1) Globals.buttons[0] = true;
+                                if (button == MouseEvent.BUTTON3) Globals.buttons[1] = true;
+                            }
+                        }
+                    });
                 }
 
                 @Override
                 public void mouseReleased(MouseEvent m) {
-                    if(Globals.started) {
-                        if (m.getButton() == MouseEvent.BUTTON1) {
-                            Globals.buttons[0] = false;
-                            if(player.getCurrentWeaponName().equals(Globals.FLAMETHROWER.getName())) {
-                                Sounds.FLAMETHROWER.getAudio().stop();
-                            }
-                            
-                            // Reset non-automatic weapons.
-                            Iterator<Weapon> it = player.getWeaponsMap().values().iterator();
-                            while(it.hasNext()) {
-                                Weapon w = it.next();
-                                if(!w.isAutomatic() && w.hasFired()) w.resetFire(); 
+                    final int button = m.getButton();
+                    queueInput(new Runnable() {
+                        @Override
+                        public void run() {
+                            if(Globals.started) {
+                                if (button == MouseEvent.BUTTON1) releaseFire();
+                                if (button == MouseEvent.BUTTON3) Globals.buttons[1] = false;
                             }
                         }
-                        if (m.getButton() == MouseEvent.BUTTON3) Globals.buttons[1] = false;
-                    }
+                    });
                 }
             });
 
-            canvas.addMouseMotionListener(new MouseAdapter() {
+            display.addMouseMotionListener(new MouseAdapter() {
                 @Override
                 public void mouseMoved(MouseEvent m) {
-                    if(Globals.started) {
-                        Globals.mousePos.x = m.getX() + (Images.CROSSHAIR.getWidth() / 2);
-                        Globals.mousePos.y = m.getY() + (Images.CROSSHAIR.getHeight() / 2);
-                    }
+                    queueMouseMove(m);
                 }
 
                 @Override
                 public void mouseDragged(MouseEvent m) {
-                    if(Globals.started) {
-                        Globals.mousePos.x = m.getX() + (Images.CROSSHAIR.getWidth() / 2);
-                        Globals.mousePos.y = m.getY() + (Images.CROSSHAIR.getHeight() / 2);
-                    }
+                    queueMouseMove(m);
                 }
             });
             
-            canvas.addMouseWheelListener(new MouseAdapter() {
+            display.addMouseWheelListener(new MouseAdapter() {
                 @Override
                 public void mouseWheelMoved(MouseWheelEvent mw) {
-                    if(player.getWeaponsMap().size() > 1) {
-                        if(Globals.started && !Globals.deathScreen && !Globals.crashed &&
-                           !Globals.storeOpen && !Globals.levelScreenOpen) {
-                            int notches = mw.getWheelRotation();
-                            String [] weaponNames = {Globals.HANDGUN.getName(), Globals.ASSAULT_RIFLE.getName(),
-                                                     Globals.SHOTGUN.getName(), Globals.FLAMETHROWER.getName(),
-                                                     Globals.GRENADE.getName(), Globals.LANDMINE.getName(),
-                                                     Globals.FLARE.getName(), Globals.LASERWIRE.getName(),
-                                                     Globals.TURRETWEAPON.getName(), Globals.TELEPORTER.getName()};
-                            if(notches < 0) { // Wheel scrolled up.
-                                // Move weapon selection to the right.
-                                String name = Globals.HANDGUN.getName();
-                                for(int i = 0; i < weaponNames.length; i++) {
-                                    if(weaponNames[i].equals(player.getWeapon().getName())) {
-                                        if((i + 1) > weaponNames.length) name = Globals.HANDGUN.getName();
-                                        else {
-                                            // Find the next weapon the player has and set it.
-                                            for(int j = (i + 1); j < weaponNames.length; j++) {
-                                                if(player.hasWeapon(weaponNames[j])) {
-                                                    name = weaponNames[j];
-                                                    break;
-                                                }
-                                            }
-                                        }
+                    final int notches = mw.getWheelRotation();
+                    queueInput(new Runnable() {
+                        @Override
+                        public void run() {
+                            scrollWeapon(notches);
+                        }
+                    });
+                }
+            });
+        } // End adding key and mouse listeners to the display.
+        
+        { // Begin starting replays.
+            String record = System.getProperty("gzs.record");
+            String replayFile = System.getProperty("gzs.replay");
+            try {
+                if(replayFile != null) {
+                    ReplayPlayer rp = new ReplayPlayer(new File(replayFile));
+                    playReplay(rp, Long.getLong("gzs.replay.start", 0));
+                }
+                if(record != null) startRecording(new File(record));
+            } catch(IOException ioe) {
+                System.out.println("Could not open replay: " + ioe.getMessage());
+            }
+        } // End starting replays.
+
+        Sounds.init();
+        initializeThread();
+        startThread();
+    }
+    
+    /**
+     * Creates a framework with no window, canvas, input listeners, sound or
+     * game thread. The caller is responsible for setting the input state in
+     * Globals and calling update() once per tick.
+     **/
+    public GZSFramework() {
+        frame = null;
+        canvas = null;
+        store = new StoreWindow();
+        levelScreen = new LevelScreen();
+        
+        initializeGame();
+    }
+    
+    /**
+     * Resets the global game state and creates the player, the first wave and
+     * the item factory.
+     **/
+    private void initializeGame() {
+        Globals.gameTime = new GameTime();
+        Globals.started = false;
+        Globals.paused = false;
+        Globals.storeOpen = false;
+        Globals.levelScreenOpen = false;
+        Globals.crashed = false;
+        Globals.deathScreen = false;
+        Globals.waveInProgress = false;
+        Globals.nextWave = Globals.gameTime.getElapsedMillis() + 3000;
+
+        { // Begin initializing member variables.
+            Globals.keys = new boolean[4];
+            for (boolean k : Globals.keys) k = false;
+            Globals.buttons = new boolean[2];
+            for (boolean b : Globals.buttons) b = false;
+
+            Globals.mousePos = new Point(0, 0);
+        } // End member variable initialization.
+
+        { // Begin initializing game objects.
+            Globals.ENTITIES.clear();
+            Point2D.Double start = Globals.OBSTACLES.findOpen((Globals.ARENA.getWidth() / 2), (Globals.ARENA.getHeight() / 2));
+            player = new Player((start.x - 24), (start.y - 24), 48, 48);
+            currentWave = 1;
+            wave = new ZombieWave(currentWave);
+            loadout = new WeaponsLoadout(player);
+            itemFactory = new ItemFactory();
+        } // End game object initialization.
+    }
+    
+    public int getCurrentWave() { return this.currentWave; }
+    public void setCurrentWave(int wave) { this.currentWave = wave; }
+    
+    /**
+     * Switches the player to the named weapon if they own it.
+     * @param name The name of the weapon to switch to.
+     **/
+    public void selectWeapon(String name) {
+        this.recordCommand(Replay.SELECT_WEAPON, GZSFramework.getWeaponIndex(name), 0);
+        int r = player.setWeapon(name);
+        if(r == 1) loadout.setCurrentWeapon(name);
+    }
+    
+    /**
+     * Handles the fire button being let go.
+     **/
+    public void releaseFire() {
+        this.recordCommand(Replay.RELEASE_FIRE, 0, 0);
+        Globals.buttons[0] = false;
+        if(player.getCurrentWeaponName().equals(Globals.FLAMETHROWER.getName())) {
+            Sounds.FLAMETHROWER.stop();
+        }
+
+        // Reset non-automatic weapons.
+        Iterator<Weapon> it = player.getWeaponsMap().values().iterator();
+        while(it.hasNext()) {
+            Weapon w = it.next();
+            if(!w.isAutomatic() && w.hasFired()) w.resetFire(); 
+        }
+    }
+    
+    /**
+     * Pauses or unpauses the game, unless a menu is open.
+     **/
+    public void togglePause() {
+        this.recordCommand(Replay.TOGGLE_PAUSE, 0, 0);
+        if(!Globals.deathScreen && !Globals.crashed && 
+           !Globals.storeOpen && !Globals.levelScreenOpen) {
+            if(Globals.paused) {
+                Globals.paused = false;
+                Sounds.UNPAUSE.play();
+            } else {
+                Globals.paused = true;
+                Sounds.PAUSE.play();
+            }
+        }
+    }
+    
+    /**
+     * Opens or closes the store, unless the level screen is open.
+     **/
+    public void toggleStore() {
+        this.recordCommand(Replay.TOGGLE_STORE, 0, 0);
+        if(!Globals.deathScreen && !Globals.crashed && !Globals.levelScreenOpen) {
+            if(Globals.storeOpen) {
+                Globals.storeOpen = false;
+                Globals.paused = false;
+            } else {
+                Globals.storeOpen = true;
+                Globals.paused = true;
+            }
+        }
+    }
+    
+    /**
+     * Opens or closes the level screen, unless the store is open.
+     **/
+    public void toggleLevelScreen() {
+        this.recordCommand(Replay.TOGGLE_LEVEL_SCREEN, 0, 0);
+        if(!Globals.deathScreen && !Globals.crashed && !Globals.storeOpen) {
+            if(Globals.levelScreenOpen) {
+                Globals.levelScreenOpen = false;
+                Globals.paused = false;
+            } else {
+                Globals.levelScreenOpen = true;
+                Globals.paused = true;
+            }
+        }
+    }
+    
+    /**
+     * Handles a left click. Starts the game from the title screen, goes back
+     * to it from the death screen, or clicks a button in the open menu.
+     * @param x The x position of the click on the canvas.
+     * @param y The y position of the click on the canvas.
+     **/
+    public void click(int x, int y) {
+        this.recordCommand(Replay.CLICK, x, y);
+        if(!Globals.started) {
+            Globals.started = true;
+            Globals.gameTime.reset();
+            Globals.nextWave = Globals.gameTime.getElapsedMillis() + 3000;
+        }
+        if(Globals.started && Globals.deathScreen) {
+            Globals.started = false;
+            Globals.deathScreen = false;
+            currentWave = 1;
+            wave.dispose();
+            wave = new ZombieWave(currentWave);
+            player.resetStatistics();
+        }
+        if(Globals.started && Globals.storeOpen) store.click(x, y, player);
+        else if(Globals.started && Globals.levelScreenOpen) levelScreen.click(x, y, player);
+    }
+    
+    /**
+     * Switches to the next or previous weapon the player owns.
+     * @param notches How far the mouse wheel was turned. Negative is up.
+     **/
+    public void scrollWeapon(int notches) {
+        this.recordCommand(Replay.SCROLL_WEAPON, notches, 0);
+        if(player.getWeaponsMap().size() > 1) {
+            if(Globals.started && !Globals.deathScreen && !Globals.crashed &&
+               !Globals.storeOpen && !Globals.levelScreenOpen) {
+                String [] weaponNames = {Globals.HANDGUN.getName(), Globals.ASSAULT_RIFLE.getName(),
+                                         Globals.SHOTGUN.getName(), Globals.FLAMETHROWER.getName(),
+                                         Globals.GRENADE.getName(), Globals.LANDMINE.getName(),
+                                         Globals.FLARE.getName(), Globals.LASERWIRE.getName(),
+                                         Globals.TURRETWEAPON.getName(), Globals.TELEPORTER.getName()};
+                if(notches < 0) { // Wheel scrolled up.
+                    // Move weapon selection to the right.
+                    String name = Globals.HANDGUN.getName();
+                    for(int i = 0; i < weaponNames.length; i++) {
+                        if(weaponNames[i].equals(player.getWeapon().getName())) {
+                            if((i + 1) > weaponNames.length) name = Globals.HANDGUN.getName();
+                            else {
+                                // Find the next weapon the player has and set it.
+                                for(int j = (i + 1); j < weaponNames.length; j++) {
+                                    if(player.hasWeapon(weaponNames[j])) {
+                                        name = weaponNames[j];
                                         break;
                                     }
                                 }
-                                player.setWeapon(name);
-                                loadout.setCurrentWeapon(name);
-                            } else { // Wheel scrolled down.
-                                // Move weapon selection to the left.
-                                String name = Globals.HANDGUN.getName();
-                                for(int i = 0; i < weaponNames.length; i++) {
-                                    if(weaponNames[i].equals(player.getWeapon().getName())) {
-                                        if((i - 1) < 0) {
-                                            // Get the last weapon the player has.
-                                            for(int j = 9; j >= 0; j--) {
-                                                if(player.hasWeapon(weaponNames[j])) {
-                                                    name = weaponNames[j];
-                                                    break;
-                                                }
-                                            }
-                                            break;
-                                        } else {
-                                            for(int j = (i - 1); j >= 0; j--) {
-                                                if(player.hasWeapon(weaponNames[j])) {
-                                                    name = weaponNames[j];
-                                                    break;
-                                                }
-                                            }
-                                        }
+                            }
+                            break;
+                        }
+                    }
+                    player.setWeapon(name);
+                    loadout.setCurrentWeapon(name);
+                } else { // Wheel scrolled down.
+                    // Move weapon selection to the left.
+                    String name = Globals.HANDGUN.getName();
+                    for(int i = 0; i < weaponNames.length; i++) {
+                        if(weaponNames[i].equals(player.getWeapon().getName())) {
+                            if((i - 1) < 0) {
+                                // Get the last weapon the player has.
+                                for(int j = 9; j >= 0; j--) {
+                                    if(player.hasWeapon(weaponNames[j])) {
+                                        name = weaponNames[j];
+                                        break;
+                                    }
+                                }
+                                break;
+                            } else {
+                                for(int j = (i - 1); j >= 0; j--) {
+                                    if(player.hasWeapon(weaponNames[j])) {
+                                        name = weaponNames[j];
+                                        break;
                                     }
                                 }
-                                player.setWeapon(name);
-                                loadout.setCurrentWeapon(name);
                             }
                         }
                     }
+                    player.setWeapon(name);
+                    loadout.setCurrentWeapon(name);
                 }
-            });
-        } // End adding key and mouse listeners to canvas.
-
-        Sounds.init();
-        initializeThread();
-        startThread();
+            }
+        }
+    }
+    
+    /**
+     * Gives the named weapon more ammo.
+     * @param name The name of the weapon.
+     * @param amount How much ammo to give it.
+     **/
+    public void addAmmo(String name, int amount) {
+        this.recordCommand(Replay.ADD_AMMO, GZSFramework.getWeaponIndex(name), amount);
+        Globals.getWeaponByName(name).addAmmo(amount);
+    }
+    
+    /**
+     * Makes the player invulnerable for a while.
+     * @param duration How long the player is invulnerable for, in milliseconds.
+     **/
+    public void makeInvulnerable(int duration) {
+        this.recordCommand(Replay.INVULNERABILITY, duration, 0);
+        player.addStatusEffect(Invulnerability.ID, Invulnerability.EFFECT_NAME, Images.INVULNERABILITY, duration, 0);
+    }
+    
+    /**
+     * Carries out a command read from a replay.
+     * @param type The command, one of the command constants in Replay.
+     * @param a The first argument of the command.
+     * @param b The second argument of the command.
+     **/
+    public void applyCommand(int type, int a, int b) {
+        Weapon [] weapons = Globals.getWeapons();
+        if(type == Replay.SELECT_WEAPON) this.selectWeapon(weapons[a].getName());
+        else if(type == Replay.RELEASE_FIRE) this.releaseFire();
+        else if(type == Replay.TOGGLE_PAUSE) this.togglePause();
+        else if(type == Replay.TOGGLE_STORE) this.toggleStore();
+        else if(type == Replay.TOGGLE_LEVEL_SCREEN) this.toggleLevelScreen();
+        else if(type == Replay.CLICK) this.click(a, b);
+        else if(type == Replay.SCROLL_WEAPON) this.scrollWeapon(a);
+        else if(type == Replay.ADD_AMMO) this.addAmmo(weapons[a].getName(), b);
+        else if(type == Replay.INVULNERABILITY) this.makeInvulnerable(a);
+        else throw new IllegalArgumentException("Unknown replay command: " + type);
+    }
+    
+    private void recordCommand(int type, int a, int b) {
+        if(this.recorder != null) this.recorder.command(type, a, b);
+    }
+    
+    private static int getWeaponIndex(String name) {
+        Weapon [] weapons = Globals.getWeapons();
+        for(int i = 0; i < weapons.length; i++) {
+            if(weapons[i].getName().equals(name)) return i;
+        }
+        return -1;
+    }
+    
+    private void queueInput(Runnable input) {
+        synchronized(this.inputQueue) { this.inputQueue.add(input); }
+    }
+    
+    private void queueMouseMove(MouseEvent m) {
+        final int x = m.getX() + (Images.CROSSHAIR.getWidth() / 2);
+        final int y = m.getY() + (Images.CROSSHAIR.getHeight() / 2);
+        queueInput(new Runnable() {
+            @Override
+            public void run() {
+                if(Globals.started) {
+                    Globals.mousePos.x = x;
+                    Globals.mousePos.y = y;
+                }
+            }
+        });
+    }
+    
+    /**
+     * Applies the input queued since the last tick. While a replay is playing,
+     * input from the window is thrown away.
+     **/
+    private void applyQueuedInput() {
+        synchronized(this.inputQueue) {
+            this.inputToApply.addAll(this.inputQueue);
+            this.inputQueue.clear();
+        }
+        if(this.replay == null) {
+            for(int i = 0; i < this.inputToApply.size(); i++) this.inputToApply.get(i).run();
+        }
+        this.inputToApply.clear();
+    }
+    
+    /**
+     * Starts recording the game to a replay file.
+     * @param file The file to record to.
+     * @throws IOException If the file could not be written.
+     **/
+    public void startRecording(File file) throws IOException {
+        this.stopRecording();
+        this.recorder = new ReplayRecorder(file, this);
+    }
+    
+    /**
+     * Stops recording and finishes writing the replay file.
+     **/
+    public void stopRecording() {
+        if(this.recorder != null) {
+            try {
+                this.recorder.close();
+            } catch(IOException ioe) {
+                System.out.println("Could not write replay: " + ioe.getMessage());
+            }
+            this.recorder = null;
+        }
+    }
+    
+    private void recordingFailed(IOException ioe) {
+        System.out.println("Could not write replay: " + ioe.getMessage());
+        try {
+            this.recorder.close();
+        } catch(IOException e) {
+            // Already failed, so there's nothing more to report.
+        }
+        this.recorder = null;
+    }
+    
+    /**
+     * Plays a replay in place of the player's input.
+     * @param replay The replay to play.
+     * @param startTick The tick to start playing from.
+     **/
+    public void playReplay(ReplayPlayer replay, long startTick) {
+        this.replay = replay;
+        replay.seek(this, startTick);
+    }
+    
+    /**
+     * Stops playing the replay and hands control back to the player.
+     **/
+    public void stopReplay() {
+        this.replay = null;
+        for(int i = 0; i < Globals.keys.length; i++) Globals.keys[i] = false;
+        for(int i = 0; i < Globals.buttons.length; i++) Globals.buttons[i] = false;
     }
 
     /**
      * Updates the game objects in the animation loop.
      **/
     public void update() {
-        // Update the game time.
+        { // Begin applying input.
+            if((this.replay != null) && !this.replay.readTick(this)) {
+                // The replay is over, so the player takes over from this tick on.
+                this.stopReplay();
+            }
+            this.applyQueuedInput();
+            if(this.recorder != null) {
+                try {
+                    this.recorder.recordInput();
+                } catch(IOException ioe) {
+                    this.recordingFailed(ioe);
+                }
+            }
+        } // End applying input.
+        
+        // Update the game time. Game time stands still while paused.
         if(Globals.started && !Globals.crashed && !Globals.deathScreen) {
-            if(Globals.paused || Globals.storeOpen || Globals.levelScreenOpen) Globals.gameTime.increaseOffset();
-            else Globals.gameTime.update();
+            if(!Globals.paused && !Globals.storeOpen && !Globals.levelScreenOpen) Globals.gameTime.update();
         }
         
         // Update the game itself.
         if(Globals.started && !Globals.paused && !Globals.crashed && !Globals.deathScreen) {
+            long tickStart = Profiler.start();
             try {
+                long t = tickStart;
+                // The mouse was aimed at what's on the screen, so line the camera up with the player before it is read.
+                Globals.CAMERA.follow(player.getCenterX(), player.getCenterY());
                 player.update();
+                t = Profiler.lap(Profiler.Section.PLAYER, t);
 
                 if(!Globals.waveInProgress) {
                     // If the player is in between waves, check if the countdown has reached zero.
                     if(Globals.gameTime.getElapsedMillis() >= Globals.nextWave) createWave();
                 }
+                t = Profiler.lap(Profiler.Section.WAVE_SPAWN, t);
 
-                // Update all zombies in the current wave.
+                // Update all zombies in the current wave. The wave times its own sections.
                 if(Globals.waveInProgress) this.wave.update(player, itemFactory);
+                t = Profiler.start();
 
                 // Check player for damage.
                 if(Globals.waveInProgress) this.wave.checkPlayerDamage(player);
+                t = Profiler.lap(Profiler.Section.COLLISION, t);
 
                 // Update Items
                 itemFactory.update(player);
+                t = Profiler.lap(Profiler.Section.ITEMS, t);
 
                 // Check to see if the player is still alive. If not, take away a life and reset.
                 if(!player.isAlive()) {
@@ -386,8 +693,9 @@ public class GZSFramework {
                         Globals.resetWeapons();
                     }
                     loadout.setCurrentWeapon(Globals.HANDGUN.getName());
-                    Sounds.FLAMETHROWER.getAudio().stop();
+                    Sounds.FLAMETHROWER.stop();
                 }
+                t = Profiler.lap(Profiler.Section.PLAYER, t);
 
                 { // Begin weapon updates.
                     Iterator<Weapon> it = this.player.getWeaponsMap().values().iterator();
@@ -395,7 +703,10 @@ public class GZSFramework {
                         Weapon w = it.next();
                         w.updateWeapon(this.wave.getZombies());
                     }
+                    MovementSystem.update(Globals.ENTITIES);
+                    LifetimeSystem.update(Globals.ENTITIES, Globals.ARENA.getWidth(), Globals.ARENA.getHeight());
                 } // End weapon updates.
+                t = Profiler.lap(Profiler.Section.WEAPONS, t);
 
                 // Check for end of wave.
                 if(Globals.waveInProgress && this.wave.waveFinished()) {
@@ -415,14 +726,299 @@ public class GZSFramework {
                         }
                     }
                 } // End deleting expired messages.
+                Profiler.lap(Profiler.Section.MESSAGES, t);
             } catch(Exception e) {
                 createErrorWindow(e);
             }
+            Profiler.lap(Profiler.Section.TICK, tickStart);
+            if(Profiler.isRecording()) reportCounts();
+            Profiler.endTick();
+        }
+        
+        if(this.recorder != null) {
+            try {
+                this.recorder.endTick(this);
+            } catch(IOException ioe) {
+                this.recordingFailed(ioe);
+            }
+        }
+        
+        if(this.renderFrames != null) {
+            long t = Profiler.start();
+            RenderFrame back = this.renderFrames.getBack();
+            this.snapshot(back);
+            back.publishTime = System.nanoTime();
+            this.renderFrames.publish();
+            Profiler.lap(Profiler.Section.SNAPSHOT, t);
+        }
+    }
+    
+    /**
+     * Gets the frames handed from the game thread to the canvas. The game
+     * only starts filling them in once this has been called.
+     * @return The triple buffer holding the render frames.
+     **/
+    public TripleBuffer<RenderFrame> getRenderFrames() {
+        if(this.renderFrames == null) this.renderFrames = new TripleBuffer<RenderFrame>(new RenderFrame(), new RenderFrame(), new RenderFrame());
+        return this.renderFrames;
+    }
+    
+    /**
+     * Fills a render frame with everything the canvas needs to draw this tick.
+     * @param frame The frame to fill.
+     **/
+    private void snapshot(RenderFrame frame) {
+        frame.clear();
+        frame.started = Globals.started;
+        frame.deathScreen = Globals.deathScreen;
+        frame.storeOpen = Globals.storeOpen;
+        frame.levelScreenOpen = Globals.levelScreenOpen;
+        frame.waveInProgress = Globals.waveInProgress;
+        frame.nextWaveIn = Globals.nextWave - Globals.gameTime.getElapsedMillis();
+        frame.waveNumber = this.wave.getWaveNumber();
+        if(!Globals.started || Globals.deathScreen || Globals.storeOpen || Globals.levelScreenOpen) return;
+        
+        // Only what the camera can see is drawn.
+        Globals.CAMERA.follow(this.player.getCenterX(), this.player.getCenterY());
+        frame.setView(Globals.CAMERA);
+        
+        { // Begin drawing the game world.
+            SpriteSystem.draw(Globals.ENTITIES, frame, true);
+            frame.itemsEnd = frame.getOpCount();
+            
+            Iterator<Weapon> it = this.player.getWeaponsMap().values().iterator();
+            while(it.hasNext()) {
+                Weapon w = it.next();
+                w.drawAmmo(frame);
+            }
+            SpriteSystem.draw(Globals.ENTITIES, frame, false);
+            this.player.draw(frame);
+            frame.ammoEnd = frame.getOpCount();
+            
+            AnimationSystem.draw(Globals.ENTITIES, frame);
+            this.wave.draw(frame);
+        } // End drawing the game world.
+        LightSystem.draw(Globals.ENTITIES, frame);
+        { // Begin copying the player's stats.
+            frame.playerX = this.player.getCenterX();
+            frame.playerY = this.player.getCenterY();
+            frame.playerPrevX = this.player.getPrevCenterX();
+            frame.playerPrevY = this.player.getPrevCenterY();
+            frame.playerTheta = this.player.getTheta();
+            frame.nightVision = this.player.hasEffect(NightVision.EFFECT_NAME);
+            frame.poisoned = this.player.hasEffect("Poison");
+            frame.health = this.player.getHealth();
+            frame.maxHealth = this.player.getMaxHealth();
+            frame.exp = this.player.getExp();
+            frame.nextLevelExp = this.player.getNextLevelExp();
+            frame.level = this.player.getLevel();
+            frame.lives = this.player.getLives();
+            frame.cash = this.player.getCash();
+            frame.ammoLeft = this.player.getWeapon().getAmmoLeft();
+            frame.maxAmmo = this.player.getWeapon().getMaxAmmo();
+        } // End copying the player's stats.
+        { // Begin adding the HUD.
+            Iterator<StatusEffect> it = this.player.getStatusEffects().values().iterator();
+            while(it.hasNext()) {
+                StatusEffect status = it.next();
+                if(status.isActive() && (status.getImage() != null)) {
+                    // Based on the time until the status effect's expiration, calculate the icon's opacity.
+                    double opacity = 1.0f;
+                    if(Globals.gameTime.getElapsedMillis() >= (status.getEndTime() - 3000))
+                        opacity = ((double)status.getEndTime() - (double)Globals.gameTime.getElapsedMillis()) / 3000;
+                    frame.addStatus(status.getImage(), (float)opacity);
+                }
+            }
+            synchronized(Globals.GAME_MESSAGES) {
+                Iterator<Message> mit = Globals.GAME_MESSAGES.iterator();
+                while(mit.hasNext()) {
+                    Message m = mit.next();
+                    if(m.isAlive()) m.draw(frame);
+                }
+            }
+            this.loadout.snapshot(frame);
+        } // End adding the HUD.
+    }
+    
+    /**
+     * Writes the whole game state, so that loading it later picks the game up
+     * exactly where it left off.
+     * @param out The buffer to write to.
+     **/
+    public void saveState(StateBuffer out) {
+        out.putInt(GZSFramework.STATE_MAGIC);
+        out.putInt(GZSFramework.STATE_VERSION);
+        Globals.gameTime.saveState(out);
+        out.putBoolean(Globals.started);
+        out.putBoolean(Globals.paused);
+        out.putBoolean(Globals.storeOpen);
+        out.putBoolean(Globals.levelScreenOpen);
+        out.putBoolean(Globals.deathScreen);
+        out.putBoolean(Globals.waveInProgress);
+        out.putLong(Globals.nextWave);
+        for(int i = 0; i < Globals.keys.length; i++) out.putBoolean(Globals.keys[i]);
+        for(int i = 0; i < Globals.buttons.length; i++) out.putBoolean(Globals.buttons[i]);
+        out.putInt(Globals.mousePos.x);
+        out.putInt(Globals.mousePos.y);
+        synchronized(Globals.GAME_MESSAGES) {
+            out.putInt(Globals.GAME_MESSAGES.size());
+            for(Message m : Globals.GAME_MESSAGES) m.saveState(out);
+        }
+        
+        out.putInt(this.currentWave);
+        this.levelScreen.saveState(out);
+        this.player.saveState(out);
+        this.wave.saveState(out);
+        Weapon [] weapons = Globals.getWeapons();
+        for(int i = 0; i < weapons.length; i++) weapons[i].saveState(out, this.wave.getZombies());
+        this.itemFactory.saveState(out);
+        Globals.ENTITIES.saveState(out);
+        
+        out.putLong(Globals.WAVE_RANDOM.getState());
+        out.putLong(Globals.ZOMBIE_RANDOM.getState());
+        out.putLong(Globals.WEAPON_RANDOM.getState());
+        out.putLong(Globals.ITEM_RANDOM.getState());
+    }
+    
+    /**
+     * Saves the game to a file, to be picked up later with loadGame().
+     * @param file The file to save to. It is overwritten if it exists.
+     * @throws IOException If the file could not be written.
+     **/
+    public void saveGame(File file) throws IOException {
+        if(this.saveBuffer == null) this.saveBuffer = new StateBuffer();
+        this.saveBuffer.clear();
+        this.saveState(this.saveBuffer);
+        this.saveBuffer.flip();
+        FileChannel channel = new FileOutputStream(file).getChannel();
+        try {
+            ByteBuffer bytes = this.saveBuffer.getBuffer();
+            while(bytes.hasRemaining()) channel.write(bytes);
+        } finally {
+            channel.close();
+        }
+    }
+    
+    /**
+     * Replaces the game with one saved by saveGame().
+     * @param file The file to load.
+     * @throws IOException If the file could not be read or is not a saved game.
+     **/
+    public void loadGame(File file) throws IOException {
+        if(this.saveBuffer == null) this.saveBuffer = new StateBuffer();
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            this.saveBuffer.load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            raf.close();
+        }
+        try {
+            this.loadState(this.saveBuffer);
+        } catch(IllegalArgumentException iae) {
+            throw new IOException(file.getName() + ": " + iae.getMessage());
+        } catch(BufferUnderflowException bue) {
+            throw new IOException(file.getName() + " is incomplete.");
+        }
+        if(this.recorder != null) {
+            try {
+                this.recorder.stateLoaded(this);
+            } catch(IOException ioe) {
+                this.recordingFailed(ioe);
+            }
+        }
+    }
+    
+    private void quickSave() {
+        if(!Globals.deathScreen && !Globals.crashed) {
+            try {
+                this.saveGame(GZSFramework.SAVE_FILE);
+                synchronized(Globals.GAME_MESSAGES) { Globals.GAME_MESSAGES.add(new Message("Game saved.", 3000)); }
+            } catch(IOException ioe) {
+                System.out.println("Could not save game: " + ioe.getMessage());
+            }
+        }
+    }
+    
+    private void quickLoad() {
+        if(!Globals.crashed && GZSFramework.SAVE_FILE.exists()) {
+            try {
+                this.loadGame(GZSFramework.SAVE_FILE);
+                Sounds.FLAMETHROWER.stop();
+            } catch(IOException ioe) {
+                System.out.println("Could not load game: " + ioe.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Replaces the game state with one written by saveState(). The entity
+     * world is read after everything that holds handles into it, so the
+     * entities made for the blank zombies and items that are read into are
+     * thrown away with the rest.
+     * @param in The buffer to read from.
+     **/
+    public void loadState(StateBuffer in) {
+        if(in.getInt() != GZSFramework.STATE_MAGIC) throw new IllegalArgumentException("Not a saved game state.");
+        int version = in.getInt();
+        if(version != GZSFramework.STATE_VERSION) throw new IllegalArgumentException("Saved game state version " + version + " is not supported.");
+        Globals.gameTime.loadState(in);
+        Globals.started = in.getBoolean();
+        Globals.paused = in.getBoolean();
+        Globals.storeOpen = in.getBoolean();
+        Globals.levelScreenOpen = in.getBoolean();
+        Globals.deathScreen = in.getBoolean();
+        Globals.waveInProgress = in.getBoolean();
+        Globals.nextWave = in.getLong();
+        for(int i = 0; i < Globals.keys.length; i++) Globals.keys[i] = in.getBoolean();
+        for(int i = 0; i < Globals.buttons.length; i++) Globals.buttons[i] = in.getBoolean();
+        Globals.mousePos.x = in.getInt();
+        Globals.mousePos.y = in.getInt();
+        synchronized(Globals.GAME_MESSAGES) {
+            Globals.GAME_MESSAGES.clear();
+            int messages = in.getInt();
+            for(int i = 0; i < messages; i++) {
+                Message m = new Message("", 0);
+                m.loadState(in);
+                Globals.GAME_MESSAGES.add(m);
+            }
         }
+        
+        this.currentWave = in.getInt();
+        this.levelScreen.loadState(in);
+        this.player.loadState(in);
+        this.wave.loadState(in);
+        Weapon [] weapons = Globals.getWeapons();
+        for(int i = 0; i < weapons.length; i++) weapons[i].loadState(in, this.wave.getZombies());
+        this.itemFactory.loadState(in);
+        Globals.ENTITIES.loadState(in);
+        this.wave.restoreAnimations();
+        this.loadout.setCurrentWeapon(this.player.getCurrentWeaponName());
+        
+        Globals.WAVE_RANDOM.setSeed(in.getLong());
+        Globals.ZOMBIE_RANDOM.setSeed(in.getLong());
+        Globals.WEAPON_RANDOM.setSeed(in.getLong());
+        Globals.ITEM_RANDOM.setSeed(in.getLong());
+    }
+    
+    /**
+     * Gives the profiler this tick's counts of the things that take time to
+     * update and draw.
+     **/
+    private void reportCounts() {
+        Profiler.count("Zombies", this.wave.getZombies().size());
+        Profiler.count("Lights", Globals.ENTITIES.count(EntityWorld.POSITION | EntityWorld.LIGHT));
+        Profiler.count("Sound Voices", Sounds.getPlayingVoices());
+        Profiler.count("Image Cache KB", (int)(AssetCache.getResidentBytes() / 1024));
+        Weapon [] weapons = {Globals.HANDGUN, Globals.ASSAULT_RIFLE, Globals.SHOTGUN, Globals.FLAMETHROWER,
+                             Globals.GRENADE, Globals.LANDMINE, Globals.FLARE, Globals.LASERWIRE,
+                             Globals.TURRETWEAPON, Globals.TELEPORTER};
+        for(int i = 0; i < weapons.length; i++) Profiler.count(weapons[i].getName(), weapons[i].getParticleCount());
     }
     
     private void createWave() {
         try {
+            this.wave.dispose();
             this.wave = new ZombieWave(this.currentWave);
             this.currentWave++;
             Globals.waveInProgress = true;
@@ -432,9 +1028,28 @@ public class GZSFramework {
     }
     
     public static BufferedImage loadImage(String filename) {
+        // Use the copy decoded while the game was starting up, if there is one.
+        BufferedImage preloaded = AssetLoader.takeImage(filename);
+        return ((preloaded != null)?preloaded:GZSFramework.decodeImage(filename));
+    }
+    
+    /**
+     * Reads an image from the game's resources, or from disk if it isn't one.
+     * Images in the asset bundle are copied out of it instead of being decoded.
+     * @param filename The path of the image.
+     * @return The image, converted to ARGB, or null if it couldn't be read.
+     **/
+    public static BufferedImage decodeImage(String filename) {
+        AssetBundle bundle = AssetBundle.get();
+        if(bundle != null) {
+            BufferedImage packed = bundle.getImage(filename);
+            if(packed != null) return packed;
+        }
         try {
             // Create a new BufferedImage from the file that supports transparency.
-            BufferedImage bi = ImageIO.read(GZSFramework.class.getResource(filename));
+            // Images that aren't part of the game, such as ones named in a data file, are read from disk.
+            URL url = GZSFramework.class.getResource(filename);
+            BufferedImage bi = ((url != null)?ImageIO.read(url):ImageIO.read(new File(filename)));
             BufferedImage buffer = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_INT_ARGB);
             Graphics2D g2d = (Graphics2D)buffer.createGraphics();
             g2d.drawImage(bi, 0, 0, null);
@@ -447,25 +1062,79 @@ public class GZSFramework {
         }
     }
     
+    /**
+     * Creates a translucent image in the format the screen draws fastest,
+     * or a plain ARGB image when there is no screen.
+     * @param width The width of the image.
+     * @param height The height of the image.
+     * @return The new, fully transparent image.
+     **/
+    public static BufferedImage createCompatibleImage(int width, int height) {
+        if(GraphicsEnvironment.isHeadless()) return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        return gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+    
     public void createErrorWindow(Exception e) {
-        ErrorWindow error = new ErrorWindow(e);
         Globals.crashed = true;
+        if(frame == null) {
+            // Running headless, so there's no window to show the error in.
+            e.printStackTrace();
+            return;
+        }
+        ErrorWindow error = new ErrorWindow(e);
         frame.getContentPane().removeAll();
         frame.add(error);
         frame.pack();
         frame.setVisible(true);
     }
     
+    /**
+     * Creates the game loop. The simulation advances in fixed steps of
+     * Globals.TICK_NANOS nanoseconds no matter how long a frame takes to
+     * draw, and each tick publishes a render frame.
+     * 
+     * With active rendering, the frames are drawn on a render thread of their
+     * own, so drawing one frame overlaps with running the next tick. The
+     * render thread works out how far past its tick each frame is from when
+     * the frame was published, so moving objects can be drawn between their
+     * last two positions. When the game is drawn through Swing, the game
+     * thread asks for a repaint after each batch of ticks instead.
+     **/
     private void initializeThread() {
         Globals.animation = new Runnable() {
             @Override
             public void run() {
-                Globals.running = true;
+                final long tickNanos = Globals.TICK_NANOS;
+                final long frameNanos = ((Globals.MAX_FRAME_RATE > 0)?(1000000000L / Globals.MAX_FRAME_RATE):0);
+                final long maxBacklog = tickNanos * Globals.MAX_TICKS_PER_FRAME;
+                long lastTime = System.nanoTime();
+                long accumulator = 0;
                 while (Globals.running) {
                     try {
-                        update();
-                        canvas.repaint();
-                        Thread.sleep(Globals.SLEEP_TIME);
+                        long frameStart = System.nanoTime();
+                        accumulator += (frameStart - lastTime);
+                        lastTime = frameStart;
+                        // If we fell too far behind, drop the time instead of trying to catch up on all of it.
+                        if(accumulator > maxBacklog) accumulator = maxBacklog;
+                        
+                        while(accumulator >= tickNanos) {
+                            update();
+                            accumulator -= tickNanos;
+                        }
+                        
+                        long wait;
+                        if(renderer != null) {
+                            // The render thread draws the frames, so just sleep until the next tick is due.
+                            wait = (frameStart + (tickNanos - accumulator)) - System.nanoTime();
+                        } else {
+                            Globals.interpolation = (double)accumulator / (double)tickNanos;
+                            canvas.repaint();
+                            // Sleep until the next frame is due. Any ticks that come due in the meantime are run next frame.
+                            wait = ((frameNanos > 0)?((frameStart + frameNanos) - System.nanoTime()):0);
+                        }
+                        if(wait > 0) Thread.sleep((wait / 1000000L), (int)(wait % 1000000L));
+                        else Thread.yield();
                     } catch (InterruptedException ie) {
                         System.out.println("Error occurred in main thread...");
                         createErrorWindow(ie);
@@ -473,13 +1142,51 @@ public class GZSFramework {
                         createErrorWindow(e);
                     }
                 }
+                stopRecording();
                 TinySound.shutdown();
                 System.exit(0);
             }
         };
+        if(renderer != null) {
+            this.renderLoop = new Runnable() {
+                @Override
+                public void run() {
+                    final long tickNanos = Globals.TICK_NANOS;
+                    final long frameNanos = ((Globals.MAX_FRAME_RATE > 0)?(1000000000L / Globals.MAX_FRAME_RATE):0);
+                    TripleBuffer<RenderFrame> frames = getRenderFrames();
+                    while (Globals.running) {
+                        try {
+                            long frameStart = System.nanoTime();
+                            RenderFrame frame = frames.getFront();
+                            double interpolation = (double)(frameStart - frame.publishTime) / (double)tickNanos;
+                            if(interpolation > 1.0) interpolation = 1.0;
+                            else if(interpolation < 0.0) interpolation = 0.0;
+                            renderer.present(frame, interpolation);
+                            
+                            // Sleep until the next frame is due.
+                            if(frameNanos > 0) {
+                                long wait = (frameStart + frameNanos) - System.nanoTime();
+                                if(wait > 0) Thread.sleep((wait / 1000000L), (int)(wait % 1000000L));
+                            } else Thread.yield();
+                        } catch (InterruptedException ie) {
+                            System.out.println("Error occurred in render thread...");
+                            createErrorWindow(ie);
+                        } catch(Exception e) {
+                            createErrorWindow(e);
+                        }
+                    }
+                }
+            };
+        }
     }
     
     private void startThread() {
-        new Thread(Globals.animation).start();
+        Globals.running = true;
+        new Thread(Globals.animation, "Game").start();
+        if(this.renderLoop != null) {
+            Thread render = new Thread(this.renderLoop, "Render");
+            render.setDaemon(true); // The game thread exits the program when the game stops.
+            render.start();
+        }
     }
 }
@@ -19,9 +19,16 @@
  **/
 package genericzombieshooter;
 
+import genericzombieshooter.misc.AssetLoader;
 import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Images;
+import genericzombieshooter.structures.components.LoadingScreen;
+import java.awt.Color;
 import java.awt.Cursor;
+import java.awt.DisplayMode;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.GridBagLayout;
 import java.awt.Toolkit;
 import javax.swing.JApplet;
 import javax.swing.JFrame;
@@ -36,22 +43,72 @@ public class GenericZombieShooter extends JApplet {
         // Initialize TinySound before everything else.
         TinySound.init();
         
-        // Create the frame and add the framework's canvas to it.
+        // Start decoding the images and sounds in the background.
+        AssetLoader.start();
+        
+        // Show the loading screen first. Globals isn't touched until it's up, since creating it loads the assets,
+        // so the same settings as Globals.FULL_SCREEN and Globals.ACTIVE_RENDERING are read here.
         JFrame frame = new JFrame("Generic Zombie Shooter v" + Globals.VERSION);
-        GZSFramework framework = new GZSFramework(frame);
+        GraphicsDevice device = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+        boolean fullScreen = Boolean.getBoolean("gzs.fullScreen") && !Boolean.getBoolean("gzs.swingRendering") && device.isFullScreenSupported();
+        if(fullScreen) {
+            // Center the game on the screen, surrounded by black.
+            frame.setUndecorated(true);
+            frame.getContentPane().setLayout(new GridBagLayout());
+            frame.getContentPane().setBackground(Color.BLACK);
+        }
+        LoadingScreen loading = new LoadingScreen();
+        frame.add(loading);
+        
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setResizable(false);
+        if(fullScreen) {
+            device.setFullScreenWindow(frame);
+            DisplayMode mode = GenericZombieShooter.findDisplayMode(device);
+            if(mode != null) device.setDisplayMode(mode);
+        } else {
+            frame.pack();
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+        }
         
-        frame.add(framework.canvas);
+        // Create the game while the rest of the assets stream in, then swap its canvas in for the loading screen.
+        GZSFramework framework = new GZSFramework(frame);
+        loading.stop();
+        frame.remove(loading);
+        frame.add(framework.getDisplay());
+        frame.validate();
         
         // Set the custom cursor to the crosshair image.
         Toolkit toolkit = Toolkit.getDefaultToolkit();
         Cursor cursor = toolkit.createCustomCursor(Images.CROSSHAIR, Globals.mousePos, "Crosshair");
         
         frame.setCursor(cursor);
-        
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setLocationRelativeTo(null);
-        frame.setResizable(false);
-        frame.pack();
-        frame.setVisible(true);
+        framework.getDisplay().requestFocus();
+    }
+    
+    /**
+     * Finds the smallest display mode the game fits in, preferring the highest
+     * refresh rate at that size.
+     * @param device The screen to search the display modes of.
+     * @return The display mode to switch to, or null to keep the current one.
+     **/
+    private static DisplayMode findDisplayMode(GraphicsDevice device) {
+        if(!device.isDisplayChangeSupported()) return null;
+        DisplayMode current = device.getDisplayMode();
+        DisplayMode best = null;
+        DisplayMode [] modes = device.getDisplayModes();
+        for(int i = 0; i < modes.length; i++) {
+            DisplayMode mode = modes[i];
+            if((mode.getWidth() < Globals.W_WIDTH) || (mode.getHeight() < Globals.W_HEIGHT)) continue;
+            if(mode.getBitDepth() != current.getBitDepth()) continue;
+            if(best == null) best = mode;
+            else {
+                int area = mode.getWidth() * mode.getHeight();
+                int bestArea = best.getWidth() * best.getHeight();
+                if((area < bestArea) || ((area == bestArea) && (mode.getRefreshRate() > best.getRefreshRate()))) best = mode;
+            }
+        }
+        return best;
     }
 }
@@ -0,0 +1,284 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter;
+
+import genericzombieshooter.actors.Player;
+import genericzombieshooter.actors.Zombie;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.misc.ReplayPlayer;
+import genericzombieshooter.structures.weapons.Weapon;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Runs the game simulation with no window, no sound and no game thread. Input
+ * comes from a script instead of the keyboard and mouse, and ticks are run back
+ * to back as fast as the CPU allows.
+ * 
+ * Usage: HeadlessSimulation [--waves N] [--start-wave N] [--seed N]
+ *                           [--max-ticks N] [--invulnerable] [--all-weapons]
+ *                           [--record FILE] [--replay FILE [--seek TICK]]
+ *                           [--load-state FILE] [--save-state FILE]
+ * 
+ * --load-state starts from a game saved with --save-state (or quick saved in
+ * the game) instead of the first wave, so a heavy late wave can be profiled
+ * without playing up to it.
+ * 
+ * A replay is played to the end in place of the script, and prints the same
+ * final state as the run that recorded it.
+ * 
+ * @author Darin Beaudreau
+ */
+public class HeadlessSimulation {
+    /**
+     * Supplies the player's input for each tick of a headless simulation.
+     **/
+    public interface InputScript {
+        /**
+         * Called before every tick to set Globals.keys, Globals.buttons and
+         * Globals.mousePos for that tick.
+         * @param framework The framework being simulated.
+         * @param tick The number of the tick about to run.
+         **/
+        void update(GZSFramework framework, long tick);
+    }
+    
+    /**
+     * Stands in the middle of the screen, backs away from anything that gets
+     * too close and shoots at the nearest zombie.
+     **/
+    public static class AutoAimScript implements InputScript {
+        private static final double RETREAT_DISTANCE = 100;
+        private static final long WEAPON_SWITCH_TICKS = 250;
+        
+        private boolean cycleWeapons;
+        private int weaponIndex;
+        
+        /**
+         * @param cycleWeapons Whether to switch to the next owned weapon every few seconds.
+         **/
+        public AutoAimScript(boolean cycleWeapons) {
+            this.cycleWeapons = cycleWeapons;
+            this.weaponIndex = 0;
+        }
+        
+        @Override
+        public void update(GZSFramework framework, long tick) {
+            Player player = framework.getPlayer();
+            for(int i = 0; i < Globals.keys.length; i++) Globals.keys[i] = false;
+            
+            if(this.cycleWeapons && (tick % AutoAimScript.WEAPON_SWITCH_TICKS) == 0) {
+                Weapon [] weapons = {Globals.HANDGUN, Globals.ASSAULT_RIFLE, Globals.SHOTGUN, Globals.FLAMETHROWER,
+                                     Globals.GRENADE, Globals.LANDMINE, Globals.FLARE, Globals.LASERWIRE,
+                                     Globals.TURRETWEAPON, Globals.TELEPORTER};
+                for(int i = 0; i < weapons.length; i++) {
+                    Weapon w = weapons[(this.weaponIndex + i) % weapons.length];
+                    if(player.hasWeapon(w.getName())) {
+                        framework.releaseFire();
+                        framework.selectWeapon(w.getName());
+                        framework.addAmmo(w.getName(), w.getMaxAmmo());
+                        this.weaponIndex = (this.weaponIndex + i + 1) % weapons.length;
+                        break;
+                    }
+                }
+            }
+            
+            // Find the nearest zombie.
+            Zombie target = null;
+            double targetDist = Double.MAX_VALUE;
+            List<Zombie> zombies = framework.getWave().getZombies();
+            Iterator<Zombie> it = zombies.iterator();
+            while(it.hasNext()) {
+                Zombie z = it.next();
+                if(z.isDead()) continue;
+                double dist = z.distance(player.getCenterX(), player.getCenterY());
+                if(dist < targetDist) {
+                    target = z;
+                    targetDist = dist;
+                }
+            }
+            
+            if(target != null) {
+                // The mouse is on the screen, so aim at where the target is in the camera's view.
+                Globals.mousePos.x = (int)(target.getX() - Globals.CAMERA.getX());
+                Globals.mousePos.y = (int)(target.getY() - Globals.CAMERA.getY());
+                
+                // Non-automatic weapons need the button let go between shots.
+                if(Globals.buttons[0] && !player.getWeapon().isAutomatic() && player.getWeapon().hasFired()) framework.releaseFire();
+                else Globals.buttons[0] = true;
+                
+                // Back away from the target, but stay in the arena.
+                if(targetDist < AutoAimScript.RETREAT_DISTANCE) {
+                    if((target.getY() > player.getCenterY()) && (player.y > 0)) Globals.keys[0] = true;
+                    if((target.getX() > player.getCenterX()) && (player.x > 0)) Globals.keys[1] = true;
+                    if((target.getY() < player.getCenterY()) && ((player.y + player.height) < Globals.ARENA.getHeight())) Globals.keys[2] = true;
+                    if((target.getX() < player.getCenterX()) && ((player.x + player.width) < Globals.ARENA.getWidth())) Globals.keys[3] = true;
+                }
+            } else if(Globals.buttons[0]) framework.releaseFire();
+        }
+    }
+    
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        
+        int waves = 10;
+        int startWave = 1;
+        long maxTicks = 0;
+        boolean invulnerable = false;
+        boolean allWeapons = false;
+        String record = null;
+        String replayFile = null;
+        long seek = 0;
+        String loadState = null;
+        String saveState = null;
+        try {
+            for(int i = 0; i < args.length; i++) {
+                if(args[i].equals("--waves")) waves = Integer.parseInt(args[++i]);
+                else if(args[i].equals("--start-wave")) startWave = Integer.parseInt(args[++i]);
+                else if(args[i].equals("--seed")) Globals.seed(Long.parseLong(args[++i]));
+                else if(args[i].equals("--max-ticks")) maxTicks = Long.parseLong(args[++i]);
+                else if(args[i].equals("--invulnerable")) invulnerable = true;
+                else if(args[i].equals("--all-weapons")) allWeapons = true;
+                else if(args[i].equals("--record")) record = args[++i];
+                else if(args[i].equals("--replay")) replayFile = args[++i];
+                else if(args[i].equals("--seek")) seek = Long.parseLong(args[++i]);
+                else if(args[i].equals("--load-state")) loadState = args[++i];
+                else if(args[i].equals("--save-state")) saveState = args[++i];
+                else throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        } catch(RuntimeException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Usage: HeadlessSimulation [--waves N] [--start-wave N] [--seed N]");
+            System.out.println("                          [--max-ticks N] [--invulnerable] [--all-weapons]");
+            System.out.println("                          [--record FILE] [--replay FILE [--seek TICK]]");
+            System.out.println("                          [--load-state FILE] [--save-state FILE]");
+            System.exit(2);
+        }
+        
+        ReplayPlayer replay = null;
+        if(replayFile != null) {
+            try {
+                replay = new ReplayPlayer(new File(replayFile));
+            } catch(IOException ioe) {
+                System.out.println("Could not open replay: " + ioe.getMessage());
+                System.exit(2);
+            }
+            Globals.seed(replay.getSeed());
+        }
+        
+        System.out.println("Seed: " + Globals.getSeed());
+        GZSFramework framework = new GZSFramework();
+        Player player = framework.getPlayer();
+        framework.setCurrentWave(startWave);
+        if(allWeapons) {
+            player.addWeapon(Globals.ASSAULT_RIFLE);
+            player.addWeapon(Globals.SHOTGUN);
+            player.addWeapon(Globals.FLAMETHROWER);
+            player.addWeapon(Globals.GRENADE);
+            player.addWeapon(Globals.LANDMINE);
+            player.addWeapon(Globals.FLARE);
+            player.addWeapon(Globals.LASERWIRE);
+            player.addWeapon(Globals.TURRETWEAPON);
+            player.addWeapon(Globals.TELEPORTER);
+        }
+        InputScript script = new AutoAimScript(allWeapons);
+        
+        Globals.started = true;
+        Globals.gameTime.reset();
+        Globals.nextWave = Globals.gameTime.getElapsedMillis() + 3000;
+        
+        if(loadState != null) {
+            try {
+                framework.loadGame(new File(loadState));
+            } catch(IOException ioe) {
+                System.out.println("Could not load game: " + ioe.getMessage());
+                System.exit(2);
+            }
+            System.out.println("Loaded " + loadState + " on wave " + framework.getWave().getWaveNumber() + ".");
+        }
+        
+        long tick = 0;
+        if(replay != null) {
+            // The replay's keyframes hold the whole game state, so the setup above is replaced.
+            framework.playReplay(replay, seek);
+            tick = replay.getTick();
+            System.out.println("Replaying " + replayFile + " from tick " + tick + " of " + replay.getTickCount() + ".");
+        } else if(record != null) {
+            try {
+                framework.startRecording(new File(record));
+            } catch(IOException ioe) {
+                System.out.println("Could not write replay: " + ioe.getMessage());
+                System.exit(2);
+            }
+        }
+
+        int wavesFinished = 0;
+        boolean inWave = false;
+        long waveStartTick = 0;
+        long waveStartTime = 0;
+        int waveStartKills = 0;
+        long start = System.nanoTime();
+        while(!Globals.crashed) {
+            if(replay != null) {
+                // Past the end of the replay the player would take over, so stop at its last tick.
+                if(!framework.isReplaying() || (replay.getTick() >= replay.getTickCount())) break;
+                framework.update();
+            } else {
+                if((wavesFinished >= waves) || Globals.deathScreen) break;
+                if((maxTicks > 0) && (tick >= maxTicks)) break;
+                if(invulnerable) framework.makeInvulnerable(1000);
+                script.update(framework, tick);
+                framework.update();
+            }
+            tick++;
+            
+            if(!inWave && Globals.waveInProgress) {
+                inWave = true;
+                waveStartTick = tick;
+                waveStartTime = System.nanoTime();
+                waveStartKills = player.killCount;
+            } else if(inWave && !Globals.waveInProgress) {
+                inWave = false;
+                wavesFinished++;
+                long waveTicks = tick - waveStartTick;
+                double waveMillis = (System.nanoTime() - waveStartTime) / 1000000.0;
+                System.out.println(String.format("Wave %d: %d ticks, %d kills, %.1f ms (%.0f ticks/s)",
+                                   framework.getWave().getWaveNumber(), waveTicks, (player.killCount - waveStartKills),
+                                   waveMillis, ((waveTicks * 1000.0) / Math.max(waveMillis, 0.001))));
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1000000000.0;
+        framework.stopRecording();
+        if(saveState != null) {
+            try {
+                framework.saveGame(new File(saveState));
+            } catch(IOException ioe) {
+                System.out.println("Could not save game: " + ioe.getMessage());
+            }
+        }
+        
+        System.out.println(String.format("%d ticks (%.1f s of game time) in %.2f s: %.0f ticks/s", tick,
+                           (tick / (double)Globals.TICK_RATE), seconds, (tick / Math.max(seconds, 0.001))));
+        // Enough of the final state to tell two runs with the same seed apart if they ever diverge.
+        System.out.println(String.format("Final state: %d kills, $%d, %d exp, player at (%.4f, %.4f)", player.killCount,
+                           player.getCash(), player.getExp(), player.x, player.y));
+        if(Globals.deathScreen) System.out.println("Player died on wave " + framework.getWave().getWaveNumber() + ".");
+        System.exit(Globals.crashed ? 1 : 0);
+    }
+}
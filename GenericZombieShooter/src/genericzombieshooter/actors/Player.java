@@ -21,7 +21,11 @@ import genericzombieshooter.misc.Images;
 import genericzombieshooter.misc.Sounds;
 import genericzombieshooter.structures.LightSource;
 import genericzombieshooter.structures.Message;
+import genericzombieshooter.structures.RenderFrame;
+import genericzombieshooter.structures.SpriteAtlas;
+import genericzombieshooter.structures.StateBuffer;
 import genericzombieshooter.structures.StatusEffect;
+import genericzombieshooter.structures.entities.EntityFactory;
 import genericzombieshooter.structures.items.ExpMultiplier;
 import genericzombieshooter.structures.items.Invulnerability;
 import genericzombieshooter.structures.items.NightVision;
@@ -29,13 +33,14 @@ import genericzombieshooter.structures.items.SpeedUp;
 import genericzombieshooter.structures.items.UnlimitedAmmo;
 import genericzombieshooter.structures.weapons.Weapon;
 import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 
 /**
  * Represents the player character.
@@ -54,12 +59,16 @@ public class Player extends Rectangle2D.Double {
     private static final double DAMAGE_INC = 0.2;
     public static final int SPEED_ID = 3;
     private static final double SPEED_INC = 0.2;
+    private static final int SPRITE_ANGLES = 128; // The player follows the mouse, so it gets finer rotation steps than zombies.
     
     // Member variables.
     private AffineTransform af;
     private double theta;
+    private double prevX; // Position at the start of the last tick, used to interpolate drawing.
+    private double prevY;
     private BufferedImage img;
-    private LightSource light;
+    private SpriteAtlas atlas; // The player's sprite, pre-rotated.
+    private int light; // The handle of the light the player carries.
     
     private int health;
     private int maxHealth;
@@ -94,7 +103,16 @@ public class Player extends Rectangle2D.Double {
         super(x_, y_, w_, h_);
         this.af = new AffineTransform();
         this.theta = 0;
+        this.prevX = x_;
+        this.prevY = y_;
         this.img = Images.PLAYER;
+        {
+            // The player's shadow is baked into the pre-rotated sprite.
+            int w = this.img.getWidth();
+            int h = this.img.getHeight();
+            Rectangle shadow = new Rectangle((5 - (w / 2)), (11 - (h / 2)), (w - 10), (h - 12));
+            this.atlas = SpriteAtlas.get(this.img, w, h, 1, shadow, Player.SPRITE_ANGLES);
+        }
         
         {
             int xLoc = (int)this.getCenterX();
@@ -105,7 +123,8 @@ public class Player extends Rectangle2D.Double {
                                        new Color(0.0f, 0.0f, 0.0f, 0.75f),
                                        new Color(0.0f, 0.0f, 0.0f, 0.9f),
                                        Color.BLACK};
-            this.light = new LightSource(new Point2D.Double(xLoc, yLoc), 0, intensity, distance, colors);
+            int i = EntityFactory.createLight(Globals.ENTITIES, xLoc, yLoc, new LightSource(intensity, distance, colors), 0, true);
+            this.light = Globals.ENTITIES.getHandle(i);
         }
 
         this.health = Player.DEFAULT_HEALTH;
@@ -142,8 +161,9 @@ public class Player extends Rectangle2D.Double {
     // Getter/Setter methods.
     public AffineTransform getTransform() { return this.af; }
     public double getTheta() { return this.theta; }
+    public double getPrevCenterX() { return (this.prevX + (this.width / 2)); }
+    public double getPrevCenterY() { return (this.prevY + (this.height / 2)); }
     public BufferedImage getImage() { return this.img; }
-    public LightSource getLightSource() { return this.light; }
 
     public int getHealth() { return this.health; }
     public int getMaxHealth() { return this.maxHealth; }
@@ -245,9 +265,13 @@ public class Player extends Rectangle2D.Double {
         this.speed = Player.MOVE_SPEED;
         this.experienceMultiplier = 1;
         this.currentWeaponName = Globals.HANDGUN.getName();
-        this.x = (Globals.W_WIDTH / 2) - (this.width / 2);
-        this.y = (Globals.W_HEIGHT / 2) - (this.height / 2);
-        this.light.move(new Point2D.Double((int)this.getCenterX(), (int)this.getCenterY()));
+        // Start in the middle of the arena, or the nearest open spot to it if there's an obstacle there.
+        Point2D.Double start = Globals.OBSTACLES.findOpen((Globals.ARENA.getWidth() / 2), (Globals.ARENA.getHeight() / 2));
+        this.x = start.x - (this.width / 2);
+        this.y = start.y - (this.height / 2);
+        this.prevX = this.x;
+        this.prevY = this.y;
+        this.moveLight((int)this.getCenterX(), (int)this.getCenterY());
     }
     public void resetStatistics() {
         this.killCount = 0;
@@ -263,7 +287,7 @@ public class Player extends Rectangle2D.Double {
     public int setWeapon(String name) {
         if(this.weaponsMap.containsKey(name)) {
             this.currentWeaponName = name;
-            Sounds.FLAMETHROWER.getAudio().stop();
+            Sounds.FLAMETHROWER.stop();
             return 1;
         } else return 0;
     }
@@ -272,10 +296,16 @@ public class Player extends Rectangle2D.Double {
     }
     
     public void update() {
-        // Calculate the player's angle based on the mouse position.
+        // Remember where the player was so drawing can interpolate towards the new position.
+        this.prevX = this.x;
+        this.prevY = this.y;
+        
+        // Calculate the player's angle based on where the mouse is in the arena.
         double cX = this.getCenterX();
         double cY = this.getCenterY();
-        this.theta = Math.atan2((cY - Globals.mousePos.y), (cX - Globals.mousePos.x)) - Math.PI / 2;
+        double mouseX = Globals.CAMERA.toArenaX(Globals.mousePos.x);
+        double mouseY = Globals.CAMERA.toArenaY(Globals.mousePos.y);
+        this.theta = Math.atan2((cY - mouseY), (cX - mouseX)) - Math.PI / 2;
         this.rotate(this.theta);
         
         // Move the player according to which keys are being held down.
@@ -285,7 +315,7 @@ public class Player extends Rectangle2D.Double {
         
         // If the left mouse button is held down, create a new projectile.
         if(Globals.buttons[0]) {
-            Point target = new Point(Globals.mousePos);
+            Point2D.Double target = new Point2D.Double(mouseX, mouseY);
             Point2D.Double pos = new Point2D.Double((this.x + 28), (this.y + 2));
             AffineTransform.getRotateInstance(this.theta, this.getCenterX(), this.getCenterY()).transform(pos, pos);
             double theta = Math.atan2((target.x - pos.x), (target.y - pos.y));
@@ -360,18 +390,10 @@ public class Player extends Rectangle2D.Double {
         } // End resolving status effects.
     }
     
-    public void draw(Graphics2D g2d) {
+    public void draw(RenderFrame frame) {
         if(!this.blink) {
-            g2d.setTransform(this.af);
-            { // Draw player shadow.
-                int w = this.img.getWidth();
-                int h = this.img.getHeight();
-                int xPos = (int)(this.getCenterX() - (w / 2));
-                int yPos = (int)(this.getCenterY() - (h / 2) + 5);
-                g2d.setColor(new Color(0, 0, 0, 100));
-                g2d.fillOval((xPos + 5), (yPos + 6), (w - 10), (h - 12));
-            } // End drawing player shadow.
-            g2d.drawImage(this.img, (int) this.x, (int) this.y, null);
+            // Draw the player between its last two positions.
+            frame.drawSprite(this.atlas, 0, this.theta, this.getCenterX(), this.getCenterY(), this.getPrevCenterX(), this.getPrevCenterY());
         }
     }
 
@@ -391,21 +413,126 @@ public class Player extends Rectangle2D.Double {
     }
     
     public void move(int direction) {
-        if(direction == 0) y -= (this.speed + this.speedBonus);
-        else if(direction == 1) x -= (this.speed + this.speedBonus);
-        else if(direction == 2) y += (this.speed + this.speedBonus);
-        else if(direction == 3) x += (this.speed + this.speedBonus);
-        this.light.move(new Point2D.Double((int)this.getCenterX(), (int)this.getCenterY()));
+        double step = (this.speed + this.speedBonus) * Globals.TICK_SCALE;
+        double dx = 0;
+        double dy = 0;
+        if(direction == 0) dy = -step;
+        else if(direction == 1) dx = -step;
+        else if(direction == 2) dy = step;
+        else if(direction == 3) dx = step;
+        // The player can't walk into an obstacle, or off the edge of the arena.
+        if(Globals.OBSTACLES.isBlockedAt((this.getCenterX() + dx), (this.getCenterY() + dy))) return;
+        if(((this.x + dx) < 0) || ((this.x + this.width + dx) > Globals.ARENA.getWidth()) || 
+           ((this.y + dy) < 0) || ((this.y + this.height + dy) > Globals.ARENA.getHeight())) return;
+        x += dx;
+        y += dy;
+        this.moveLight((int)this.getCenterX(), (int)this.getCenterY());
     }
     
     public void move(Point2D.Double p) {
         this.x = p.x;
         this.y = p.y;
-        this.light.move(p);
+        this.moveLight(p.x, p.y);
+    }
+    
+    private void moveLight(double x_, double y_) {
+        Globals.ENTITIES.setPosition(Globals.ENTITIES.find(this.light), x_, y_);
     }
     
     public HashMap<String, StatusEffect> getStatusEffects() { return this.statusEffects; }
     
+    /**
+     * Writes the player's state. Weapons are written by name, since the
+     * weapons themselves are shared and saved separately.
+     * @param out The buffer to write to.
+     **/
+    public void saveState(StateBuffer out) {
+        out.putDouble(this.x);
+        out.putDouble(this.y);
+        out.putDouble(this.prevX);
+        out.putDouble(this.prevY);
+        out.putDouble(this.theta);
+        out.putInt(this.light);
+        
+        out.putInt(this.health);
+        out.putInt(this.maxHealth);
+        out.putDouble(this.damageBonus);
+        out.putDouble(this.speed);
+        out.putDouble(this.speedBonus);
+        out.putInt(this.cash);
+        out.putInt(this.experience);
+        out.putInt(this.experienceMultiplier);
+        out.putInt(this.level);
+        out.putInt(this.skillPoints);
+        out.putInt(this.lives);
+        out.putBoolean(this.blink);
+        out.putLong(this.nextBlinkChange);
+        
+        // The maps are written in iteration order, so putting them back in the same order gives the same iteration order.
+        out.putInt(this.statusEffects.size());
+        Iterator<Map.Entry<String, StatusEffect>> it = this.statusEffects.entrySet().iterator();
+        while(it.hasNext()) {
+            Map.Entry<String, StatusEffect> entry = it.next();
+            out.putString(entry.getKey());
+            entry.getValue().saveState(out);
+        }
+        out.putLong(this.lastPoisoned);
+        
+        out.putString(this.currentWeaponName);
+        out.putInt(this.weaponsMap.size());
+        Iterator<String> wit = this.weaponsMap.keySet().iterator();
+        while(wit.hasNext()) out.putString(wit.next());
+        
+        out.putLong(this.deathTime);
+        out.putInt(this.killCount);
+        out.putInt(this.medkitsUsed);
+        out.putInt(this.ammoCratesUsed);
+    }
+    
+    public void loadState(StateBuffer in) {
+        this.x = in.getDouble();
+        this.y = in.getDouble();
+        this.prevX = in.getDouble();
+        this.prevY = in.getDouble();
+        this.theta = in.getDouble();
+        this.rotate(this.theta);
+        this.light = in.getInt();
+        
+        this.health = in.getInt();
+        this.maxHealth = in.getInt();
+        this.damageBonus = in.getDouble();
+        this.speed = in.getDouble();
+        this.speedBonus = in.getDouble();
+        this.cash = in.getInt();
+        this.experience = in.getInt();
+        this.experienceMultiplier = in.getInt();
+        this.level = in.getInt();
+        this.skillPoints = in.getInt();
+        this.lives = in.getInt();
+        this.blink = in.getBoolean();
+        this.nextBlinkChange = in.getLong();
+        
+        this.statusEffects.clear();
+        int effects = in.getInt();
+        for(int i = 0; i < effects; i++) {
+            String name = in.getString();
+            StatusEffect status = new StatusEffect(null, 0, 0);
+            status.loadState(in);
+            this.statusEffects.put(name, status);
+        }
+        this.lastPoisoned = in.getLong();
+        
+        this.currentWeaponName = in.getString();
+        this.weaponsMap = new HashMap<String, Weapon>();
+        int weapons = in.getInt();
+        for(int i = 0; i < weapons; i++) this.addWeapon(Globals.getWeaponByName(in.getString()));
+        
+        this.deathTime = in.getLong();
+        this.killCount = in.getInt();
+        this.medkitsUsed = in.getInt();
+        this.ammoCratesUsed = in.getInt();
+    }
+    
     public void addStatusEffect(int id, String name, BufferedImage img, long duration, int value) {
         if(!this.statusEffects.containsKey(name)) this.statusEffects.put(name, new StatusEffect(img, duration, value));
         else this.statusEffects.get(name).refresh(duration);
@@ -16,13 +16,12 @@
  **/
 package genericzombieshooter.actors;
 
-import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Images;
 import genericzombieshooter.misc.Sounds;
-import genericzombieshooter.structures.Animation;
 import genericzombieshooter.structures.Explosion;
+import genericzombieshooter.structures.RenderFrame;
+import genericzombieshooter.structures.StateBuffer;
 import genericzombieshooter.structures.items.Invulnerability;
-import java.awt.Graphics2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.util.List;
@@ -34,16 +33,15 @@ import java.util.List;
  */
 public class PoisonFogZombie extends Zombie {
     // Final Variables
-    private static final int EXP_VALUE = 100;
     private static final int POISON_DAMAGE = 5;
     // Member Variables
     private Explosion explosion;
     private boolean exploded;
     private boolean damageDone;
     
-    public PoisonFogZombie(Point2D.Double p_, int health_, int damage_, double speed_, int score_, Animation animation_) {
-        super(p_, Globals.ZOMBIE_POISONFOG_TYPE, health_, damage_, speed_, score_, PoisonFogZombie.EXP_VALUE, animation_);
-        this.explosion = new Explosion(Images.POISON_GAS_SHEET, new Point2D.Double(this.x, this.y));
+    public PoisonFogZombie(Point2D.Double p_, ZombieArchetype archetype_) {
+        super(p_, archetype_);
+        this.explosion = new Explosion(Images.POISON_GAS_SHEET, new Point2D.Double(this.getX(), this.getY()));
         this.exploded = false;
         this.damageDone = false;
     }
@@ -74,7 +72,8 @@ public class PoisonFogZombie extends Zombie {
         // If the zombie has been shot and killed, set exploded to true.
         if(this.getHealth() <= 0 && !this.exploded) {
             this.exploded = true;
-            this.explosion = new Explosion(Images.POISON_GAS_SHEET, new Point2D.Double(this.x, this.y));
+            this.hideBody();
+            this.explosion = new Explosion(Images.POISON_GAS_SHEET, new Point2D.Double(this.getX(), this.getY()));
             Sounds.POISONCLOUD.play();
         }
         if(this.exploded) { // Otherwise...
@@ -86,32 +85,28 @@ public class PoisonFogZombie extends Zombie {
                     this.damageDone = true;
                 }
             }
-            if(this.explosion.getImage().isActive()) this.explosion.getImage().update();
         }
     }
     
     @Override
-    public void draw(Graphics2D g2d) {
-        if(!this.exploded) {
-            // If the zombie has not been shot yet, continue drawing the zombie.
-            super.draw(g2d);
-        } else {
-            // Otherwise, draw the explosion.
-            if(this.explosion.getImage().isActive()) this.explosion.draw(g2d);
-        }
+    public void draw(RenderFrame frame) {
+        // The zombie itself is drawn with the others; once it has exploded, draw the explosion.
+        if(this.exploded && this.explosion.getImage().isActive()) this.explosion.draw(frame);
     }
     
     @Override
-    public void moan(Player player) {
-        if(!this.moaned) {
-            if(Globals.gameTime.getElapsedMillis() >= this.nextMoan) {
-                double xD = player.getCenterX() - this.x;
-                double yD = player.getCenterY() - this.y;
-                double dist = Math.sqrt((xD * xD) + (yD * yD));
-                double gain = 1.0 - (dist / Player.AUDIO_RANGE);
-                Sounds.MOAN4.play(gain);
-                this.moaned = true;
-            }
-        }
+    public void saveState(StateBuffer out) {
+        super.saveState(out);
+        out.putBoolean(this.exploded);
+        out.putBoolean(this.damageDone);
+        this.explosion.saveState(out);
+    }
+    
+    @Override
+    public void loadState(StateBuffer in) {
+        super.loadState(in);
+        this.exploded = in.getBoolean();
+        this.damageDone = in.getBoolean();
+        this.explosion.loadState(in);
     }
 }
@@ -17,8 +17,7 @@
 package genericzombieshooter.actors;
 
 import genericzombieshooter.misc.Globals;
-import genericzombieshooter.misc.Sounds;
-import genericzombieshooter.structures.Animation;
+import genericzombieshooter.structures.StateBuffer;
 import genericzombieshooter.structures.items.Invulnerability;
 import java.awt.geom.Point2D;
 import java.util.List;
@@ -29,19 +28,16 @@ import java.util.List;
  */
 public class ZombatBoss extends Zombie {
     // Final Variables
-    private static final int EXP_VALUE = 2500;
     private static final double ATTACK_DISTANCE = 166.0;
-    private static final int DRAIN_COOLDOWN = 2000 / (int)Globals.SLEEP_TIME;
+    private static final int DRAIN_COOLDOWN = Globals.toTicks(2000);
     private static final int DRAIN_AMOUNT = 5;
     
     // Member Variables
-    private double maxHealth;
     private int cooldown;
     public boolean canFire() { return this.cooldown == 0; }
     
-    public ZombatBoss(Point2D.Double p_, int health_, int damage_, double speed_, int score_, Animation animation_) {
-        super(p_, Globals.ZOMBIE_BOSS_ZOMBAT_TYPE, health_, damage_, speed_, score_, ZombatBoss.EXP_VALUE, animation_);
-        this.maxHealth = health_;
+    public ZombatBoss(Point2D.Double p_, ZombieArchetype archetype_) {
+        super(p_, archetype_);
         this.cooldown = ZombatBoss.DRAIN_COOLDOWN;
     }
     
@@ -50,7 +46,7 @@ public class ZombatBoss extends Zombie {
         // If the Zombat's attack is cooled down and he is within range, drain the player.
         if(canFire()) {
             Point2D.Double playerPos = new Point2D.Double(player.getCenterX(), player.getCenterY());
-            Point2D.Double myPos = new Point2D.Double(this.x, this.y);
+            Point2D.Double myPos = new Point2D.Double(this.getX(), this.getY());
             if(inRange(playerPos, myPos)) {
                 // Drain the player's health, healing the Zombat.
                 this.drain(player);
@@ -62,23 +58,21 @@ public class ZombatBoss extends Zombie {
     private void drain(Player player) {
         if(!player.hasEffect(Invulnerability.EFFECT_NAME)) {
             player.takeDamage(ZombatBoss.DRAIN_AMOUNT);
-            this.health += ZombatBoss.DRAIN_AMOUNT;
-            if(this.health > this.maxHealth) this.health = this.maxHealth;
+            int maxHealth = this.getArchetype().getHealth();
+            this.setHealth(Math.min((this.getHealth() + ZombatBoss.DRAIN_AMOUNT), maxHealth));
         }
     }
     
     @Override
-    public void moan(Player player) {
-        if(!this.moaned) {
-            if(Globals.gameTime.getElapsedMillis() >= this.nextMoan) {
-                double xD = player.getCenterX() - this.x;
-                double yD = player.getCenterY() - this.y;
-                double dist = Math.sqrt((xD * xD) + (yD * yD));
-                double gain = 1.0 - (dist / Player.AUDIO_RANGE);
-                Sounds.MOAN8.play(gain);
-                this.moaned = true;
-            }
-        }
+    public void saveState(StateBuffer out) {
+        super.saveState(out);
+        out.putInt(this.cooldown);
+    }
+    
+    @Override
+    public void loadState(StateBuffer in) {
+        super.loadState(in);
+        this.cooldown = in.getInt();
     }
     
     private boolean inRange(Point2D.Double playerPos, Point2D.Double myPos) {
@@ -18,130 +18,209 @@ package genericzombieshooter.actors;
 
 import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Sounds;
-import genericzombieshooter.structures.Animation;
-import genericzombieshooter.structures.Particle;
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.geom.AffineTransform;
+import genericzombieshooter.structures.RenderFrame;
+import genericzombieshooter.structures.StateBuffer;
+import genericzombieshooter.structures.entities.EntityFactory;
+import genericzombieshooter.structures.entities.EntityWorld;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.util.List;
 
 /**
- * Used to represent the various types of zombies.
+ * Used to represent the various types of zombies. Everything that is the
+ * same for every zombie of a kind, such as its stats and sprite sheet, is
+ * kept in its ZombieArchetype.
+ * 
+ * Where the zombie is, which way it faces, its health and its walk cycle are
+ * components of its entity in Globals.ENTITIES, and its body is drawn by the
+ * AnimationSystem along with every other zombie's. The zombie itself only
+ * keeps its handle and whatever its behavior needs.
  * @author Darin Beaudreau
  */
-public class Zombie extends Point2D.Double {
+public class Zombie extends Point2D {
     // Member variables.
-    private AffineTransform af;
-    private Animation img;
-    
-    private int type;
-    protected double health; // How much health the zombie has.
-    private int damage; // How much damage the zombie does per tick to the player.
-    private double speed; // How fast the zombie moves.
-    private int cashValue; // How many points the zombie is worth.
-    private int experience; // How many experience points the zombie is worth.
+    private ZombieArchetype archetype;
+    private int entity; // The handle of the zombie's entity.
+    private int share; // How many zombies split the experience of the archetype, such as a brood of Tiny Zumbies.
     
     protected long nextMoan;
     protected boolean moaned;
     
-    public Zombie(Point2D.Double p_, int type_,  int health_, int damage_, double speed_, int cash_, int exp_, Animation animation_) {
-        super(p_.x, p_.y);
-        this.af = new AffineTransform();
-        this.img = animation_;
-        
-        this.type = type_;
-        this.health = health_;
-        this.damage = damage_;
-        this.speed = speed_;
-        this.cashValue = cash_;
-        this.experience = exp_;
+    public Zombie(Point2D.Double p_, ZombieArchetype archetype_) {
+        this(p_, archetype_, 1);
+    }
+    
+    public Zombie(Point2D.Double p_, ZombieArchetype archetype_, int share_) {
+        this.archetype = archetype_;
+        int i = EntityFactory.createZombie(Globals.ENTITIES, p_.x, p_.y, archetype_.getAtlas(), archetype_.getTimeline(), archetype_.getHealth());
+        this.entity = Globals.ENTITIES.getHandle(i);
+        this.share = share_;
         
-        this.nextMoan = Globals.gameTime.getElapsedMillis() + ((Globals.r.nextInt(7) + 6) * 1000);
+        this.nextMoan = Globals.gameTime.getElapsedMillis() + ((Globals.ZOMBIE_RANDOM.nextInt(7) + 6) * 1000);
         this.moaned = false;
     }
     
     // Getter/Setter methods.
-    public void set(int id, long value) {
-        // To be overridden.
+    public ZombieArchetype getArchetype() { return this.archetype; }
+    public int getType() { return this.archetype.getType(); }
+    public double getHealth() { return Globals.ENTITIES.getHealth(Globals.ENTITIES.find(this.entity)); }
+    protected void setHealth(double health_) { Globals.ENTITIES.setHealth(Globals.ENTITIES.find(this.entity), health_); }
+    public void takeDamage(int damage_) {
+        int i = Globals.ENTITIES.find(this.entity);
+        Globals.ENTITIES.setHealth(i, (Globals.ENTITIES.getHealth(i) - damage_));
     }
-    public int getType() { return this.type; }
-    public double getHealth() { return this.health; }
-    public void takeDamage(int damage_) { this.health -= damage_; }
-    public int getDamage() { return this.damage; }
-    public int getCashValue() { return this.cashValue; }
-    public int getExpValue() { return this.experience; }
-    public AffineTransform getTransform() { return this.af; }
-    public Animation getImage() { return this.img; }
+    public int getDamage() { return this.archetype.getDamage(); }
+    public int getCashValue() { return this.archetype.getCashValue(); }
+    public int getExpValue() { return (this.archetype.getExpValue() / this.share); }
+    public int getWidth() { return this.archetype.getTimeline().getWidth(); }
+    public int getHeight() { return this.archetype.getTimeline().getHeight(); }
     public Rectangle2D.Double getRect() {
-        double width = this.getImage().getWidth();
-        double height = this.getImage().getHeight();
-        return new Rectangle2D.Double((this.x - (width / 2)), (this.y - (height / 2)), width, height); 
+        int i = Globals.ENTITIES.find(this.entity);
+        double width = Globals.ENTITIES.getWidth(i);
+        double height = Globals.ENTITIES.getHeight(i);
+        return new Rectangle2D.Double((Globals.ENTITIES.getX(i) - (width / 2)), (Globals.ENTITIES.getY(i) - (height / 2)), width, height); 
+    }
+    
+    public boolean isDead() {
+        // A zombie that has been taken out of the world is as dead as they come.
+        int i = Globals.ENTITIES.find(this.entity);
+        return ((i < 0) || (Globals.ENTITIES.getHealth(i) <= 0));
     }
     
-    public boolean isDead() { return this.health <= 0; }
+    @Override
+    public double getX() { return Globals.ENTITIES.getX(Globals.ENTITIES.find(this.entity)); }
+    @Override
+    public double getY() { return Globals.ENTITIES.getY(Globals.ENTITIES.find(this.entity)); }
+    
+    /**
+     * Moves the zombie without changing where it was last tick.
+     * @param x_ The new x coordinate of the zombie's center.
+     * @param y_ The new y coordinate of the zombie's center.
+     **/
+    @Override
+    public void setLocation(double x_, double y_) { Globals.ENTITIES.setPosition(Globals.ENTITIES.find(this.entity), x_, y_); }
+    
+    /**
+     * Puts the zombie on the field, so it is drawn and can be hit.
+     **/
+    public void spawn() { Globals.ENTITIES.removeComponents(Globals.ENTITIES.find(this.entity), EntityWorld.HIDDEN); }
+    
+    /**
+     * Stops drawing the zombie's body, such as once it has burst.
+     **/
+    protected void hideBody() { Globals.ENTITIES.removeComponents(Globals.ENTITIES.find(this.entity), EntityWorld.ANIMATION); }
+    
+    /**
+     * Gives the zombie's entity back its sprite sheet and walk cycle, which
+     * aren't part of the saved state, after the entity world has been read.
+     **/
+    public void restoreAnimation() {
+        Globals.ENTITIES.restoreAnimation(Globals.ENTITIES.find(this.entity), this.archetype.getAtlas(), this.archetype.getTimeline());
+    }
+    
+    /**
+     * Takes the zombie's entity out of the world, once the zombie is gone for good.
+     **/
+    public void dispose() {
+        int i = Globals.ENTITIES.find(this.entity);
+        if(i >= 0) Globals.ENTITIES.remove(i);
+    }
     
     // Shape manipulation.
-    public void rotate(double theta_) { this.af.setToRotation(theta_, this.x, this.y); }
+    public void rotate(double theta_) {
+        Globals.ENTITIES.setAngle(Globals.ENTITIES.find(this.entity), theta_);
+    }
     
+    /**
+     * Walks the zombie in the direction it is facing. Like the player, a
+     * zombie can't walk into an obstacle; if the step would take it into one,
+     * it slides along the wall instead. A zombie that is already inside an
+     * obstacle, such as one knocked into it, is free to walk back out.
+     * @param theta_ The direction to walk in, as a zombie's rotation.
+     **/
     public void move(double theta_) {
-        this.x += this.speed * Math.cos(theta_ - (Math.PI / 2));
-        this.y += this.speed * Math.sin(theta_ - (Math.PI / 2));
-        this.img.move((int)this.x, (int)this.y);
+        EntityWorld world = Globals.ENTITIES;
+        int i = world.find(this.entity);
+        world.markPrevious(i);
+        double x = world.getX(i);
+        double y = world.getY(i);
+        double speed = this.archetype.getSpeed();
+        double dx = speed * Math.cos(theta_ - (Math.PI / 2));
+        double dy = speed * Math.sin(theta_ - (Math.PI / 2));
+        if(Globals.OBSTACLES.isBlockedAt((x + dx), (y + dy)) && !Globals.OBSTACLES.isBlockedAt(x, y)) {
+            if(!Globals.OBSTACLES.isBlockedAt((x + dx), y)) dy = 0;
+            else if(!Globals.OBSTACLES.isBlockedAt(x, (y + dy))) dx = 0;
+            else return;
+        }
+        world.setPosition(i, (x + dx), (y + dy));
+    }
+    
+    /**
+     * Nudges the zombie without changing where it was last tick, such as
+     * when it is pushed out of the way by the zombies around it.
+     * @param dx How far to move the zombie along the x axis.
+     * @param dy How far to move the zombie along the y axis.
+     **/
+    public void push(double dx, double dy) {
+        int i = Globals.ENTITIES.find(this.entity);
+        Globals.ENTITIES.setPosition(i, (Globals.ENTITIES.getX(i) + dx), (Globals.ENTITIES.getY(i) + dy));
     }
     
     public void update(Player player, List<Zombie> zombies) {
         // To be overridden.
     }
     
-    public void draw(Graphics2D g2d) {
-        // Can be overridden.
-        g2d.setTransform(this.af);
-        { // Draw zombie's shadow.
-            int width = this.img.getWidth();
-            int height = this.img.getHeight();
-            if(this.type == Globals.ZOMBIE_REGULAR_TYPE) height /= 2;
-            else if(this.type == Globals.ZOMBIE_DOG_TYPE) width /= 2;
-            else {
-                width /= 2;
-                height /= 2;
-            }
-            int xPos = (int)(this.x - (width / 2));
-            int yPos = (int)(this.y - (height / 2));
-            g2d.setColor(new Color(0, 0, 0, 100));
-            g2d.fillOval(xPos, yPos, width, height);
-        } // End drawing zombie's shadow.
-        this.img.draw((Graphics2D)g2d);
+    /**
+     * Draws whatever the zombie has besides its body, which the
+     * AnimationSystem draws, such as an explosion or a hook.
+     * @param frame The frame to draw into.
+     **/
+    public void draw(RenderFrame frame) {
+        // To be overridden.
     }
     
     public void moan(Player player) {
-        // To be overridden.
-        if(!this.moaned) {
-            boolean regular = this.type == Globals.ZOMBIE_REGULAR_TYPE;
-            boolean dog = this.type == Globals.ZOMBIE_DOG_TYPE;
-            boolean tiny = this.type == Globals.ZOMBIE_TINY_TYPE;
-            if(regular || dog || tiny) {
-                if(Globals.gameTime.getElapsedMillis() >= this.nextMoan) {
-                    double xD = player.getCenterX() - this.x;
-                    double yD = player.getCenterY() - this.y;
-                    double dist = Math.sqrt((xD * xD) + (yD * yD));
-                    double gain = 1.0 - (dist / Player.AUDIO_RANGE);
-                    if(regular || tiny) Sounds.MOAN1.play(gain);
-                    else if(dog) Sounds.MOAN2.play(gain);
-                    this.moaned = true;
-                }
+        // Can be overridden.
+        Sounds sound = this.archetype.getMoan();
+        if(!this.moaned && (sound != null)) {
+            if(Globals.gameTime.getElapsedMillis() >= this.nextMoan) {
+                double xD = player.getCenterX() - this.getX();
+                double yD = player.getCenterY() - this.getY();
+                double dist = Math.sqrt((xD * xD) + (yD * yD));
+                double gain = 1.0 - (dist / Player.AUDIO_RANGE);
+                sound.play(gain);
+                this.moaned = true;
             }
         }
     }
     
-    public List<Particle> getParticles() {
-        // To be overridden.
-        return null;
+    /**
+     * Writes the zombie's state, but not its type, which the wave writes so
+     * it knows which archetype to create the zombie from when the state is
+     * read back. Its components are written with the rest of the entity
+     * world, so only its handle is written here.
+     * @param out The buffer to write to.
+     **/
+    public void saveState(StateBuffer out) {
+        // Can be overridden.
+        out.putInt(this.entity);
+        out.putInt(this.share);
+        out.putLong(this.nextMoan);
+        out.putBoolean(this.moaned);
     }
     
-    public int getParticleDamage() { 
-        // To be overridden.
-        return 0;
+    /**
+     * Replaces the zombie's state with the state written by saveState(). The
+     * entity world is read after the zombies, replacing the entity the blank
+     * zombie was created with, so restoreAnimation() has to be called once
+     * it has been read.
+     * @param in The buffer to read from.
+     **/
+    public void loadState(StateBuffer in) {
+        // Can be overridden.
+        this.entity = in.getInt();
+        this.share = in.getInt();
+        this.nextMoan = in.getLong();
+        this.moaned = in.getBoolean();
     }
 }
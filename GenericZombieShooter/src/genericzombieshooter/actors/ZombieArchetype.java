@@ -0,0 +1,318 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.actors;
+
+import genericzombieshooter.GZSFramework;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.misc.Images;
+import genericzombieshooter.misc.Sounds;
+import genericzombieshooter.structures.SpriteAtlas;
+import genericzombieshooter.structures.SpriteTimeline;
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything that is the same for every zombie of one kind: its stats, its
+ * sprite sheet, its shadow, its moan and how it spawns. Each live zombie only
+ * keeps its archetype and the state that changes as it plays, so a horde of a
+ * thousand Zumbies shares a single copy of the rest.
+ * 
+ * The archetypes are read from a plain text table when the game starts (see
+ * resources/data/zombies.txt for the format), so new kinds of zombies can be
+ * added without recompiling, as long as they use one of the existing behaviors.
+ * @author Darin Beaudreau
+ */
+public class ZombieArchetype {
+    // Final Variables
+    public static final int SPAWN_NONE = 0; // Only spawned by other zombies.
+    public static final int SPAWN_WAVE = 1; // Mixed into regular waves.
+    public static final int SPAWN_SPECIAL = 2; // Mixed into regular waves, up to a limit per wave.
+    public static final int SPAWN_BOSS = 3; // Makes up boss waves.
+    private static final String DEFAULT_TABLE = "/resources/data/zombies.txt";
+    private static final int NO_DROP = Integer.MIN_VALUE;
+    
+    // Member Variables
+    private int type;
+    public int getType() { return this.type; }
+    private String name;
+    public String getName() { return this.name; }
+    private String behavior;
+    private int spawn;
+    public int getSpawn() { return this.spawn; }
+    private int firstWave; // The first regular wave it can spawn in.
+    public int getFirstWave() { return this.firstWave; }
+    private int groupSize; // How many spawn together on a boss wave.
+    public int getGroupSize() { return this.groupSize; }
+    private int broodType; // The type of zombie it bursts into, or 0 for none.
+    private ZombieArchetype brood;
+    public ZombieArchetype getBrood() { return this.brood; }
+    
+    private BufferedImage sheet;
+    private int frameWidth;
+    private int frameHeight;
+    private int frameCount;
+    private long frameTime;
+    private SpriteTimeline timeline; // The walk cycle.
+    public SpriteTimeline getTimeline() { return this.timeline; }
+    private double shadowWidth; // The size of the shadow, as a fraction of the frame size.
+    private double shadowHeight;
+    private Rectangle shadow; // The oval under the zombie, relative to its center.
+    private SpriteAtlas atlas; // The frames, pre-rotated. Null until a wave with this kind of zombie is built.
+    
+    private int health;
+    public int getHealth() { return this.health; }
+    private int damage;
+    public int getDamage() { return this.damage; }
+    private double speed; // Pixels per tick.
+    public double getSpeed() { return this.speed; }
+    private int cashValue;
+    public int getCashValue() { return this.cashValue; }
+    private int experience;
+    public int getExpValue() { return this.experience; }
+    private int dropBonus; // Added to the power-up roll, or NO_DROP.
+    public boolean hasDrops() { return this.dropBonus != ZombieArchetype.NO_DROP; }
+    public int getDropBonus() { return this.dropBonus; }
+    private Sounds moan;
+    public Sounds getMoan() { return this.moan; }
+    
+    private ZombieArchetype(int type_, String name_) {
+        this.type = type_;
+        this.name = name_;
+        this.behavior = "basic";
+        this.spawn = ZombieArchetype.SPAWN_NONE;
+        this.firstWave = 1;
+        this.groupSize = 1;
+        this.broodType = 0;
+        this.brood = null;
+        this.shadowWidth = 0.5;
+        this.shadowHeight = 0.5;
+        this.dropBonus = ZombieArchetype.NO_DROP;
+        this.moan = null;
+    }
+    
+    /**
+     * Creates a zombie of this kind.
+     * @param p_ Where to put the zombie.
+     * @return The new zombie, with full health.
+     **/
+    public Zombie create(Point2D.Double p_) {
+        if(this.behavior.equals("acid")) return new AcidZombie(p_, this);
+        else if(this.behavior.equals("poisonfog")) return new PoisonFogZombie(p_, this);
+        else if(this.behavior.equals("matron")) return new ZombieMatron(p_, this);
+        else if(this.behavior.equals("aberration")) return new AberrationBoss(p_, this);
+        else if(this.behavior.equals("zombat")) return new ZombatBoss(p_, this);
+        else if(this.behavior.equals("stitches")) return new StitchesBoss(p_, this);
+        else return new Zombie(p_, this);
+    }
+    
+    /**
+     * Gets the pre-rotated frames, with the shadow baked in. The atlas is
+     * rendered the first time it is asked for.
+     * @return The atlas.
+     **/
+    public SpriteAtlas getAtlas() {
+        this.prepareAtlas();
+        return this.atlas;
+    }
+    
+    /**
+     * Renders the pre-rotated frames if they haven't been already. Called
+     * while a wave is built, so the zombies' frames are ready before the
+     * first of them is drawn. Large sheets get fewer angles, so a boss
+     * doesn't take up several times the memory of the rest of the wave.
+     **/
+    public synchronized void prepareAtlas() {
+        if(this.atlas != null) return;
+        int angles = SpriteAtlas.anglesFor(this.frameWidth, this.frameHeight, this.frameCount, SpriteAtlas.DEFAULT_ANGLES);
+        this.atlas = SpriteAtlas.get(this.sheet, this.frameWidth, this.frameHeight, this.frameCount, this.shadow, angles);
+    }
+    
+    /**
+     * Loads the table of archetypes. If the file can't be read, the table
+     * that comes with the game is used instead.
+     * @param path The path of the table, or null for the one that comes with the game.
+     * @return The archetypes, indexed by type. Types not in the table are null.
+     **/
+    public static ZombieArchetype [] load(String path) {
+        if(path != null) {
+            BufferedReader reader = null;
+            try {
+                File file = new File(path);
+                reader = new BufferedReader(new FileReader(file));
+                return ZombieArchetype.read(reader, file.getAbsoluteFile().getParentFile());
+            } catch(IOException ioe) {
+                System.out.println("Could not load the zombies from " + path + ": " + ioe.getMessage());
+            } catch(NumberFormatException nfe) {
+                System.out.println("Could not load the zombies from " + path + ": " + nfe.getMessage());
+            } finally {
+                ZombieArchetype.close(reader);
+            }
+        }
+        
+        BufferedReader reader = null;
+        try {
+            InputStream stream = GZSFramework.class.getResourceAsStream(ZombieArchetype.DEFAULT_TABLE);
+            if(stream == null) throw new IOException("Missing from the game.");
+            reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
+            return ZombieArchetype.read(reader, null);
+        } catch(IOException ioe) {
+            System.out.println("Could not load the zombies from " + ZombieArchetype.DEFAULT_TABLE + ": " + ioe.getMessage());
+        } catch(NumberFormatException nfe) {
+            System.out.println("Could not load the zombies from " + ZombieArchetype.DEFAULT_TABLE + ": " + nfe.getMessage());
+        } finally {
+            ZombieArchetype.close(reader);
+        }
+        return new ZombieArchetype[0];
+    }
+    
+    private static ZombieArchetype [] read(BufferedReader reader, File dir) throws IOException {
+        List<ZombieArchetype> archetypes = new ArrayList<ZombieArchetype>();
+        ZombieArchetype current = null;
+        int maxType = 0;
+        
+        String line;
+        while((line = reader.readLine()) != null) {
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#")) continue;
+            String [] parts = line.split("\\s+");
+            String key = parts[0];
+            if(key.equals("zombie")) {
+                if(parts.length < 3) throw new IOException("Expected a type and a name.");
+                if(current != null) ZombieArchetype.check(current);
+                current = new ZombieArchetype(Integer.parseInt(parts[1]), line.split("\\s+", 3)[2]);
+                if(current.type <= 0) throw new IOException("Zombie types must be positive.");
+                for(ZombieArchetype a : archetypes) {
+                    if(a.type == current.type) throw new IOException("Zombie type " + current.type + " is used twice.");
+                }
+                archetypes.add(current);
+                maxType = Math.max(maxType, current.type);
+                continue;
+            }
+            if(current == null) throw new IOException("Expected a zombie line before " + key + ".");
+            
+            if(key.equals("behavior")) {
+                ZombieArchetype.expect(parts, 2);
+                if(!parts[1].equals("basic") && !parts[1].equals("acid") && !parts[1].equals("poisonfog") && !parts[1].equals("matron") && 
+                   !parts[1].equals("aberration") && !parts[1].equals("zombat") && !parts[1].equals("stitches")) 
+                    throw new IOException("No such behavior: " + parts[1]);
+                current.behavior = parts[1];
+            } else if(key.equals("spawn")) {
+                if(parts.length < 2) throw new IOException("Expected how " + current.name + " spawns.");
+                if(parts[1].equals("wave")) current.spawn = ZombieArchetype.SPAWN_WAVE;
+                else if(parts[1].equals("special")) current.spawn = ZombieArchetype.SPAWN_SPECIAL;
+                else if(parts[1].equals("boss")) current.spawn = ZombieArchetype.SPAWN_BOSS;
+                else if(parts[1].equals("none")) current.spawn = ZombieArchetype.SPAWN_NONE;
+                else throw new IOException("No such way to spawn: " + parts[1]);
+                if(parts.length > 2) current.firstWave = Integer.parseInt(parts[2]);
+            } else if(key.equals("group")) {
+                ZombieArchetype.expect(parts, 2);
+                current.groupSize = Math.max(1, Integer.parseInt(parts[1]));
+            } else if(key.equals("brood")) {
+                ZombieArchetype.expect(parts, 2);
+                current.broodType = Integer.parseInt(parts[1]);
+                if(current.broodType <= 0) throw new IOException("Zombie types must be positive.");
+            } else if(key.equals("sheet")) {
+                ZombieArchetype.expect(parts, 2);
+                String sheetPath = parts[1];
+                if(!sheetPath.startsWith("/") && (dir != null)) sheetPath = new File(dir, sheetPath).getPath();
+                current.sheet = Images.load(sheetPath);
+                if(current.sheet == null) throw new IOException("Could not read the sheet " + parts[1] + ".");
+            } else if(key.equals("frames")) {
+                ZombieArchetype.expect(parts, 5);
+                current.frameWidth = Integer.parseInt(parts[1]);
+                current.frameHeight = Integer.parseInt(parts[2]);
+                current.frameCount = Integer.parseInt(parts[3]);
+                current.frameTime = Long.parseLong(parts[4]);
+            } else if(key.equals("shadow")) {
+                ZombieArchetype.expect(parts, 3);
+                current.shadowWidth = Double.parseDouble(parts[1]);
+                current.shadowHeight = Double.parseDouble(parts[2]);
+            } else if(key.equals("health")) {
+                ZombieArchetype.expect(parts, 2);
+                current.health = Integer.parseInt(parts[1]);
+            } else if(key.equals("damage")) {
+                ZombieArchetype.expect(parts, 2);
+                current.damage = Integer.parseInt(parts[1]);
+            } else if(key.equals("speed")) {
+                ZombieArchetype.expect(parts, 2);
+                current.speed = Double.parseDouble(parts[1]) * Globals.TICK_SCALE;
+            } else if(key.equals("cash")) {
+                ZombieArchetype.expect(parts, 2);
+                current.cashValue = Integer.parseInt(parts[1]);
+            } else if(key.equals("exp")) {
+                ZombieArchetype.expect(parts, 2);
+                current.experience = Integer.parseInt(parts[1]);
+            } else if(key.equals("drop")) {
+                ZombieArchetype.expect(parts, 2);
+                current.dropBonus = Integer.parseInt(parts[1]);
+            } else if(key.equals("moan")) {
+                ZombieArchetype.expect(parts, 2);
+                if(parts[1].equals("none")) current.moan = null;
+                else {
+                    try {
+                        current.moan = Sounds.valueOf(parts[1]);
+                    } catch(IllegalArgumentException iae) {
+                        throw new IOException("No such sound: " + parts[1]);
+                    }
+                }
+            } else throw new IOException("Unknown line: " + line);
+        }
+        if(current != null) ZombieArchetype.check(current);
+        
+        ZombieArchetype [] table = new ZombieArchetype[maxType + 1];
+        for(ZombieArchetype a : archetypes) table[a.type] = a;
+        for(ZombieArchetype a : archetypes) {
+            if(a.broodType != 0) {
+                if((a.broodType >= table.length) || (table[a.broodType] == null)) throw new IOException(a.name + " bursts into zombie type " + a.broodType + ", which isn't in the table.");
+                if(table[a.broodType].behavior.equals("matron")) throw new IOException(a.name + " can't burst into zombies that burst as well.");
+                a.brood = table[a.broodType];
+            }
+            if(a.behavior.equals("matron") && (a.brood == null)) throw new IOException(a.name + " needs a brood line.");
+        }
+        return table;
+    }
+    
+    private static void check(ZombieArchetype a) throws IOException {
+        if(a.sheet == null) throw new IOException(a.name + " has no sheet.");
+        if((a.frameWidth <= 0) || (a.frameHeight <= 0) || (a.frameCount <= 0)) throw new IOException(a.name + " needs a positive frame size and count.");
+        int width = (int)(a.frameWidth * a.shadowWidth);
+        int height = (int)(a.frameHeight * a.shadowHeight);
+        a.shadow = new Rectangle(-(width / 2), -(height / 2), width, height);
+        a.timeline = SpriteTimeline.get(a.sheet, a.frameWidth, a.frameHeight, a.frameCount, a.frameTime, true);
+    }
+    
+    private static void expect(String [] parts, int count) throws IOException {
+        if(parts.length != count) throw new IOException("Expected " + (count - 1) + " value" + ((count == 2)?"":"s") + " after " + parts[0] + ".");
+    }
+    
+    private static void close(BufferedReader reader) {
+        try {
+            if(reader != null) reader.close();
+        } catch(IOException ioe) {
+            // Nothing left to do with the file anyway.
+        }
+    }
+}
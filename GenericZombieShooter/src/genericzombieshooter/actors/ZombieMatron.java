@@ -19,9 +19,9 @@ package genericzombieshooter.actors;
 import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Images;
 import genericzombieshooter.misc.Sounds;
-import genericzombieshooter.structures.Animation;
 import genericzombieshooter.structures.Explosion;
-import java.awt.Graphics2D;
+import genericzombieshooter.structures.RenderFrame;
+import genericzombieshooter.structures.StateBuffer;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.util.List;
@@ -34,7 +34,6 @@ import java.util.List;
  */
 public class ZombieMatron extends Zombie {
     // Final Variables
-    public static final int EXP_VALUE = 200;
     public static final long TIME_TO_BURST = 8000;
     private static final int MIN_ZOMBIES = 5;
     private static final int MAX_ZOMBIES = 10;
@@ -48,18 +47,26 @@ public class ZombieMatron extends Zombie {
     private long spawnTime;
     private long burstTime;
     
-    public ZombieMatron(Point2D.Double p_, int health_, int damage_, double speed_, int score_, Animation animation_) {
-        super(p_, Globals.ZOMBIE_MATRON_TYPE, health_, damage_, speed_, score_, ZombieMatron.EXP_VALUE, animation_);
+    public ZombieMatron(Point2D.Double p_, ZombieArchetype archetype_) {
+        super(p_, archetype_);
         this.burst = false;
         this.damageDone = false;
-        this.explosion = new Explosion(Images.BLOOD_SHEET, new Point2D.Double(this.x, this.y));
+        this.explosion = new Explosion(Images.BLOOD_SHEET, new Point2D.Double(this.getX(), this.getY()));
         this.spawnTime = Globals.gameTime.getElapsedMillis();
         this.burstTime = spawnTime + ZombieMatron.TIME_TO_BURST;
+        // The brood's frames are rendered along with the wave, not in the middle of it when she bursts.
+        archetype_.getBrood().prepareAtlas();
     }
     
+    /**
+     * Puts the Matron on the field and starts her timer, so she bursts a set
+     * time after she spawns rather than after her wave was built.
+     **/
     @Override
-    public void set(int id, long value) {
-        if(id == 0) this.burstTime = value;
+    public void spawn() {
+        super.spawn();
+        this.spawnTime = Globals.gameTime.getElapsedMillis();
+        this.burstTime = this.spawnTime + ZombieMatron.TIME_TO_BURST;
     }
     
     @Override
@@ -80,18 +87,19 @@ public class ZombieMatron extends Zombie {
         // If the Zombie Matron's timer has run out, the Matron bursts...
         if((Globals.gameTime.getElapsedMillis() >= burstTime) && !this.burst) {
             this.burst = true;
-            this.explosion = new Explosion(Images.BLOOD_SHEET, new Point2D.Double(this.x, this.y));
+            this.hideBody();
+            this.explosion = new Explosion(Images.BLOOD_SHEET, new Point2D.Double(this.getX(), this.getY()));
             Sounds.EXPLOSION.play();
             // A certain number of mini zombies are added to a list, which are later added to the zombies list.
-            int numOfZombies = Globals.r.nextInt((ZombieMatron.MAX_ZOMBIES - ZombieMatron.MIN_ZOMBIES) + 1) + ZombieMatron.MIN_ZOMBIES;
+            int numOfZombies = Globals.ZOMBIE_RANDOM.nextInt((ZombieMatron.MAX_ZOMBIES - ZombieMatron.MIN_ZOMBIES) + 1) + ZombieMatron.MIN_ZOMBIES;
             for(int i = 0; i < numOfZombies; i++) {
-                Point2D.Double p_ = new Point2D.Double(this.x, this.y);
-                double theta_ = Globals.r.nextDouble() * (Math.PI * 2);
-                int radius_ = Globals.r.nextInt((ZombieMatron.MAX_RADIUS - ZombieMatron.MIN_RADIUS) + 1) + ZombieMatron.MIN_RADIUS;
+                Point2D.Double p_ = new Point2D.Double(this.getX(), this.getY());
+                double theta_ = Globals.ZOMBIE_RANDOM.nextDouble() * (Math.PI * 2);
+                int radius_ = Globals.ZOMBIE_RANDOM.nextInt((ZombieMatron.MAX_RADIUS - ZombieMatron.MIN_RADIUS) + 1) + ZombieMatron.MIN_RADIUS;
                 p_.x += radius_ * Math.cos(theta_);
                 p_.y += radius_ * Math.sin(theta_);
-                Animation a_ = new Animation(Images.ZOMBIE_TINY, 20, 20, 2, (int)p_.x, (int)p_.y, 100, 0, true);
-                Zombie z_ = new Zombie(p_, Globals.ZOMBIE_TINY_TYPE, 100, 1, 2, 50, (ZombieMatron.EXP_VALUE / numOfZombies), a_);
+                // The brood splits the experience of their archetype between them.
+                Zombie z_ = new Zombie(p_, this.getArchetype().getBrood(), numOfZombies);
                 toAdd.add(z_);
             }
         }
@@ -103,32 +111,32 @@ public class ZombieMatron extends Zombie {
                 player.takeDamage(ZombieMatron.EXPLOSION_DAMAGE);
                 this.damageDone = true;
             }
-            // If the blood burst animation is not yet finished, update it.
-            if(this.explosion.getImage().isActive()) this.explosion.getImage().update();
         }
     }
     
     @Override
-    public void draw(Graphics2D g2d) {
-        // If the Matron has not yet burst, draw the Matron herself.
-        if(!this.burst) super.draw(g2d);
-        else {
-            // Otherwise, if the explosion animation is still active, draw it.
-            if(this.explosion.getImage().isActive()) this.explosion.draw(g2d);
-        }
+    public void draw(RenderFrame frame) {
+        // The Matron herself is drawn with the other zombies; once she bursts, draw the explosion.
+        if(this.burst && this.explosion.getImage().isActive()) this.explosion.draw(frame);
     }
     
     @Override
-    public void moan(Player player) {
-        if(!this.moaned) {
-            if(Globals.gameTime.getElapsedMillis() >= this.nextMoan) {
-                double xD = player.getCenterX() - this.x;
-                double yD = player.getCenterY() - this.y;
-                double dist = Math.sqrt((xD * xD) + (yD * yD));
-                double gain = 1.0 - (dist / Player.AUDIO_RANGE);
-                Sounds.MOAN5.play(gain);
-                this.moaned = true;
-            }
-        }
+    public void saveState(StateBuffer out) {
+        super.saveState(out);
+        out.putBoolean(this.burst);
+        out.putBoolean(this.damageDone);
+        this.explosion.saveState(out);
+        out.putLong(this.spawnTime);
+        out.putLong(this.burstTime);
+    }
+    
+    @Override
+    public void loadState(StateBuffer in) {
+        super.loadState(in);
+        this.burst = in.getBoolean();
+        this.damageDone = in.getBoolean();
+        this.explosion.loadState(in);
+        this.spawnTime = in.getLong();
+        this.burstTime = in.getLong();
     }
 }
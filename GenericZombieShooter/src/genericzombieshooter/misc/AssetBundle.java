@@ -0,0 +1,229 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.misc;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.CodeSource;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+/**
+ * Reads images and sounds out of the bundle written by AssetPacker, which is
+ * mapped into memory instead of being read. Images are stored as
+ * premultiplied ARGB pixels and sounds as raw PCM samples, so nothing has to
+ * be decoded.
+ * 
+ * The bundle is looked for next to the JAR, or wherever -Dgzs.assets says.
+ * Without one, or for anything that isn't in it, the game reads its
+ * resources as usual.
+ * @author Darin Beaudreau
+ */
+public class AssetBundle {
+    // Final Variables
+    public static final String FILE_NAME = "GenericZombieShooter.assets";
+    static final int MAGIC = 0x475A5341; // "GZSA"
+    static final short VERSION = 1;
+    static final byte IMAGE = 0;
+    static final byte SOUND = 1;
+    static final Charset PATH_CHARSET = Charset.forName("UTF-8");
+    
+    // Member Variables
+    private static AssetBundle bundle = null;
+    private static boolean opened = false; // Only look for the bundle once, even if it's missing.
+    
+    private ByteBuffer data;
+    private Map<String, Entry> entries;
+    public int getCount() { return this.entries.size(); }
+    
+    private static class Entry {
+        byte kind;
+        int offset;
+        int length;
+        int width;
+        int height;
+        AudioFormat format;
+    }
+    
+    /**
+     * Opens a bundle and reads its index.
+     * @param file The bundle to open.
+     * @throws IOException If the file could not be read or is not a bundle this version of the game can use.
+     **/
+    public AssetBundle(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+        
+        this.entries = new HashMap<String, Entry>();
+        try {
+            if(this.data.getInt() != AssetBundle.MAGIC) throw new IOException(file.getName() + " is not an asset bundle.");
+            short version = this.data.getShort();
+            if(version != AssetBundle.VERSION) throw new IOException("Asset bundle version " + version + " is not supported.");
+            int count = this.data.getInt();
+            for(int i = 0; i < count; i++) {
+                byte [] path = new byte[this.data.getShort() & 0xFFFF];
+                this.data.get(path);
+                Entry entry = new Entry();
+                entry.kind = this.data.get();
+                entry.offset = this.data.getInt();
+                entry.length = this.data.getInt();
+                if(entry.kind == AssetBundle.IMAGE) {
+                    entry.width = this.data.getInt();
+                    entry.height = this.data.getInt();
+                    if((entry.width * entry.height * 4) != entry.length) throw new IOException(file.getName() + " is damaged.");
+                } else if(entry.kind == AssetBundle.SOUND) {
+                    float sampleRate = this.data.getFloat();
+                    int sampleSize = this.data.getInt();
+                    int channels = this.data.getInt();
+                    boolean signed = (this.data.get() != 0);
+                    boolean bigEndian = (this.data.get() != 0);
+                    entry.format = new AudioFormat(sampleRate, sampleSize, channels, signed, bigEndian);
+                } else throw new IOException(file.getName() + " is damaged.");
+                if((entry.offset < 0) || (entry.length < 0) || ((entry.offset + entry.length) > this.data.capacity())) {
+                    throw new IOException(file.getName() + " is damaged.");
+                }
+                this.entries.put(new String(path, AssetBundle.PATH_CHARSET), entry);
+            }
+        } catch(BufferUnderflowException bue) {
+            throw new IOException(file.getName() + " is not an asset bundle.");
+        }
+    }
+    
+    /**
+     * Gets the game's bundle, opening it the first time.
+     * @return The bundle, or null if there isn't one that can be used.
+     **/
+    public static synchronized AssetBundle get() {
+        if(!AssetBundle.opened) {
+            AssetBundle.opened = true;
+            File file = AssetBundle.findFile();
+            if((file != null) && file.isFile()) {
+                try {
+                    AssetBundle.bundle = new AssetBundle(file);
+                } catch(IOException io) {
+                    System.out.println(io.getMessage());
+                    System.out.println("Error reading file: " + file.getPath());
+                }
+            }
+        }
+        return AssetBundle.bundle;
+    }
+    
+    private static File findFile() {
+        String path = System.getProperty("gzs.assets");
+        if(path != null) return new File(path);
+        try {
+            // Next to the JAR, or in the classes folder when running from the build.
+            CodeSource source = AssetBundle.class.getProtectionDomain().getCodeSource();
+            if(source == null) return null;
+            File code = new File(source.getLocation().toURI());
+            return new File((code.isFile()?code.getParentFile():code), AssetBundle.FILE_NAME);
+        } catch(URISyntaxException use) {
+            return null;
+        } catch(IllegalArgumentException iae) {
+            // Not loaded from a file.
+            return null;
+        }
+    }
+    
+    /**
+     * Copies an image's pixels out of the bundle.
+     * @param path The resource path the image was packed from.
+     * @return The image, or null if it isn't in the bundle.
+     **/
+    public BufferedImage getImage(String path) {
+        Entry entry = this.entries.get(path);
+        if((entry == null) || (entry.kind != AssetBundle.IMAGE)) return null;
+        int [] pixels = new int[entry.width * entry.height];
+        this.slice(entry).asIntBuffer().get(pixels);
+        // Copied in rather than wrapped, so Java2D can still keep the image on the graphics card.
+        BufferedImage image = new BufferedImage(entry.width, entry.height, BufferedImage.TYPE_INT_ARGB_PRE);
+        image.getRaster().setDataElements(0, 0, entry.width, entry.height, pixels);
+        return image;
+    }
+    
+    /**
+     * Opens a sound's samples, which are read straight from the mapped file.
+     * TinySound copies them into its own buffers when the sound is loaded, but
+     * they are already in its format, so nothing is converted on the way.
+     * @param path The resource path the sound was packed from.
+     * @return A new stream over the samples, or null if the sound isn't in the bundle.
+     **/
+    public AudioInputStream getSound(String path) {
+        Entry entry = this.entries.get(path);
+        if((entry == null) || (entry.kind != AssetBundle.SOUND)) return null;
+        return new AudioInputStream(new BufferInputStream(this.slice(entry)), entry.format, 
+                                    (entry.length / entry.format.getFrameSize()));
+    }
+    
+    private ByteBuffer slice(Entry entry) {
+        // Each caller gets its own view, so assets can be read from several threads at once.
+        ByteBuffer view = this.data.duplicate();
+        view.position(entry.offset);
+        view.limit(entry.offset + entry.length);
+        return view.slice();
+    }
+    
+    private static class BufferInputStream extends InputStream {
+        private ByteBuffer buffer;
+        
+        BufferInputStream(ByteBuffer buffer_) {
+            this.buffer = buffer_;
+        }
+        
+        @Override
+        public int read() {
+            return (this.buffer.hasRemaining()?(this.buffer.get() & 0xFF):-1);
+        }
+        
+        @Override
+        public int read(byte [] b, int off, int len) {
+            if(len == 0) return 0;
+            if(!this.buffer.hasRemaining()) return -1;
+            int count = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, count);
+            return count;
+        }
+        
+        @Override
+        public long skip(long n) {
+            int count = (int)Math.max(0, Math.min(n, this.buffer.remaining()));
+            this.buffer.position(this.buffer.position() + count);
+            return count;
+        }
+        
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+}
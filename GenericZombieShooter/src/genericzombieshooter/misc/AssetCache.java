@@ -0,0 +1,234 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.misc;
+
+import genericzombieshooter.GZSFramework;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Shares images loaded from the game's resources, by path.
+ * 
+ * Anything that holds on to an image acquires it and releases it when it's
+ * done, and anything that only needs an image while drawing gets it. Images
+ * nobody holds are kept, least recently used first, until they add up to
+ * more than the budget, and then only soft references to them are kept, so
+ * they are read again if they are needed after the garbage collector takes
+ * them. Images are converted to the screen's format when they are read, so
+ * they can be drawn quickly. Images are read outside the cache's lock, so
+ * getting an image that is already in memory never waits behind another
+ * image being read; two threads asking for the same image share one read.
+ * 
+ * Nothing here touches Globals, since Images loads through this while
+ * Globals is being created.
+ * @author Darin Beaudreau
+ */
+public class AssetCache {
+    // Final Variables
+    private static final long BUDGET = Integer.getInteger("gzs.imageCacheKB", 4096) * 1024L; // How much memory images nobody holds can use.
+    private static final Map<String, Entry> ENTRIES = new LinkedHashMap<String, Entry>(64, 0.75f, true); // Least recently used first.
+    
+    // Member Variables
+    private static long idleBytes = 0; // The size of the images that are kept without anything holding them.
+    private static long residentBytes = 0;
+    public static synchronized long getResidentBytes() { return AssetCache.residentBytes; }
+    private static int loads = 0;
+    public static synchronized int getLoads() { return AssetCache.loads; }
+    
+    private static class Entry {
+        BufferedImage image; // Null once the image has been evicted.
+        SoftReference<BufferedImage> soft; // Lets an evicted image be used again if it hasn't been collected yet.
+        int refs;
+        long bytes;
+        FutureTask<BufferedImage> loading; // The read in progress, or null.
+    }
+    
+    /**
+     * Gets an image and holds on to it until release() is called with the
+     * same path.
+     * @param path The path of the image inside the game, or on disk.
+     * @return The image, or null if it couldn't be read.
+     **/
+    public static BufferedImage acquire(String path) {
+        return AssetCache.find(path, true);
+    }
+    
+    /**
+     * Lets go of an image gotten from acquire(), so it can be evicted once
+     * nothing else holds it.
+     * @param path The path the image was acquired with.
+     **/
+    public static synchronized void release(String path) {
+        Entry entry = AssetCache.ENTRIES.get(path);
+        if((entry == null) || (entry.refs == 0)) return;
+        entry.refs--;
+        if(entry.refs == 0) {
+            AssetCache.idleBytes += entry.bytes;
+            AssetCache.trim();
+        }
+    }
+    
+    /**
+     * Gets an image without holding on to it, for something that only needs
+     * it while drawing. It is kept while there is room in the budget.
+     * @param path The path of the image inside the game, or on disk.
+     * @return The image, or null if it couldn't be read.
+     **/
+    public static BufferedImage get(String path) {
+        return AssetCache.find(path, false);
+    }
+    
+    /**
+     * Finds an image, reading it again if it has been evicted and collected.
+     * The first thread to ask for an image that isn't in memory reads it
+     * without holding the lock, and any other thread asking for the same
+     * image waits for that read instead of starting its own.
+     * @param path The path of the image.
+     * @param hold Whether to hold on to the image, as acquire() does.
+     * @return The image, or null if it couldn't be read.
+     **/
+    private static BufferedImage find(final String path, boolean hold) {
+        while(true) {
+            FutureTask<BufferedImage> task;
+            boolean read = false;
+            synchronized(AssetCache.class) {
+                Entry entry = AssetCache.ENTRIES.get(path);
+                if(entry == null) {
+                    entry = new Entry();
+                    AssetCache.ENTRIES.put(path, entry);
+                }
+                if((entry.image == null) && (entry.soft != null)) {
+                    BufferedImage image = entry.soft.get();
+                    if(image != null) AssetCache.install(entry, image);
+                }
+                if(entry.image != null) return AssetCache.use(entry, hold);
+                if(entry.loading == null) {
+                    entry.loading = new FutureTask<BufferedImage>(new Callable<BufferedImage>() {
+                        @Override
+                        public BufferedImage call() {
+                            return AssetCache.accelerate(GZSFramework.loadImage(path));
+                        }
+                    });
+                    read = true;
+                }
+                task = entry.loading;
+            }
+            
+            if(read) task.run();
+            BufferedImage image = AssetCache.await(task);
+            
+            synchronized(AssetCache.class) {
+                Entry entry = AssetCache.ENTRIES.get(path);
+                if((entry != null) && (entry.loading == task)) {
+                    entry.loading = null;
+                    if(image == null) {
+                        if((entry.refs == 0) && (entry.soft == null)) AssetCache.ENTRIES.remove(path);
+                        return null;
+                    }
+                    AssetCache.loads++;
+                    AssetCache.install(entry, image);
+                }
+                if(image == null) return null;
+                if((entry != null) && (entry.image != null)) return AssetCache.use(entry, hold);
+            }
+            // It was evicted again before this thread got it, so go around again.
+        }
+    }
+    
+    /**
+     * Puts an image that has just been read back in its entry. Must be called
+     * while holding the lock on AssetCache.class.
+     **/
+    private static void install(Entry entry, BufferedImage image) {
+        entry.bytes = (long)image.getWidth() * image.getHeight() * 4;
+        entry.image = image;
+        entry.soft = new SoftReference<BufferedImage>(image);
+        AssetCache.residentBytes += entry.bytes;
+        if(entry.refs == 0) AssetCache.idleBytes += entry.bytes;
+    }
+    
+    /**
+     * Hands out the image in an entry. Must be called while holding the lock
+     * on AssetCache.class.
+     **/
+    private static BufferedImage use(Entry entry, boolean hold) {
+        BufferedImage image = entry.image;
+        if(hold) {
+            if(entry.refs == 0) AssetCache.idleBytes -= entry.bytes;
+            entry.refs++;
+        } else AssetCache.trim();
+        return image;
+    }
+    
+    /**
+     * Waits for an image to be read, even if the thread is interrupted.
+     * @return The image, or null if it couldn't be read.
+     **/
+    private static BufferedImage await(FutureTask<BufferedImage> task) {
+        boolean interrupted = false;
+        try {
+            while(true) {
+                try {
+                    return task.get();
+                } catch(InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        } catch(ExecutionException ee) {
+            return null;
+        } finally {
+            if(interrupted) Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Evicts the least recently used images nobody holds until the rest fit
+     * in the budget. Must be called while holding the lock on AssetCache.class.
+     **/
+    private static void trim() {
+        Iterator<Entry> it = AssetCache.ENTRIES.values().iterator();
+        while((AssetCache.idleBytes > AssetCache.BUDGET) && it.hasNext()) {
+            Entry entry = it.next();
+            if((entry.refs > 0) || (entry.image == null)) continue;
+            entry.image = null;
+            AssetCache.idleBytes -= entry.bytes;
+            AssetCache.residentBytes -= entry.bytes;
+        }
+    }
+    
+    /**
+     * Copies an image into the format the screen draws fastest.
+     * @param image The image to copy.
+     * @return The copy, or the image itself when there is no screen.
+     **/
+    private static BufferedImage accelerate(BufferedImage image) {
+        if((image == null) || GraphicsEnvironment.isHeadless()) return image;
+        BufferedImage copy = GZSFramework.createCompatibleImage(image.getWidth(), image.getHeight());
+        Graphics2D g2d = copy.createGraphics();
+        g2d.drawImage(image, 0, 0, null);
+        g2d.dispose();
+        return copy;
+    }
+}
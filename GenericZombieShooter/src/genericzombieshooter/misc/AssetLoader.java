@@ -0,0 +1,208 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.misc;
+
+import genericzombieshooter.GZSFramework;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+
+/**
+ * Decodes the game's images and sounds on a pool of background threads while
+ * the game starts up, so the loading screen can be shown right away.
+ * 
+ * Loading an image through GZSFramework.loadImage() hands over the copy that
+ * was decoded here, waiting for it if it isn't done yet, and anything the
+ * loader didn't pick up is still decoded on the spot. Nothing here touches
+ * Globals, since creating it is what needs the assets.
+ * @author Darin Beaudreau
+ */
+public class AssetLoader {
+    // Final Variables
+    public static final String SPLASH = Images.START_SCREEN_PATH; // A constant, so Images isn't created by using it.
+    private static final String IMAGE_DIR = "/resources/images/";
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final Map<String, Future<BufferedImage>> IMAGES = new HashMap<String, Future<BufferedImage>>();
+    private static final AtomicInteger DONE = new AtomicInteger(0);
+    
+    // Member Variables
+    private static volatile int total = 0; // Stays at zero unless the loader has been started.
+    
+    /**
+     * Starts decoding every image in the resources and every sound, with the
+     * splash screen first. Does nothing if the loader has already started.
+     **/
+    public static synchronized void start() {
+        if(AssetLoader.total > 0) return;
+        ExecutorService pool = Executors.newFixedThreadPool(AssetLoader.THREADS, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Asset Loader");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        List<String> images = AssetLoader.listResources(AssetLoader.IMAGE_DIR, ".png");
+        images.remove(AssetLoader.SPLASH);
+        images.add(0, AssetLoader.SPLASH);
+        Sounds [] sounds = Sounds.values();
+        AssetLoader.total = images.size() + sounds.length;
+        synchronized(AssetLoader.IMAGES) {
+            for(final String path : images) {
+                AssetLoader.IMAGES.put(path, pool.submit(new Callable<BufferedImage>() {
+                    @Override
+                    public BufferedImage call() {
+                        try {
+                            return GZSFramework.decodeImage(path);
+                        } finally {
+                            AssetLoader.DONE.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+        }
+        for(final Sounds s : sounds) {
+            pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        s.openClip();
+                    } finally {
+                        AssetLoader.DONE.incrementAndGet();
+                    }
+                }
+            });
+        }
+        // The threads finish the queued work and then exit.
+        pool.shutdown();
+    }
+    
+    /**
+     * Takes an image the loader decoded, waiting for it to finish if needed.
+     * Each image is only handed over once, so loading the same file twice
+     * still gives two separate images.
+     * @param path The resource path of the image.
+     * @return The decoded image, or null if the loader wasn't decoding it.
+     **/
+    public static BufferedImage takeImage(String path) {
+        Future<BufferedImage> future;
+        synchronized(AssetLoader.IMAGES) { future = AssetLoader.IMAGES.remove(path); }
+        if(future == null) return null;
+        boolean interrupted = false;
+        try {
+            while(true) {
+                try {
+                    return future.get();
+                } catch(InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        } catch(ExecutionException ee) {
+            // Let the caller decode it again so the error is reported the usual way.
+            return null;
+        } finally {
+            if(interrupted) Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Looks at an image the loader has finished decoding, without taking it.
+     * @param path The resource path of the image.
+     * @return The decoded image, or null if it isn't ready.
+     **/
+    public static BufferedImage peekImage(String path) {
+        Future<BufferedImage> future;
+        synchronized(AssetLoader.IMAGES) { future = AssetLoader.IMAGES.get(path); }
+        if((future == null) || !future.isDone()) return null;
+        try {
+            return future.get();
+        } catch(InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch(ExecutionException ee) {
+            return null;
+        }
+    }
+    
+    /**
+     * Gets how much of the loading is done.
+     * @return A value from 0 to 1, which is 1 if the loader was never started.
+     **/
+    public static float getProgress() {
+        int total_ = AssetLoader.total;
+        if(total_ == 0) return 1.0f;
+        return Math.min(1.0f, ((float)AssetLoader.DONE.get() / total_));
+    }
+    
+    /**
+     * Lists the files in one of the game's resource folders, whether it is
+     * running from a folder or a JAR file.
+     * @param dir The resource path of the folder, ending with a slash.
+     * @param extension The extension of the files to list.
+     * @return The resource path of every matching file in the folder.
+     **/
+    static List<String> listResources(String dir, String extension) {
+        List<String> paths = new ArrayList<String>();
+        URL url = AssetLoader.class.getResource(dir);
+        if(url == null) return paths;
+        try {
+            if("file".equals(url.getProtocol())) {
+                String [] names = new File(url.toURI()).list();
+                if(names != null) {
+                    for(String name : names) {
+                        if(name.endsWith(extension)) paths.add(dir + name);
+                    }
+                }
+            } else {
+                URLConnection connection = url.openConnection();
+                if(connection instanceof JarURLConnection) {
+                    String entryDir = dir.substring(1);
+                    Enumeration<JarEntry> entries = ((JarURLConnection)connection).getJarFile().entries();
+                    while(entries.hasMoreElements()) {
+                        String name = entries.nextElement().getName();
+                        if(name.startsWith(entryDir) && name.endsWith(extension) && (name.indexOf('/', entryDir.length()) < 0)) paths.add("/" + name);
+                    }
+                }
+            }
+        } catch(IOException io) {
+            System.out.println(io.getMessage());
+        } catch(URISyntaxException use) {
+            System.out.println(use.getMessage());
+        }
+        // Sorted so they always load in the same order.
+        Collections.sort(paths);
+        return paths;
+    }
+}
@@ -0,0 +1,245 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.misc;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Packs the game's images and sounds into one file that AssetBundle can map
+ * into memory, with the images already decoded into premultiplied ARGB
+ * pixels and the sounds into raw PCM samples. Sounds are stored the way
+ * TinySound keeps them in memory, as 44.1kHz 16-bit little-endian stereo, so
+ * loading one is a plain copy rather than a conversion. Run as part of the build with
+ * the game's classes and resources on the classpath:
+ * 
+ *   java genericzombieshooter.misc.AssetPacker dist/GenericZombieShooter.assets
+ * 
+ * The bundle starts with an index of every asset's path, kind, offset, size
+ * and format, followed by the data, each piece starting on a 4 byte boundary.
+ * @author Darin Beaudreau
+ */
+public class AssetPacker {
+    // Final Variables
+    private static final String IMAGE_DIR = "/resources/images/";
+    private static final String SOUND_DIR = "/resources/sounds/";
+    private static final AudioFormat TINYSOUND_FORMAT = new AudioFormat(44100.0f, 16, 2, true, false);
+    
+    private static class Packed {
+        String path;
+        byte kind;
+        byte [] data;
+        int width;
+        int height;
+        AudioFormat format;
+    }
+    
+    public static void main(String [] args) {
+        if(args.length != 1) {
+            System.out.println("Usage: java genericzombieshooter.misc.AssetPacker <bundle file>");
+            System.exit(1);
+        }
+        try {
+            AssetPacker.pack(new File(args[0]));
+        } catch(IOException io) {
+            System.out.println(io.getMessage());
+            System.out.println("Error writing file: " + args[0]);
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Packs every image and sound on the classpath into a bundle.
+     * @param file The bundle to write. It is overwritten if it exists.
+     * @throws IOException If an asset could not be read or the bundle could not be written.
+     **/
+    public static void pack(File file) throws IOException {
+        List<Packed> assets = new ArrayList<Packed>();
+        int images = 0;
+        int sounds = 0;
+        for(String path : AssetLoader.listResources(AssetPacker.IMAGE_DIR, ".png")) {
+            assets.add(AssetPacker.packImage(path));
+            images++;
+        }
+        for(String path : AssetLoader.listResources(AssetPacker.SOUND_DIR, ".wav")) {
+            Packed sound = AssetPacker.packSound(path);
+            if(sound != null) {
+                assets.add(sound);
+                sounds++;
+            }
+        }
+        
+        // The index is written once to find its size, and again with the offsets of the data after it.
+        int dataStart = AssetPacker.align(AssetPacker.writeIndex(assets, 0).length);
+        byte [] index = AssetPacker.writeIndex(assets, dataStart);
+        int size = dataStart;
+        for(Packed p : assets) size = AssetPacker.align(size) + p.data.length;
+        
+        ByteBuffer bytes = ByteBuffer.allocate(size);
+        bytes.put(index);
+        for(Packed p : assets) {
+            bytes.position(AssetPacker.align(bytes.position()));
+            bytes.put(p.data);
+        }
+        bytes.flip();
+        FileChannel channel = new FileOutputStream(file).getChannel();
+        try {
+            while(bytes.hasRemaining()) channel.write(bytes);
+        } finally {
+            channel.close();
+        }
+        System.out.println("Packed " + images + " images and " + sounds + " sounds (" + (size / 1024) + " KB) into " + file.getPath());
+    }
+    
+    private static Packed packImage(String path) throws IOException {
+        URL url = AssetPacker.class.getResource(path);
+        BufferedImage decoded = ((url != null)?ImageIO.read(url):null);
+        if(decoded == null) throw new IOException("Could not read image: " + path);
+        // Drawing into a premultiplied image does the conversion the game would otherwise do when it loads it.
+        BufferedImage image = new BufferedImage(decoded.getWidth(), decoded.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2d = image.createGraphics();
+        g2d.drawImage(decoded, 0, 0, null);
+        g2d.dispose();
+        int [] pixels = (int [])image.getRaster().getDataElements(0, 0, image.getWidth(), image.getHeight(), null);
+        
+        Packed p = new Packed();
+        p.path = path;
+        p.kind = AssetBundle.IMAGE;
+        p.width = image.getWidth();
+        p.height = image.getHeight();
+        ByteBuffer data = ByteBuffer.allocate(pixels.length * 4);
+        data.asIntBuffer().put(pixels);
+        p.data = data.array();
+        return p;
+    }
+    
+    /**
+     * Decodes a sound into raw samples.
+     * @param path The resource path of the sound.
+     * @return The packed sound, or null if it isn't PCM and is left for the game to read itself.
+     * @throws IOException If the sound could not be read.
+     **/
+    private static Packed packSound(String path) throws IOException {
+        URL url = AssetPacker.class.getResource(path);
+        if(url == null) throw new IOException("Could not read sound: " + path);
+        AudioInputStream stream;
+        try {
+            stream = AudioSystem.getAudioInputStream(url);
+        } catch(UnsupportedAudioFileException uafe) {
+            throw new IOException("Could not read sound: " + path);
+        }
+        try {
+            AudioFormat format = stream.getFormat();
+            AudioFormat.Encoding encoding = format.getEncoding();
+            if(!encoding.equals(AudioFormat.Encoding.PCM_SIGNED) && !encoding.equals(AudioFormat.Encoding.PCM_UNSIGNED)) {
+                System.out.println("Not packing " + path + ", since it isn't PCM.");
+                return null;
+            }
+            Packed p = new Packed();
+            p.path = path;
+            p.kind = AssetBundle.SOUND;
+            if((format.getSampleRate() == AssetPacker.TINYSOUND_FORMAT.getSampleRate()) && (format.getSampleSizeInBits() == 16) &&
+               ((format.getChannels() == 1) || (format.getChannels() == 2))) {
+                AudioFormat target = new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false);
+                byte [] samples = AssetPacker.readAll(AudioSystem.getAudioInputStream(target, stream));
+                p.format = AssetPacker.TINYSOUND_FORMAT;
+                p.data = ((format.getChannels() == 1)?AssetPacker.toStereo(samples):samples);
+            } else {
+                // TinySound has to resample these itself, so they are stored as they are.
+                p.format = format;
+                p.data = AssetPacker.readAll(stream);
+            }
+            return p;
+        } finally {
+            stream.close();
+        }
+    }
+    
+    /**
+     * Copies each 16-bit sample of a mono sound into both channels.
+     * @param samples The mono samples.
+     * @return The stereo samples.
+     **/
+    private static byte [] toStereo(byte [] samples) {
+        byte [] stereo = new byte[samples.length * 2];
+        for(int i = 0; (i + 1) < samples.length; i += 2) {
+            stereo[(i * 2)] = samples[i];
+            stereo[(i * 2) + 1] = samples[i + 1];
+            stereo[(i * 2) + 2] = samples[i];
+            stereo[(i * 2) + 3] = samples[i + 1];
+        }
+        return stereo;
+    }
+    
+    private static byte [] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte [] buffer = new byte[8192];
+        int read;
+        while((read = in.read(buffer)) != -1) out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+    
+    private static byte [] writeIndex(List<Packed> assets, int dataStart) {
+        int size = 10;
+        for(Packed p : assets) size += 2 + p.path.getBytes(AssetBundle.PATH_CHARSET).length + 9 + ((p.kind == AssetBundle.IMAGE)?8:14);
+        ByteBuffer index = ByteBuffer.allocate(size);
+        index.putInt(AssetBundle.MAGIC);
+        index.putShort(AssetBundle.VERSION);
+        index.putInt(assets.size());
+        int offset = dataStart;
+        for(Packed p : assets) {
+            byte [] path = p.path.getBytes(AssetBundle.PATH_CHARSET);
+            offset = AssetPacker.align(offset);
+            index.putShort((short)path.length);
+            index.put(path);
+            index.put(p.kind);
+            index.putInt(offset);
+            index.putInt(p.data.length);
+            if(p.kind == AssetBundle.IMAGE) {
+                index.putInt(p.width);
+                index.putInt(p.height);
+            } else {
+                index.putFloat(p.format.getSampleRate());
+                index.putInt(p.format.getSampleSizeInBits());
+                index.putInt(p.format.getChannels());
+                index.put((byte)(p.format.getEncoding().equals(AudioFormat.Encoding.PCM_SIGNED)?1:0));
+                index.put((byte)(p.format.isBigEndian()?1:0));
+            }
+            offset += p.data.length;
+        }
+        return index.array();
+    }
+    
+    private static int align(int offset) {
+        return ((offset + 3) & ~3);
+    }
+}
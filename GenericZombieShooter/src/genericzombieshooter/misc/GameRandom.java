@@ -0,0 +1,66 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.misc;
+
+import java.util.Random;
+
+/**
+ * A fast, seedable random number generator based on SplitMix64. It extends
+ * Random so it can be used anywhere a Random is, but unlike Random it isn't
+ * thread-safe, and split() can be used to create independent streams from it.
+ * @author Darin Beaudreau
+ */
+public class GameRandom extends Random {
+    // Final Variables
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    
+    // Member Variables
+    private long state; // Not initialized here, because Random's constructor calls setSeed() before field initializers run.
+    public long getState() { return this.state; } // Passing this to setSeed() picks the sequence up where it left off.
+    
+    public GameRandom(long seed) {
+        super(seed);
+    }
+    
+    @Override
+    public void setSeed(long seed) {
+        super.setSeed(seed); // Clears the cached value used by nextGaussian().
+        this.state = seed;
+    }
+    
+    @Override
+    public long nextLong() {
+        this.state += GameRandom.GOLDEN_GAMMA;
+        long z = this.state;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    @Override
+    protected int next(int bits) {
+        return (int)(this.nextLong() >>> (64 - bits));
+    }
+    
+    /**
+     * Creates a new generator whose sequence is independent of this one.
+     * @return The new generator.
+     **/
+    public GameRandom split() {
+        return new GameRandom(this.nextLong());
+    }
+}
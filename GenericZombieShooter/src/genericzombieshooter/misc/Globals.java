@@ -16,8 +16,15 @@
  **/
 package genericzombieshooter.misc;
 
+import genericzombieshooter.actors.AberrationBoss;
+import genericzombieshooter.actors.AcidZombie;
+import genericzombieshooter.actors.ZombieArchetype;
+import genericzombieshooter.structures.Camera;
 import genericzombieshooter.structures.GameTime;
 import genericzombieshooter.structures.Message;
+import genericzombieshooter.structures.ObstacleMap;
+import genericzombieshooter.structures.TileMap;
+import genericzombieshooter.structures.entities.EntityWorld;
 import genericzombieshooter.structures.weapons.AssaultRifle;
 import genericzombieshooter.structures.weapons.Flamethrower;
 import genericzombieshooter.structures.weapons.Flare;
@@ -32,7 +39,6 @@ import genericzombieshooter.structures.weapons.Weapon;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Contains publicly accessible variables for the entire project.
@@ -43,12 +49,36 @@ public class Globals {
     public static final String VERSION = "1.0";
     public static final int W_WIDTH = 800; // The width of the game window.
     public static final int W_HEIGHT = 640; // The height of the game window.
-    public static final long SLEEP_TIME = 20; // The sleep time of the animation thread.
+    public static final int TICK_RATE = Globals.getIntProperty("gzs.tickRate", 50, 10, 200); // Simulation ticks per second.
+    public static final long TICK_NANOS = 1000000000L / TICK_RATE; // The length of one simulation tick.
+    public static final double TICK_SCALE = 50.0 / TICK_RATE; // Speeds, damage and emission rates are tuned per 20ms step.
+    public static final int MAX_FRAME_RATE = Globals.getIntProperty("gzs.maxFps", 120, 0, 1000); // 0 renders uncapped.
+    public static final int MAX_TICKS_PER_FRAME = 5; // Ticks we will catch up on before dropping time.
+    public static final boolean ACTIVE_RENDERING = !Boolean.getBoolean("gzs.swingRendering"); // Draw from the game loop instead of through repaint().
+    public static final boolean FULL_SCREEN = Boolean.getBoolean("gzs.fullScreen"); // Only used with active rendering.
     public static final long WAVE_BREAK_TIME = 30 * 1000;
-    public static final Random r = new Random();
+    public static final TileMap ARENA = TileMap.load(System.getProperty("gzs.map"), W_WIDTH, W_HEIGHT); // The world, which can be larger than the window.
+    public static final ObstacleMap OBSTACLES = ARENA.createObstacles(System.getProperty("gzs.obstacles"));
+    public static final EntityWorld ENTITIES = new EntityWorld(); // Zombies, projectiles, items and lights, moved and drawn by the entity systems.
+    public static final Camera CAMERA = new Camera(W_WIDTH, W_HEIGHT, ARENA.getWidth(), ARENA.getHeight()); // Follows the player, and maps the mouse into the arena.
     public static List<Message> GAME_MESSAGES = new ArrayList<Message>();
     
+    // Random Number Streams
+    // Each part of the game draws from its own stream, so that (for example) firing
+    // the flamethrower more or less doesn't change which zombies the next wave spawns.
+    public static final GameRandom WAVE_RANDOM = new GameRandom(0); // Wave composition and spawn positions.
+    public static final GameRandom ZOMBIE_RANDOM = new GameRandom(0); // Zombie behavior, such as moans, spit and bursts.
+    public static final GameRandom WEAPON_RANDOM = new GameRandom(0); // Particle spread and life, teleport destinations.
+    public static final GameRandom ITEM_RANDOM = new GameRandom(0); // Item drops and placement.
+    private static long seed;
+    public static long getSeed() { return Globals.seed; }
+    static {
+        Globals.seed(Long.getLong("gzs.seed", System.nanoTime()));
+    }
+    
     // Zombie Information
+    // The kinds of zombies, indexed by type. The types below are the ones the game's own behaviors refer to.
+    public static final ZombieArchetype [] ZOMBIE_ARCHETYPES = ZombieArchetype.load(System.getProperty("gzs.zombies"));
     public static final int ZOMBIE_REGULAR_TYPE = 1;
     public static final long ZOMBIE_REGULAR_SPAWN = 1000;
     public static final int ZOMBIE_DOG_TYPE = 2;
@@ -60,6 +90,8 @@ public class Globals {
     public static final int ZOMBIE_MATRON_TYPE = 5;
     public static final long ZOMBIE_MATRON_SPAWN = 50000;
     public static final int ZOMBIE_TINY_TYPE = 6;
+    public static final int ACID_SPIT = ENTITIES.addHostileSource(AcidZombie.ACID_DAMAGE, 1024); // The damage source of acid zombies' spit.
+    public static final int ABERRATION_SPIT = ENTITIES.addHostileSource(AberrationBoss.PARTICLE_DAMAGE, 1024); // The damage source of the Aberration's spit.
     
     // Boss Information
     public static final int ZOMBIE_BOSS_ABERRATION_TYPE = 7;
@@ -69,8 +101,9 @@ public class Globals {
     // Game-State Related
     public static Runnable animation; // The primary animation thread.
     public static GameTime gameTime; // Used to keep track of the time.
+    public static volatile double interpolation; // How far between the last two ticks the current frame falls, when drawn through Swing.
     
-    public static boolean running; // Whether or not the game is currently running.
+    public static volatile boolean running; // Whether or not the game is currently running. Read by the render thread too.
     public static boolean started;
     public static boolean crashed; // Tells the game whether or not there was a crash.
     public static boolean paused;
@@ -97,6 +130,16 @@ public class Globals {
     public static TurretWeapon TURRETWEAPON = new TurretWeapon();
     public static Teleporter TELEPORTER = new Teleporter();
     
+    /**
+     * Gets every weapon, in the order of their keys.
+     * @return A new array of the weapons.
+     **/
+    public static Weapon [] getWeapons() {
+        return new Weapon[] {Globals.HANDGUN, Globals.ASSAULT_RIFLE, Globals.SHOTGUN, Globals.FLAMETHROWER,
+                             Globals.GRENADE, Globals.LANDMINE, Globals.FLARE, Globals.LASERWIRE,
+                             Globals.TURRETWEAPON, Globals.TELEPORTER};
+    }
+    
     public static Weapon getWeaponByName(String name) {
         if(name.equals(Globals.HANDGUN.getName())) return Globals.HANDGUN;
         else if(name.equals(Globals.ASSAULT_RIFLE.getName())) return Globals.ASSAULT_RIFLE;
@@ -111,6 +154,20 @@ public class Globals {
         else return null;
     }
     
+    /**
+     * Reseeds every random number stream from a single seed. The same seed and
+     * the same input, tick for tick, plays out the same game.
+     * @param seed The seed to use.
+     **/
+    public static void seed(long seed) {
+        Globals.seed = seed;
+        GameRandom master = new GameRandom(seed);
+        Globals.WAVE_RANDOM.setSeed(master.nextLong());
+        Globals.ZOMBIE_RANDOM.setSeed(master.nextLong());
+        Globals.WEAPON_RANDOM.setSeed(master.nextLong());
+        Globals.ITEM_RANDOM.setSeed(master.nextLong());
+    }
+    
     public static void resetWeapons() {
         Globals.HANDGUN.resetAmmo();
         Globals.ASSAULT_RIFLE.resetAmmo();
@@ -123,4 +180,35 @@ public class Globals {
         Globals.TURRETWEAPON.resetAmmo();
         Globals.TELEPORTER.resetAmmo();
     }
+    
+    /**
+     * Converts a duration to a whole number of simulation ticks, rounding down.
+     * @param millis The duration, in milliseconds.
+     * @return How many ticks fit in the duration at the current tick rate.
+     */
+    public static int toTicks(long millis) {
+        return (int)((millis * Globals.TICK_RATE) / 1000);
+    }
+    
+    /**
+     * Reads an integer system property, falling back to the default if it is
+     * missing or malformed and clamping it to the given range.
+     * @param key The name of the system property.
+     * @param def The value to use if the property is not set.
+     * @param min The smallest allowed value.
+     * @param max The largest allowed value.
+     * @return The clamped property value.
+     */
+    public static int getIntProperty(String key, int def, int min, int max) {
+        int value = def;
+        String prop = System.getProperty(key);
+        if(prop != null) {
+            try {
+                value = Integer.parseInt(prop.trim());
+            } catch(NumberFormatException nfe) {
+                System.out.println("Invalid value for " + key + ": " + prop);
+            }
+        }
+        return Math.max(min, Math.min(max, value));
+    }
 }
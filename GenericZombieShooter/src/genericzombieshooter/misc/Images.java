@@ -16,57 +16,135 @@
  **/
 package genericzombieshooter.misc;
 
-import genericzombieshooter.GZSFramework;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Contains constants of images so they don't need to be loaded multiple times.
+ * Images named by data files, such as zombie sprite sheets, are loaded through
+ * load() as well, so a sheet shared with a constant is the same image. These
+ * are all held in AssetCache for as long as the game runs, while the screens
+ * that are only shown now and then are gotten from it by path when drawn.
  * @author Darin Beaudreau
  */
 public class Images {
+    // Every image loaded so far, by path. Declared first so the constants below can use it.
+    private static final Map<String, BufferedImage> LOADED = new HashMap<String, BufferedImage>();
+    private static final List<BufferedImage> EXTRA = new ArrayList<BufferedImage>(); // Loaded images that aren't constants, in the order they were loaded.
+    
+    // Screens
+    public static final String START_SCREEN_PATH = "/resources/images/GZS_Splash.png";
+    public static final String DEATH_SCREEN_PATH = "/resources/images/GZS_DeathScreen.png";
+    public static final String STORE_SCREEN_PATH = "/resources/images/GZS_StoreBackground.png";
+    public static final String LEVEL_SCREEN_PATH = "/resources/images/GZS_LevelScreen.png";
+    
     // Background Images
-    public static final BufferedImage START_SCREEN = GZSFramework.loadImage("/resources/images/GZS_Splash.png");
-    public static final BufferedImage BACKGROUND = GZSFramework.loadImage("/resources/images/GZS_Background6.png");
-    public static final BufferedImage DEATH_SCREEN = GZSFramework.loadImage("/resources/images/GZS_DeathScreen.png");
+    public static final BufferedImage BACKGROUND = Images.load("/resources/images/GZS_Background6.png");
     
     // Player-Related
-    public static final BufferedImage PLAYER = GZSFramework.loadImage("/resources/images/GZS_Player.png");
-    public static final BufferedImage CROSSHAIR = GZSFramework.loadImage("/resources/images/GZS_Crosshair.png");
+    public static final BufferedImage PLAYER = Images.load("/resources/images/GZS_Player.png");
+    public static final BufferedImage CROSSHAIR = Images.load("/resources/images/GZS_Crosshair.png");
     
     // Zombie-Related
-    public static final BufferedImage ZOMBIE_REGULAR = GZSFramework.loadImage("/resources/images/GZS_Zumby2.png");
-    public static final BufferedImage ZOMBIE_DOG = GZSFramework.loadImage("/resources/images/GZS_Rotdog2.png");
-    public static final BufferedImage ZOMBIE_ACID = GZSFramework.loadImage("/resources/images/GZS_Upchuck2.png");
-    public static final BufferedImage ZOMBIE_POISONFOG = GZSFramework.loadImage("/resources/images/GZS_Gasbag2.png");
-    public static final BufferedImage ZOMBIE_MATRON = GZSFramework.loadImage("/resources/images/GZS_BigMama2.png");
-    public static final BufferedImage ZOMBIE_TINY = GZSFramework.loadImage("/resources/images/GZS_TinyZumby.png");
-    public static final BufferedImage BOSS_ABERRATION = GZSFramework.loadImage("/resources/images/GZS_Aberration2.png");
-    public static final BufferedImage BOSS_ZOMBAT = GZSFramework.loadImage("/resources/images/GZS_Zombat.png");
-    public static final BufferedImage BOSS_STITCHES = GZSFramework.loadImage("/resources/images/GZS_Stitches.png");
+    public static final BufferedImage ZOMBIE_REGULAR = Images.load("/resources/images/GZS_Zumby2.png");
+    public static final BufferedImage ZOMBIE_DOG = Images.load("/resources/images/GZS_Rotdog2.png");
+    public static final BufferedImage ZOMBIE_ACID = Images.load("/resources/images/GZS_Upchuck2.png");
+    public static final BufferedImage ZOMBIE_POISONFOG = Images.load("/resources/images/GZS_Gasbag2.png");
+    public static final BufferedImage ZOMBIE_MATRON = Images.load("/resources/images/GZS_BigMama2.png");
+    public static final BufferedImage ZOMBIE_TINY = Images.load("/resources/images/GZS_TinyZumby.png");
+    public static final BufferedImage BOSS_ABERRATION = Images.load("/resources/images/GZS_Aberration2.png");
+    public static final BufferedImage BOSS_ZOMBAT = Images.load("/resources/images/GZS_Zombat.png");
+    public static final BufferedImage BOSS_STITCHES = Images.load("/resources/images/GZS_Stitches.png");
     
-    public static final BufferedImage ACID_PARTICLE = GZSFramework.loadImage("/resources/images/GZS_AcidParticle.png");
-    public static final BufferedImage STITCHES_HOOK = GZSFramework.loadImage("/resources/images/GZS_Hook.png");
-    public static final BufferedImage POISON_GAS_SHEET = GZSFramework.loadImage("/resources/images/GZS_PoisonExplosion.png");
-    public static final BufferedImage POISON_STATUS_ICON = GZSFramework.loadImage("/resources/images/GZS_PoisonIcon.png");
-    public static final BufferedImage BLOOD_SHEET = GZSFramework.loadImage("/resources/images/GZS_BloodExplosion.png");
+    public static final BufferedImage ACID_PARTICLE = Images.load("/resources/images/GZS_AcidParticle.png");
+    public static final BufferedImage STITCHES_HOOK = Images.load("/resources/images/GZS_Hook.png");
+    public static final BufferedImage POISON_GAS_SHEET = Images.load("/resources/images/GZS_PoisonExplosion.png");
+    public static final BufferedImage POISON_STATUS_ICON = Images.load("/resources/images/GZS_PoisonIcon.png");
+    public static final BufferedImage BLOOD_SHEET = Images.load("/resources/images/GZS_BloodExplosion.png");
     
     // Power-Up Related
-    public static final BufferedImage HEALTH_PACK = GZSFramework.loadImage("/resources/images/GZS_Health.png");
-    public static final BufferedImage AMMO_PACK = GZSFramework.loadImage("/resources/images/GZS_Ammo.png");
-    public static final BufferedImage SPEED_UP = GZSFramework.loadImage("/resources/images/GZS_SpeedUp.png");
-    public static final BufferedImage UNLIMITED_AMMO = GZSFramework.loadImage("/resources/images/GZS_UnlimitedAmmo.png");
-    public static final BufferedImage EXTRA_LIFE = GZSFramework.loadImage("/resources/images/GZS_ExtraLife.png");
-    public static final BufferedImage EXP_MULTIPLIER = GZSFramework.loadImage("/resources/images/GZS_ExpMultiplier.png");
-    public static final BufferedImage INVULNERABILITY = GZSFramework.loadImage("/resources/images/GZS_Invulnerability.png");
-    public static final BufferedImage NIGHT_VISION = GZSFramework.loadImage("/resources/images/GZS_NightVision.png");
+    public static final BufferedImage HEALTH_PACK = Images.load("/resources/images/GZS_Health.png");
+    public static final BufferedImage AMMO_PACK = Images.load("/resources/images/GZS_Ammo.png");
+    public static final BufferedImage SPEED_UP = Images.load("/resources/images/GZS_SpeedUp.png");
+    public static final BufferedImage UNLIMITED_AMMO = Images.load("/resources/images/GZS_UnlimitedAmmo.png");
+    public static final BufferedImage EXTRA_LIFE = Images.load("/resources/images/GZS_ExtraLife.png");
+    public static final BufferedImage EXP_MULTIPLIER = Images.load("/resources/images/GZS_ExpMultiplier.png");
+    public static final BufferedImage INVULNERABILITY = Images.load("/resources/images/GZS_Invulnerability.png");
+    public static final BufferedImage NIGHT_VISION = Images.load("/resources/images/GZS_NightVision.png");
     
     // Ammo-Related
-    public static final BufferedImage POPGUN_BULLET = GZSFramework.loadImage("/resources/images/GZS_Bullet.png");
-    public static final BufferedImage RTPS_BULLET = GZSFramework.loadImage("/resources/images/GZS_Bullet2.png");
-    public static final BufferedImage FIRE_PARTICLE = GZSFramework.loadImage("/resources/images/GZS_FireParticle2.png");
-    public static final BufferedImage GRENADE_PARTICLE = GZSFramework.loadImage("/resources/images/GZS_HandEggParticle.png");
-    public static final BufferedImage LANDMINE_PARTICLE = GZSFramework.loadImage("/resources/images/GZS_FlipFlopParticle.png");
-    public static final BufferedImage FLARE_PARTICLE = GZSFramework.loadImage("/resources/images/GZS_FlareParticle.png");
-    public static final BufferedImage LASER_TERMINAL = GZSFramework.loadImage("/resources/images/GZS_LaserTerminal.png");
-    public static final BufferedImage EXPLOSION_SHEET = GZSFramework.loadImage("/resources/images/GZS_Explosion.png");
+    public static final BufferedImage POPGUN_BULLET = Images.load("/resources/images/GZS_Bullet.png");
+    public static final BufferedImage RTPS_BULLET = Images.load("/resources/images/GZS_Bullet2.png");
+    public static final BufferedImage FIRE_PARTICLE = Images.load("/resources/images/GZS_FireParticle2.png");
+    public static final BufferedImage GRENADE_PARTICLE = Images.load("/resources/images/GZS_HandEggParticle.png");
+    public static final BufferedImage LANDMINE_PARTICLE = Images.load("/resources/images/GZS_FlipFlopParticle.png");
+    public static final BufferedImage FLARE_PARTICLE = Images.load("/resources/images/GZS_FlareParticle.png");
+    public static final BufferedImage LASER_TERMINAL = Images.load("/resources/images/GZS_LaserTerminal.png");
+    public static final BufferedImage EXPLOSION_SHEET = Images.load("/resources/images/GZS_Explosion.png");
+    
+    // Every image above, in a fixed order so saved game states can refer to images by index.
+    private static final BufferedImage [] ALL = {
+        BACKGROUND, PLAYER, CROSSHAIR, 
+        ZOMBIE_REGULAR, ZOMBIE_DOG, ZOMBIE_ACID, ZOMBIE_POISONFOG, ZOMBIE_MATRON, ZOMBIE_TINY, 
+        BOSS_ABERRATION, BOSS_ZOMBAT, BOSS_STITCHES, 
+        ACID_PARTICLE, STITCHES_HOOK, POISON_GAS_SHEET, POISON_STATUS_ICON, BLOOD_SHEET, 
+        HEALTH_PACK, AMMO_PACK, SPEED_UP, UNLIMITED_AMMO, EXTRA_LIFE, EXP_MULTIPLIER, INVULNERABILITY, NIGHT_VISION, 
+        POPGUN_BULLET, RTPS_BULLET, FIRE_PARTICLE, GRENADE_PARTICLE, LANDMINE_PARTICLE, FLARE_PARTICLE, LASER_TERMINAL, EXPLOSION_SHEET
+    };
+    
+    /**
+     * Loads an image, or gets it if it has already been loaded.
+     * @param path The path of the image inside the game, or on disk.
+     * @return The image, or null if it couldn't be read.
+     **/
+    public static BufferedImage load(String path) {
+        synchronized(Images.LOADED) {
+            BufferedImage image = Images.LOADED.get(path);
+            if(image == null) {
+                image = AssetCache.acquire(path);
+                if(image != null) {
+                    Images.LOADED.put(path, image);
+                    // The constants are put in ALL once they're all loaded, so this is only for the others.
+                    if(Images.ALL != null) Images.EXTRA.add(image);
+                }
+            }
+            return image;
+        }
+    }
+    
+    /**
+     * Gets the index of one of the images above, or of an image loaded through
+     * load(). The other images are numbered in the order they were loaded, so
+     * their indices only match between runs that load the same data files.
+     * @param image The image to look for.
+     * @return The index of the image, or -1 if it is null or wasn't loaded here.
+     **/
+    public static int indexOf(BufferedImage image) {
+        if(image != null) {
+            for(int i = 0; i < Images.ALL.length; i++) {
+                if(Images.ALL[i] == image) return i;
+            }
+            synchronized(Images.LOADED) {
+                int i = Images.EXTRA.indexOf(image);
+                if(i >= 0) return (Images.ALL.length + i);
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Gets an image by the index returned from indexOf().
+     * @param index The index of the image.
+     * @return The image, or null if the index is -1.
+     **/
+    public static BufferedImage get(int index) {
+        if(index < 0) return null;
+        else if(index < Images.ALL.length) return Images.ALL[index];
+        synchronized(Images.LOADED) {
+            return Images.EXTRA.get(index - Images.ALL.length);
+        }
+    }
 }
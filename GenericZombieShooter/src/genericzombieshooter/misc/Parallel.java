@@ -0,0 +1,96 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.misc;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits the parallel phases of a tick across a shared ForkJoinPool.
+ * 
+ * Work handed to the pool must only change state that belongs to the item
+ * it is working on (one zombie, or one weapon's damage row). Anything that
+ * touches shared state, such as the player, the random number streams or
+ * the wave's lists, is applied afterwards on the game thread in a fixed
+ * order, so the game plays out the same no matter how many threads there are.
+ * @author Darin Beaudreau
+ */
+public class Parallel {
+    /**
+     * A piece of work that can be done for any range of items independently.
+     **/
+    public interface Range {
+        /**
+         * Does the work for the items from one index up to, but not including, another.
+         * @param from The first item to work on.
+         * @param to The index after the last item to work on.
+         **/
+        void run(int from, int to);
+    }
+    
+    // Final Variables
+    public static final int THREADS = Globals.getIntProperty("gzs.threads", Runtime.getRuntime().availableProcessors(), 1, 64);
+    
+    // Member Variables
+    private static ForkJoinPool pool = null; // Only created the first time there is enough work to split.
+    
+    /**
+     * Runs a range of work, split into chunks across the pool. Small ranges,
+     * or any range when only one thread is allowed, run on the calling thread.
+     * @param count The number of items to work on.
+     * @param grain The fewest items worth handing to another thread.
+     * @param range The work to do.
+     **/
+    public static void forRange(int count, int grain, Range range) {
+        if(count <= 0) return;
+        if((Parallel.THREADS == 1) || (count <= grain)) {
+            range.run(0, count);
+            return;
+        }
+        Parallel.getPool().invoke(new Chunk(range, 0, count, Math.max(grain, (count / (Parallel.THREADS * 4)))));
+    }
+    
+    private static synchronized ForkJoinPool getPool() {
+        if(Parallel.pool == null) Parallel.pool = new ForkJoinPool(Parallel.THREADS);
+        return Parallel.pool;
+    }
+    
+    private static class Chunk extends RecursiveAction {
+        private final Range range;
+        private final int from;
+        private final int to;
+        private final int grain;
+        
+        Chunk(Range range_, int from_, int to_, int grain_) {
+            this.range = range_;
+            this.from = from_;
+            this.to = to_;
+            this.grain = grain_;
+        }
+        
+        @Override
+        protected void compute() {
+            if((this.to - this.from) <= this.grain) {
+                this.range.run(this.from, this.to);
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new Chunk(this.range, this.from, middle, this.grain), 
+                          new Chunk(this.range, middle, this.to, this.grain));
+            }
+        }
+    }
+}
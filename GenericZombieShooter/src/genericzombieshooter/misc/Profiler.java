@@ -0,0 +1,278 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.misc;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Times each part of a game tick and of a rendered frame, and keeps counts of
+ * the things that make them slow (zombies, particles, lights, sounds).
+ * 
+ * The last few hundred samples of each section are kept for the overlay, which
+ * is toggled with F3. If the gzs.profile property names a file, every tick and
+ * frame is also written to it as a row of CSV, with times in nanoseconds.
+ * 
+ * Timing works by chaining lap() calls:
+ *     long t = Profiler.start();
+ *     player.update();
+ *     t = Profiler.lap(Profiler.Section.PLAYER, t);
+ * While the overlay is hidden and no file is being written, start() returns 0
+ * and lap() does nothing.
+ * @author Darin Beaudreau
+ */
+public class Profiler {
+    /**
+     * The parts of a tick or frame that are timed separately.
+     **/
+    public enum Section {
+        PLAYER("Player", false),
+        WAVE_SPAWN("Wave Spawn", false),
+        ZOMBIE_AI("Zombie AI", false),
+        COLLISION("Collision", false),
+        WEAPONS("Weapons", false),
+        ITEMS("Items", false),
+        MESSAGES("Messages", false),
+        TICK("Tick Total", false),
+        SNAPSHOT("Render Snapshot", false),
+        BACKGROUND("Background", true),
+        ITEMS_DRAW("Draw Items", true),
+        AMMO("Player/Ammo", true),
+        ZOMBIES("Zombies", true),
+        LIGHTING("Lighting", true),
+        HUD("HUD", true),
+        FRAME("Frame Total", true);
+        
+        private final String label;
+        private final boolean render; // Whether this section is timed per frame rather than per tick.
+        
+        Section(String label, boolean render) {
+            this.label = label;
+            this.render = render;
+        }
+    }
+    
+    // Final Variables
+    private static final int SAMPLE_COUNT = 256; // How many ticks or frames the overlay's percentiles cover.
+    private static final Section [] SECTIONS = Section.values();
+    private static final Font OVERLAY_FONT = new Font("Monospaced", Font.PLAIN, 11);
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 180);
+    
+    // Member Variables
+    private static volatile boolean overlayVisible = false;
+    public static boolean isOverlayVisible() { return Profiler.overlayVisible; }
+    public static void toggleOverlay() { Profiler.overlayVisible = !Profiler.overlayVisible; }
+    
+    private static final long [] current = new long[SECTIONS.length]; // Time spent in each section this tick or frame.
+    private static final long [][] samples = new long[SECTIONS.length][SAMPLE_COUNT];
+    private static int tickIndex = 0;
+    private static int frameIndex = 0;
+    private static long tickCount = 0;
+    private static long frameCount = 0;
+    private static final Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+    
+    private static BufferedWriter out = null;
+    private static String [] countColumns = null; // The count columns, fixed when the header is written.
+    
+    static {
+        String file = System.getProperty("gzs.profile");
+        if(file != null) {
+            try {
+                Profiler.out = new BufferedWriter(new FileWriter(file));
+                Runtime.getRuntime().addShutdownHook(new Thread() {
+                    @Override
+                    public void run() {
+                        Profiler.close();
+                    }
+                });
+            } catch(IOException ioe) {
+                System.out.println("Could not open profile output " + file + ": " + ioe.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * @return Whether anything is being recorded, either for the overlay or the profile output.
+     **/
+    public static boolean isRecording() { return (Profiler.overlayVisible || (Profiler.out != null)); }
+    
+    /**
+     * Starts timing a chain of sections.
+     * @return The current time, or 0 if nothing is being recorded.
+     **/
+    public static long start() {
+        return (Profiler.isRecording() ? System.nanoTime() : 0);
+    }
+    
+    /**
+     * Adds the time since the last lap to a section.
+     * @param section The section that just finished.
+     * @param since The value returned by start() or the last lap().
+     * @return The current time, to pass to the next lap().
+     **/
+    public static long lap(Section section, long since) {
+        if(since == 0) return 0;
+        long now = System.nanoTime();
+        Profiler.current[section.ordinal()] += (now - since);
+        return now;
+    }
+    
+    /**
+     * Sets one of the counts shown in the overlay and written with each tick.
+     * @param name The name of the count.
+     * @param value The count for this tick.
+     **/
+    public static void count(String name, int value) {
+        synchronized(Profiler.counts) { Profiler.counts.put(name, value); }
+    }
+    
+    /**
+     * Stores this tick's section times and starts a new tick.
+     **/
+    public static void endTick() {
+        if(!Profiler.isRecording()) return;
+        Profiler.tickCount++;
+        Profiler.store(false, Profiler.tickIndex, Profiler.tickCount);
+        Profiler.tickIndex = (Profiler.tickIndex + 1) % Profiler.SAMPLE_COUNT;
+    }
+    
+    /**
+     * Stores this frame's section times and starts a new frame.
+     **/
+    public static void endFrame() {
+        if(!Profiler.isRecording()) return;
+        Profiler.frameCount++;
+        Profiler.store(true, Profiler.frameIndex, Profiler.frameCount);
+        Profiler.frameIndex = (Profiler.frameIndex + 1) % Profiler.SAMPLE_COUNT;
+    }
+    
+    private static void store(boolean render, int index, long number) {
+        for(int i = 0; i < Profiler.SECTIONS.length; i++) {
+            if(Profiler.SECTIONS[i].render != render) continue;
+            Profiler.samples[i][index] = Profiler.current[i];
+        }
+        if(Profiler.out != null) Profiler.writeRow(render, number);
+        for(int i = 0; i < Profiler.SECTIONS.length; i++) {
+            if(Profiler.SECTIONS[i].render == render) Profiler.current[i] = 0;
+        }
+    }
+    
+    /**
+     * Writes one tick or frame to the profile output. Ticks leave the render
+     * columns empty and frames leave the tick and count columns empty. The
+     * header is written with the first tick, since that is when all the counts
+     * have been reported, and the count columns stay fixed from then on.
+     * Frames drawn before the first tick (the start screen) are not written.
+     **/
+    private static void writeRow(boolean render, long number) {
+        synchronized(Profiler.counts) {
+            try {
+                if(Profiler.countColumns == null) {
+                    if(render) return;
+                    Profiler.countColumns = Profiler.counts.keySet().toArray(new String[Profiler.counts.size()]);
+                    StringBuilder header = new StringBuilder("type,number");
+                    for(Section s : Profiler.SECTIONS) header.append(',').append(s.name().toLowerCase());
+                    for(String name : Profiler.countColumns) header.append(',').append(name);
+                    Profiler.out.write(header.toString());
+                    Profiler.out.newLine();
+                }
+                StringBuilder row = new StringBuilder(render ? "frame," : "tick,");
+                row.append(number);
+                for(int i = 0; i < Profiler.SECTIONS.length; i++) {
+                    row.append(',');
+                    if(Profiler.SECTIONS[i].render == render) row.append(Profiler.current[i]);
+                }
+                for(String name : Profiler.countColumns) {
+                    row.append(',');
+                    Integer value = Profiler.counts.get(name);
+                    if(!render && (value != null)) row.append(value);
+                }
+                Profiler.out.write(row.toString());
+                Profiler.out.newLine();
+            } catch(IOException ioe) {
+                System.out.println("Could not write profile output: " + ioe.getMessage());
+                Profiler.close();
+            }
+        }
+    }
+    
+    /**
+     * Flushes and closes the profile output, if there is one.
+     **/
+    public static void close() {
+        synchronized(Profiler.counts) {
+            if(Profiler.out == null) return;
+            try {
+                Profiler.out.close();
+            } catch(IOException ioe) {
+                System.out.println("Could not close profile output: " + ioe.getMessage());
+            }
+            Profiler.out = null;
+        }
+    }
+    
+    /**
+     * Draws the median, 95th percentile and worst time of each section over the
+     * last few hundred samples, followed by the counts.
+     * @param g2d The graphics object to draw with.
+     * @param x The left edge of the overlay.
+     * @param y The top edge of the overlay.
+     **/
+    public static void drawOverlay(Graphics2D g2d, int x, int y) {
+        g2d.setFont(Profiler.OVERLAY_FONT);
+        FontMetrics metrics = g2d.getFontMetrics();
+        int lineHeight = metrics.getHeight();
+        int lines;
+        synchronized(Profiler.counts) { lines = Profiler.SECTIONS.length + Profiler.counts.size() + 2; }
+        int width = metrics.stringWidth(String.format("%-12s %7s %7s %7s", "", "", "", "")) + 8;
+        
+        g2d.setColor(Profiler.OVERLAY_BACKGROUND);
+        g2d.fillRect(x, y, width, ((lines * lineHeight) + 8));
+        g2d.setColor(Color.WHITE);
+        
+        int line = y + 4 + metrics.getAscent();
+        g2d.drawString(String.format("%-12s %7s %7s %7s", "ms", "p50", "p95", "max"), (x + 4), line);
+        long [] sorted = new long[Profiler.SAMPLE_COUNT];
+        for(int i = 0; i < Profiler.SECTIONS.length; i++) {
+            System.arraycopy(Profiler.samples[i], 0, sorted, 0, Profiler.SAMPLE_COUNT);
+            Arrays.sort(sorted);
+            line += lineHeight;
+            g2d.drawString(String.format("%-12s %7.2f %7.2f %7.2f", Profiler.SECTIONS[i].label,
+                                         (sorted[Profiler.SAMPLE_COUNT / 2] / 1000000.0),
+                                         (sorted[(Profiler.SAMPLE_COUNT * 95) / 100] / 1000000.0),
+                                         (sorted[Profiler.SAMPLE_COUNT - 1] / 1000000.0)), (x + 4), line);
+        }
+        line += lineHeight;
+        synchronized(Profiler.counts) {
+            Iterator<Map.Entry<String, Integer>> it = Profiler.counts.entrySet().iterator();
+            while(it.hasNext()) {
+                Map.Entry<String, Integer> count = it.next();
+                line += lineHeight;
+                g2d.drawString(String.format("%-20s %d", count.getKey(), count.getValue()), (x + 4), line);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.misc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Describes the replay file format shared by ReplayRecorder and ReplayPlayer.
+ * 
+ * A replay starts with a header (magic number, format version, tick rate,
+ * seed and keyframe interval) followed by a stream of records, one after the
+ * other. A record starts with a tag byte:
+ * 
+ *   TICK | flags   The input for one tick. Followed by, in order and only if
+ *                  the flag is set: the new key and button state as one byte
+ *                  (BUTTONS_CHANGED), the change in mouse position as two
+ *                  zigzag varints (MOUSE_MOVED), and a varint count of
+ *                  commands, each a byte and two zigzag varints (COMMANDS).
+ *   IDLE           A varint number of ticks in which nothing changed.
+ *   KEYFRAME       The varint tick the keyframe was taken before, a varint
+ *                  length and that many bytes of saved game state.
+ *   RESTORE        A keyframe written when a saved game was loaded. It is laid
+ *                  out the same as KEYFRAME, but is loaded when it is reached
+ *                  during playback instead of skipped.
+ *   INDEX          The varint number of ticks recorded and of keyframes,
+ *                  then the tick and file offset of every keyframe, each
+ *                  stored as a varint difference from the one before.
+ * 
+ * The file ends with the offset of the index and INDEX_MAGIC, so a player can
+ * find every keyframe without reading the whole file. A replay that was never
+ * closed has no index, and is read from start to finish to rebuild it.
+ * @author Darin Beaudreau
+ */
+public final class Replay {
+    // File Format
+    public static final int MAGIC = 0x475A5352; // "GZSR"
+    public static final int INDEX_MAGIC = 0x475A5349; // "GZSI"
+    public static final short VERSION = 1;
+    public static final int KEYFRAME_SECONDS = 5; // How much game time passes between keyframes.
+    
+    // Record Tags
+    public static final int TICK = 0x80;
+    public static final int IDLE = 0x01;
+    public static final int KEYFRAME = 0x02;
+    public static final int INDEX = 0x03;
+    public static final int RESTORE = 0x04;
+    
+    // Tick Flags
+    public static final int BUTTONS_CHANGED = 0x01;
+    public static final int MOUSE_MOVED = 0x02;
+    public static final int COMMANDS = 0x04;
+    
+    // Commands
+    // Anything that changes the game in response to input, other than holding keys and buttons, is recorded as a command.
+    public static final int SELECT_WEAPON = 1; // Weapon index.
+    public static final int RELEASE_FIRE = 2;
+    public static final int TOGGLE_PAUSE = 3;
+    public static final int TOGGLE_STORE = 4;
+    public static final int TOGGLE_LEVEL_SCREEN = 5;
+    public static final int CLICK = 6; // x, y.
+    public static final int SCROLL_WEAPON = 7; // Wheel notches.
+    public static final int ADD_AMMO = 8; // Weapon index, amount.
+    public static final int INVULNERABILITY = 9; // Duration in milliseconds.
+    
+    private Replay() {}
+    
+    /**
+     * Packs the movement keys and mouse buttons into the low bits of an int.
+     * @return The keys in bits 0-3 and the buttons in bits 4-5.
+     **/
+    static int packButtons() {
+        int packed = 0;
+        for(int i = 0; i < Globals.keys.length; i++) if(Globals.keys[i]) packed |= (1 << i);
+        for(int i = 0; i < Globals.buttons.length; i++) if(Globals.buttons[i]) packed |= (1 << (Globals.keys.length + i));
+        return packed;
+    }
+    
+    /**
+     * Sets the movement keys and mouse buttons from the value packButtons() returned.
+     * @param packed The packed keys and buttons.
+     **/
+    static void unpackButtons(int packed) {
+        for(int i = 0; i < Globals.keys.length; i++) Globals.keys[i] = ((packed & (1 << i)) != 0);
+        for(int i = 0; i < Globals.buttons.length; i++) Globals.buttons[i] = ((packed & (1 << (Globals.keys.length + i))) != 0);
+    }
+    
+    /**
+     * Writes an unsigned value seven bits at a time, low bits first, with the
+     * high bit of each byte set if more bytes follow.
+     * @param out The buffer to write to.
+     * @param value The value to write. Treated as unsigned.
+     **/
+    static void putVarLong(ByteBuffer out, long value) {
+        while((value & ~0x7FL) != 0) {
+            out.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte)value);
+    }
+    
+    static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long)(b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return value;
+    }
+    
+    /**
+     * Writes a signed value so that small negative numbers take as few bytes
+     * as small positive ones.
+     * @param out The buffer to write to.
+     * @param value The value to write.
+     **/
+    static void putSignedVarLong(ByteBuffer out, long value) {
+        Replay.putVarLong(out, ((value << 1) ^ (value >> 63)));
+    }
+    
+    static long getSignedVarLong(ByteBuffer in) {
+        long value = Replay.getVarLong(in);
+        return ((value >>> 1) ^ -(value & 1));
+    }
+}
@@ -0,0 +1,265 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.misc;
+
+import genericzombieshooter.GZSFramework;
+import genericzombieshooter.structures.StateBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays back a replay written by ReplayRecorder. The file is mapped into memory
+ * and read one tick at a time as the game asks for input. Seeking loads the
+ * last keyframe at or before the tick asked for and plays forward from there.
+ * @author Darin Beaudreau
+ */
+public class ReplayPlayer {
+    // Member Variables
+    private ByteBuffer data;
+    private int recordsStart; // Where the first record starts, just after the header.
+    private long seed;
+    public long getSeed() { return this.seed; }
+    private long tickCount;
+    public long getTickCount() { return this.tickCount; }
+    private long [] keyframeTicks;
+    private int [] keyframeOffsets;
+    private StateBuffer state;
+    private long tick; // The number of the next tick to be played.
+    public long getTick() { return this.tick; }
+    private long idleTicks; // Ticks left in the current run of ticks where nothing changed.
+    private int buttons;
+    private int mouseX;
+    private int mouseY;
+    
+    /**
+     * Opens a replay and reads its keyframe index.
+     * @param file The replay to play.
+     * @throws IOException If the file could not be read or is not a replay this version of the game can play.
+     **/
+    public ReplayPlayer(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+        
+        try {
+            if(this.data.getInt() != Replay.MAGIC) throw new IOException(file.getName() + " is not a replay.");
+            short version = this.data.getShort();
+            if(version != Replay.VERSION) throw new IOException("Replay version " + version + " is not supported.");
+            int tickRate = this.data.getInt();
+            if(tickRate != Globals.TICK_RATE) throw new IOException("Replay was recorded at " + tickRate + 
+                                                                    " ticks per second. Run with -Dgzs.tickRate=" + tickRate + ".");
+            this.seed = this.data.getLong();
+            this.data.getInt(); // The keyframe interval. The index says where each keyframe is.
+        } catch(BufferUnderflowException bue) {
+            throw new IOException(file.getName() + " is not a replay.");
+        }
+        this.recordsStart = this.data.position();
+        
+        if(!this.readIndex()) this.scanIndex();
+        if(this.keyframeTicks.length == 0) throw new IOException(file.getName() + " has no keyframes.");
+        this.state = new StateBuffer();
+    }
+    
+    /**
+     * Loads the last keyframe at or before the given tick and plays forward
+     * until that tick is next. The framework must already be playing this
+     * replay, as its update() is what reads the ticks.
+     * @param framework The game to play the replay in.
+     * @param target The tick to seek to.
+     **/
+    public void seek(GZSFramework framework, long target) {
+        int k = 0;
+        for(int i = 1; i < this.keyframeTicks.length; i++) {
+            if(this.keyframeTicks[i] <= target) k = i;
+        }
+        this.loadKeyframe(framework, k);
+        while((this.tick < target) && framework.isReplaying()) framework.update();
+    }
+    
+    /**
+     * Applies the recorded commands and held input for the next tick.
+     * @param framework The game to apply the commands to.
+     * @return False if there are no ticks left to play.
+     **/
+    public boolean readTick(GZSFramework framework) {
+        while(this.idleTicks == 0) {
+            if(!this.data.hasRemaining()) return false;
+            int tag = this.data.get() & 0xFF;
+            if((tag & Replay.TICK) != 0) {
+                this.readTickRecord(tag, framework);
+                break;
+            } else if(tag == Replay.IDLE) {
+                this.idleTicks = Replay.getVarLong(this.data);
+            } else if(tag == Replay.KEYFRAME) {
+                // The state is already what the keyframe holds, so skip it.
+                Replay.getVarLong(this.data);
+                int length = (int)Replay.getVarLong(this.data);
+                this.data.position(this.data.position() + length);
+            } else if(tag == Replay.RESTORE) {
+                // The game was loaded from a saved state here.
+                this.loadState(framework);
+            } else return false; // The index comes after the last tick.
+        }
+        if(this.idleTicks > 0) this.idleTicks--;
+        
+        Replay.unpackButtons(this.buttons);
+        Globals.mousePos.x = this.mouseX;
+        Globals.mousePos.y = this.mouseY;
+        this.tick++;
+        return true;
+    }
+    
+    private void readTickRecord(int tag, GZSFramework framework) {
+        if((tag & Replay.BUTTONS_CHANGED) != 0) this.buttons = this.data.get() & 0xFF;
+        if((tag & Replay.MOUSE_MOVED) != 0) {
+            this.mouseX += (int)Replay.getSignedVarLong(this.data);
+            this.mouseY += (int)Replay.getSignedVarLong(this.data);
+        }
+        if((tag & Replay.COMMANDS) != 0) {
+            int count = (int)Replay.getVarLong(this.data);
+            for(int i = 0; i < count; i++) {
+                int type = this.data.get();
+                int a = (int)Replay.getSignedVarLong(this.data);
+                int b = (int)Replay.getSignedVarLong(this.data);
+                framework.applyCommand(type, a, b);
+            }
+        }
+    }
+    
+    private void loadKeyframe(GZSFramework framework, int k) {
+        this.data.position(this.keyframeOffsets[k] + 1);
+        this.loadState(framework);
+    }
+    
+    /**
+     * Loads the game state from the keyframe just after the current position.
+     * @param framework The game to load the state into.
+     **/
+    private void loadState(GZSFramework framework) {
+        this.tick = Replay.getVarLong(this.data);
+        int length = (int)Replay.getVarLong(this.data);
+        ByteBuffer bytes = this.data.slice();
+        bytes.limit(length);
+        this.state.load(bytes);
+        this.data.position(this.data.position() + length);
+        framework.loadState(this.state);
+        
+        this.idleTicks = 0;
+        this.buttons = Replay.packButtons();
+        this.mouseX = Globals.mousePos.x;
+        this.mouseY = Globals.mousePos.y;
+    }
+    
+    /**
+     * Reads the keyframe index the recorder wrote when it closed the file.
+     * @return False if the file has no index.
+     **/
+    private boolean readIndex() {
+        int size = this.data.limit();
+        if((size - 12) < this.recordsStart) return false;
+        if(this.data.getInt(size - 4) != Replay.INDEX_MAGIC) return false;
+        long indexOffset = this.data.getLong(size - 12);
+        if((indexOffset < this.recordsStart) || (indexOffset >= (size - 12))) return false;
+        
+        try {
+            this.data.position((int)indexOffset);
+            if(this.data.get() != Replay.INDEX) return false;
+            this.tickCount = Replay.getVarLong(this.data);
+            int count = (int)Replay.getVarLong(this.data);
+            this.keyframeTicks = new long[count];
+            this.keyframeOffsets = new int[count];
+            long lastTick = 0;
+            long lastOffset = 0;
+            for(int i = 0; i < count; i++) {
+                lastTick += Replay.getVarLong(this.data);
+                lastOffset += Replay.getVarLong(this.data);
+                this.keyframeTicks[i] = lastTick;
+                this.keyframeOffsets[i] = (int)lastOffset;
+            }
+        } catch(BufferUnderflowException bue) {
+            return false;
+        }
+        // Playback stops where the index starts.
+        this.data.limit((int)indexOffset);
+        this.data.position(this.recordsStart);
+        return true;
+    }
+    
+    /**
+     * Rebuilds the keyframe index by reading every record, for a replay that
+     * was never closed. The replay ends at the last whole record.
+     **/
+    private void scanIndex() {
+        List<long []> keyframes = new ArrayList<long []>();
+        long ticks = 0;
+        int end = this.recordsStart;
+        this.data.position(this.recordsStart);
+        try {
+            while(this.data.hasRemaining()) {
+                int offset = this.data.position();
+                int tag = this.data.get() & 0xFF;
+                if((tag & Replay.TICK) != 0) {
+                    if((tag & Replay.BUTTONS_CHANGED) != 0) this.data.get();
+                    if((tag & Replay.MOUSE_MOVED) != 0) {
+                        Replay.getVarLong(this.data);
+                        Replay.getVarLong(this.data);
+                    }
+                    if((tag & Replay.COMMANDS) != 0) {
+                        int count = (int)Replay.getVarLong(this.data);
+                        for(int i = 0; i < count; i++) {
+                            this.data.get();
+                            Replay.getVarLong(this.data);
+                            Replay.getVarLong(this.data);
+                        }
+                    }
+                    ticks++;
+                } else if(tag == Replay.IDLE) {
+                    ticks += Replay.getVarLong(this.data);
+                } else if((tag == Replay.KEYFRAME) || (tag == Replay.RESTORE)) {
+                    long keyframeTick = Replay.getVarLong(this.data);
+                    int length = (int)Replay.getVarLong(this.data);
+                    if(length > this.data.remaining()) break;
+                    this.data.position(this.data.position() + length);
+                    keyframes.add(new long [] { keyframeTick, offset });
+                } else break;
+                end = this.data.position();
+            }
+        } catch(BufferUnderflowException bue) {
+            // The recording stopped partway through writing this record.
+        }
+        
+        this.tickCount = ticks;
+        this.keyframeTicks = new long[keyframes.size()];
+        this.keyframeOffsets = new int[keyframes.size()];
+        for(int i = 0; i < keyframes.size(); i++) {
+            this.keyframeTicks[i] = keyframes.get(i)[0];
+            this.keyframeOffsets[i] = (int)keyframes.get(i)[1];
+        }
+        this.data.limit(end);
+        this.data.position(this.recordsStart);
+    }
+}
@@ -0,0 +1,247 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.misc;
+
+import genericzombieshooter.GZSFramework;
+import genericzombieshooter.structures.StateBuffer;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the player's input to a replay file one tick at a time. Only what
+ * changed since the last tick is written, and runs of ticks where nothing
+ * changed are written as a single count, so a replay stays small no matter how
+ * long the game goes on. A keyframe of the whole game state is written every
+ * few seconds so the replay can be started from anywhere in the middle.
+ * @author Darin Beaudreau
+ */
+public class ReplayRecorder {
+    // Final Variables
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_TICK_BYTES = 32; // The most a tick with no commands can take.
+    private static final int MAX_COMMAND_BYTES = 21; // A command byte and two ten byte varints.
+    
+    // Member Variables
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private long written; // How many bytes have been written to the channel.
+    private StateBuffer state; // Reused for every keyframe.
+    private long keyframeTicks;
+    private List<long []> keyframes; // The tick and file offset of each keyframe written.
+    private long tick; // The number of the tick being recorded.
+    public long getTick() { return this.tick; }
+    private long idleTicks; // Ticks in which nothing changed that have not been written yet.
+    private int [] commands; // Type, a and b of each command waiting to be written.
+    private int commandCount;
+    private int lastButtons;
+    private int lastMouseX;
+    private int lastMouseY;
+    
+    /**
+     * Creates the replay file and writes its header and the first keyframe.
+     * @param file The file to record to. It is overwritten if it exists.
+     * @param framework The game being recorded.
+     * @throws IOException If the file could not be written.
+     **/
+    public ReplayRecorder(File file, GZSFramework framework) throws IOException {
+        this.channel = new FileOutputStream(file).getChannel();
+        this.buffer = ByteBuffer.allocateDirect(ReplayRecorder.BUFFER_SIZE);
+        this.written = 0;
+        this.state = new StateBuffer();
+        this.keyframeTicks = Replay.KEYFRAME_SECONDS * Globals.TICK_RATE;
+        this.keyframes = new ArrayList<long []>();
+        this.tick = 0;
+        this.idleTicks = 0;
+        this.commands = new int[3 * 8];
+        this.commandCount = 0;
+        
+        this.buffer.putInt(Replay.MAGIC);
+        this.buffer.putShort(Replay.VERSION);
+        this.buffer.putInt(Globals.TICK_RATE);
+        this.buffer.putLong(Globals.getSeed());
+        this.buffer.putInt((int)this.keyframeTicks);
+        this.writeKeyframe(framework, Replay.KEYFRAME);
+    }
+    
+    /**
+     * Remembers a command to be written with the input for the next tick.
+     * @param type The command, one of the command constants in Replay.
+     * @param a The first argument of the command.
+     * @param b The second argument of the command.
+     **/
+    public void command(int type, int a, int b) {
+        if((this.commandCount * 3) == this.commands.length) {
+            int [] grown = new int[this.commands.length * 2];
+            System.arraycopy(this.commands, 0, grown, 0, this.commands.length);
+            this.commands = grown;
+        }
+        int i = this.commandCount * 3;
+        this.commands[i] = type;
+        this.commands[i + 1] = a;
+        this.commands[i + 2] = b;
+        this.commandCount++;
+    }
+    
+    /**
+     * Writes the commands given since the last tick and any change in the held
+     * keys, buttons and mouse position. Called at the start of every tick,
+     * once the input for it has been applied.
+     * @throws IOException If the file could not be written.
+     **/
+    public void recordInput() throws IOException {
+        int buttons = Replay.packButtons();
+        int dx = Globals.mousePos.x - this.lastMouseX;
+        int dy = Globals.mousePos.y - this.lastMouseY;
+        
+        int flags = 0;
+        if(buttons != this.lastButtons) flags |= Replay.BUTTONS_CHANGED;
+        if((dx != 0) || (dy != 0)) flags |= Replay.MOUSE_MOVED;
+        if(this.commandCount > 0) flags |= Replay.COMMANDS;
+        if(flags == 0) {
+            this.idleTicks++;
+            return;
+        }
+        
+        this.writeIdleTicks();
+        this.ensureRoom(ReplayRecorder.MAX_TICK_BYTES + (this.commandCount * ReplayRecorder.MAX_COMMAND_BYTES));
+        this.buffer.put((byte)(Replay.TICK | flags));
+        if((flags & Replay.BUTTONS_CHANGED) != 0) this.buffer.put((byte)buttons);
+        if((flags & Replay.MOUSE_MOVED) != 0) {
+            Replay.putSignedVarLong(this.buffer, dx);
+            Replay.putSignedVarLong(this.buffer, dy);
+        }
+        if((flags & Replay.COMMANDS) != 0) {
+            Replay.putVarLong(this.buffer, this.commandCount);
+            for(int i = 0; i < (this.commandCount * 3); i += 3) {
+                this.buffer.put((byte)this.commands[i]);
+                Replay.putSignedVarLong(this.buffer, this.commands[i + 1]);
+                Replay.putSignedVarLong(this.buffer, this.commands[i + 2]);
+            }
+            this.commandCount = 0;
+        }
+        this.lastButtons = buttons;
+        this.lastMouseX = Globals.mousePos.x;
+        this.lastMouseY = Globals.mousePos.y;
+    }
+    
+    /**
+     * Moves on to the next tick, writing a keyframe if one is due. Called at
+     * the end of every tick.
+     * @param framework The game being recorded.
+     * @throws IOException If the file could not be written.
+     **/
+    public void endTick(GZSFramework framework) throws IOException {
+        this.tick++;
+        if((this.tick % this.keyframeTicks) == 0) this.writeKeyframe(framework, Replay.KEYFRAME);
+    }
+    
+    /**
+     * Writes the state the game was just loaded from, so playback loads it at
+     * the same point. Commands given earlier in the tick no longer matter, as
+     * the state they changed has been replaced.
+     * @param framework The game being recorded.
+     * @throws IOException If the file could not be written.
+     **/
+    public void stateLoaded(GZSFramework framework) throws IOException {
+        this.commandCount = 0;
+        this.writeKeyframe(framework, Replay.RESTORE);
+    }
+    
+    /**
+     * Writes the keyframe index and closes the file.
+     * @throws IOException If the file could not be written.
+     **/
+    public void close() throws IOException {
+        try {
+            this.writeIdleTicks();
+            long indexOffset = this.written + this.buffer.position();
+            this.ensureRoom(21);
+            this.buffer.put((byte)Replay.INDEX);
+            Replay.putVarLong(this.buffer, this.tick);
+            Replay.putVarLong(this.buffer, this.keyframes.size());
+            long lastTick = 0;
+            long lastOffset = 0;
+            for(long [] k : this.keyframes) {
+                this.ensureRoom(20);
+                Replay.putVarLong(this.buffer, (k[0] - lastTick));
+                Replay.putVarLong(this.buffer, (k[1] - lastOffset));
+                lastTick = k[0];
+                lastOffset = k[1];
+            }
+            this.ensureRoom(12);
+            this.buffer.putLong(indexOffset);
+            this.buffer.putInt(Replay.INDEX_MAGIC);
+            this.flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+    
+    /**
+     * Writes the whole game state so playback can start from the current tick.
+     * @param framework The game being recorded.
+     * @param tag KEYFRAME, or RESTORE if the game was just loaded from a saved state.
+     * @throws IOException If the file could not be written.
+     **/
+    private void writeKeyframe(GZSFramework framework, int tag) throws IOException {
+        this.writeIdleTicks();
+        this.state.clear();
+        framework.saveState(this.state);
+        this.state.flip();
+        ByteBuffer bytes = this.state.getBuffer();
+        
+        this.ensureRoom(24);
+        this.keyframes.add(new long [] { this.tick, (this.written + this.buffer.position()) });
+        this.buffer.put((byte)tag);
+        Replay.putVarLong(this.buffer, this.tick);
+        Replay.putVarLong(this.buffer, bytes.remaining());
+        if(bytes.remaining() > this.buffer.remaining()) {
+            // Too big to copy, so write it straight from the state buffer.
+            this.flush();
+            while(bytes.hasRemaining()) this.written += this.channel.write(bytes);
+        } else this.buffer.put(bytes);
+        
+        // The ticks after a keyframe are written as changes from the state it holds.
+        this.lastButtons = Replay.packButtons();
+        this.lastMouseX = Globals.mousePos.x;
+        this.lastMouseY = Globals.mousePos.y;
+    }
+    
+    private void writeIdleTicks() throws IOException {
+        if(this.idleTicks > 0) {
+            this.ensureRoom(11);
+            this.buffer.put((byte)Replay.IDLE);
+            Replay.putVarLong(this.buffer, this.idleTicks);
+            this.idleTicks = 0;
+        }
+    }
+    
+    private void ensureRoom(int bytes) throws IOException {
+        if(this.buffer.remaining() < bytes) this.flush();
+    }
+    
+    private void flush() throws IOException {
+        this.buffer.flip();
+        while(this.buffer.hasRemaining()) this.written += this.channel.write(this.buffer);
+        this.buffer.clear();
+    }
+}
@@ -16,77 +16,256 @@
  **/
 package genericzombieshooter.misc;
 
+import java.io.IOException;
+import java.net.URL;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
 import kuusisto.tinysound.Music;
+import kuusisto.tinysound.Sound;
 import kuusisto.tinysound.TinySound;
 
 /**
  * Contains all pre-loaded sounds.
+ * 
+ * Sounds that can overlap are decoded once when the game starts into a single
+ * TinySound Sound, which mixes every play of it from the same samples. A small
+ * pool of voices only keeps track of how many plays are going and when each
+ * one ends. TinySound can only stop every play of a sound at once, so a
+ * sound whose voices are all busy skips the new play rather than cutting off
+ * the ones already going. When too many sounds are playing at once, the
+ * least important sound (by priority, then volume) with only one voice left
+ * is cut off to make room, or the new sound is skipped if there is no such
+ * sound or everything it could cut off is more important.
  * @author Darin Beaudreau
  */
 public enum Sounds {
     // Weapon-Related
-    POPGUN("shoot4.wav", false, true),
-    RTPS("shoot3.wav", false, false),
-    BOOMSTICK("shotgun2.wav", false, false),
-    FLAMETHROWER("flamethrower2.wav", true, false),
-    THROW("throw2.wav", false, false),
-    EXPLOSION("explosion2.wav", false, false),
-    LANDMINE_ARMED("landmine_armed.wav", false, false),
-    TELEPORT("teleport2.wav", false, false),
+    POPGUN("shoot4.wav", false, true, 2),
+    RTPS("shoot3.wav", false, false, 2),
+    BOOMSTICK("shotgun2.wav", false, false, 2),
+    FLAMETHROWER("flamethrower2.wav", true, false, 2),
+    THROW("throw2.wav", false, false, 2),
+    EXPLOSION("explosion2.wav", false, false, 2),
+    LANDMINE_ARMED("landmine_armed.wav", false, false, 2),
+    TELEPORT("teleport2.wav", false, false, 2),
     
     // Zombie-Related
-    MOAN1("zombie_moan_01.wav", false, true),
-    MOAN2("zombie_moan_02.wav", false, true),
-    MOAN3("zombie_moan_03.wav", false, true),
-    MOAN4("zombie_moan_04.wav", false, true),
-    MOAN5("zombie_moan_05.wav", false, true),
-    MOAN6("zombie_moan_06.wav", false, true),
-    MOAN7("zombie_moan_07.wav", false, true),
-    MOAN8("zombie_moan_08.wav", false, true),
-    POISONCLOUD("poison_cloud.wav", false, false),
+    MOAN1("zombie_moan_01.wav", false, true, 1),
+    MOAN2("zombie_moan_02.wav", false, true, 1),
+    MOAN3("zombie_moan_03.wav", false, true, 1),
+    MOAN4("zombie_moan_04.wav", false, true, 1),
+    MOAN5("zombie_moan_05.wav", false, true, 1),
+    MOAN6("zombie_moan_06.wav", false, true, 1),
+    MOAN7("zombie_moan_07.wav", false, true, 1),
+    MOAN8("zombie_moan_08.wav", false, true, 1),
+    POISONCLOUD("poison_cloud.wav", false, false, 1),
     
     // Game Sounds
-    POWERUP("powerup2.wav", false, false),
-    PURCHASEWEAPON("purchase_weapon2.wav", false, true),
-    BUYAMMO("buy_ammo2.wav", false, true),
-    POINTBUY("point_buy.wav", false, true),
-    PAUSE("pause.wav", false, false),
-    UNPAUSE("unpause.wav", false, false);
+    POWERUP("powerup2.wav", false, false, 3),
+    PURCHASEWEAPON("purchase_weapon2.wav", false, true, 3),
+    BUYAMMO("buy_ammo2.wav", false, true, 3),
+    POINTBUY("point_buy.wav", false, true, 3),
+    PAUSE("pause.wav", false, false, 3),
+    UNPAUSE("unpause.wav", false, false, 3);
+    
+    // Final Variables
+    private static final int VOICES_PER_SOUND = 4; // How many copies of an overlapping sound can play at once.
+    private static final int MAX_VOICES = 12; // How many overlapping sounds can play at once in total.
+    private static final long DEFAULT_LENGTH = 1000000000L; // How long a voice is assumed to play if the length of its sound is unknown.
+    private static final Sounds [] ALL = Sounds.values();
+    
+    private static volatile boolean enabled = false; // Sounds stay silent until init() has loaded them.
+    public static boolean isEnabled() { return Sounds.enabled; }
     
     private String file;
-    private Music audio;
+    private Music audio; // Null for sounds that overlap, which play through sample instead.
     public Music getAudio() { return this.audio; }
-    private boolean looped; 
+    private boolean looped; // Only sounds that don't overlap can loop.
     private boolean overlap;
+    private int priority; // Decides which overlapping sounds get cut off first when too many are playing.
+    private Sound sample; // The samples every voice of an overlapping sound plays.
+    private long length; // How long the sound plays for, in nanoseconds.
+    private long [] voiceEnd; // When each voice finishes playing, by System.nanoTime(), or 0 if it's free.
+    private double [] voiceGain;
+    private boolean opened; // Set once the sound has been loaded, which may have happened on the asset loader.
 
-    Sounds(String filename, boolean loop, boolean over) {
-        openClip(filename, loop, over);
-    }
-
-    private synchronized void openClip(String filename, boolean loop, boolean over) {
+    Sounds(String filename, boolean loop, boolean over, int priority_) {
         file = filename;
-        audio = TinySound.loadMusic("/resources/sounds/" + filename);
         looped = loop;
         overlap = over;
+        priority = priority_;
+    }
+
+    /**
+     * Loads the sound, unless it has been already. Safe to call from the
+     * asset loader while the game is starting up.
+     **/
+    synchronized void openClip() {
+        if(opened) return;
+        opened = true;
+        String path = "/resources/sounds/" + file;
+        // Sounds in the asset bundle are played from its samples instead of being decoded.
+        AssetBundle bundle = AssetBundle.get();
+        if(overlap) {
+            // Decode the sound once. Every voice plays the same samples, so the voices only need to know when they end.
+            voiceEnd = new long[Sounds.VOICES_PER_SOUND];
+            voiceGain = new double[Sounds.VOICES_PER_SOUND];
+            try {
+                AudioInputStream stream = ((bundle != null)?bundle.getSound(path):null);
+                if(stream == null) {
+                    URL url = Sounds.class.getResource(path);
+                    if(url == null) throw new IOException("Resource not found: " + path);
+                    stream = AudioSystem.getAudioInputStream(url);
+                }
+                long frames = stream.getFrameLength();
+                float rate = stream.getFormat().getFrameRate();
+                length = (((frames > 0) && (rate > 0))?(long)((frames * 1000000000.0) / rate):Sounds.DEFAULT_LENGTH);
+                sample = TinySound.loadSound(stream);
+                stream.close();
+            } catch(IOException io) {
+                System.out.println(io.getMessage());
+                System.out.println("Error reading file: " + path);
+            } catch(UnsupportedAudioFileException uafe) {
+                System.out.println(uafe.getMessage());
+                System.out.println("Error reading file: " + path);
+            }
+        } else {
+            AudioInputStream stream = ((bundle != null)?bundle.getSound(path):null);
+            audio = ((stream != null)?TinySound.loadMusic(stream):TinySound.loadMusic(path));
+        }
     }
     
-    public synchronized void play() {
+    public void play() {
         play(1.0);
     }
     
-    public synchronized void play(final double gain) {
-        // If the clip supports overlapping, create a new Music object to use.
+    public void play(final double gain) {
+        if(!Sounds.enabled) return;
+        if(overlap) {
+            // Anything this quiet can't be heard anyway.
+            if(gain <= 0) return;
+            synchronized(Sounds.class) {
+                if(sample == null) return;
+                long now = System.nanoTime();
+                int voice = findVoice(gain, now);
+                if(voice < 0) return;
+                sample.play(gain);
+                voiceEnd[voice] = now + length;
+                voiceGain[voice] = gain;
+            }
+        } else {
+            synchronized(this) {
+                audio.rewind();
+                audio.play(looped, gain);
+            }
+        }
+    }
+    
+    /**
+     * Picks which of this sound's voices to play on, stopping another sound if
+     * there is no room. Must be called while holding the lock on Sounds.class.
+     * @param gain The volume the new sound will play at.
+     * @param now The current time, by System.nanoTime().
+     * @return The index of the voice to use, or -1 if the sound should be skipped.
+     **/
+    private int findVoice(double gain, long now) {
+        int free = -1;
+        int playing = 0;
+        Sounds weakest = null;
+        int weakestVoice = -1;
+        for(Sounds s : Sounds.ALL) {
+            if(!s.overlap) continue;
+            int sPlaying = 0;
+            int sVoice = -1;
+            for(int i = 0; i < s.voiceEnd.length; i++) {
+                if(s.isVoicePlaying(i, now)) {
+                    sPlaying++;
+                    sVoice = i;
+                } else if((s == this) && (free < 0)) free = i;
+            }
+            playing += sPlaying;
+            // Stopping a sound stops all of its voices, so only one with a single voice left can be cut off.
+            if((sPlaying == 1) && (s != this) && ((weakest == null) || s.weakerThan(sVoice, weakest.priority, weakest.voiceGain[weakestVoice]))) {
+                weakest = s;
+                weakestVoice = sVoice;
+            }
+        }
+        
+        // All of this sound's voices are busy, and cutting one off would cut them all off.
+        if(free < 0) return -1;
+        if(playing >= Sounds.MAX_VOICES) {
+            // Too many sounds are playing, so make room by cutting off the least important one.
+            if((weakest == null) || !weakest.weakerThan(weakestVoice, priority, gain)) return -1;
+            weakest.stopVoices();
+        }
+        return free;
+    }
+    
+    private boolean isVoicePlaying(int voice, long now) {
+        return ((sample != null) && (voiceEnd[voice] != 0) && ((voiceEnd[voice] - now) > 0));
+    }
+    
+    /**
+     * Stops every voice of an overlapping sound. Must be called while holding
+     * the lock on Sounds.class.
+     **/
+    private void stopVoices() {
+        if(sample != null) sample.stop();
+        for(int i = 0; i < voiceEnd.length; i++) voiceEnd[i] = 0;
+    }
+    
+    private boolean weakerThan(int voice, int otherPriority, double otherGain) {
+        if(priority != otherPriority) return (priority < otherPriority);
+        return (voiceGain[voice] <= otherGain);
+    }
+    
+    public void stop() {
+        if(!Sounds.enabled) return;
         if(overlap) {
-            Music m = TinySound.loadMusic("/resources/sounds/" + file);
-            m.rewind();
-            m.play(looped, gain);
+            synchronized(Sounds.class) { stopVoices(); }
         } else {
-            audio.rewind();
-            audio.play(looped, gain);
+            synchronized(this) { audio.stop(); }
+        }
+    }
+    
+    public boolean isPlaying() {
+        if(!Sounds.enabled) return false;
+        if(overlap) {
+            synchronized(Sounds.class) {
+                long now = System.nanoTime();
+                for(int i = 0; i < voiceEnd.length; i++) if(isVoicePlaying(i, now)) return true;
+            }
+            return false;
+        } else {
+            synchronized(this) { return audio.playing(); }
         }
     }
 
+    /**
+     * Counts the voices of overlapping sounds that are playing right now.
+     * @return The number of voices playing, out of MAX_VOICES.
+     **/
+    public static int getPlayingVoices() {
+        if(!Sounds.enabled) return 0;
+        int playing = 0;
+        synchronized(Sounds.class) {
+            long now = System.nanoTime();
+            for(Sounds s : Sounds.ALL) {
+                if(!s.overlap) continue;
+                for(int i = 0; i < s.voiceEnd.length; i++) if(s.isVoicePlaying(i, now)) playing++;
+            }
+        }
+        return playing;
+    }
+    
+    /**
+     * Loads every sound that the asset loader hasn't already, waiting for any
+     * it is still loading. Until this is called, and when running without an
+     * audio device, playing a sound does nothing.
+     **/
     public static void init() {
-        values();
+        for(Sounds s : Sounds.ALL) s.openClip();
+        Sounds.enabled = true;
     }
 }
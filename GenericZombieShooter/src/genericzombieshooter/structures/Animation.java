@@ -16,83 +16,51 @@
  **/
 package genericzombieshooter.structures;
 
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
+import genericzombieshooter.misc.Globals;
 
 /**
- * Used to animate sprite sheets.
+ * Used to play a sprite sheet at a spot on the screen. An animation only keeps
+ * the tick it started on; the frame showing is worked out from the game clock
+ * and the shared SpriteTimeline when it's asked for, so animations never need
+ * to be updated, and stand still while the game is paused.
  * @author Darin Beaudreau
  */
 public class Animation {
     // Member variables.
-    protected BufferedImage img; // The animation sheet.
-    protected int frameWidth; // The width of each frame in the animation.
-    public int getWidth() { return this.frameWidth; }
-    protected int frameHeight; // The height of each frame in the animation.
-    public int getHeight() { return this.frameHeight; }
-    protected int frameCount; // The number of frames in the animation.
+    private SpriteTimeline timeline;
+    public SpriteTimeline getTimeline() { return this.timeline; }
+    public int getWidth() { return this.timeline.getWidth(); }
+    public int getHeight() { return this.timeline.getHeight(); }
     
-    protected long frameTime; // Time between frames, in milliseconds.
-    protected long startingFrameTime; // Time when the frame started showing.
-    protected long nextFrameTime; // Time when to show the next frame.
-    protected long delay; // How long to wait before starting and displaying animation.
-    protected long timeCreated; // The time in milliseconds that the animation was created.
-    protected long life;
-    protected long expirationTime; // The time in milliseconds when the animation will expire.
+    private long startTick; // The tick the animation started on.
+    private long lifeTicks; // How many ticks the animation lasts, or -1 for as long as the timeline does.
     
-    protected int currentFrame; // Current frame in the animation.
+    private int x; // x coordinate of the center of the animation.
+    private int y; // y coordinate of the center of the animation.
     
-    protected int x; // x coordinate of the animation on the screen.
-    protected int y; // y coordinate of the animation on the screen.
-    
-    protected int startX; // Starting X coordinate of current frame in animation.
-    protected int endX; // Ending X coordinate of current frame in animation.
-    
-    protected boolean loop; // Determines if the animation is looped.
-    protected boolean active; // Determines if the animation is active.
-    
-    /*
-     * @param img The source image for the animation.
-     * @param frameWidth The width of each frame in the animation.
-     * @param frameHeight The height of each frame in the animation.
-     * @param frameCount The total number of frames in the animation.
-     * @param x x coordinate of the animation on the screen.
-     * @param y y coordinate of the animation on the screen.
-     * @param frameTime Amount of time in milliseconds to show each frame before moving to the next.
-     * @param delay The delay in milliseconds before the animation starts and animates.
-     * @param loop Determines if the animation will loop.
-     */
-    public Animation(BufferedImage img, int frameWidth, int frameHeight, int frameCount, int x, int y, long frameTime, long delay, boolean loop) {
-        this(img, frameWidth, frameHeight, frameCount, x, y, frameTime, delay, -1, loop);
+    /**
+     * Starts playing a timeline.
+     * @param timeline The frames to play.
+     * @param x x coordinate of the center of the animation.
+     * @param y y coordinate of the center of the animation.
+     **/
+    public Animation(SpriteTimeline timeline, int x, int y) {
+        this(timeline, x, y, -1);
     }
     
-    public Animation(BufferedImage img, int frameWidth, int frameHeight, int frameCount, int x, int y, long frameTime, long delay, long life, boolean loop) {
-        this.img = img;
-        this.frameWidth = frameWidth;
-        this.frameHeight = frameHeight;
-        this.frameCount = frameCount;
-        
+    /**
+     * Starts playing a timeline for a fixed time.
+     * @param timeline The frames to play.
+     * @param x x coordinate of the center of the animation.
+     * @param y y coordinate of the center of the animation.
+     * @param life How long the animation lasts, in milliseconds, or -1 for as long as the timeline does.
+     **/
+    public Animation(SpriteTimeline timeline, int x, int y, long life) {
+        this.timeline = timeline;
         this.x = x;
         this.y = y;
-        
-        this.startX = 0;
-        this.endX = frameWidth;
-        
-        this.frameTime = frameTime;
-        this.delay = delay;
-        
-        this.startingFrameTime = System.currentTimeMillis() + delay;
-        this.nextFrameTime = this.startingFrameTime + this.frameTime;
-        
-        this.currentFrame = 0;
-        
-        this.loop = loop;
-        
-        this.timeCreated = System.currentTimeMillis();
-        this.life = life;
-        this.expirationTime = System.currentTimeMillis() + life;
-        
-        this.active = true;
+        this.startTick = Globals.gameTime.getTicks();
+        this.lifeTicks = ((life < 0)?-1:Globals.toTicks(life));
     }
     
     /* Changes the location of the animation.
@@ -104,39 +72,61 @@ public class Animation {
         this.y = y;
     }
     
+    private long getAge() { return (Globals.gameTime.getTicks() - this.startTick); }
+    
     public boolean isActive() {
-        return this.active && ((this.life < 0) || ((this.life >= 0) && (System.currentTimeMillis() <= this.expirationTime)));
+        long age = this.getAge();
+        return !this.timeline.isFinished(age) && ((this.lifeTicks < 0) || (age <= this.lifeTicks));
     }
     
-    /* Checks to see if it's time for the next frame in the animation.
-     * Also checks if the animation is finished.
-     */
-    public void update() {
-        if(nextFrameTime <= System.currentTimeMillis()) {
-            currentFrame++;
-            if(currentFrame >= frameCount) { // If the animation has ended, reset the current frame to 0.
-                currentFrame = 0;
-                if(!loop) active = false; // If the animation is not looped and is over, it is no longer active.
-            }
-            
-            // Sets the X coordinates for cropping the current frame out of the source image.
-            startX = frameWidth * currentFrame;
-            endX = frameWidth + startX;
-            
-            // Set the time for the next frame.
-            startingFrameTime = System.currentTimeMillis();
-            nextFrameTime = startingFrameTime + frameTime;
-        }
+    /**
+     * Gets the frame showing right now.
+     * @return The frame, or -1 if the animation is over.
+     **/
+    public int getCurrentFrame() { return this.timeline.getFrame(this.getAge()); }
+    
+    /**
+     * Writes the state of the animation. The timeline isn't written, since
+     * whoever owns the animation creates it with the right one.
+     * @param out The buffer to write to.
+     **/
+    public void saveState(StateBuffer out) {
+        out.putLong(this.startTick);
+        out.putLong(this.lifeTicks);
+        out.putInt(this.x);
+        out.putInt(this.y);
     }
     
-    /* Draws the current frame of the animation.
-     * @param g2d Graphics2D
+    /**
+     * Reads back the state written by saveState().
+     * @param in The buffer to read from.
+     **/
+    public void loadState(StateBuffer in) {
+        this.startTick = in.getLong();
+        this.lifeTicks = in.getLong();
+        this.x = in.getInt();
+        this.y = in.getInt();
+    }
+    
+    /* Draws the current frame of the animation, centered on its location.
+     * @param frame RenderFrame
      */
-    public void draw(Graphics2D g2d) {
-        if((this.timeCreated + this.delay) <= System.currentTimeMillis()) {
-            g2d.drawImage(img, (x - (frameWidth / 2)), (y - (frameHeight / 2)), 
-                         (x + (frameWidth / 2)), (y + (frameHeight / 2)), 
-                         startX, 0, endX, frameHeight, null);
+    public void draw(RenderFrame frame) {
+        this.draw(frame, this.timeline.getWidth(), this.timeline.getHeight());
+    }
+    
+    /**
+     * Draws the current frame of the animation, stretched to a different size.
+     * @param frame The frame being built.
+     * @param width The width to draw the frame at.
+     * @param height The height to draw the frame at.
+     **/
+    public void draw(RenderFrame frame, int width, int height) {
+        int index = this.getCurrentFrame();
+        if(index >= 0) {
+            int left = this.x - (this.timeline.getWidth() / 2);
+            int top = this.y - (this.timeline.getHeight() / 2);
+            this.timeline.draw(frame, index, left, top, (left + width), (top + height));
         }
     }
 }
@@ -0,0 +1,72 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures;
+
+/**
+ * The part of the arena shown in the window. The camera keeps the player in
+ * the middle of the view, but stops at the edges of the arena so nothing
+ * outside it is ever shown. When the arena is the size of the window, the
+ * camera never moves.
+ * @author Darin Beaudreau
+ */
+public class Camera {
+    // Member Variables
+    private int width; // The size of the view.
+    public int getWidth() { return this.width; }
+    private int height;
+    public int getHeight() { return this.height; }
+    private int arenaWidth;
+    private int arenaHeight;
+    private double x; // The arena coordinates of the view's top left corner.
+    public double getX() { return this.x; }
+    private double y;
+    public double getY() { return this.y; }
+    
+    /**
+     * Creates a camera looking at the top left corner of the arena.
+     * @param width The width of the view, in pixels.
+     * @param height The height of the view, in pixels.
+     * @param arenaWidth The width of the arena, in pixels.
+     * @param arenaHeight The height of the arena, in pixels.
+     **/
+    public Camera(int width, int height, int arenaWidth, int arenaHeight) {
+        this.width = width;
+        this.height = height;
+        this.arenaWidth = arenaWidth;
+        this.arenaHeight = arenaHeight;
+        this.x = 0;
+        this.y = 0;
+    }
+    
+    /**
+     * Centers the view on a point, as far as the edges of the arena allow.
+     * @param centerX The x coordinate to center on.
+     * @param centerY The y coordinate to center on.
+     **/
+    public void follow(double centerX, double centerY) {
+        this.x = Camera.clamp((centerX - (this.width / 2.0)), (this.arenaWidth - this.width));
+        this.y = Camera.clamp((centerY - (this.height / 2.0)), (this.arenaHeight - this.height));
+    }
+    
+    public double toArenaX(double screenX) { return (screenX + this.x); }
+    public double toArenaY(double screenY) { return (screenY + this.y); }
+    
+    private static double clamp(double value, double max) {
+        if(max <= 0) return 0;
+        return ((value < 0)?0:((value > max)?max:value));
+    }
+}
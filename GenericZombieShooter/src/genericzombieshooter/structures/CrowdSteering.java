@@ -0,0 +1,210 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures;
+
+import genericzombieshooter.actors.Zombie;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.misc.Parallel;
+import java.util.List;
+
+/**
+ * Keeps zombies from piling up on top of each other. Each tick, every zombie
+ * is pushed away from the zombies it overlaps, so a horde spreads out around
+ * the player instead of collapsing into a single stack of sprites.
+ * 
+ * Zombies are sorted into a uniform grid by their centers, and each one
+ * only looks at the cells around its own and is only pushed by a fixed number
+ * of its closest neighbors, so the cost stays linear in the number of zombies. The pushes
+ * are worked out from where every zombie was at the start of the tick, so
+ * they can be worked out in parallel and come out the same on any number
+ * of threads.
+ * @author Darin Beaudreau
+ */
+public class CrowdSteering {
+    // Final Variables
+    private static final int CELL_SIZE = 64; // At least twice the largest radius, so neighbors are always in the surrounding cells.
+    private static final double RADIUS_SCALE = 0.35; // How much of a zombie's frame it keeps clear, since the frames have empty space.
+    private static final double MAX_RADIUS = CrowdSteering.CELL_SIZE / 2;
+    private static final int MAX_NEIGHBORS = 6;
+    private static final double STRENGTH = 0.5; // How much of the overlap with each neighbor is pushed apart each tick.
+    private static final double MAX_PUSH = 1.5 * Globals.TICK_SCALE; // The furthest a zombie can be pushed in one tick.
+    private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+    private static final int GRAIN = 64;
+    
+    // Member Variables
+    private int columns;
+    private int rows;
+    private int [] cellStart; // Where each cell's zombies start in cellZombies.
+    private int [] cellZombies; // Zombie indices for every cell, in ascending order within a cell.
+    private int [] cellOf; // The cell each zombie is in.
+    private int [] next; // Used while filling the cells.
+    private int count;
+    private double [] x;
+    private double [] y;
+    private double [] radius;
+    private double [] pushX;
+    private double [] pushY;
+    public double getPushX(int i) { return this.pushX[i]; }
+    public double getPushY(int i) { return this.pushY[i]; }
+    
+    /**
+     * Creates an empty crowd covering the given area.
+     * @param width The width of the area covered, in pixels.
+     * @param height The height of the area covered, in pixels.
+     **/
+    public CrowdSteering(int width, int height) {
+        this.columns = ((width + CrowdSteering.CELL_SIZE - 1) / CrowdSteering.CELL_SIZE);
+        this.rows = ((height + CrowdSteering.CELL_SIZE - 1) / CrowdSteering.CELL_SIZE);
+        this.cellStart = new int[(this.columns * this.rows) + 1];
+        this.next = new int[this.columns * this.rows];
+        this.count = 0;
+        this.resize(16);
+    }
+    
+    /**
+     * Works out how far each zombie should be pushed this tick. Indices into
+     * the pushes are indices into the list.
+     * @param zombies The zombies on the field.
+     **/
+    public void update(List<Zombie> zombies) {
+        this.count = zombies.size();
+        if(this.count > this.x.length) this.resize(Math.max(this.count, (this.x.length * 2)));
+        
+        int cells = this.columns * this.rows;
+        for(int c = 0; c <= cells; c++) this.cellStart[c] = 0;
+        
+        { // Store each zombie's center and count how many zombies land in each cell.
+            for(int i = 0; i < this.count; i++) {
+                Zombie z = zombies.get(i);
+                this.x[i] = z.getX();
+                this.y[i] = z.getY();
+                this.radius[i] = Math.min(CrowdSteering.MAX_RADIUS, 
+                                          (Math.max(z.getWidth(), z.getHeight()) * CrowdSteering.RADIUS_SCALE));
+                this.cellOf[i] = (this.row(this.y[i]) * this.columns) + this.column(this.x[i]);
+                this.cellStart[this.cellOf[i] + 1]++;
+            }
+        } // End counting zombies per cell.
+        
+        // Turn the counts into starting offsets.
+        for(int c = 0; c < cells; c++) this.cellStart[c + 1] += this.cellStart[c];
+        
+        { // Fill in the cells. Zombies are added in list order, so each cell stays sorted.
+            System.arraycopy(this.cellStart, 0, this.next, 0, cells);
+            for(int i = 0; i < this.count; i++) this.cellZombies[this.next[this.cellOf[i]]++] = i;
+        } // End filling in the cells.
+        
+        Parallel.forRange(this.count, CrowdSteering.GRAIN, new Parallel.Range() {
+            @Override
+            public void run(int from, int to) {
+                int [] nearest = new int[CrowdSteering.MAX_NEIGHBORS];
+                double [] nearestDistSq = new double[CrowdSteering.MAX_NEIGHBORS];
+                for(int i = from; i < to; i++) separate(i, nearest, nearestDistSq);
+            }
+        });
+    }
+    
+    /**
+     * Adds up the pushes from a zombie's closest overlapping neighbors. Keeping
+     * the closest ones, rather than the first ones found, means the pushes don't
+     * depend on the order the cells are scanned in, so a packed horde doesn't
+     * drift toward the cells scanned first.
+     * @param i The index of the zombie.
+     * @param nearest Scratch space for the closest neighbors found so far.
+     * @param nearestDistSq Scratch space for their squared distances.
+     **/
+    private void separate(int i, int [] nearest, double [] nearestDistSq) {
+        int neighbors = 0;
+        int column = this.cellOf[i] % this.columns;
+        int row = this.cellOf[i] / this.columns;
+        for(int r = Math.max(0, (row - 1)); r <= Math.min((this.rows - 1), (row + 1)); r++) {
+            for(int c = Math.max(0, (column - 1)); c <= Math.min((this.columns - 1), (column + 1)); c++) {
+                int cell = (r * this.columns) + c;
+                for(int k = this.cellStart[cell]; k < this.cellStart[cell + 1]; k++) {
+                    int j = this.cellZombies[k];
+                    if(j == i) continue;
+                    double dx = this.x[i] - this.x[j];
+                    double dy = this.y[i] - this.y[j];
+                    double minDist = this.radius[i] + this.radius[j];
+                    double distSq = (dx * dx) + (dy * dy);
+                    if(distSq >= (minDist * minDist)) continue;
+                    
+                    // Insert the neighbor into the closest ones found so far, ordered by distance and then index.
+                    int slot = neighbors;
+                    while((slot > 0) && ((distSq < nearestDistSq[slot - 1]) || 
+                                         ((distSq == nearestDistSq[slot - 1]) && (j < nearest[slot - 1])))) slot--;
+                    if(slot >= CrowdSteering.MAX_NEIGHBORS) continue;
+                    int last = Math.min(neighbors, (CrowdSteering.MAX_NEIGHBORS - 1));
+                    for(int n = last; n > slot; n--) {
+                        nearest[n] = nearest[n - 1];
+                        nearestDistSq[n] = nearestDistSq[n - 1];
+                    }
+                    nearest[slot] = j;
+                    nearestDistSq[slot] = distSq;
+                    if(neighbors < CrowdSteering.MAX_NEIGHBORS) neighbors++;
+                }
+            }
+        }
+        
+        double px = 0;
+        double py = 0;
+        for(int n = 0; n < neighbors; n++) {
+            int j = nearest[n];
+            double dx = this.x[i] - this.x[j];
+            double dy = this.y[i] - this.y[j];
+            double dist = Math.sqrt(nearestDistSq[n]);
+            double overlap = (this.radius[i] + this.radius[j]) - dist;
+            if(dist < 0.0001) {
+                // Zombies on exactly the same spot, like the bats of a Zombat wave, are split
+                // along an angle picked from the pair, in opposite directions for each of them.
+                double angle = (Math.min(i, j) * 7 + Math.max(i, j) * 13) * CrowdSteering.GOLDEN_ANGLE;
+                dx = Math.cos(angle) * ((i < j)?1:-1);
+                dy = Math.sin(angle) * ((i < j)?1:-1);
+                dist = 1;
+            }
+            double push = (overlap * CrowdSteering.STRENGTH) / dist;
+            px += dx * push;
+            py += dy * push;
+        }
+        double length = Math.sqrt((px * px) + (py * py));
+        if(length > CrowdSteering.MAX_PUSH) {
+            px *= CrowdSteering.MAX_PUSH / length;
+            py *= CrowdSteering.MAX_PUSH / length;
+        }
+        this.pushX[i] = px;
+        this.pushY[i] = py;
+    }
+    
+    private void resize(int size) {
+        this.cellZombies = new int[size];
+        this.cellOf = new int[size];
+        this.x = new double[size];
+        this.y = new double[size];
+        this.radius = new double[size];
+        this.pushX = new double[size];
+        this.pushY = new double[size];
+    }
+    
+    private int column(double x_) {
+        int c = (int)Math.floor(x_ / CrowdSteering.CELL_SIZE);
+        return ((c < 0)?0:((c >= this.columns)?(this.columns - 1):c));
+    }
+    
+    private int row(double y_) {
+        int r = (int)Math.floor(y_ / CrowdSteering.CELL_SIZE);
+        return ((r < 0)?0:((r >= this.rows)?(this.rows - 1):r));
+    }
+}
@@ -17,7 +17,6 @@
 package genericzombieshooter.structures;
 
 import java.awt.Dimension;
-import java.awt.Graphics2D;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 
@@ -26,6 +25,11 @@ import java.awt.image.BufferedImage;
  * @author Darin Beaudreau
  */
 public class Explosion extends Point2D.Double {
+    // Final Variables
+    private static final int FRAME_COUNT = 8;
+    private static final long FRAME_TIME = 50;
+    
+    // Member Variables
     private Animation img;
     public Animation getImage() { return this.img; }
     private Dimension size;
@@ -34,19 +38,24 @@ public class Explosion extends Point2D.Double {
     public Explosion(BufferedImage bi, Point2D.Double p) {
         super(p.x, p.y);
         this.size = new Dimension(128, 128);
-        this.img = new Animation(bi, this.size.width, this.size.height, 8, (int)p.x, (int)p.y, 50, 0, false) {
-            @Override
-            public void draw(Graphics2D g2d) {
-                if((this.timeCreated + this.delay) <= System.currentTimeMillis()) {
-                    g2d.drawImage(this.img, (this.x - (this.frameWidth / 2)), (this.y - (this.frameHeight / 2)),
-                                 (this.x + this.frameWidth), (this.y + this.frameHeight),
-                                  this.startX, 0, this.endX, this.frameHeight, null);
-                }
-            }
-        };
+        SpriteTimeline timeline = SpriteTimeline.get(bi, this.size.width, this.size.height, Explosion.FRAME_COUNT, Explosion.FRAME_TIME, false);
+        this.img = new Animation(timeline, (int)p.x, (int)p.y);
+    }
+    
+    public void draw(RenderFrame frame) {
+        // Explosions are drawn half again as large as their frames, spreading down and to the right.
+        this.img.draw(frame, ((this.size.width * 3) / 2), ((this.size.height * 3) / 2));
+    }
+    
+    public void saveState(StateBuffer out) {
+        out.putDouble(this.x);
+        out.putDouble(this.y);
+        this.img.saveState(out);
     }
     
-    public void draw(Graphics2D g2d) {
-        this.img.draw(g2d);
+    public void loadState(StateBuffer in) {
+        this.x = in.getDouble();
+        this.y = in.getDouble();
+        this.img.loadState(in);
     }
 }
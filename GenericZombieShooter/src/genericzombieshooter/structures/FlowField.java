@@ -0,0 +1,376 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures;
+
+import java.util.Arrays;
+
+/**
+ * Tells every zombie which way to walk to reach the player around the
+ * obstacles in the arena. Instead of each zombie searching for its own
+ * path, the cost of reaching the player is worked out once for every cell of
+ * the ObstacleMap, and each cell points at its cheapest neighbor. Looking up
+ * a zombie's direction is then a single array read, however big the horde.
+ * 
+ * The field only has to be rebuilt when the player moves into another cell.
+ * Zombies in cells whose corners can all see the player's cell walk straight
+ * at the player, exactly as they would with no obstacles at all. Which cells
+ * those are is found by sweeping outward from the player's cell and keeping
+ * track of the shadows the obstacles cast, so each cell is only looked at
+ * once rather than casting a ray from every cell. Blocked cells point at
+ * their cheapest open neighbor, so a zombie that ends up inside an obstacle
+ * walks out of it the short way.
+ * @author Darin Beaudreau
+ */
+public class FlowField {
+    // Final Variables
+    private static final int STRAIGHT_COST = 10;
+    private static final int DIAGONAL_COST = 14;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int [] NEIGHBOR_X = {1, 0, -1, 0, 1, -1, -1, 1}; // Straight neighbors first, then diagonals.
+    private static final int [] NEIGHBOR_Y = {0, 1, 0, -1, 1, 1, -1, -1};
+    private static final int [] SWEEP_X = {1, -1, 0, 0}; // The directions swept away from the player's cell.
+    private static final int [] SWEEP_Y = {0, 0, 1, -1};
+    
+    // Member Variables
+    private ObstacleMap map;
+    private int playerCell; // The cell the field was last built toward, or -1 if it hasn't been built.
+    private int [] cost; // The cost of walking from each cell to the player's cell.
+    private double [] theta; // The direction to walk in from each cell, as a zombie's rotation.
+    private boolean [] direct; // Whether each cell has a clear line to the player's cell.
+    private boolean [] pointed; // Whether each cell has a direction to walk in.
+    private long [] heap; // Cells waiting to be visited, packed as (cost << 32) | cell.
+    private int heapSize;
+    private double [] shadowLow; // The slopes of the shadows cast so far in a sweep, sorted and without overlaps.
+    private double [] shadowHigh;
+    private int shadowCount;
+    private double [] rowLow; // The shadows cast by the row being swept, until they are merged in.
+    private double [] rowHigh;
+    private int rowCount;
+    private double [] mergedLow; // Where the shadows are merged into before being swapped with the ones above.
+    private double [] mergedHigh;
+    
+    public FlowField(ObstacleMap map_) {
+        this.map = map_;
+        this.playerCell = -1;
+        int cells = map_.getColumns() * map_.getRows();
+        this.cost = new int[cells];
+        this.theta = new double[cells];
+        this.direct = new boolean[cells];
+        this.pointed = new boolean[cells];
+        this.heap = new long[cells * 8];
+        this.heapSize = 0;
+        this.shadowLow = new double[64];
+        this.shadowHigh = new double[64];
+        this.shadowCount = 0;
+        this.rowLow = new double[64];
+        this.rowHigh = new double[64];
+        this.rowCount = 0;
+        this.mergedLow = new double[64];
+        this.mergedHigh = new double[64];
+    }
+    
+    /**
+     * Rebuilds the field if the player has moved into another cell.
+     * @param playerX The x coordinate of the player's center.
+     * @param playerY The y coordinate of the player's center.
+     * @return Whether the field was rebuilt.
+     **/
+    public boolean update(double playerX, double playerY) {
+        if(this.map.isEmpty()) return false;
+        int cell = this.map.getCell(playerX, playerY);
+        if(cell == this.playerCell) return false;
+        this.playerCell = cell;
+        this.integrate();
+        this.see();
+        this.point();
+        return true;
+    }
+    
+    /**
+     * Gets the direction a zombie should walk in to reach the player.
+     * @param x The x coordinate of the zombie.
+     * @param y The y coordinate of the zombie.
+     * @param playerX The x coordinate of the player's center.
+     * @param playerY The y coordinate of the player's center.
+     * @return The direction to walk in, as a zombie's rotation.
+     **/
+    public double getTheta(double x, double y, double playerX, double playerY) {
+        if(!this.map.isEmpty() && (this.playerCell >= 0)) {
+            int cell = this.map.getCell(x, y);
+            if(!this.direct[cell] && this.pointed[cell]) return this.theta[cell];
+        }
+        return Math.atan2((playerY - y), (playerX - x)) + Math.PI / 2;
+    }
+    
+    /**
+     * Works out the cost of reaching the player's cell from every other cell
+     * with Dijkstra's algorithm. Diagonal steps cost more, and can't cut the
+     * corner of an obstacle.
+     **/
+    private void integrate() {
+        int columns = this.map.getColumns();
+        int rows = this.map.getRows();
+        Arrays.fill(this.cost, FlowField.UNREACHABLE);
+        this.heapSize = 0;
+        this.cost[this.playerCell] = 0;
+        this.push(0, this.playerCell);
+        while(this.heapSize > 0) {
+            long next = this.pop();
+            int cellCost = (int)(next >>> 32);
+            int cell = (int)next;
+            if(cellCost > this.cost[cell]) continue; // A cheaper way here was already found.
+            int c = cell % columns;
+            int r = cell / columns;
+            for(int n = 0; n < 8; n++) {
+                int nc = c + FlowField.NEIGHBOR_X[n];
+                int nr = r + FlowField.NEIGHBOR_Y[n];
+                if(!this.isOpen(nc, nr, columns, rows)) continue;
+                int stepCost = FlowField.STRAIGHT_COST;
+                if(n >= 4) {
+                    if(!this.isOpen(nc, r, columns, rows) || !this.isOpen(c, nr, columns, rows)) continue;
+                    stepCost = FlowField.DIAGONAL_COST;
+                }
+                int neighbor = (nr * columns) + nc;
+                int newCost = cellCost + stepCost;
+                if(newCost < this.cost[neighbor]) {
+                    this.cost[neighbor] = newCost;
+                    this.push(newCost, neighbor);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Marks the cells that can see the player's cell. A cell only counts as
+     * seeing it if the lines from all of its corners to the middle of the
+     * player's cell are clear, since a zombie can be anywhere in the cell and
+     * would otherwise cut the corner of an obstacle.
+     * 
+     * The arena is swept in four quarters, one per direction away from the
+     * player's cell, a row of cells at a time. Positions are measured in
+     * cells from the middle of the player's cell, along the sweep and across
+     * it, and a line from the middle is described by its slope, across over
+     * along. Every line from a cell in the row at distance d to the middle
+     * crosses the whole of each row before it, so a cell can see the middle
+     * unless one of those rows has a blocked cell in the range of slopes its
+     * corners span. The only other cell such a line can cross is the one
+     * next to it in its own row, on the side nearer the middle. Each blocked
+     * cell adds its range of slopes to the shadows once its row is done, and
+     * overlapping shadows are merged, so every cell is only looked at once.
+     **/
+    private void see() {
+        int columns = this.map.getColumns();
+        int rows = this.map.getRows();
+        int pc = this.playerCell % columns;
+        int pr = this.playerCell / columns;
+        Arrays.fill(this.direct, false);
+        if(this.map.isBlocked(this.playerCell)) return; // Nothing can see the middle of an obstacle.
+        this.direct[this.playerCell] = true;
+        for(int q = 0; q < 4; q++) {
+            int ax = FlowField.SWEEP_X[q]; // One cell further along the sweep.
+            int ay = FlowField.SWEEP_Y[q];
+            int bx = Math.abs(ay); // One cell further across it.
+            int by = Math.abs(ax);
+            int depth = (ax > 0) ? (columns - 1 - pc) : (ax < 0) ? pc : (ay > 0) ? (rows - 1 - pr) : pr;
+            int minAcross = (bx > 0) ? -pc : -pr;
+            int maxAcross = (bx > 0) ? (columns - 1 - pc) : (rows - 1 - pr);
+            this.shadowCount = 0;
+            // Only the half of the player's row past the middle is crossed, and only by lines steeper than 1.
+            for(int j = -1; j <= 1; j += 2) {
+                if((j < minAcross) || (j > maxAcross)) continue;
+                if(!this.map.isBlocked(((pr + (j * by)) * columns) + (pc + (j * bx)))) continue;
+                if(j < 0) this.addShadow(Double.NEGATIVE_INFINITY, ((j + 0.5) / 0.5));
+                else this.addShadow(((j - 0.5) / 0.5), Double.POSITIVE_INFINITY);
+            }
+            this.mergeShadows();
+            
+            for(int d = 1; d <= depth; d++) {
+                // Cells on the diagonals belong to the sweeps along x, so each cell is only marked once.
+                int reach = (bx > 0) ? (d - 1) : d;
+                int from = Math.max(-reach, minAcross);
+                int to = Math.min(reach, maxAcross);
+                double near = d - 0.5;
+                double far = d + 0.5;
+                for(int j = from; j <= to; j++) {
+                    int cell = ((pr + (d * ay) + (j * by)) * columns) + (pc + (d * ax) + (j * bx));
+                    if(this.map.isBlocked(cell) || (this.cost[cell] == FlowField.UNREACHABLE)) continue;
+                    if(j != 0) {
+                        int inner = (j > 0) ? (j - 1) : (j + 1);
+                        if(this.map.isBlocked(((pr + (d * ay) + (inner * by)) * columns) + (pc + (d * ax) + (inner * bx)))) continue;
+                    }
+                    double low = Math.min(((j - 0.5) / near), ((j - 0.5) / far));
+                    double high = Math.max(((j + 0.5) / near), ((j + 0.5) / far));
+                    this.direct[cell] = !this.inShadow(low, high);
+                }
+                
+                // The blocked cells in this row shade the rows after it, including ones just past the diagonals.
+                int shadeFrom = Math.max(-(d + 1), minAcross);
+                int shadeTo = Math.min((d + 1), maxAcross);
+                for(int j = shadeFrom; j <= shadeTo; j++) {
+                    int cell = ((pr + (d * ay) + (j * by)) * columns) + (pc + (d * ax) + (j * bx));
+                    if(!this.map.isBlocked(cell)) continue;
+                    double low = Math.min(((j - 0.5) / near), ((j - 0.5) / far));
+                    double high = Math.max(((j + 0.5) / near), ((j + 0.5) / far));
+                    this.addShadow(low, high);
+                }
+                this.mergeShadows();
+            }
+        }
+    }
+    
+    /**
+     * Checks whether any of the shadows overlap a range of slopes. Touching
+     * one only at an end doesn't count, since that is a line that grazes the
+     * corner of a blocked cell.
+     **/
+    private boolean inShadow(double low, double high) {
+        int lo = 0;
+        int hi = this.shadowCount;
+        while(lo < hi) { // Finds the first shadow that ends past the low end.
+            int mid = (lo + hi) >>> 1;
+            if(this.shadowHigh[mid] > low) hi = mid;
+            else lo = mid + 1;
+        }
+        return ((lo < this.shadowCount) && (this.shadowLow[lo] < high));
+    }
+    
+    /**
+     * Adds a shadow cast by the row being swept. Shadows have to be added in
+     * order of their low ends, which going across a row gives them.
+     **/
+    private void addShadow(double low, double high) {
+        if(this.rowCount == this.rowLow.length) {
+            this.rowLow = Arrays.copyOf(this.rowLow, (this.rowCount * 2));
+            this.rowHigh = Arrays.copyOf(this.rowHigh, (this.rowCount * 2));
+        }
+        this.rowLow[this.rowCount] = low;
+        this.rowHigh[this.rowCount] = high;
+        this.rowCount++;
+    }
+    
+    /**
+     * Merges the shadows of the row that was just swept into the ones cast
+     * before it, joining any that overlap or touch.
+     **/
+    private void mergeShadows() {
+        if(this.rowCount == 0) return;
+        int needed = this.shadowCount + this.rowCount;
+        if(this.mergedLow.length < needed) {
+            this.mergedLow = new double[needed * 2];
+            this.mergedHigh = new double[needed * 2];
+        }
+        int merged = 0;
+        int s = 0;
+        int n = 0;
+        while((s < this.shadowCount) || (n < this.rowCount)) {
+            double low;
+            double high;
+            if((n == this.rowCount) || ((s < this.shadowCount) && (this.shadowLow[s] <= this.rowLow[n]))) {
+                low = this.shadowLow[s];
+                high = this.shadowHigh[s];
+                s++;
+            } else {
+                low = this.rowLow[n];
+                high = this.rowHigh[n];
+                n++;
+            }
+            if((merged > 0) && (low <= this.mergedHigh[merged - 1])) {
+                this.mergedHigh[merged - 1] = Math.max(this.mergedHigh[merged - 1], high);
+            } else {
+                this.mergedLow[merged] = low;
+                this.mergedHigh[merged] = high;
+                merged++;
+            }
+        }
+        double [] swap = this.shadowLow;
+        this.shadowLow = this.mergedLow;
+        this.mergedLow = swap;
+        swap = this.shadowHigh;
+        this.shadowHigh = this.mergedHigh;
+        this.mergedHigh = swap;
+        this.shadowCount = merged;
+        this.rowCount = 0;
+    }
+    
+    /**
+     * Points every reachable cell at its cheapest neighbor. Blocked cells
+     * point at their cheapest open neighbor.
+     **/
+    private void point() {
+        int columns = this.map.getColumns();
+        int rows = this.map.getRows();
+        for(int cell = 0; cell < this.cost.length; cell++) {
+            int c = cell % columns;
+            int r = cell / columns;
+            boolean blocked = this.map.isBlocked(cell);
+            this.pointed[cell] = false;
+            if(!blocked && (this.cost[cell] == FlowField.UNREACHABLE)) continue;
+            
+            int best = -1;
+            int bestCost = this.cost[cell];
+            for(int n = 0; n < 8; n++) {
+                int nc = c + FlowField.NEIGHBOR_X[n];
+                int nr = r + FlowField.NEIGHBOR_Y[n];
+                if(!this.isOpen(nc, nr, columns, rows)) continue;
+                if(!blocked && (n >= 4) && (!this.isOpen(nc, r, columns, rows) || !this.isOpen(c, nr, columns, rows))) continue;
+                int neighborCost = this.cost[(nr * columns) + nc];
+                if(neighborCost < bestCost) {
+                    best = n;
+                    bestCost = neighborCost;
+                }
+            }
+            if(best >= 0) {
+                this.theta[cell] = Math.atan2(FlowField.NEIGHBOR_Y[best], FlowField.NEIGHBOR_X[best]) + Math.PI / 2;
+                this.pointed[cell] = true;
+            }
+        }
+    }
+    
+    private boolean isOpen(int column, int row, int columns, int rows) {
+        if((column < 0) || (row < 0) || (column >= columns) || (row >= rows)) return false;
+        return !this.map.isBlocked((row * columns) + column);
+    }
+    
+    private void push(int cellCost, int cell) {
+        if(this.heapSize == this.heap.length) this.heap = Arrays.copyOf(this.heap, (this.heap.length * 2));
+        long value = ((long)cellCost << 32) | cell;
+        int i = this.heapSize++;
+        while(i > 0) {
+            int parent = (i - 1) >> 1;
+            if(this.heap[parent] <= value) break;
+            this.heap[i] = this.heap[parent];
+            i = parent;
+        }
+        this.heap[i] = value;
+    }
+    
+    private long pop() {
+        long top = this.heap[0];
+        long last = this.heap[--this.heapSize];
+        int i = 0;
+        while(true) {
+            int child = (i << 1) + 1;
+            if(child >= this.heapSize) break;
+            if(((child + 1) < this.heapSize) && (this.heap[child + 1] < this.heap[child])) child++;
+            if(last <= this.heap[child]) break;
+            this.heap[i] = this.heap[child];
+            i = child;
+        }
+        if(this.heapSize > 0) this.heap[i] = last;
+        return top;
+    }
+}
@@ -16,33 +16,56 @@
  **/
 package genericzombieshooter.structures;
 
+import genericzombieshooter.misc.Globals;
+
 /**
  * Used to keep track of game time while the game is running.
+ * Game time only advances when a simulation tick runs, so it stands still
+ * while the game is paused and never drifts with the frame rate.
  * @author Darin Beaudreau
  */
 public class GameTime {
     private long elapsedMillis;
     public long getElapsedMillis() { return this.elapsedMillis; }
     public long getElapsedSecs() { return (this.elapsedMillis / 1000); }
-    private long lastUpdate;
-    private long offset;
-    public long getOffset() { return this.offset; }
-    public void increaseOffset() { this.offset = System.currentTimeMillis() - this.lastUpdate; }
+    private long ticks; // How many simulation ticks have run. Animations are timed in ticks.
+    public long getTicks() { return this.ticks; }
     
     public GameTime() {
         this.elapsedMillis = 0;
-        this.lastUpdate = System.currentTimeMillis();
+        this.ticks = 0;
     }
     
+    /**
+     * Advances the game time by the length of one simulation tick.
+     **/
     public void update() {
-        this.elapsedMillis += ((System.currentTimeMillis() - this.lastUpdate) - this.offset);
-        this.lastUpdate = System.currentTimeMillis();
-        this.offset = 0;
+        this.ticks++;
+        this.elapsedMillis = (this.ticks * 1000) / Globals.TICK_RATE;
+    }
+    
+    /**
+     * Spreads an amount that is tuned per 20ms step over the simulation ticks.
+     * At the default 50Hz this is the amount itself; at other tick rates the
+     * rounding carries over between ticks, so the total per second stays the same.
+     * @param amount The amount to apply every 20ms, such as damage or particles.
+     * @return The share of the amount that falls in the current tick.
+     **/
+    public int perTick(int amount) {
+        if(this.ticks <= 0) return amount;
+        long now = (this.ticks * amount * 50) / Globals.TICK_RATE;
+        long before = ((this.ticks - 1) * amount * 50) / Globals.TICK_RATE;
+        return (int)(now - before);
     }
     
     public void reset() { 
         this.elapsedMillis = 0;
-        this.lastUpdate = System.currentTimeMillis();
-        this.offset = 0;
+        this.ticks = 0;
+    }
+    
+    public void saveState(StateBuffer out) { out.putLong(this.ticks); }
+    public void loadState(StateBuffer in) {
+        this.ticks = in.getLong();
+        this.elapsedMillis = (this.ticks * 1000) / Globals.TICK_RATE;
     }
 }
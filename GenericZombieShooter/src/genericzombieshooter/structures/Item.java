@@ -18,53 +18,66 @@ package genericzombieshooter.structures;
 
 import genericzombieshooter.actors.Player;
 import genericzombieshooter.misc.Globals;
-import java.awt.Graphics2D;
+import genericzombieshooter.structures.entities.EntityFactory;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
 
 /**
- * Base class used to represent all items in the game.
+ * Base class used to represent all items in the game. Where the item lies
+ * and how long it has left are components of its entity in Globals.ENTITIES,
+ * which is aged, blinked and drawn with every other item's.
  * @author Darin Beaudreau
  */
-public abstract class Item extends Point2D.Double {
+public abstract class Item {
     private int id;
     public int getId() { return this.id; }
     private String name;
     public String getName() { return this.name; }
     protected BufferedImage icon;
     public BufferedImage getIcon() { return this.icon; }
-    private long expirationTime;
-    public boolean isActive() { return (Globals.gameTime.getElapsedMillis() < this.expirationTime); }
+    private int entity; // The handle of the item's entity.
+    public boolean isActive() { return (Globals.ENTITIES.find(this.entity) >= 0); }
+    public double getX() { return Globals.ENTITIES.getX(Globals.ENTITIES.find(this.entity)); }
+    public double getY() { return Globals.ENTITIES.getY(Globals.ENTITIES.find(this.entity)); }
     
-    private boolean blink;
-    private long nextBlinkChange;
-    
-    public Item(int id, String name, BufferedImage icon, long duration) {
+    public Item(int id, String name, BufferedImage icon, long duration, Point2D.Double p) {
         this.id = id;
         this.name = name;
         this.icon = icon;
-        this.expirationTime = Globals.gameTime.getElapsedMillis() + duration;
-        
-        this.blink = false;
-        this.nextBlinkChange = Globals.gameTime.getElapsedMillis();
+        int i = EntityFactory.createItem(Globals.ENTITIES, p.x, p.y, icon, duration);
+        this.entity = Globals.ENTITIES.getHandle(i);
     }
     
     public void applyEffect(Player player) {
         // To be overridden.
     }
     
-    public void draw(Graphics2D g2d) {
-        // Check if item should start blinking.
-        if(Globals.gameTime.getElapsedMillis() >= (this.expirationTime - 3000)) {
-            if(Globals.gameTime.getElapsedMillis() >= this.nextBlinkChange) {
-                this.blink = ((this.blink)?false:true);
-                this.nextBlinkChange = Globals.gameTime.getElapsedMillis() + 200;
-            }
-        }
-        if(!this.blink) {
-            int width = this.icon.getWidth();
-            int height = this.icon.getHeight();
-            g2d.drawImage(this.icon, (int)(this.x - (width / 2)), (int)(this.y - (height / 2)), null);
-        }
+    /**
+     * Takes the item off the ground, such as when it is picked up.
+     **/
+    public void dispose() {
+        int i = Globals.ENTITIES.find(this.entity);
+        if(i >= 0) Globals.ENTITIES.remove(i);
+    }
+    
+    /**
+     * Writes the item's state. Its components are written with the rest of
+     * the entity world, so only its handle is written here.
+     * @param out The buffer to write to.
+     **/
+    public void saveState(StateBuffer out) {
+        // Can be overridden.
+        out.putInt(this.entity);
+    }
+    
+    /**
+     * Replaces the item's state with the state written by saveState(). The
+     * entity world is read after the items, replacing the entity the blank
+     * item was created with.
+     * @param in The buffer to read from.
+     **/
+    public void loadState(StateBuffer in) {
+        // Can be overridden.
+        this.entity = in.getInt();
     }
 }
@@ -20,16 +20,22 @@ import genericzombieshooter.actors.Player;
 import genericzombieshooter.misc.Globals;
 import genericzombieshooter.structures.components.WeaponsLoadout;
 import genericzombieshooter.structures.items.Ammo;
+import genericzombieshooter.structures.items.ExpMultiplier;
+import genericzombieshooter.structures.items.ExtraLife;
 import genericzombieshooter.structures.items.HealthPack;
+import genericzombieshooter.structures.items.Invulnerability;
+import genericzombieshooter.structures.items.NightVision;
+import genericzombieshooter.structures.items.SpeedUp;
+import genericzombieshooter.structures.items.UnlimitedAmmo;
 import genericzombieshooter.structures.weapons.Weapon;
-import java.awt.Graphics2D;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
 /**
- * Used to create and manage items on screen.
+ * Used to create and manage items on screen. The items themselves are drawn
+ * by the SpriteSystem, under everything else in the entity world.
  * @author Darin Beaudreau
  */
 public class ItemFactory {
@@ -52,8 +58,14 @@ public class ItemFactory {
     }
     
     public void reset() {
-        synchronized(this.itemsDropped) { this.itemsDropped.clear(); }
-        synchronized(this.itemsActive) { this.itemsActive.clear(); }
+        synchronized(this.itemsDropped) {
+            ItemFactory.disposeItems(this.itemsDropped);
+            this.itemsDropped.clear();
+        }
+        synchronized(this.itemsActive) {
+            ItemFactory.disposeItems(this.itemsActive);
+            this.itemsActive.clear();
+        }
         synchronized(this.itemsWithdrawn) { this.itemsWithdrawn.clear(); }
         long currentTime = Globals.gameTime.getElapsedMillis();
         this.nextHealth = currentTime + HealthPack.SPAWN_TIME;
@@ -62,7 +74,10 @@ public class ItemFactory {
     
     public void update(Player player) {
         // If there are withdrawn items, remove them from the active list.
-        if(!this.itemsWithdrawn.isEmpty()) this.itemsActive.removeAll(this.itemsWithdrawn);
+        if(!this.itemsWithdrawn.isEmpty()) {
+            this.itemsActive.removeAll(this.itemsWithdrawn);
+            this.itemsWithdrawn.clear();
+        }
         
         // If there are dropped items, add them to the active list.
         if(!this.itemsDropped.isEmpty()) {
@@ -101,10 +116,11 @@ public class ItemFactory {
             while(it.hasNext()) {
                 Item i = it.next();
                 if(i.isActive()) {
-                    if(player.contains(i)) {
+                    if(player.contains(i.getX(), i.getY())) {
                         i.applyEffect(player);
                         if(i.getId() == HealthPack.ID) player.medkitsUsed++;
                         else if(i.getId() == Ammo.ID) player.ammoCratesUsed++;
+                        i.dispose();
                         this.itemsWithdrawn.add(i);
                     }
                 } else {
@@ -114,40 +130,122 @@ public class ItemFactory {
         }
     }
     
-    public void draw(Graphics2D g2d) {
-        Iterator<Item> it = this.itemsActive.iterator();
+    public void dropItem(Item i) {
+        if(i != null) this.itemsDropped.add(i);
+    }
+    
+    /**
+     * Writes every item on the field and when the next health pack and ammo crate will drop.
+     * @param out The buffer to write to.
+     **/
+    public void saveState(StateBuffer out) {
+        ItemFactory.saveItems(out, this.itemsDropped);
+        ItemFactory.saveItems(out, this.itemsActive);
+        // Items withdrawn this tick are still in the active list, so they're written as indices into it.
+        out.putInt(this.itemsWithdrawn.size());
+        Iterator<Item> it = this.itemsWithdrawn.iterator();
         while(it.hasNext()) {
             Item i = it.next();
-            i.draw(g2d);
+            for(int j = 0; j < this.itemsActive.size(); j++) {
+                if(this.itemsActive.get(j) == i) {
+                    out.putInt(j);
+                    break;
+                }
+            }
         }
+        out.putLong(this.nextHealth);
+        out.putLong(this.nextAmmo);
     }
     
-    public void dropItem(Item i) {
-        if(i != null) this.itemsDropped.add(i);
+    public void loadState(StateBuffer in) {
+        this.itemsDropped = ItemFactory.loadItems(in);
+        this.itemsActive = ItemFactory.loadItems(in);
+        this.itemsWithdrawn = new ArrayList<Item>();
+        int withdrawn = in.getInt();
+        for(int i = 0; i < withdrawn; i++) this.itemsWithdrawn.add(this.itemsActive.get(in.getInt()));
+        this.nextHealth = in.getLong();
+        this.nextAmmo = in.getLong();
+    }
+    
+    private static void disposeItems(List<Item> items) {
+        Iterator<Item> it = items.iterator();
+        while(it.hasNext()) it.next().dispose();
+    }
+    
+    private static void saveItems(StateBuffer out, List<Item> items) {
+        out.putInt(items.size());
+        Iterator<Item> it = items.iterator();
+        while(it.hasNext()) {
+            Item i = it.next();
+            out.putInt(i.getId());
+            out.putString(i.getName());
+            i.saveState(out);
+        }
+    }
+    
+    private static List<Item> loadItems(StateBuffer in) {
+        int count = in.getInt();
+        List<Item> items = new ArrayList<Item>(count);
+        for(int i = 0; i < count; i++) {
+            Item item = ItemFactory.createItem(in.getInt(), in.getString());
+            item.loadState(in);
+            items.add(item);
+        }
+        return items;
+    }
+    
+    /**
+     * Creates a blank item for a saved state to be read into.
+     * @param id The ID of the item.
+     * @param name The name of the item, to tell apart items that share an ID.
+     * @return The new item.
+     **/
+    private static Item createItem(int id, String name) {
+        Point2D.Double p = new Point2D.Double();
+        if(id == HealthPack.ID) return new HealthPack(0, p);
+        else if(id == Ammo.ID) return new Ammo("", 0, p);
+        else if(id == SpeedUp.ID) return new SpeedUp(p);
+        else if(id == UnlimitedAmmo.ID) return new UnlimitedAmmo(p);
+        else if(id == ExtraLife.ID) return new ExtraLife(p);
+        else if(id == Invulnerability.ID) return new Invulnerability(p);
+        else if(name.equals(NightVision.EFFECT_NAME)) return new NightVision(p);
+        else return new ExpMultiplier(p);
     }
     
     private Item createItem(int type, Player player) {
         if(type == 0) {
             // Return a Health Pack
-            int healAmount = Globals.r.nextInt(75 - 50 + 1) + 50;
-            double x = Globals.r.nextInt((Globals.W_WIDTH - 20) - 20 + 1) + 20;
-            double y = Globals.r.nextInt((int)((Globals.W_HEIGHT - (WeaponsLoadout.BAR_HEIGHT + 10)) - 20 + 1)) + 20;
-            Item i = new HealthPack(healAmount, new Point2D.Double(x, y));
+            int healAmount = Globals.ITEM_RANDOM.nextInt(75 - 50 + 1) + 50;
+            Item i = new HealthPack(healAmount, ItemFactory.pickDropPoint());
             return i;
         } else if(type == 1) {
             // Return an Ammo Crate
             List<String> weaponNames = new ArrayList<String>();
             for(String name : player.getWeaponsMap().keySet()) weaponNames.add(name);
-            int w = Globals.r.nextInt(weaponNames.size());
+            int w = Globals.ITEM_RANDOM.nextInt(weaponNames.size());
             String wName = weaponNames.get(w);
             if(player.getWeapon(wName).ammoFull()) return createItem(1, player);
             else {
                 int ammo = player.getWeapon(wName).getAmmoPackAmount();
-                double x = Globals.r.nextInt((Globals.W_WIDTH - 20) - 20 + 1) + 20;
-                double y = Globals.r.nextInt((int)((Globals.W_HEIGHT - (WeaponsLoadout.BAR_HEIGHT + 10)) - 20 + 1)) + 20;
-                Item i = new Ammo(wName, ammo, new Point2D.Double(x, y));
+                Item i = new Ammo(wName, ammo, ItemFactory.pickDropPoint());
                 return i;
             }
         } else return null; // If a null item is ever returned, you done did somethin' bad.
     }
+    
+    /**
+     * Picks a random spot for an item to drop, away from the edges of the
+     * arena and outside any obstacle, so the player can always pick it up.
+     * @return Where to drop the item.
+     **/
+    private static Point2D.Double pickDropPoint() {
+        double x = 0;
+        double y = 0;
+        for(int samples = 0; samples < ObstacleMap.MAX_SAMPLES; samples++) {
+            x = Globals.ITEM_RANDOM.nextInt((Globals.ARENA.getWidth() - 20) - 20 + 1) + 20;
+            y = Globals.ITEM_RANDOM.nextInt((int)((Globals.ARENA.getHeight() - (WeaponsLoadout.BAR_HEIGHT + 10)) - 20 + 1)) + 20;
+            if(!Globals.OBSTACLES.isBlockedAt(x, y)) return new Point2D.Double(x, y);
+        }
+        return Globals.OBSTACLES.findOpen(x, y);
+    }
 }
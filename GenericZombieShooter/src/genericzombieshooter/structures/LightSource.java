@@ -16,70 +16,110 @@
  **/
 package genericzombieshooter.structures;
 
-import genericzombieshooter.misc.Globals;
+import genericzombieshooter.GZSFramework;
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.RadialGradientPaint;
 import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * Used for creating and drawing light sources to the shadow buffer.
+ * What a light looks like: how far it reaches and the gradient it cuts out
+ * of the shadow buffer. Where the light is and how long it lasts are kept by
+ * the light's entity in the entity world, and LightSystem draws it.
  * @author Darin Beaudreau
  */
-public class LightSource extends Point2D.Double {
+public class LightSource {
+    // Final Variables
+    private static final Map<String, BufferedImage> STAMPS = new HashMap<String, BufferedImage>(); // Rendered gradients, shared by lights that look the same.
+    
     // Member Variables
-    private long timeExpiring;
-    private long life;
-    public long getLife() { return this.life; }
     private float radius;
     public float getIntensity() { return this.radius; }
     private float [] distance;
     private Color [] colors;
+    private BufferedImage stamp; // The rendered gradient for this light.
     
     /**
-     * Creates a new light source at the center point with the specified intensity.
-     * @param center The center point of the light source.
+     * Creates a new light source with the specified intensity.
      * @param intensity The radius of the light source.
      **/
-    public LightSource(Point2D.Double center, float intensity) {
-        this(center, 0, intensity, new float[]{0.0f, 1.0f}, new Color[]{new Color(0.0f, 0.0f, 0.0f, 0.0f), Color.BLACK});
+    public LightSource(float intensity) {
+        this(intensity, new float[]{0.0f, 1.0f}, new Color[]{new Color(0.0f, 0.0f, 0.0f, 0.0f), Color.BLACK});
     }
     
     /**
-     * Creates a new light source at the center point with the specified intensity
-     * using the colors specified.
-     * @param center The center point of the light source.
-     * @param life Indicates how long the light source lasts. Zero if permanent.
+     * Creates a new light source with the specified intensity using the colors specified.
      * @param intensity The radius of the light source.
      * @param distance The distance parameters of the radial gradient.
      * @param colors The colors of the radial gradient.
      **/
-    public LightSource(Point2D.Double center, long life, float intensity, float [] distance, Color [] colors) {
-        super(center.x, center.y);
-        this.timeExpiring = Globals.gameTime.getElapsedMillis() + life;
-        this.life = life;
+    public LightSource(float intensity, float [] distance, Color [] colors) {
         this.radius = intensity;
         this.distance = distance;
         this.colors = colors;
     }
     
-    public boolean isAlive() {
-        return (this.life > 0) && (Globals.gameTime.getElapsedMillis() <= this.timeExpiring);
+    public void saveState(StateBuffer out) {
+        out.putFloat(this.radius);
+        out.putInt(this.distance.length);
+        for(int i = 0; i < this.distance.length; i++) {
+            out.putFloat(this.distance[i]);
+            out.putInt(this.colors[i].getRGB());
+        }
+    }
+    
+    public void loadState(StateBuffer in) {
+        this.radius = in.getFloat();
+        this.distance = new float[in.getInt()];
+        this.colors = new Color[this.distance.length];
+        for(int i = 0; i < this.distance.length; i++) {
+            this.distance[i] = in.getFloat();
+            this.colors[i] = new Color(in.getInt(), true);
+        }
+        this.stamp = null;
     }
     
     /**
-     * Moves the center of the light source to the specified center point.
-     * @param center The point to move the center of the light source to.
+     * Adds the light's gradient to the frame, to be cut out of the shadow layer.
+     * @param frame The frame to add the light to.
+     * @param x The x coordinate of the center of the light.
+     * @param y The y coordinate of the center of the light.
+     * @param followsPlayer Whether the light moves with the player as they are drawn between ticks.
      **/
-    public void move(Point2D.Double center) {
-        this.x = center.x;
-        this.y = center.y;
+    public void draw(RenderFrame frame, double x, double y, boolean followsPlayer) {
+        if(this.stamp == null) this.stamp = LightSource.getStamp(this.radius, this.distance, this.colors);
+        frame.addLight(this.stamp, (int)(x - this.radius), (int)(y - this.radius), followsPlayer);
     }
     
-    public void draw(Graphics2D g2d) {
-        RadialGradientPaint rgp = new RadialGradientPaint(this, this.radius, this.distance, this.colors);
-        g2d.setPaint(rgp);
-        g2d.fillRect((int)(this.x - this.radius), (int)(this.y - this.radius), 
-                     (int)(this.radius * 2), (int)(this.radius * 2));
+    /**
+     * Gets the rendered gradient for a light with the given radius and colors,
+     * rendering it the first time it is needed.
+     * @param radius The radius of the light.
+     * @param distance The distance parameters of the radial gradient.
+     * @param colors The colors of the radial gradient.
+     * @return An image of the gradient, twice the radius on each side.
+     **/
+    private static BufferedImage getStamp(float radius, float [] distance, Color [] colors) {
+        StringBuilder key = new StringBuilder();
+        key.append(radius);
+        for(int i = 0; i < distance.length; i++) key.append(',').append(distance[i]).append(':').append(colors[i].getRGB());
+        synchronized(LightSource.STAMPS) {
+            BufferedImage stamp = LightSource.STAMPS.get(key.toString());
+            if(stamp == null) {
+                int size = (int)(radius * 2);
+                stamp = GZSFramework.createCompatibleImage(size, size);
+                Graphics2D g2d = stamp.createGraphics();
+                g2d.setComposite(AlphaComposite.Src);
+                g2d.setPaint(new RadialGradientPaint(new Point2D.Float(radius, radius), radius, distance, colors));
+                g2d.fillRect(0, 0, size, size);
+                g2d.dispose();
+                LightSource.STAMPS.put(key.toString(), stamp);
+            }
+            return stamp;
+        }
     }
 }
@@ -17,10 +17,6 @@
 package genericzombieshooter.structures;
 
 import genericzombieshooter.misc.Globals;
-import java.awt.AlphaComposite;
-import java.awt.Composite;
-import java.awt.Graphics2D;
-import java.awt.geom.Point2D;
 
 /**
  * Used to display messages above the weapons loadout.
@@ -39,16 +35,21 @@ public class Message {
     
     public boolean isAlive() { return (Globals.gameTime.getElapsedMillis() < this.expirationTime); }
     
-    public void draw(Graphics2D g2d, Point2D.Double pos) {
-        Composite savedComp = g2d.getComposite();
-        
+    public void saveState(StateBuffer out) {
+        out.putString(this.text);
+        out.putLong(this.expirationTime);
+    }
+    
+    public void loadState(StateBuffer in) {
+        this.text = in.getString();
+        this.expirationTime = in.getLong();
+    }
+    
+    public void draw(RenderFrame frame) {
         double opacity = 1.0f;
         if(Globals.gameTime.getElapsedMillis() >= (this.expirationTime - 3000)) {
             opacity = ((double)this.expirationTime - (double)Globals.gameTime.getElapsedMillis()) / 3000;
         }
-        g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float)opacity));
-        g2d.drawString(this.text, (int)pos.x, (int)pos.y);
-        
-        g2d.setComposite(savedComp);
+        frame.addMessage(this.text, (float)opacity);
     }
 }
@@ -0,0 +1,183 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures;
+
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ * The static level geometry of the arena, as a grid of cells that are either
+ * open or blocked. Zombies path around blocked cells using a FlowField, and
+ * the player can't walk into them.
+ * 
+ * Obstacles are loaded from an image the size of the arena, which is also
+ * drawn over the background. A cell is blocked when most of its pixels are
+ * opaque.
+ * @author Darin Beaudreau
+ */
+public class ObstacleMap {
+    // Final Variables
+    public static final int CELL_SIZE = 32;
+    public static final int MAX_SAMPLES = 100; // How many random spots are tried before falling back to findOpen().
+    
+    // Member Variables
+    private int columns;
+    public int getColumns() { return this.columns; }
+    private int rows;
+    public int getRows() { return this.rows; }
+    private boolean [] blocked;
+    private int blockedCount;
+    public boolean isEmpty() { return (this.blockedCount == 0); }
+    private BufferedImage image; // Drawn over the background, or null if there are no obstacles.
+    public BufferedImage getImage() { return this.image; }
+    
+    /**
+     * Creates a map with no obstacles.
+     * @param width The width of the arena, in pixels.
+     * @param height The height of the arena, in pixels.
+     **/
+    public ObstacleMap(int width, int height) {
+        this.columns = ((width + ObstacleMap.CELL_SIZE - 1) / ObstacleMap.CELL_SIZE);
+        this.rows = ((height + ObstacleMap.CELL_SIZE - 1) / ObstacleMap.CELL_SIZE);
+        this.blocked = new boolean[this.columns * this.rows];
+        this.blockedCount = 0;
+        this.image = null;
+    }
+    
+    /**
+     * Loads the obstacles from an image file. If there is no file, or it
+     * can't be read, the arena is left open.
+     * @param path The path of the image, or null for no obstacles.
+     * @param width The width of the arena, in pixels.
+     * @param height The height of the arena, in pixels.
+     * @return The obstacle map.
+     **/
+    public static ObstacleMap load(String path, int width, int height) {
+        ObstacleMap map = new ObstacleMap(width, height);
+        if(path == null) return map;
+        try {
+            BufferedImage image = ImageIO.read(new File(path));
+            if(image == null) throw new IOException("Not an image.");
+            map.setImage(image);
+        } catch(IOException ioe) {
+            System.out.println("Could not load obstacles from " + path + ": " + ioe.getMessage());
+        }
+        return map;
+    }
+    
+    /**
+     * Blocks every cell that is mostly covered by opaque pixels in the image.
+     * @param image_ The image of the obstacles.
+     **/
+    public void setImage(BufferedImage image_) {
+        this.image = image_;
+        for(int r = 0; r < this.rows; r++) {
+            for(int c = 0; c < this.columns; c++) {
+                int opaque = 0;
+                int pixels = 0;
+                int maxY = Math.min(((r + 1) * ObstacleMap.CELL_SIZE), image_.getHeight());
+                int maxX = Math.min(((c + 1) * ObstacleMap.CELL_SIZE), image_.getWidth());
+                for(int y = r * ObstacleMap.CELL_SIZE; y < maxY; y++) {
+                    for(int x = c * ObstacleMap.CELL_SIZE; x < maxX; x++) {
+                        if((image_.getRGB(x, y) >>> 24) >= 128) opaque++;
+                        pixels++;
+                    }
+                }
+                if((pixels > 0) && ((opaque * 2) > pixels)) this.block(c, r);
+            }
+        }
+    }
+    
+    public void block(int column, int row) {
+        int cell = (row * this.columns) + column;
+        if(!this.blocked[cell]) {
+            this.blocked[cell] = true;
+            this.blockedCount++;
+        }
+    }
+    
+    public boolean isBlocked(int cell) { return this.blocked[cell]; }
+    
+    /**
+     * Checks whether the cell containing a point is blocked. Points outside
+     * the arena count as the nearest cell on its edge.
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @return Whether the point is inside an obstacle.
+     **/
+    public boolean isBlockedAt(double x, double y) {
+        if(this.blockedCount == 0) return false;
+        return this.blocked[this.getCell(x, y)];
+    }
+    
+    /**
+     * Finds the open spot nearest to a point, for when something has to be
+     * put somewhere it can move from, such as the player at the start.
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @return The point itself if it is open, otherwise the center of the nearest open cell,
+     *         or the point itself if every cell is blocked.
+     **/
+    public Point2D.Double findOpen(double x, double y) {
+        if(!this.isBlockedAt(x, y)) return new Point2D.Double(x, y);
+        int cell = this.getCell(x, y);
+        int column = cell % this.columns;
+        int row = cell / this.columns;
+        int maxRing = Math.max(this.columns, this.rows);
+        for(int ring = 1; ring <= maxRing; ring++) {
+            // Check every cell on the square ring around the point's cell, and keep the closest open one.
+            int best = -1;
+            double bestDistSq = Double.MAX_VALUE;
+            for(int r = (row - ring); r <= (row + ring); r++) {
+                if((r < 0) || (r >= this.rows)) continue;
+                for(int c = (column - ring); c <= (column + ring); c++) {
+                    if((c < 0) || (c >= this.columns)) continue;
+                    if((Math.abs(r - row) != ring) && (Math.abs(c - column) != ring)) continue;
+                    int n = (r * this.columns) + c;
+                    if(this.blocked[n]) continue;
+                    double dx = ((c + 0.5) * ObstacleMap.CELL_SIZE) - x;
+                    double dy = ((r + 0.5) * ObstacleMap.CELL_SIZE) - y;
+                    double distSq = (dx * dx) + (dy * dy);
+                    if(distSq < bestDistSq) {
+                        best = n;
+                        bestDistSq = distSq;
+                    }
+                }
+            }
+            if(best >= 0) return new Point2D.Double((((best % this.columns) + 0.5) * ObstacleMap.CELL_SIZE), 
+                                                    (((best / this.columns) + 0.5) * ObstacleMap.CELL_SIZE));
+        }
+        return new Point2D.Double(x, y);
+    }
+    
+    /**
+     * Gets the cell containing a point, clamped to the arena.
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @return The index of the cell, row by row.
+     **/
+    public int getCell(double x, double y) {
+        int c = (int)Math.floor(x / ObstacleMap.CELL_SIZE);
+        int r = (int)Math.floor(y / ObstacleMap.CELL_SIZE);
+        c = ((c < 0)?0:((c >= this.columns)?(this.columns - 1):c));
+        r = ((r < 0)?0:((r >= this.rows)?(this.rows - 1):r));
+        return ((r * this.columns) + c);
+    }
+}
@@ -18,9 +18,6 @@ package genericzombieshooter.structures;
 
 import genericzombieshooter.misc.Globals;
 import java.awt.Dimension;
-import java.awt.Graphics2D;
-import java.awt.geom.AffineTransform;
-import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
@@ -52,14 +49,14 @@ public class Particle {
      * Constructs a new Particle object.
      * @param _theta The angle between the firing position and the mouse position when fired. Given in radians.
      * @param _spread The maximum spread for this particle. Given in degrees.
-     * @param _speed The multiplier used when updating the particle position.
+     * @param _speed The multiplier used when updating the particle position, given per 20ms tick.
      * @param _life Determines how long before the particle disappears.
      * @param _pos The starting position of the particle.
      * @param _size The size of the particle.
      */
     public Particle(double _theta, double _spread, double _speed, int _life, Point2D.Double _pos, Dimension _size, BufferedImage _image) {
         this.theta = _theta;
-        this.speed = _speed;
+        this.speed = _speed * Globals.TICK_SCALE;
         this.life = _life;
         this.pos = _pos;
         this.size = _size;
@@ -68,36 +65,30 @@ public class Particle {
 
         // Determine if the angle of the particle will deviate from its set value.
         if(_spread > 0) {
-            boolean mod = Globals.r.nextBoolean();
-            double spreadMod = Math.toRadians(Globals.r.nextDouble() * _spread);
+            boolean mod = Globals.WEAPON_RANDOM.nextBoolean();
+            double spreadMod = Math.toRadians(Globals.WEAPON_RANDOM.nextDouble() * _spread);
             if(mod) spreadMod = -spreadMod;
             this.theta += spreadMod;
         }
     }
     
     /**
-     * Draws the particle to the screen.
-     * @param g2d The graphics object used to draw the particle.
+     * Draws the particle to the screen. Particles without an image are filled
+     * with the frame's current color.
+     * @param frame The frame to draw the particle into.
      **/
-    public void draw(Graphics2D g2d) {
-        try {
-            AffineTransform saved = g2d.getTransform();
-            /* Had to create the inverse of this transformation because I noticed that everything was rotating
-               in the opposite direction of the theta. Then I noticed the image was backwards, so I flipped it 180 degrees. */
-            AffineTransform at = AffineTransform.getRotateInstance((this.theta - Math.PI), this.pos.x, this.pos.y).createInverse();
-            double x = this.pos.x - (this.size.width / 2);
-            double y = this.pos.y - (this.size.height / 2);
-            g2d.setTransform(at);
-            if(this.image == null) {
-                double w = this.size.width;
-                double h = this.size.height;
-                Rectangle2D.Double rect = new Rectangle2D.Double(x, y, w, h);
-                g2d.fill(at.createTransformedShape(rect));
-            } else {
-                g2d.drawImage(this.image, (int)x, (int)y, null);
-            }
-            g2d.setTransform(saved);
-        } catch(NoninvertibleTransformException nte) {}
+    public void draw(RenderFrame frame) {
+        if(!frame.isVisible(this.pos.x, this.pos.y, Math.max(this.size.width, this.size.height))) return;
+        /* Had to use the inverse of the rotation because I noticed that everything was rotating
+           in the opposite direction of the theta. Then I noticed the image was backwards, so I flipped it 180 degrees. */
+        double angle = Math.PI - this.theta;
+        double x = this.pos.x - (this.size.width / 2);
+        double y = this.pos.y - (this.size.height / 2);
+        if(this.image == null) {
+            frame.fillRotatedRect(angle, this.pos.x, this.pos.y, x, y, this.size.width, this.size.height);
+        } else {
+            frame.drawRotatedImage(this.image, angle, this.pos.x, this.pos.y, (int)x, (int)y);
+        }
     }
     
     /**
@@ -120,10 +111,34 @@ public class Particle {
         } else return false;
     }
     
+    /**
+     * Writes where the particle is, where it's going and how long it has left.
+     * The image and behavior of a particle come from whoever creates it, so
+     * they aren't written.
+     * @param out The buffer to write to.
+     **/
+    public void saveState(StateBuffer out) {
+        out.putDouble(this.theta);
+        out.putDouble(this.speed);
+        out.putInt(this.life);
+        out.putDouble(this.pos.x);
+        out.putDouble(this.pos.y);
+        out.putInt(this.size.width);
+        out.putInt(this.size.height);
+    }
+    
+    public void loadState(StateBuffer in) {
+        this.theta = in.getDouble();
+        this.speed = in.getDouble();
+        this.life = in.getInt();
+        this.pos = new Point2D.Double(in.getDouble(), in.getDouble());
+        this.size = new Dimension(in.getInt(), in.getInt());
+    }
+    
     public boolean outOfBounds() {
         boolean top = this.pos.y < 0;
-        boolean right = this.pos.x > Globals.W_WIDTH;
-        boolean bottom = this.pos.y > Globals.W_HEIGHT;
+        boolean right = this.pos.x > Globals.ARENA.getWidth();
+        boolean bottom = this.pos.y > Globals.ARENA.getHeight();
         boolean left = this.pos.x < 0;
         return top || right || bottom || left;
     }
@@ -0,0 +1,521 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Everything needed to draw one tick of the game, filled in by the game
+ * thread at the end of the tick and drawn by the canvas on the Swing thread.
+ * 
+ * Game objects "draw" into a frame in arena coordinates, the same way they would into a Graphics2D,
+ * but each call only writes a few numbers into primitive arrays. Drawing the
+ * frame later replays those calls. Nothing in a frame refers back to a live
+ * game object, so the canvas can draw one frame while the game thread fills
+ * the next without either of them taking a lock. Frames are reused, and
+ * handed between the threads with a TripleBuffer.
+ * @author Darin Beaudreau
+ */
+public class RenderFrame {
+    // Final Variables
+    private static final int IMAGE = 1; // Ints: x, y.
+    private static final int IMAGE_REGION = 2; // Ints: destination corners, then source corners.
+    private static final int ROTATED_IMAGE = 3; // Ints: x, y. Doubles: angle, pivot x, pivot y.
+    private static final int ROTATED_RECT = 4; // Ints: color. Doubles: angle, pivot x, pivot y, x, y, width, height.
+    private static final int SPRITE = 5; // Ints: frame. Doubles: theta, x, y, previous x, previous y.
+    private static final int LINE = 6; // Ints: color. Doubles: stroke width, x1, y1, x2, y2.
+    private static final int OVAL = 7; // Ints: color, x, y, width, height. Doubles: stroke width.
+    private static final int FILL_RECT = 8; // Ints: color, x, y, width, height.
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int VIEW_MARGIN = 64; // Things this close to the view are still drawn, since the camera moves between ticks.
+    private static final int STYLE_CACHE_SIZE = 64; // Must be a power of two.
+    
+    // Member Variables
+    private int opCount;
+    public int getOpCount() { return this.opCount; }
+    private int [] ops;
+    private Object [] refs; // The image or sprite atlas each operation draws, if any.
+    private int [] intStart; // Where each operation's ints start.
+    private int [] doubleStart; // Where each operation's doubles start.
+    private int intCount;
+    private int [] ints;
+    private int doubleCount;
+    private double [] doubles;
+    private int color; // The color shapes are drawn in, as ARGB.
+    private float stroke; // The width of lines drawn.
+    
+    private int lightCount;
+    public int getLightCount() { return this.lightCount; }
+    private BufferedImage [] lightImages;
+    private int [] lightX;
+    private int [] lightY;
+    private boolean [] lightFollowsPlayer; // Whether the light is drawn where the player is drawn, rather than where the player is.
+    
+    // What the camera could see when the frame was filled in.
+    private double viewX;
+    private double viewY;
+    private int viewWidth;
+    private int viewHeight;
+    
+    // Used when drawing. Only touched by the thread drawing the frame.
+    private AffineTransform at;
+    private AffineTransform view; // The graphics object's transform with a rotation applied.
+    private Rectangle2D.Double rect;
+    private Line2D.Double line;
+    private Color [] colors; // Colors already made, indexed by a hash of their ARGB value.
+    private BasicStroke [] strokes; // Strokes already made, indexed by a hash of their width.
+    
+    // Game State
+    // Set directly by the game thread when it fills the frame, and only read afterward.
+    public boolean started;
+    public boolean deathScreen;
+    public boolean storeOpen;
+    public boolean levelScreenOpen;
+    public boolean waveInProgress;
+    public long nextWaveIn; // Milliseconds until the next wave starts.
+    public int waveNumber;
+    public int itemsEnd; // The operations that draw items end here.
+    public int ammoEnd; // The operations that draw the player and their weapons' ammo end here.
+    public long publishTime; // System.nanoTime() when the frame was published, so the render thread knows how far past its tick it is.
+    
+    // Player
+    public double playerX; // The player's center.
+    public double playerY;
+    public double playerPrevX; // The player's center last tick.
+    public double playerPrevY;
+    public double playerTheta;
+    public boolean nightVision;
+    public boolean poisoned;
+    public int health;
+    public int maxHealth;
+    public int exp;
+    public int nextLevelExp;
+    public int level;
+    public int lives;
+    public int cash;
+    public int ammoLeft;
+    public int maxAmmo;
+    
+    // HUD
+    public int statusCount;
+    public BufferedImage [] statusImages;
+    public float [] statusOpacity;
+    public int messageCount;
+    public String [] messageText;
+    public float [] messageOpacity;
+    public BufferedImage [] weaponImages; // The icon of each weapon in the loadout, or null if the player doesn't own it.
+    public double [] weaponCooldown;
+    public int currentWeapon; // The loadout slot of the weapon the player is holding.
+    
+    public RenderFrame() {
+        this.ops = new int[RenderFrame.INITIAL_CAPACITY];
+        this.refs = new Object[RenderFrame.INITIAL_CAPACITY];
+        this.intStart = new int[RenderFrame.INITIAL_CAPACITY];
+        this.doubleStart = new int[RenderFrame.INITIAL_CAPACITY];
+        this.ints = new int[RenderFrame.INITIAL_CAPACITY * 4];
+        this.doubles = new double[RenderFrame.INITIAL_CAPACITY * 4];
+        this.lightImages = new BufferedImage[8];
+        this.lightX = new int[8];
+        this.lightY = new int[8];
+        this.lightFollowsPlayer = new boolean[8];
+        this.statusImages = new BufferedImage[8];
+        this.statusOpacity = new float[8];
+        this.messageText = new String[4];
+        this.messageOpacity = new float[4];
+        this.weaponImages = new BufferedImage[10];
+        this.weaponCooldown = new double[10];
+        this.at = new AffineTransform();
+        this.view = new AffineTransform();
+        this.rect = new Rectangle2D.Double();
+        this.line = new Line2D.Double();
+        this.colors = new Color[RenderFrame.STYLE_CACHE_SIZE];
+        this.strokes = new BasicStroke[RenderFrame.STYLE_CACHE_SIZE];
+        this.clear();
+    }
+    
+    /**
+     * Empties the frame so it can be filled again.
+     **/
+    public void clear() {
+        for(int i = 0; i < this.opCount; i++) this.refs[i] = null;
+        for(int i = 0; i < this.lightCount; i++) this.lightImages[i] = null;
+        for(int i = 0; i < this.statusCount; i++) this.statusImages[i] = null;
+        for(int i = 0; i < this.messageCount; i++) this.messageText[i] = null;
+        this.opCount = 0;
+        this.intCount = 0;
+        this.doubleCount = 0;
+        this.lightCount = 0;
+        this.statusCount = 0;
+        this.messageCount = 0;
+        this.color = Color.BLACK.getRGB();
+        this.stroke = 1.0f;
+    }
+    
+    /**
+     * Sets the part of the arena the frame is drawn for. Things well outside
+     * it don't need to be added to the frame.
+     * @param camera The camera the frame will be drawn from.
+     **/
+    public void setView(Camera camera) {
+        this.viewX = camera.getX();
+        this.viewY = camera.getY();
+        this.viewWidth = camera.getWidth();
+        this.viewHeight = camera.getHeight();
+    }
+    
+    /**
+     * Checks whether something could be on the screen when the frame is drawn.
+     * @param x The x coordinate of its center.
+     * @param y The y coordinate of its center.
+     * @param radius How far it reaches from its center.
+     * @return Whether it needs to be drawn.
+     **/
+    public boolean isVisible(double x, double y, double radius) {
+        double reach = radius + RenderFrame.VIEW_MARGIN;
+        return ((x + reach) >= this.viewX) && ((x - reach) <= (this.viewX + this.viewWidth)) && 
+               ((y + reach) >= this.viewY) && ((y - reach) <= (this.viewY + this.viewHeight));
+    }
+    
+    public void setColor(Color c) { this.color = c.getRGB(); }
+    public void setColor(int argb) { this.color = argb; }
+    public void setStroke(float width) { this.stroke = width; }
+    
+    public void drawImage(BufferedImage image, int x, int y) {
+        this.addOp(RenderFrame.IMAGE, image, 2, 0);
+        this.ints[this.intCount++] = x;
+        this.ints[this.intCount++] = y;
+    }
+    
+    public void drawImage(BufferedImage image, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2) {
+        this.addOp(RenderFrame.IMAGE_REGION, image, 8, 0);
+        this.ints[this.intCount++] = dx1;
+        this.ints[this.intCount++] = dy1;
+        this.ints[this.intCount++] = dx2;
+        this.ints[this.intCount++] = dy2;
+        this.ints[this.intCount++] = sx1;
+        this.ints[this.intCount++] = sy1;
+        this.ints[this.intCount++] = sx2;
+        this.ints[this.intCount++] = sy2;
+    }
+    
+    /**
+     * Draws an image with the whole canvas rotated around a point.
+     * @param image The image to draw.
+     * @param angle The angle to rotate by, in radians.
+     * @param pivotX The x coordinate of the point to rotate around.
+     * @param pivotY The y coordinate of the point to rotate around.
+     * @param x The x coordinate of the image's top left corner before it is rotated.
+     * @param y The y coordinate of the image's top left corner before it is rotated.
+     **/
+    public void drawRotatedImage(BufferedImage image, double angle, double pivotX, double pivotY, int x, int y) {
+        this.addOp(RenderFrame.ROTATED_IMAGE, image, 2, 3);
+        this.ints[this.intCount++] = x;
+        this.ints[this.intCount++] = y;
+        this.doubles[this.doubleCount++] = angle;
+        this.doubles[this.doubleCount++] = pivotX;
+        this.doubles[this.doubleCount++] = pivotY;
+    }
+    
+    /**
+     * Fills a rectangle rotated around a point. The rotation is applied to the
+     * rectangle and again to the canvas, as the particles have always been drawn.
+     * @param angle The angle to rotate by, in radians.
+     * @param pivotX The x coordinate of the point to rotate around.
+     * @param pivotY The y coordinate of the point to rotate around.
+     * @param x The x coordinate of the rectangle before it is rotated.
+     * @param y The y coordinate of the rectangle before it is rotated.
+     * @param width The width of the rectangle.
+     * @param height The height of the rectangle.
+     **/
+    public void fillRotatedRect(double angle, double pivotX, double pivotY, double x, double y, double width, double height) {
+        this.addOp(RenderFrame.ROTATED_RECT, null, 1, 7);
+        this.ints[this.intCount++] = this.color;
+        this.doubles[this.doubleCount++] = angle;
+        this.doubles[this.doubleCount++] = pivotX;
+        this.doubles[this.doubleCount++] = pivotY;
+        this.doubles[this.doubleCount++] = x;
+        this.doubles[this.doubleCount++] = y;
+        this.doubles[this.doubleCount++] = width;
+        this.doubles[this.doubleCount++] = height;
+    }
+    
+    /**
+     * Draws a frame from a sprite atlas between where the sprite was last
+     * tick and where it is now, depending on how far the frame is drawn
+     * between the two ticks.
+     * @param atlas The sprite atlas to draw from.
+     * @param frame The frame of the sprite to draw.
+     * @param theta The angle to draw the sprite at.
+     * @param x The x coordinate of the sprite's center.
+     * @param y The y coordinate of the sprite's center.
+     * @param prevX The x coordinate of the sprite's center last tick.
+     * @param prevY The y coordinate of the sprite's center last tick.
+     **/
+    public void drawSprite(SpriteAtlas atlas, int frame, double theta, double x, double y, double prevX, double prevY) {
+        this.addOp(RenderFrame.SPRITE, atlas, 1, 5);
+        this.ints[this.intCount++] = frame;
+        this.doubles[this.doubleCount++] = theta;
+        this.doubles[this.doubleCount++] = x;
+        this.doubles[this.doubleCount++] = y;
+        this.doubles[this.doubleCount++] = prevX;
+        this.doubles[this.doubleCount++] = prevY;
+    }
+    
+    public void drawLine(double x1, double y1, double x2, double y2) {
+        this.addOp(RenderFrame.LINE, null, 1, 5);
+        this.ints[this.intCount++] = this.color;
+        this.doubles[this.doubleCount++] = this.stroke;
+        this.doubles[this.doubleCount++] = x1;
+        this.doubles[this.doubleCount++] = y1;
+        this.doubles[this.doubleCount++] = x2;
+        this.doubles[this.doubleCount++] = y2;
+    }
+    
+    public void drawOval(int x, int y, int width, int height) {
+        this.addOp(RenderFrame.OVAL, null, 5, 1);
+        this.ints[this.intCount++] = this.color;
+        this.ints[this.intCount++] = x;
+        this.ints[this.intCount++] = y;
+        this.ints[this.intCount++] = width;
+        this.ints[this.intCount++] = height;
+        this.doubles[this.doubleCount++] = this.stroke;
+    }
+    
+    public void fillRect(int x, int y, int width, int height) {
+        this.addOp(RenderFrame.FILL_RECT, null, 5, 0);
+        this.ints[this.intCount++] = this.color;
+        this.ints[this.intCount++] = x;
+        this.ints[this.intCount++] = y;
+        this.ints[this.intCount++] = width;
+        this.ints[this.intCount++] = height;
+    }
+    
+    /**
+     * Adds a light to be cut out of the darkness.
+     * @param image The light's rendered gradient.
+     * @param x The x coordinate of the image's top left corner.
+     * @param y The y coordinate of the image's top left corner.
+     * @param followsPlayer Whether to move the light along with the player as they are drawn between ticks.
+     **/
+    public void addLight(BufferedImage image, int x, int y, boolean followsPlayer) {
+        if(this.lightCount == this.lightImages.length) {
+            int size = this.lightCount * 2;
+            BufferedImage [] images = new BufferedImage[size];
+            System.arraycopy(this.lightImages, 0, images, 0, this.lightCount);
+            this.lightImages = images;
+            this.lightX = RenderFrame.grow(this.lightX, size);
+            this.lightY = RenderFrame.grow(this.lightY, size);
+            boolean [] follows = new boolean[size];
+            System.arraycopy(this.lightFollowsPlayer, 0, follows, 0, this.lightCount);
+            this.lightFollowsPlayer = follows;
+        }
+        this.lightImages[this.lightCount] = image;
+        this.lightX[this.lightCount] = x;
+        this.lightY[this.lightCount] = y;
+        this.lightFollowsPlayer[this.lightCount] = followsPlayer;
+        this.lightCount++;
+    }
+    
+    public void addStatus(BufferedImage image, float opacity) {
+        if(this.statusCount == this.statusImages.length) {
+            BufferedImage [] images = new BufferedImage[this.statusCount * 2];
+            System.arraycopy(this.statusImages, 0, images, 0, this.statusCount);
+            this.statusImages = images;
+            float [] opacity_ = new float[this.statusCount * 2];
+            System.arraycopy(this.statusOpacity, 0, opacity_, 0, this.statusCount);
+            this.statusOpacity = opacity_;
+        }
+        this.statusImages[this.statusCount] = image;
+        this.statusOpacity[this.statusCount] = opacity;
+        this.statusCount++;
+    }
+    
+    /**
+     * Adds a message to show above the loadout.
+     * @param text The message.
+     * @param opacity How opaque to draw it, as it fades out.
+     **/
+    public void addMessage(String text, float opacity) {
+        if(this.messageCount == this.messageText.length) {
+            String [] text_ = new String[this.messageCount * 2];
+            System.arraycopy(this.messageText, 0, text_, 0, this.messageCount);
+            this.messageText = text_;
+            float [] opacity_ = new float[this.messageCount * 2];
+            System.arraycopy(this.messageOpacity, 0, opacity_, 0, this.messageCount);
+            this.messageOpacity = opacity_;
+        }
+        this.messageText[this.messageCount] = text;
+        this.messageOpacity[this.messageCount] = opacity;
+        this.messageCount++;
+    }
+    
+    /**
+     * Draws a range of the frame's operations.
+     * @param g2d The graphics object to draw with.
+     * @param from The first operation to draw.
+     * @param to The operation to stop before.
+     * @param interpolation How far between the last two ticks to draw moving sprites, from 0 to 1.
+     **/
+    public void draw(Graphics2D g2d, int from, int to, double interpolation) {
+        AffineTransform saved = g2d.getTransform();
+        Stroke savedStroke = g2d.getStroke();
+        int lastColor = 0;
+        float lastStroke = -1;
+        for(int op = from; op < to; op++) {
+            int i = this.intStart[op];
+            int d = this.doubleStart[op];
+            int type = this.ops[op];
+            if(type == RenderFrame.IMAGE) {
+                g2d.drawImage((BufferedImage)this.refs[op], this.ints[i], this.ints[i + 1], null);
+            } else if(type == RenderFrame.IMAGE_REGION) {
+                g2d.drawImage((BufferedImage)this.refs[op], this.ints[i], this.ints[i + 1], this.ints[i + 2], this.ints[i + 3], 
+                              this.ints[i + 4], this.ints[i + 5], this.ints[i + 6], this.ints[i + 7], null);
+            } else if(type == RenderFrame.ROTATED_IMAGE) {
+                this.view.setTransform(saved);
+                this.view.rotate(this.doubles[d], this.doubles[d + 1], this.doubles[d + 2]);
+                g2d.setTransform(this.view);
+                g2d.drawImage((BufferedImage)this.refs[op], this.ints[i], this.ints[i + 1], null);
+                g2d.setTransform(saved);
+            } else if(type == RenderFrame.SPRITE) {
+                double x = this.doubles[d + 1];
+                double y = this.doubles[d + 2];
+                x += (this.doubles[d + 3] - x) * (1.0 - interpolation);
+                y += (this.doubles[d + 4] - y) * (1.0 - interpolation);
+                ((SpriteAtlas)this.refs[op]).draw(g2d, this.ints[i], this.doubles[d], x, y);
+            } else {
+                // Everything else is a shape drawn in a color.
+                if((op == from) || (this.ints[i] != lastColor)) {
+                    lastColor = this.ints[i];
+                    g2d.setColor(this.getColor(lastColor));
+                }
+                if(type == RenderFrame.ROTATED_RECT) {
+                    this.at.setToRotation(this.doubles[d], this.doubles[d + 1], this.doubles[d + 2]);
+                    this.rect.setRect(this.doubles[d + 3], this.doubles[d + 4], this.doubles[d + 5], this.doubles[d + 6]);
+                    this.view.setTransform(saved);
+                    this.view.concatenate(this.at);
+                    g2d.setTransform(this.view);
+                    g2d.fill(this.at.createTransformedShape(this.rect));
+                    g2d.setTransform(saved);
+                } else if(type == RenderFrame.FILL_RECT) {
+                    g2d.fillRect(this.ints[i + 1], this.ints[i + 2], this.ints[i + 3], this.ints[i + 4]);
+                } else {
+                    float width = (float)this.doubles[d];
+                    if(width != lastStroke) {
+                        lastStroke = width;
+                        g2d.setStroke(this.getStroke(width));
+                    }
+                    if(type == RenderFrame.LINE) {
+                        this.line.setLine(this.doubles[d + 1], this.doubles[d + 2], this.doubles[d + 3], this.doubles[d + 4]);
+                        g2d.draw(this.line);
+                    } else if(type == RenderFrame.OVAL) {
+                        g2d.drawOval(this.ints[i + 1], this.ints[i + 2], this.ints[i + 3], this.ints[i + 4]);
+                    }
+                }
+            }
+        }
+        g2d.setStroke(savedStroke);
+    }
+    
+    /**
+     * Cuts the frame's lights out of the darkness layer.
+     * @param g2d The graphics object of the darkness layer, set to the composite to draw the lights with.
+     * @param playerOffsetX How far the player is drawn from where they are this tick, along the x axis.
+     * @param playerOffsetY How far the player is drawn from where they are this tick, along the y axis.
+     **/
+    public void drawLights(Graphics2D g2d, double playerOffsetX, double playerOffsetY) {
+        AffineTransform saved = g2d.getTransform();
+        for(int i = 0; i < this.lightCount; i++) {
+            if(this.lightFollowsPlayer[i]) {
+                g2d.translate(playerOffsetX, playerOffsetY);
+                g2d.drawImage(this.lightImages[i], this.lightX[i], this.lightY[i], null);
+                g2d.setTransform(saved);
+            } else g2d.drawImage(this.lightImages[i], this.lightX[i], this.lightY[i], null);
+        }
+    }
+    
+    /**
+     * Finds the color for an ARGB value, only making a new one the first time
+     * it is drawn or when it has been pushed out of the cache by another color.
+     * @param argb The color, as ARGB.
+     * @return The color to draw with.
+     **/
+    private Color getColor(int argb) {
+        int index = RenderFrame.hash(argb);
+        Color c = this.colors[index];
+        if((c == null) || (c.getRGB() != argb)) {
+            c = new Color(argb, true);
+            this.colors[index] = c;
+        }
+        return c;
+    }
+    
+    /**
+     * Finds the stroke for a line width, in the same way as getColor().
+     * @param width The width of the lines to draw.
+     * @return The stroke to draw with.
+     **/
+    private BasicStroke getStroke(float width) {
+        int index = RenderFrame.hash(Float.floatToIntBits(width));
+        BasicStroke s = this.strokes[index];
+        if((s == null) || (s.getLineWidth() != width)) {
+            s = new BasicStroke(width);
+            this.strokes[index] = s;
+        }
+        return s;
+    }
+    
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return ((h ^ (h >>> 16)) & (RenderFrame.STYLE_CACHE_SIZE - 1));
+    }
+    
+    private void addOp(int type, Object ref, int intsNeeded, int doublesNeeded) {
+        if(this.opCount == this.ops.length) {
+            int size = this.opCount * 2;
+            this.ops = RenderFrame.grow(this.ops, size);
+            this.intStart = RenderFrame.grow(this.intStart, size);
+            this.doubleStart = RenderFrame.grow(this.doubleStart, size);
+            Object [] refs_ = new Object[size];
+            System.arraycopy(this.refs, 0, refs_, 0, this.opCount);
+            this.refs = refs_;
+        }
+        if((this.intCount + intsNeeded) > this.ints.length) this.ints = RenderFrame.grow(this.ints, (this.ints.length * 2));
+        if((this.doubleCount + doublesNeeded) > this.doubles.length) {
+            double [] doubles_ = new double[this.doubles.length * 2];
+            System.arraycopy(this.doubles, 0, doubles_, 0, this.doubleCount);
+            this.doubles = doubles_;
+        }
+        this.ops[this.opCount] = type;
+        this.refs[this.opCount] = ref;
+        this.intStart[this.opCount] = this.intCount;
+        this.doubleStart[this.opCount] = this.doubleCount;
+        this.opCount++;
+    }
+    
+    private static int [] grow(int [] array, int size) {
+        int [] grown = new int[size];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+}
@@ -0,0 +1,179 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures;
+
+import genericzombieshooter.actors.Zombie;
+import java.awt.geom.Rectangle2D;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A uniform grid over the play field used to find which zombies a projectile
+ * might hit without testing it against every zombie in the wave. The grid is
+ * rebuilt once per tick after the zombies have moved. Each zombie is added to
+ * every cell its bounding box touches, so a point only ever needs to look in
+ * the one cell it falls in.
+ * @author Darin Beaudreau
+ */
+public class SpatialGrid {
+    // Final Variables
+    public static final int CELL_SIZE = 64;
+    
+    // Member Variables
+    private int columns;
+    private int rows;
+    private int [] cellStart; // Where each cell's zombies start in cellZombies.
+    private int [] cellZombies; // Zombie indices for every cell, in ascending order within a cell.
+    
+    private List<Zombie> zombies;
+    private int count;
+    public int size() { return this.count; }
+    public Zombie getZombie(int i) { return this.zombies.get(i); }
+    private boolean [] active;
+    public boolean isActive(int i) { return this.active[i]; }
+    private double [] minX;
+    private double [] minY;
+    private double [] maxX;
+    private double [] maxY;
+    
+    /**
+     * Creates an empty grid covering the given area.
+     * @param width The width of the area covered, in pixels.
+     * @param height The height of the area covered, in pixels.
+     **/
+    public SpatialGrid(int width, int height) {
+        this.columns = ((width + SpatialGrid.CELL_SIZE - 1) / SpatialGrid.CELL_SIZE);
+        this.rows = ((height + SpatialGrid.CELL_SIZE - 1) / SpatialGrid.CELL_SIZE);
+        this.cellStart = new int[(this.columns * this.rows) + 1];
+        this.cellZombies = new int[64];
+        
+        this.zombies = null;
+        this.count = 0;
+        this.active = new boolean[16];
+        this.minX = new double[16];
+        this.minY = new double[16];
+        this.maxX = new double[16];
+        this.maxY = new double[16];
+    }
+    
+    /**
+     * Rebuilds the grid from the given zombies. Dead zombies are kept out of
+     * the grid so they can no longer be hit.
+     * @param zombies The list of zombies. Indices into the grid are indices into this list.
+     **/
+    public void build(List<Zombie> zombies) {
+        this.zombies = zombies;
+        this.count = zombies.size();
+        if(this.count > this.active.length) {
+            int capacity = Math.max(this.count, (this.active.length * 2));
+            this.active = new boolean[capacity];
+            this.minX = new double[capacity];
+            this.minY = new double[capacity];
+            this.maxX = new double[capacity];
+            this.maxY = new double[capacity];
+        }
+        
+        int cells = this.columns * this.rows;
+        for(int c = 0; c <= cells; c++) this.cellStart[c] = 0;
+        
+        { // Store each zombie's bounding box and count how many zombies land in each cell.
+            int i = 0;
+            Iterator<Zombie> it = zombies.iterator();
+            while(it.hasNext()) {
+                Zombie z = it.next();
+                double w = z.getWidth();
+                double h = z.getHeight();
+                this.minX[i] = z.getX() - (w / 2);
+                this.minY[i] = z.getY() - (h / 2);
+                this.maxX[i] = this.minX[i] + w;
+                this.maxY[i] = this.minY[i] + h;
+                this.active[i] = !z.isDead();
+                if(this.active[i]) {
+                    int c0 = this.column(this.minX[i]);
+                    int c1 = this.column(this.maxX[i]);
+                    int r0 = this.row(this.minY[i]);
+                    int r1 = this.row(this.maxY[i]);
+                    for(int r = r0; r <= r1; r++) {
+                        for(int c = c0; c <= c1; c++) this.cellStart[(r * this.columns) + c + 1]++;
+                    }
+                }
+                i++;
+            }
+        } // End counting zombies per cell.
+        
+        // Turn the counts into starting offsets.
+        for(int c = 0; c < cells; c++) this.cellStart[c + 1] += this.cellStart[c];
+        if(this.cellStart[cells] > this.cellZombies.length) {
+            this.cellZombies = new int[Math.max(this.cellStart[cells], (this.cellZombies.length * 2))];
+        }
+        
+        { // Fill in the cells. Zombies are added in list order, so each cell stays sorted.
+            int [] next = new int[cells];
+            System.arraycopy(this.cellStart, 0, next, 0, cells);
+            for(int i = 0; i < this.count; i++) {
+                if(!this.active[i]) continue;
+                int c0 = this.column(this.minX[i]);
+                int c1 = this.column(this.maxX[i]);
+                int r0 = this.row(this.minY[i]);
+                int r1 = this.row(this.maxY[i]);
+                for(int r = r0; r <= r1; r++) {
+                    for(int c = c0; c <= c1; c++) this.cellZombies[next[(r * this.columns) + c]++] = i;
+                }
+            }
+        } // End filling in the cells.
+    }
+    
+    /**
+     * Finds the first zombie, in list order, whose bounding box contains the
+     * given point. Matches Rectangle2D.contains, so the right and bottom edges
+     * are not inside.
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @return The index of the zombie that was hit, or -1 if there is none.
+     **/
+    public int findZombieAt(double x, double y) {
+        int cell = (this.row(y) * this.columns) + this.column(x);
+        for(int k = this.cellStart[cell]; k < this.cellStart[cell + 1]; k++) {
+            int i = this.cellZombies[k];
+            if((x >= this.minX[i]) && (y >= this.minY[i]) && (x < this.maxX[i]) && (y < this.maxY[i])) return i;
+        }
+        return -1;
+    }
+    
+    /**
+     * Gets the bounding box of a zombie as it was when the grid was built.
+     * Weapons are checked against the grid on several threads at once, so
+     * each caller passes in its own rectangle to fill.
+     * @param i The index of the zombie.
+     * @param rect The rectangle to set to the bounding box.
+     * @return The rectangle that was passed in.
+     **/
+    public Rectangle2D.Double getRect(int i, Rectangle2D.Double rect) {
+        rect.setRect(this.minX[i], this.minY[i], (this.maxX[i] - this.minX[i]), (this.maxY[i] - this.minY[i]));
+        return rect;
+    }
+    
+    private int column(double x) {
+        int c = (int)Math.floor(x / SpatialGrid.CELL_SIZE);
+        return ((c < 0)?0:((c >= this.columns)?(this.columns - 1):c));
+    }
+    
+    private int row(double y) {
+        int r = (int)Math.floor(y / SpatialGrid.CELL_SIZE);
+        return ((r < 0)?0:((r >= this.rows)?(this.rows - 1):r));
+    }
+}
@@ -0,0 +1,153 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures;
+
+import genericzombieshooter.GZSFramework;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the frames of a sprite sheet pre-rotated to a fixed number of angles,
+ * so a rotating sprite can be drawn with a plain, untransformed drawImage()
+ * instead of going through Java2D's slow transformed image loop.
+ * 
+ * Every rotated frame is rendered when the atlas is created, which happens
+ * on the game thread before the sprite is first drawn, so drawing never
+ * renders anything and never takes a lock. The sprite's drop shadow is baked
+ * into the rotated frames as well.
+ * @author Darin Beaudreau
+ */
+public class SpriteAtlas {
+    // Final Variables
+    public static final int DEFAULT_ANGLES = 64;
+    private static final int MIN_ANGLES = 16;
+    private static final int MAX_PIXELS = 4500000; // The most rotated pixels anglesFor() lets one atlas have, about 18 MB.
+    private static final Color SHADOW_COLOR = new Color(0, 0, 0, 100);
+    private static final Map<BufferedImage, List<SpriteAtlas>> ATLASES = new IdentityHashMap<BufferedImage, List<SpriteAtlas>>();
+    
+    // Member Variables
+    private BufferedImage [] frames;
+    private int frameWidth;
+    private int frameHeight;
+    private Rectangle shadow; // The shadow oval, relative to the center of the frame. Null for no shadow.
+    private int angles;
+    private int size; // The width and height of each rotated frame.
+    private BufferedImage [][] rotated; // Indexed by frame, then by angle.
+    
+    /**
+     * Gets the atlas for a sprite sheet, creating it the first time it is asked for.
+     * @param sheet The sprite sheet, with its frames laid out left to right.
+     * @param frameWidth The width of each frame.
+     * @param frameHeight The height of each frame.
+     * @param frameCount The number of frames in the sheet.
+     * @param shadow The oval to draw under the sprite, relative to the center of the frame. Null for no shadow.
+     * @param angles The number of angles to pre-rotate each frame to.
+     * @return The atlas.
+     **/
+    public static SpriteAtlas get(BufferedImage sheet, int frameWidth, int frameHeight, int frameCount, Rectangle shadow, int angles) {
+        synchronized(SpriteAtlas.ATLASES) {
+            List<SpriteAtlas> atlases = SpriteAtlas.ATLASES.get(sheet);
+            if(atlases == null) {
+                atlases = new ArrayList<SpriteAtlas>();
+                SpriteAtlas.ATLASES.put(sheet, atlases);
+            }
+            for(SpriteAtlas atlas : atlases) {
+                if((atlas.frameWidth == frameWidth) && (atlas.frameHeight == frameHeight) && (atlas.frames.length == frameCount) &&
+                   (atlas.angles == angles) && ((atlas.shadow == null) ? (shadow == null) : atlas.shadow.equals(shadow))) return atlas;
+            }
+            SpriteAtlas atlas = new SpriteAtlas(sheet, frameWidth, frameHeight, frameCount, shadow, angles);
+            atlases.add(atlas);
+            return atlas;
+        }
+    }
+    
+    /**
+     * Works out how many angles a sheet can be pre-rotated to without its
+     * atlas growing past the pixel budget. The count is halved until the
+     * atlas fits, but never drops below 16 angles.
+     * @param frameWidth The width of each frame.
+     * @param frameHeight The height of each frame.
+     * @param frameCount The number of frames in the sheet.
+     * @param maxAngles The number of angles wanted for a small sheet.
+     * @return The number of angles to pre-rotate each frame to.
+     **/
+    public static int anglesFor(int frameWidth, int frameHeight, int frameCount, int maxAngles) {
+        int size = SpriteAtlas.rotatedSize(frameWidth, frameHeight);
+        long pixelsPerAngle = (long)size * size * frameCount;
+        int angles = maxAngles;
+        while((angles > SpriteAtlas.MIN_ANGLES) && ((pixelsPerAngle * angles) > SpriteAtlas.MAX_PIXELS)) angles /= 2;
+        return angles;
+    }
+    
+    private static int rotatedSize(int frameWidth, int frameHeight) {
+        // Big enough to hold the frame at any angle, and even so the frame's center lands on a pixel boundary.
+        int diagonal = (int)Math.ceil(Math.sqrt((frameWidth * frameWidth) + (frameHeight * frameHeight))) + 2;
+        return diagonal + (diagonal % 2);
+    }
+    
+    private SpriteAtlas(BufferedImage sheet, int frameWidth, int frameHeight, int frameCount, Rectangle shadow, int angles) {
+        this.frames = new BufferedImage[frameCount];
+        for(int i = 0; i < frameCount; i++) this.frames[i] = sheet.getSubimage((i * frameWidth), 0, frameWidth, frameHeight);
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        this.shadow = ((shadow == null) ? null : new Rectangle(shadow));
+        this.angles = angles;
+        this.size = SpriteAtlas.rotatedSize(frameWidth, frameHeight);
+        this.rotated = new BufferedImage[frameCount][angles];
+        for(int frame = 0; frame < frameCount; frame++) {
+            for(int angle = 0; angle < angles; angle++) this.rotated[frame][angle] = this.renderRotatedFrame(frame, angle);
+        }
+    }
+    
+    /**
+     * Draws a frame rotated to the nearest pre-rotated angle.
+     * @param g2d The graphics object to draw with. Its transform is not changed.
+     * @param frame The index of the frame to draw.
+     * @param theta The angle to rotate the frame by, in radians.
+     * @param x The x coordinate of the center of the sprite.
+     * @param y The y coordinate of the center of the sprite.
+     **/
+    public void draw(Graphics2D g2d, int frame, double theta, double x, double y) {
+        int angle = (int)Math.round((theta / (Math.PI * 2)) * this.angles) % this.angles;
+        if(angle < 0) angle += this.angles;
+        BufferedImage image = this.rotated[frame][angle];
+        int half = this.size / 2;
+        g2d.drawImage(image, ((int)Math.round(x) - half), ((int)Math.round(y) - half), null);
+    }
+    
+    private BufferedImage renderRotatedFrame(int frame, int angle) {
+        BufferedImage image = GZSFramework.createCompatibleImage(this.size, this.size);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        double half = this.size / 2.0;
+        g2d.rotate(((Math.PI * 2 * angle) / this.angles), half, half);
+        if(this.shadow != null) {
+            g2d.setColor(SpriteAtlas.SHADOW_COLOR);
+            g2d.fillOval((int)(half + this.shadow.x), (int)(half + this.shadow.y), this.shadow.width, this.shadow.height);
+        }
+        g2d.drawImage(this.frames[frame], (int)(half - (this.frameWidth / 2)), (int)(half - (this.frameHeight / 2)), null);
+        g2d.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,125 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures;
+
+import genericzombieshooter.misc.Globals;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The frames of a sprite sheet and how long each one shows, shared by every
+ * animation that plays the sheet. An animation only has to remember the tick
+ * it started on; which frame it is showing is worked out from how many ticks
+ * of game time have passed since, so nothing needs to be updated per
+ * animation as the game runs.
+ * 
+ * Frame times are rounded up to whole ticks, since that is how often the
+ * game time advances.
+ * @author Darin Beaudreau
+ */
+public class SpriteTimeline {
+    // Final Variables
+    private static final Map<BufferedImage, List<SpriteTimeline>> TIMELINES = new IdentityHashMap<BufferedImage, List<SpriteTimeline>>();
+    
+    // Member Variables
+    private BufferedImage sheet; // The frames, laid out left to right.
+    public BufferedImage getSheet() { return this.sheet; }
+    private int frameWidth;
+    public int getWidth() { return this.frameWidth; }
+    private int frameHeight;
+    public int getHeight() { return this.frameHeight; }
+    private int frameCount;
+    public int getFrameCount() { return this.frameCount; }
+    private long frameTime; // Milliseconds per frame, as asked for.
+    private long frameTicks; // Ticks per frame.
+    private boolean loop;
+    
+    /**
+     * Gets the timeline for a sprite sheet, creating it the first time it is asked for.
+     * @param sheet The sprite sheet, with its frames laid out left to right.
+     * @param frameWidth The width of each frame.
+     * @param frameHeight The height of each frame.
+     * @param frameCount The number of frames in the sheet.
+     * @param frameTime How long to show each frame, in milliseconds.
+     * @param loop Whether to start over after the last frame, or stop.
+     * @return The timeline.
+     **/
+    public static SpriteTimeline get(BufferedImage sheet, int frameWidth, int frameHeight, int frameCount, long frameTime, boolean loop) {
+        synchronized(SpriteTimeline.TIMELINES) {
+            List<SpriteTimeline> timelines = SpriteTimeline.TIMELINES.get(sheet);
+            if(timelines == null) {
+                timelines = new ArrayList<SpriteTimeline>();
+                SpriteTimeline.TIMELINES.put(sheet, timelines);
+            }
+            for(SpriteTimeline t : timelines) {
+                if((t.frameWidth == frameWidth) && (t.frameHeight == frameHeight) && (t.frameCount == frameCount) && 
+                   (t.frameTime == frameTime) && (t.loop == loop)) return t;
+            }
+            SpriteTimeline timeline = new SpriteTimeline(sheet, frameWidth, frameHeight, frameCount, frameTime, loop);
+            timelines.add(timeline);
+            return timeline;
+        }
+    }
+    
+    private SpriteTimeline(BufferedImage sheet, int frameWidth, int frameHeight, int frameCount, long frameTime, boolean loop) {
+        this.sheet = sheet;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        this.frameCount = frameCount;
+        this.frameTime = frameTime;
+        this.frameTicks = Math.max(1, (((frameTime * Globals.TICK_RATE) + 999) / 1000));
+        this.loop = loop;
+    }
+    
+    /**
+     * Gets the frame showing a number of ticks into the timeline.
+     * @param ticks How many ticks have passed since the animation started.
+     * @return The frame, or -1 if the animation hasn't started or has finished.
+     **/
+    public int getFrame(long ticks) {
+        if(ticks < 0) return -1;
+        long frame = ticks / this.frameTicks;
+        if(this.loop) return (int)(frame % this.frameCount);
+        else return ((frame < this.frameCount)?(int)frame:-1);
+    }
+    
+    /**
+     * Checks whether an animation that doesn't loop has shown its last frame.
+     * @param ticks How many ticks have passed since the animation started.
+     * @return Whether the animation is over. Looping animations never are.
+     **/
+    public boolean isFinished(long ticks) {
+        return !this.loop && (ticks >= (this.frameCount * this.frameTicks));
+    }
+    
+    /**
+     * Draws a frame, stretched to fit the given area.
+     * @param frame The frame being built.
+     * @param index The frame of the timeline to draw.
+     * @param x1 The left side of the area to draw to.
+     * @param y1 The top of the area to draw to.
+     * @param x2 The right side of the area to draw to.
+     * @param y2 The bottom of the area to draw to.
+     **/
+    public void draw(RenderFrame frame, int index, int x1, int y1, int x2, int y2) {
+        int sx = index * this.frameWidth;
+        frame.drawImage(this.sheet, x1, y1, x2, y2, sx, 0, (sx + this.frameWidth), this.frameHeight);
+    }
+}
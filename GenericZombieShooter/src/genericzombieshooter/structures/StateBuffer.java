@@ -0,0 +1,142 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures;
+
+import genericzombieshooter.misc.Images;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+
+/**
+ * A growable direct byte buffer used to save and restore the state of the
+ * game. Everything is written and read back in the same order by the classes
+ * that own the state, so nothing but the values themselves is stored. Images
+ * are stored as their index in Images, and the buffer is reused from one
+ * snapshot to the next so saving doesn't allocate once it has grown to size.
+ * @author Darin Beaudreau
+ */
+public class StateBuffer {
+    // Final Variables
+    private static final int DEFAULT_CAPACITY = 64 * 1024;
+    
+    // Member Variables
+    private ByteBuffer buffer;
+    
+    public StateBuffer() {
+        this(StateBuffer.DEFAULT_CAPACITY);
+    }
+    
+    public StateBuffer(int capacity) {
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+    }
+    
+    /**
+     * Gets the underlying buffer. After flip(), it holds the bytes written
+     * between its position and limit.
+     * @return The buffer.
+     **/
+    public ByteBuffer getBuffer() { return this.buffer; }
+    
+    /**
+     * Empties the buffer so a new snapshot can be written to it.
+     **/
+    public void clear() { this.buffer.clear(); }
+    
+    /**
+     * Readies the buffer to read back what was written to it.
+     **/
+    public void flip() { this.buffer.flip(); }
+    
+    /**
+     * Empties the buffer and copies the given bytes into it, ready to be read.
+     * @param src The bytes between the position and limit of src are copied. Its position is moved to its limit.
+     **/
+    public void load(ByteBuffer src) {
+        this.buffer.clear();
+        this.ensureCapacity(src.remaining());
+        this.buffer.put(src);
+        this.buffer.flip();
+    }
+    
+    public void putInt(int value) {
+        this.ensureCapacity(4);
+        this.buffer.putInt(value);
+    }
+    
+    public void putLong(long value) {
+        this.ensureCapacity(8);
+        this.buffer.putLong(value);
+    }
+    
+    public void putFloat(float value) {
+        this.ensureCapacity(4);
+        this.buffer.putFloat(value);
+    }
+    
+    public void putDouble(double value) {
+        this.ensureCapacity(8);
+        this.buffer.putDouble(value);
+    }
+    
+    public void putBoolean(boolean value) {
+        this.ensureCapacity(1);
+        this.buffer.put((byte)(value ? 1 : 0));
+    }
+    
+    public void putString(String value) {
+        this.ensureCapacity(4 + (value.length() * 2));
+        this.buffer.putInt(value.length());
+        for(int i = 0; i < value.length(); i++) this.buffer.putChar(value.charAt(i));
+    }
+    
+    /**
+     * Writes an image as its index in Images.
+     * @param image The image to write. Must be one of the images in Images, or null.
+     **/
+    public void putImage(BufferedImage image) {
+        this.putInt(Images.indexOf(image));
+    }
+    
+    public int getInt() { return this.buffer.getInt(); }
+    public long getLong() { return this.buffer.getLong(); }
+    public float getFloat() { return this.buffer.getFloat(); }
+    public double getDouble() { return this.buffer.getDouble(); }
+    public boolean getBoolean() { return (this.buffer.get() != 0); }
+    public BufferedImage getImage() { return Images.get(this.buffer.getInt()); }
+    
+    public String getString() {
+        int length = this.buffer.getInt();
+        char [] chars = new char[length];
+        for(int i = 0; i < length; i++) chars[i] = this.buffer.getChar();
+        return new String(chars);
+    }
+    
+    /**
+     * Makes sure there is room to write the given number of bytes, moving
+     * what has been written so far to a bigger buffer if there isn't.
+     * @param bytes The number of bytes about to be written.
+     **/
+    private void ensureCapacity(int bytes) {
+        if(this.buffer.remaining() < bytes) {
+            int capacity = this.buffer.capacity();
+            while((capacity - this.buffer.position()) < bytes) capacity *= 2;
+            ByteBuffer bigger = ByteBuffer.allocateDirect(capacity);
+            this.buffer.flip();
+            bigger.put(this.buffer);
+            this.buffer = bigger;
+        }
+    }
+}
@@ -39,4 +39,16 @@ public class StatusEffect {
         this.endTime = Globals.gameTime.getElapsedMillis() + duration;
         this.value = value;
     }
+    
+    public void saveState(StateBuffer out) {
+        out.putImage(this.img);
+        out.putLong(this.endTime);
+        out.putInt(this.value);
+    }
+    
+    public void loadState(StateBuffer in) {
+        this.img = in.getImage();
+        this.endTime = in.getLong();
+        this.value = in.getInt();
+    }
 }
@@ -0,0 +1,271 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures;
+
+import genericzombieshooter.GZSFramework;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.misc.Images;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+
+/**
+ * The floor of the arena, which can be many screens across. The arena is a
+ * grid of square tiles cut from a tileset image. Tiles can be solid, in which
+ * case they block the cells under them in the ObstacleMap.
+ * 
+ * The tiles are drawn in chunks. Each chunk is rendered into an image the
+ * first time it comes into view, along with the background and obstacles
+ * under it, and kept for as long as the game runs. Only the chunks the camera
+ * can see are drawn each frame.
+ * 
+ * A map file is plain text:
+ * <pre>
+ * # Comments start with a pound sign.
+ * tileset tiles.png 32     (The image to cut the tiles from, relative to the map, and the tile size.)
+ * size 100 60              (The number of columns and rows of tiles.)
+ * solid 4 5 6              (The tiles that block movement. Optional.)
+ * 0 0 1 1 . . 4 ...        (One line per row. Tiles are numbered left to right, top to bottom. A dot is no tile.)
+ * </pre>
+ * Without a map, the arena is the size of the window and only shows the background.
+ * @author Darin Beaudreau
+ */
+public class TileMap {
+    // Final Variables
+    public static final int CHUNK_TILES = 16; // Chunks are this many tiles on a side.
+    private static final int NO_TILE = -1;
+    
+    // Member Variables
+    private int width; // The size of the arena, in pixels.
+    public int getWidth() { return this.width; }
+    private int height;
+    public int getHeight() { return this.height; }
+    private int tileSize;
+    public int getTileSize() { return this.tileSize; }
+    private int columns;
+    private int rows;
+    private int [] tiles; // The tile at each column and row, or NO_TILE.
+    private BufferedImage [] tileImages; // The tiles cut from the tileset.
+    private boolean [] solid; // Whether each tile blocks movement.
+    private int chunkSize; // The size of a chunk, in pixels.
+    private int chunkColumns;
+    private int chunkRows;
+    private BufferedImage [] chunks; // Rendered chunks, or null for chunks that haven't been seen yet. Only used by the drawing thread.
+    private int chunksRendered;
+    public int getChunksRendered() { return this.chunksRendered; }
+    
+    /**
+     * Creates an arena with no tiles.
+     * @param width The width of the arena, in pixels.
+     * @param height The height of the arena, in pixels.
+     **/
+    public TileMap(int width, int height) {
+        this(width, height, ObstacleMap.CELL_SIZE, new BufferedImage[0], new boolean[0]);
+    }
+    
+    private TileMap(int width, int height, int tileSize, BufferedImage [] tileImages, boolean [] solid) {
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.columns = ((width + tileSize - 1) / tileSize);
+        this.rows = ((height + tileSize - 1) / tileSize);
+        this.tiles = new int[this.columns * this.rows];
+        for(int i = 0; i < this.tiles.length; i++) this.tiles[i] = TileMap.NO_TILE;
+        this.tileImages = tileImages;
+        this.solid = solid;
+        this.chunkSize = TileMap.CHUNK_TILES * tileSize;
+        this.chunkColumns = ((width + this.chunkSize - 1) / this.chunkSize);
+        this.chunkRows = ((height + this.chunkSize - 1) / this.chunkSize);
+        this.chunks = new BufferedImage[this.chunkColumns * this.chunkRows];
+        this.chunksRendered = 0;
+    }
+    
+    /**
+     * Loads a map file. If there is no file, or it can't be read, the arena
+     * is left empty at the given size.
+     * @param path The path of the map file, or null for no map.
+     * @param width The width of the arena without a map, in pixels.
+     * @param height The height of the arena without a map, in pixels.
+     * @return The tile map.
+     **/
+    public static TileMap load(String path, int width, int height) {
+        if(path == null) return new TileMap(width, height);
+        BufferedReader reader = null;
+        try {
+            File file = new File(path);
+            reader = new BufferedReader(new FileReader(file));
+            BufferedImage tileset = null;
+            int tileSize = 0;
+            int columns = 0;
+            int rows = 0;
+            List<Integer> solidTiles = new ArrayList<Integer>();
+            List<String []> tileRows = new ArrayList<String []>();
+            
+            String line;
+            while((line = reader.readLine()) != null) {
+                line = line.trim();
+                if(line.isEmpty() || line.startsWith("#")) continue;
+                String [] parts = line.split("\\s+");
+                if(parts[0].equals("tileset")) {
+                    if(parts.length != 3) throw new IOException("Expected a tileset image and tile size.");
+                    tileset = ImageIO.read(new File(file.getParentFile(), parts[1]));
+                    if(tileset == null) throw new IOException("Not an image: " + parts[1]);
+                    tileSize = Integer.parseInt(parts[2]);
+                } else if(parts[0].equals("size")) {
+                    if(parts.length != 3) throw new IOException("Expected a number of columns and rows.");
+                    columns = Integer.parseInt(parts[1]);
+                    rows = Integer.parseInt(parts[2]);
+                } else if(parts[0].equals("solid")) {
+                    for(int i = 1; i < parts.length; i++) solidTiles.add(Integer.parseInt(parts[i]));
+                } else tileRows.add(parts);
+            }
+            if(tileset == null) throw new IOException("No tileset.");
+            if((tileSize <= 0) || (columns <= 0) || (rows <= 0)) throw new IOException("The tile size and map size must be positive.");
+            if(tileRows.size() != rows) throw new IOException("Expected " + rows + " rows of tiles, found " + tileRows.size() + ".");
+            
+            { // Cut the tileset into tiles.
+                int across = tileset.getWidth() / tileSize;
+                int down = tileset.getHeight() / tileSize;
+                BufferedImage [] tileImages = new BufferedImage[across * down];
+                for(int i = 0; i < tileImages.length; i++) {
+                    tileImages[i] = tileset.getSubimage(((i % across) * tileSize), ((i / across) * tileSize), tileSize, tileSize);
+                }
+                boolean [] solid = new boolean[tileImages.length];
+                for(int i = 0; i < solidTiles.size(); i++) {
+                    int tile = solidTiles.get(i);
+                    if((tile < 0) || (tile >= solid.length)) throw new IOException("No such tile: " + tile);
+                    solid[tile] = true;
+                }
+                
+                TileMap map = new TileMap((columns * tileSize), (rows * tileSize), tileSize, tileImages, solid);
+                for(int r = 0; r < rows; r++) {
+                    String [] row = tileRows.get(r);
+                    if(row.length != columns) throw new IOException("Expected " + columns + " tiles in row " + r + ", found " + row.length + ".");
+                    for(int c = 0; c < columns; c++) {
+                        if(row[c].equals(".")) continue;
+                        int tile = Integer.parseInt(row[c]);
+                        if((tile < 0) || (tile >= tileImages.length)) throw new IOException("No such tile: " + tile);
+                        map.tiles[(r * columns) + c] = tile;
+                    }
+                }
+                return map;
+            } // End cutting the tileset into tiles.
+        } catch(IOException ioe) {
+            System.out.println("Could not load the map from " + path + ": " + ioe.getMessage());
+        } catch(NumberFormatException nfe) {
+            System.out.println("Could not load the map from " + path + ": " + nfe.getMessage());
+        } finally {
+            try {
+                if(reader != null) reader.close();
+            } catch(IOException ioe) {
+                // Nothing left to do with the file anyway.
+            }
+        }
+        return new TileMap(width, height);
+    }
+    
+    /**
+     * Creates the arena's obstacles. The obstacles image, if there is one,
+     * covers the arena from its top left corner, and solid tiles block every
+     * cell they overlap.
+     * @param path The path of the obstacles image, or null for none.
+     * @return The obstacle map.
+     **/
+    public ObstacleMap createObstacles(String path) {
+        ObstacleMap obstacles = ObstacleMap.load(path, this.width, this.height);
+        for(int r = 0; r < this.rows; r++) {
+            for(int c = 0; c < this.columns; c++) {
+                int tile = this.tiles[(r * this.columns) + c];
+                if((tile == TileMap.NO_TILE) || !this.solid[tile]) continue;
+                int firstColumn = (c * this.tileSize) / ObstacleMap.CELL_SIZE;
+                int lastColumn = Math.min((obstacles.getColumns() - 1), ((((c + 1) * this.tileSize) - 1) / ObstacleMap.CELL_SIZE));
+                int firstRow = (r * this.tileSize) / ObstacleMap.CELL_SIZE;
+                int lastRow = Math.min((obstacles.getRows() - 1), ((((r + 1) * this.tileSize) - 1) / ObstacleMap.CELL_SIZE));
+                for(int oy = firstRow; oy <= lastRow; oy++) {
+                    for(int ox = firstColumn; ox <= lastColumn; ox++) obstacles.block(ox, oy);
+                }
+            }
+        }
+        return obstacles;
+    }
+    
+    /**
+     * Draws the chunks the camera can see, rendering any that haven't been seen before.
+     * @param g2d The graphics object to draw with, translated so it draws in arena coordinates.
+     * @param camera The camera to draw the view of.
+     **/
+    public void draw(Graphics2D g2d, Camera camera) {
+        int firstColumn = Math.max(0, (int)Math.floor(camera.getX() / this.chunkSize));
+        int lastColumn = Math.min((this.chunkColumns - 1), (int)Math.floor((camera.getX() + camera.getWidth() - 1) / this.chunkSize));
+        int firstRow = Math.max(0, (int)Math.floor(camera.getY() / this.chunkSize));
+        int lastRow = Math.min((this.chunkRows - 1), (int)Math.floor((camera.getY() + camera.getHeight() - 1) / this.chunkSize));
+        for(int r = firstRow; r <= lastRow; r++) {
+            for(int c = firstColumn; c <= lastColumn; c++) {
+                g2d.drawImage(this.getChunk(c, r), (c * this.chunkSize), (r * this.chunkSize), null);
+            }
+        }
+    }
+    
+    /**
+     * Gets a chunk's image, rendering it if this is the first time it is drawn.
+     * @param column The column of the chunk.
+     * @param row The row of the chunk.
+     * @return The image of the chunk.
+     **/
+    private BufferedImage getChunk(int column, int row) {
+        int index = (row * this.chunkColumns) + column;
+        if(this.chunks[index] != null) return this.chunks[index];
+        
+        int left = column * this.chunkSize;
+        int top = row * this.chunkSize;
+        int width_ = Math.min(this.chunkSize, (this.width - left));
+        int height_ = Math.min(this.chunkSize, (this.height - top));
+        BufferedImage chunk = GZSFramework.createCompatibleImage(width_, height_);
+        Graphics2D g2d = chunk.createGraphics();
+        g2d.translate(-left, -top);
+        { // Draw the background, repeated across the arena.
+            int bw = Images.BACKGROUND.getWidth();
+            int bh = Images.BACKGROUND.getHeight();
+            for(int y = (top / bh) * bh; y < (top + height_); y += bh) {
+                for(int x = (left / bw) * bw; x < (left + width_); x += bw) g2d.drawImage(Images.BACKGROUND, x, y, null);
+            }
+        } // End drawing the background.
+        { // Draw the tiles in the chunk.
+            int lastColumn = Math.min(this.columns, ((column + 1) * TileMap.CHUNK_TILES));
+            int lastRow = Math.min(this.rows, ((row + 1) * TileMap.CHUNK_TILES));
+            for(int r = row * TileMap.CHUNK_TILES; r < lastRow; r++) {
+                for(int c = column * TileMap.CHUNK_TILES; c < lastColumn; c++) {
+                    int tile = this.tiles[(r * this.columns) + c];
+                    if(tile != TileMap.NO_TILE) g2d.drawImage(this.tileImages[tile], (c * this.tileSize), (r * this.tileSize), null);
+                }
+            }
+        } // End drawing the tiles.
+        BufferedImage obstacles = Globals.OBSTACLES.getImage();
+        if(obstacles != null) g2d.drawImage(obstacles, 0, 0, null);
+        g2d.dispose();
+        
+        this.chunks[index] = chunk;
+        this.chunksRendered++;
+        return chunk;
+    }
+}
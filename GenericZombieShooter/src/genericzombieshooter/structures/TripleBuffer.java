@@ -0,0 +1,75 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands objects from one thread that fills them to another that reads them,
+ * without either thread ever waiting on the other. The writer fills the back
+ * object and publishes it, the reader takes the most recently published one,
+ * and the third object sits in the middle so neither side ever touches the
+ * one the other is using.
+ * 
+ * Only one thread may write and only one thread may read.
+ * @author Darin Beaudreau
+ */
+public class TripleBuffer<T> {
+    // Final Variables
+    private static final int INDEX_MASK = 0x03;
+    private static final int FRESH = 0x04; // Set when the middle object was published and hasn't been read yet.
+    
+    // Member Variables
+    private final Object [] items;
+    private final AtomicInteger middle;
+    private int back; // Only touched by the writer.
+    private int front; // Only touched by the reader.
+    
+    public TripleBuffer(T first, T second, T third) {
+        this.items = new Object [] { first, second, third };
+        this.back = 0;
+        this.middle = new AtomicInteger(1);
+        this.front = 2;
+    }
+    
+    /**
+     * Gets the object the writer should fill next.
+     * @return The back object.
+     **/
+    @SuppressWarnings("unchecked")
+    public T getBack() { return (T)this.items[this.back]; }
+    
+    /**
+     * Publishes the back object to the reader and gives the writer another one to fill.
+     **/
+    public void publish() {
+        this.back = this.middle.getAndSet(this.back | TripleBuffer.FRESH) & TripleBuffer.INDEX_MASK;
+    }
+    
+    /**
+     * Gets the most recently published object. It belongs to the reader until
+     * the next call, however many times the writer publishes in between.
+     * @return The front object.
+     **/
+    @SuppressWarnings("unchecked")
+    public T getFront() {
+        if((this.middle.get() & TripleBuffer.FRESH) != 0) {
+            this.front = this.middle.getAndSet(this.front) & TripleBuffer.INDEX_MASK;
+        }
+        return (T)this.items[this.front];
+    }
+}
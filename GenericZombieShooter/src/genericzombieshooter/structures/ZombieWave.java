@@ -1,15 +1,13 @@
 package genericzombieshooter.structures;
 
-import genericzombieshooter.actors.AberrationBoss;
-import genericzombieshooter.actors.AcidZombie;
 import genericzombieshooter.actors.Player;
-import genericzombieshooter.actors.PoisonFogZombie;
-import genericzombieshooter.actors.StitchesBoss;
-import genericzombieshooter.actors.ZombatBoss;
 import genericzombieshooter.actors.Zombie;
-import genericzombieshooter.actors.ZombieMatron;
+import genericzombieshooter.actors.ZombieArchetype;
 import genericzombieshooter.misc.Globals;
-import genericzombieshooter.misc.Images;
+import genericzombieshooter.misc.Parallel;
+import genericzombieshooter.misc.Profiler;
+import genericzombieshooter.structures.entities.DamageSystem;
+import genericzombieshooter.structures.entities.PlayerDamageSystem;
 import genericzombieshooter.structures.items.ExpMultiplier;
 import genericzombieshooter.structures.items.ExtraLife;
 import genericzombieshooter.structures.items.Invulnerability;
@@ -17,10 +15,9 @@ import genericzombieshooter.structures.items.NightVision;
 import genericzombieshooter.structures.items.SpeedUp;
 import genericzombieshooter.structures.items.UnlimitedAmmo;
 import genericzombieshooter.structures.weapons.Weapon;
-import java.awt.Graphics2D;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -32,6 +29,10 @@ public class ZombieWave {
     // Final Variables
     private static final long ZOMBIE_SPAWN_TIME = 1000;
     private static final int ZOMBIES_PER_WAVE = 3;
+    private static final int STEER_GRAIN = 64; // The fewest zombies worth steering on another thread.
+    private static final int DAMAGE_GRAIN = 128;
+    // The status items a zombie can drop, as often as each is listed. See createStatusItem().
+    private static final int [] STATUS_ITEMS = {0, 1, 2, 0, 3, 0, 4, 0, 5, 0, 2, 5, 2};
     
     // Member Variables
     private int waveNumber;
@@ -40,6 +41,13 @@ public class ZombieWave {
     private List<Zombie> zombiesAlive;
     private List<Zombie> zombiesToDie;
     private long nextZombieSpawn;
+    private SpatialGrid grid; // Used to find which zombies each weapon hit this tick.
+    private FlowField flowField; // Which way the zombies walk to get around obstacles.
+    private CrowdSteering crowd; // Keeps the zombies from piling up on each other.
+    private int [][] damage; // Damage done by each weapon to each zombie this tick.
+    private int weaponCount; // How many rows of damage were filled in this tick.
+    private int [] kills; // How many hits each zombie took after it was already dead, each worth a reward.
+    private int [] sourceRows; // The row of damage each projectile source adds to.
     public int getWaveNumber() { return this.waveNumber; }
     public List<Zombie> getUnbornZombies() { return this.zombiesUnborn; }
     public List<Zombie> getZombies() { return this.zombiesAlive; }
@@ -52,105 +60,49 @@ public class ZombieWave {
         this.zombiesAlive = new ArrayList<Zombie>();
         this.zombiesToDie = new ArrayList<Zombie>();
         this.nextZombieSpawn = Globals.gameTime.getElapsedMillis() + ZombieWave.ZOMBIE_SPAWN_TIME;
+        this.grid = new SpatialGrid(Globals.ARENA.getWidth(), Globals.ARENA.getHeight());
+        this.flowField = new FlowField(Globals.OBSTACLES);
+        this.crowd = new CrowdSteering(Globals.ARENA.getWidth(), Globals.ARENA.getHeight());
+        this.damage = new int[10][32];
+        this.sourceRows = new int[0];
+        this.kills = new int[32];
     }
     
     private List<Zombie> constructWave(int currentWave) {
         List<Zombie> wave = new ArrayList<Zombie>();
         
         if(!this.bossWave) {
-            int difficulty = 2;
-            if(currentWave >= 5) difficulty++;
-            if(currentWave >= 10) difficulty++;
-            if(currentWave >= 20) difficulty++;
+            // The kinds of zombies this wave can have, regular ones first. Specials join from their first wave on.
+            List<ZombieArchetype> kinds = new ArrayList<ZombieArchetype>();
+            for(ZombieArchetype a : Globals.ZOMBIE_ARCHETYPES) {
+                if((a != null) && (a.getSpawn() == ZombieArchetype.SPAWN_WAVE) && (a.getFirstWave() <= currentWave)) kinds.add(a);
+            }
+            int regularKinds = kinds.size();
+            for(ZombieArchetype a : Globals.ZOMBIE_ARCHETYPES) {
+                if((a != null) && (a.getSpawn() == ZombieArchetype.SPAWN_SPECIAL) && (a.getFirstWave() <= currentWave)) kinds.add(a);
+            }
+            int difficulty = kinds.size();
 
             int enemyCount = currentWave * ZombieWave.ZOMBIES_PER_WAVE;
             int specialsThisWave = (int)(enemyCount / 4);
             int specialsSpawned = 0;
             for(int i = 0; i < enemyCount; i++) {
-                // Decide which side of the screen to spawn the zombie on.
-                double x = 0;
-                double y = 0;
-
-                int spawnSide = Globals.r.nextInt(4) + 1;
-                if(spawnSide == 1) x = Globals.r.nextInt((Globals.W_WIDTH - 40) + 1);
-                else if(spawnSide == 2) {
-                    x = Globals.W_WIDTH - 40;
-                    y = Globals.r.nextInt((Globals.W_HEIGHT - 40) + 1);
-                } else if(spawnSide == 3) {
-                    x = Globals.r.nextInt((Globals.W_WIDTH - 40) + 1);
-                    y = Globals.W_HEIGHT - 40;
-                } else if(spawnSide == 4) y = Globals.r.nextInt((Globals.W_HEIGHT - 40) + 1);
+                Point2D.Double p_ = ZombieWave.pickSpawnPoint();
 
-                Point2D.Double p_ = new Point2D.Double(x, y);
-
-                if(specialsSpawned >= specialsThisWave) difficulty = 2;
-                int zombieType = Globals.r.nextInt(difficulty) + 1;
-                if(zombieType == Globals.ZOMBIE_REGULAR_TYPE) {
-                    // Zumby
-                    Animation a_ = new Animation(Images.ZOMBIE_REGULAR, 48, 48, 4, (int)p_.x, (int)p_.y, 200, 0, true);
-                    Zombie z_ = new Zombie(p_, Globals.ZOMBIE_REGULAR_TYPE, 250, 1, 1, 25, 20, a_);
-                    wave.add(z_);
-                } else if(zombieType == Globals.ZOMBIE_DOG_TYPE) {
-                    // Rotdog
-                    Animation a_ = new Animation(Images.ZOMBIE_DOG, 48, 48, 4, (int)p_.x, (int)p_.y, 80, 0, true);
-                    Zombie z_ = new Zombie(p_, Globals.ZOMBIE_DOG_TYPE, 100, 1, 2, 50, 30, a_);
-                    wave.add(z_);
-                } else if(zombieType == Globals.ZOMBIE_ACID_TYPE) {
-                    // Upchuck
-                    Animation a_ = new Animation(Images.ZOMBIE_ACID, 64, 64, 4, (int)p_.x, (int)p_.y, 200, 0, true);
-                    AcidZombie z_ = new AcidZombie(p_, 300, 1, 1, 100, a_);
-                    wave.add(z_);
-                    specialsSpawned++;
-                } else if(zombieType == Globals.ZOMBIE_POISONFOG_TYPE) {
-                    // Gasbag
-                    Animation a_ = new Animation(Images.ZOMBIE_POISONFOG, 48, 48, 4, (int)p_.x, (int)p_.y, 100, 0, true);
-                    PoisonFogZombie pfz_ = new PoisonFogZombie(p_, 250, 1, 2, 200, a_);
-                    wave.add(pfz_);
-                    specialsSpawned++;
-                } else if(zombieType == Globals.ZOMBIE_MATRON_TYPE) {
-                    // Big Mama
-                    Animation a_ = new Animation(Images.ZOMBIE_MATRON, 64, 64, 4, (int)p_.x, (int)p_.y, 200, 0, true);
-                    ZombieMatron zm_ = new ZombieMatron(p_, 500, 1, 1, 350, a_);
-                    wave.add(zm_);
-                    specialsSpawned++;
-                }
+                if(specialsSpawned >= specialsThisWave) difficulty = regularKinds;
+                ZombieArchetype kind = kinds.get(Globals.WAVE_RANDOM.nextInt(difficulty));
+                wave.add(kind.create(p_));
+                if(kind.getSpawn() == ZombieArchetype.SPAWN_SPECIAL) specialsSpawned++;
             }
         } else {
-            double x = 0;
-            double y = 0;
+            Point2D.Double p_ = ZombieWave.pickSpawnPoint();
             
-            int spawnSide = Globals.r.nextInt(4) + 1;
-            if(spawnSide == 1) x = Globals.r.nextInt((Globals.W_WIDTH - 40) + 1);
-            else if(spawnSide == 2) {
-                x = Globals.W_WIDTH - 40;
-                y = Globals.r.nextInt((Globals.W_HEIGHT - 40) + 1);
-            } else if(spawnSide == 3) {
-                x = Globals.r.nextInt((Globals.W_WIDTH - 40) + 1);
-                y = Globals.W_HEIGHT - 40;
-            } else if(spawnSide == 4) y = Globals.r.nextInt((Globals.W_HEIGHT - 40) + 1);
-            
-            Point2D.Double p_ = new Point2D.Double(x, y);
-            
-            int bossType = (Globals.r.nextInt(3) + 1);
-            
-            if(bossType == 1) {
-                // Aberration
-                Animation a_ = new Animation(Images.BOSS_ABERRATION, 128, 128, 4, (int)p_.x, (int)p_.y, 150, 0, true);
-                AberrationBoss ab_ = new AberrationBoss(p_, 10000, 1, 1, 1000, a_);
-                wave.add(ab_);
-            } else if(bossType == 2) {
-                // Zombat Wave
-                for(int i = 0; i < 5; i++) {
-                    Animation a_ = new Animation(Images.BOSS_ZOMBAT, 64, 64, 4, (int)p_.x, (int)p_.y, 50, 0, true);
-                    ZombatBoss zb_ = new ZombatBoss(p_, 2000, 1, 2, 500, a_);
-                    wave.add(zb_);
-                }
-            } else if(bossType == 3) {
-                // Stitches
-                Animation a_ = new Animation(Images.BOSS_STITCHES, 128, 128, 4, (int)p_.x, (int)p_.y, 150, 0, true);
-                StitchesBoss sb_ = new StitchesBoss(p_, 15000, 4, 1, 3000, a_);
-                wave.add(sb_);
+            List<ZombieArchetype> bosses = new ArrayList<ZombieArchetype>();
+            for(ZombieArchetype a : Globals.ZOMBIE_ARCHETYPES) {
+                if((a != null) && (a.getSpawn() == ZombieArchetype.SPAWN_BOSS)) bosses.add(a);
             }
+            ZombieArchetype boss = bosses.get(Globals.WAVE_RANDOM.nextInt(bosses.size()));
+            for(int i = 0; i < boss.getGroupSize(); i++) wave.add(boss.create(p_));
             
             this.bossWave = false;
         }
@@ -158,116 +110,385 @@ public class ZombieWave {
         return wave;
     }
     
-    public void draw(Graphics2D g2d) {
-        AffineTransform saved = g2d.getTransform();
+    /**
+     * Picks a random spot along one of the edges of the arena for a zombie to
+     * spawn at. Spots inside an obstacle are skipped, so zombies never start
+     * out inside a wall.
+     * @return Where to spawn the zombie.
+     **/
+    private static Point2D.Double pickSpawnPoint() {
+        double x = 0;
+        double y = 0;
+        for(int samples = 0; samples < ObstacleMap.MAX_SAMPLES; samples++) {
+            // Decide which side of the arena to spawn the zombie on.
+            x = 0;
+            y = 0;
+            int spawnSide = Globals.WAVE_RANDOM.nextInt(4) + 1;
+            if(spawnSide == 1) x = Globals.WAVE_RANDOM.nextInt((Globals.ARENA.getWidth() - 40) + 1);
+            else if(spawnSide == 2) {
+                x = Globals.ARENA.getWidth() - 40;
+                y = Globals.WAVE_RANDOM.nextInt((Globals.ARENA.getHeight() - 40) + 1);
+            } else if(spawnSide == 3) {
+                x = Globals.WAVE_RANDOM.nextInt((Globals.ARENA.getWidth() - 40) + 1);
+                y = Globals.ARENA.getHeight() - 40;
+            } else if(spawnSide == 4) y = Globals.WAVE_RANDOM.nextInt((Globals.ARENA.getHeight() - 40) + 1);
+            if(!Globals.OBSTACLES.isBlockedAt(x, y)) return new Point2D.Double(x, y);
+        }
+        return Globals.OBSTACLES.findOpen(x, y);
+    }
+    
+    /**
+     * Takes every zombie in the wave out of the entity world, along with
+     * anything they spit, once the wave is thrown away.
+     **/
+    public void dispose() {
+        ZombieWave.disposeZombies(this.zombiesUnborn);
+        ZombieWave.disposeZombies(this.zombiesAlive);
+        Globals.ENTITIES.clear(Globals.ACID_SPIT);
+        Globals.ENTITIES.clear(Globals.ABERRATION_SPIT);
+    }
+    
+    private static void disposeZombies(List<Zombie> zombies) {
+        Iterator<Zombie> it = zombies.iterator();
+        while(it.hasNext()) it.next().dispose();
+    }
+    
+    /**
+     * Gives every zombie's entity back its animation after the entity world
+     * has been read, since the frames aren't part of the saved state.
+     **/
+    public void restoreAnimations() {
+        Iterator<Zombie> it = this.zombiesUnborn.iterator();
+        while(it.hasNext()) it.next().restoreAnimation();
+        it = this.zombiesAlive.iterator();
+        while(it.hasNext()) it.next().restoreAnimation();
+    }
+    
+    /**
+     * Draws whatever the zombies have besides their bodies, such as
+     * explosions and hooks. The bodies are drawn by the AnimationSystem.
+     * @param frame The frame to draw into.
+     **/
+    public void draw(RenderFrame frame) {
         Iterator<Zombie> it = this.zombiesAlive.iterator();
         while(it.hasNext()) {
             Zombie z = it.next();
-            z.draw(g2d);
-            g2d.setTransform(saved);
+            z.draw(frame);
         }
     }
     
+    /**
+     * Runs one tick of the wave in phases. Steering and collision checks are
+     * split across threads, since each only changes its own zombie or its own
+     * weapon. Everything that changes the player, the random number streams or
+     * the wave's lists happens on the game thread in the order the zombies
+     * spawned in, so the outcome doesn't depend on how many threads there are.
+     * @param player The player.
+     * @param itemFactory Where items dropped by dying zombies go.
+     **/
     public void update(Player player, ItemFactory itemFactory) {
+        long t = Profiler.start();
+        this.spawnZombies();
+        t = Profiler.lap(Profiler.Section.WAVE_SPAWN, t);
+        this.steerZombies(player);
+        this.updateBehavior(player);
+        t = Profiler.lap(Profiler.Section.ZOMBIE_AI, t);
+        int zombieCount = this.checkCollisions(player);
+        this.applyDamage(player, zombieCount);
+        this.giveRewards(player, itemFactory, zombieCount);
+        Profiler.lap(Profiler.Section.COLLISION, t);
+    }
+    
+    private void spawnZombies() {
         // Remove dead zombies from the live list.
-        if(!this.zombiesToDie.isEmpty()) this.zombiesAlive.removeAll(this.zombiesToDie);
+        if(!this.zombiesToDie.isEmpty()) {
+            // Zombies are points, so they are removed by identity rather than by where they stand.
+            Iterator<Zombie> it = this.zombiesToDie.iterator();
+            while(it.hasNext()) {
+                Zombie z = it.next();
+                for(int i = 0; i < this.zombiesAlive.size(); i++) {
+                    if(this.zombiesAlive.get(i) == z) {
+                        this.zombiesAlive.remove(i);
+                        break;
+                    }
+                }
+                z.dispose();
+            }
+            this.zombiesToDie.clear();
+        }
         // If the spawn timer is up, spawn a new zombie.
         if(!this.zombiesUnborn.isEmpty() && (Globals.gameTime.getElapsedMillis() >= this.nextZombieSpawn)) {
             Zombie z = this.zombiesUnborn.remove(0);
-            if(z.getType() == Globals.ZOMBIE_MATRON_TYPE) z.set(0, (Globals.gameTime.getElapsedMillis() + ZombieMatron.TIME_TO_BURST));
+            z.spawn();
             this.zombiesAlive.add(z);
             this.nextZombieSpawn = Globals.gameTime.getElapsedMillis() + ZombieWave.ZOMBIE_SPAWN_TIME;
             
         }
         if(!this.zombiesUnborn.isEmpty()) {
-            // If there are any tiny zombies in the list, add them all at once.
+            // If there are any zombies spawned by other zombies in the list, such as tiny zombies, add them all at once.
             Iterator<Zombie> it = this.zombiesUnborn.iterator();
             while(it.hasNext()) {
                 Zombie z = it.next();
-                if(z.getType() == Globals.ZOMBIE_TINY_TYPE) {
+                if(z.getArchetype().getSpawn() == ZombieArchetype.SPAWN_NONE) {
+                    z.spawn();
                     this.zombiesAlive.add(z);
                     it.remove();
                 }
             }
         }
-        // Update "living" zombies.
-        Iterator<Zombie> it = this.zombiesAlive.iterator();
-        while(it.hasNext()) {
-            Zombie z = it.next();
-            
-            { // Handle the zombie's movement and animation.
-                // Update the zombie's animation.
-                z.getImage().update();
-
-                // Update the zombie.
-                double theta_ = Math.atan2((player.getCenterY() - z.y), 
-                                           (player.getCenterX() - z.x)) + Math.PI / 2;
-                z.rotate(theta_);
-                z.move(theta_);
-                z.update(player, this.zombiesUnborn);
-                z.moan(player);
-            } // End movement and animation updates.
-            { // Check the zombie for collisions with ammo, etc.
-                if(!z.isDead()) {
-                    // Check for collisions with ammo, etc.
-                    //Iterator<Weapon> wit = player.getAllWeapons().iterator();
-                    Iterator<Weapon> wit = player.getWeaponsMap().values().iterator();
-                    while(wit.hasNext()) {
-                        Weapon w = wit.next();
-                        int damage = w.checkForDamage(z.getRect());
-                        if(player.getDamageBonus() > 0) damage += (damage * player.getDamageBonus());
+    }
+    
+    /**
+     * Moves every zombie toward where the player is at the start of the
+     * phase, around any obstacles, then pushes it away from the zombies it
+     * overlaps. Each zombie only changes itself, so this runs in parallel.
+     * @param player The player.
+     **/
+    private void steerZombies(Player player) {
+        final List<Zombie> zombies = this.zombiesAlive;
+        final double playerX = player.getCenterX();
+        final double playerY = player.getCenterY();
+        final FlowField field = this.flowField;
+        final CrowdSteering crowd_ = this.crowd;
+        field.update(playerX, playerY);
+        crowd_.update(zombies);
+        Parallel.forRange(zombies.size(), ZombieWave.STEER_GRAIN, new Parallel.Range() {
+            @Override
+            public void run(int from, int to) {
+                for(int i = from; i < to; i++) {
+                    Zombie z = zombies.get(i);
+                    double theta_ = field.getTheta(z.getX(), z.getY(), playerX, playerY);
+                    z.rotate(theta_);
+                    z.move(theta_);
+                    
+                    // Zombies aren't pushed into obstacles.
+                    double px = crowd_.getPushX(i);
+                    double py = crowd_.getPushY(i);
+                    if(!Globals.OBSTACLES.isBlockedAt((z.getX() + px), (z.getY() + py))) z.push(px, py);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Runs each zombie's own behavior, such as spitting, bursting or reeling
+     * the player in. These change the player, draw from the zombie random
+     * stream and spawn new zombies, so they run one at a time in spawn order.
+     * @param player The player.
+     **/
+    private void updateBehavior(Player player) {
+        for(int i = 0; i < this.zombiesAlive.size(); i++) {
+            Zombie z = this.zombiesAlive.get(i);
+            z.update(player, this.zombiesUnborn);
+            z.moan(player);
+        }
+    }
+    
+    /**
+     * Works out how much damage each weapon did to each zombie. Each weapon
+     * only uses up its own ammo and writes its own row of damage, so the
+     * weapons are checked in parallel. Projectiles in the entity world are
+     * then checked in one pass, into the row of the weapon that fired them.
+     * @param player The player.
+     * @return The number of zombies in the grid.
+     **/
+    private int checkCollisions(Player player) {
+        this.grid.build(this.zombiesAlive);
+        final int zombieCount = this.grid.size();
+        
+        final Weapon [] weapons = player.getWeaponsMap().values().toArray(new Weapon[0]);
+        if((this.damage.length < weapons.length) || (this.damage[0].length < zombieCount)) {
+            this.damage = new int[Math.max(weapons.length, this.damage.length)][Math.max(zombieCount, (this.damage[0].length * 2))];
+            this.kills = new int[this.damage[0].length];
+        }
+        this.weaponCount = weapons.length;
+        final int [][] damage_ = this.damage;
+        final SpatialGrid grid_ = this.grid;
+        Parallel.forRange(weapons.length, 1, new Parallel.Range() {
+            @Override
+            public void run(int from, int to) {
+                for(int w = from; w < to; w++) {
+                    Arrays.fill(damage_[w], 0, zombieCount, 0);
+                    if(weapons[w].getDamageSource() < 0) weapons[w].checkForDamage(grid_, damage_[w]);
+                }
+            }
+        });
+        
+        { // Begin checking projectiles.
+            if(this.sourceRows.length < Globals.ENTITIES.getSourceCount()) this.sourceRows = new int[Globals.ENTITIES.getSourceCount()];
+            Arrays.fill(this.sourceRows, -1);
+            for(int w = 0; w < weapons.length; w++) {
+                if(weapons[w].getDamageSource() >= 0) this.sourceRows[weapons[w].getDamageSource()] = w;
+            }
+            DamageSystem.update(Globals.ENTITIES, this.grid, this.sourceRows, this.damage);
+        } // End checking projectiles.
+        return zombieCount;
+    }
+    
+    /**
+     * Applies the damage from each weapon to each zombie, counting how many
+     * hits landed on a zombie that was already dead, each of which earns a
+     * reward. Each zombie only changes itself, so this runs in parallel.
+     * @param player The player.
+     * @param zombieCount The number of zombies in the grid.
+     **/
+    private void applyDamage(Player player, int zombieCount) {
+        final double damageBonus = player.getDamageBonus();
+        final int weapons = this.weaponCount;
+        final int [][] damage_ = this.damage;
+        final int [] kills_ = this.kills;
+        final SpatialGrid grid_ = this.grid;
+        Parallel.forRange(zombieCount, ZombieWave.DAMAGE_GRAIN, new Parallel.Range() {
+            @Override
+            public void run(int from, int to) {
+                for(int i = from; i < to; i++) {
+                    kills_[i] = 0;
+                    if(!grid_.isActive(i)) continue;
+                    Zombie z = grid_.getZombie(i);
+                    for(int w = 0; w < weapons; w++) {
+                        int damage = damage_[w][i];
+                        if(damageBonus > 0) damage += (damage * damageBonus);
                         if(damage > 0) {
                             z.takeDamage(damage);
-                            if(z.isDead()) {
-                                // Give the player some cash.
-                                player.addCash(z.getCashValue());
-                                player.addExp(z.getExpValue());
-                                player.addKill();
-                                if(z.getType() >= 3) {
-                                    // Base chance of 10% (19-20) to drop a powerup. 
-                                    // 10% extra for each tier of zombie.
-                                    int dropRoll = Globals.r.nextInt(20) + 1;
-                                    if((z.getType() >= Globals.ZOMBIE_ACID_TYPE) && (z.getType() < Globals.ZOMBIE_TINY_TYPE)) 
-                                        dropRoll += (z.getType() % Globals.ZOMBIE_ACID_TYPE) * 2;
-                                    if(dropRoll >= 19) {
-                                        SpeedUp speed = new SpeedUp(z);
-                                        UnlimitedAmmo unlimited = new UnlimitedAmmo(z);
-                                        ExtraLife extra = new ExtraLife(z);
-                                        ExpMultiplier exp = new ExpMultiplier(z);
-                                        Invulnerability invuln = new Invulnerability(z);
-                                        NightVision night = new NightVision(z);
-                                        Item [] statusItems = {speed, unlimited, night, speed, 
-                                                               invuln, speed, extra, speed, exp, 
-                                                               speed, night, exp, night};
-                                        int i = Globals.r.nextInt(statusItems.length);
-                                        itemFactory.dropItem(statusItems[i]);
-                                    }
-                                }
-                            }
+                            if(z.isDead()) kills_[i]++;
                         }
                     }
                 }
-                
-                // Check again, and if the zombie is dead, add to the toDie list.
-                if(z.isDead()) this.zombiesToDie.add(z);
-            } // End checking zombie for death.
+            }
+        });
+    }
+    
+    /**
+     * Hands out cash, experience and item drops for the zombies that died,
+     * and marks them to be removed, in the order the zombies spawned in.
+     * @param player The player.
+     * @param itemFactory Where dropped items go.
+     * @param zombieCount The number of zombies in the grid.
+     **/
+    private void giveRewards(Player player, ItemFactory itemFactory, int zombieCount) {
+        for(int i = 0; i < zombieCount; i++) {
+            Zombie z = this.grid.getZombie(i);
+            for(int k = 0; k < this.kills[i]; k++) {
+                // Give the player some cash.
+                player.addCash(z.getCashValue());
+                player.addExp(z.getExpValue());
+                player.addKill();
+                if(z.getArchetype().hasDrops()) {
+                    // Base chance of 10% (19-20) to drop a powerup. 
+                    // Tougher zombies add a bonus to the roll, 10% for every 2.
+                    int dropRoll = Globals.ITEM_RANDOM.nextInt(20) + 1 + z.getArchetype().getDropBonus();
+                    if(dropRoll >= 19) {
+                        int r = Globals.ITEM_RANDOM.nextInt(ZombieWave.STATUS_ITEMS.length);
+                        itemFactory.dropItem(ZombieWave.createStatusItem(ZombieWave.STATUS_ITEMS[r], new Point2D.Double(z.getX(), z.getY())));
+                    }
+                }
+            }
+            
+            // If the zombie is dead, add to the toDie list.
+            if(z.isDead()) this.zombiesToDie.add(z);
         }
     }
     
-    public void checkPlayerDamage(Player player) {
-        Iterator<Zombie> it = this.zombiesAlive.iterator();
+    /**
+     * Creates the status item a dying zombie drops. Only the one that was
+     * rolled is created, since each item is put on the ground as it is made.
+     * @param kind Which item to drop, from STATUS_ITEMS.
+     * @param p Where to drop the item.
+     * @return The new item.
+     **/
+    private static Item createStatusItem(int kind, Point2D.Double p) {
+        if(kind == 0) return new SpeedUp(p);
+        else if(kind == 1) return new UnlimitedAmmo(p);
+        else if(kind == 2) return new NightVision(p);
+        else if(kind == 3) return new Invulnerability(p);
+        else if(kind == 4) return new ExtraLife(p);
+        else return new ExpMultiplier(p);
+    }
+    
+    /**
+     * Writes the wave's state: every zombie still to spawn, every zombie on
+     * the field, and which of those died this tick.
+     * @param out The buffer to write to.
+     **/
+    public void saveState(StateBuffer out) {
+        out.putInt(this.waveNumber);
+        out.putBoolean(this.bossWave);
+        out.putLong(this.nextZombieSpawn);
+        ZombieWave.saveZombies(out, this.zombiesUnborn);
+        ZombieWave.saveZombies(out, this.zombiesAlive);
+        // The zombies that died this tick are still on the field, so they're written as indices into it.
+        out.putInt(this.zombiesToDie.size());
+        Iterator<Zombie> it = this.zombiesToDie.iterator();
         while(it.hasNext()) {
             Zombie z = it.next();
-            if(!player.hasEffect(Invulnerability.EFFECT_NAME)) {
-                if(player.intersects(z.getRect())) player.takeDamage(z.getDamage());
-                if(z.getParticles() != null) {
-                    Iterator<Particle> pit = z.getParticles().iterator();
-                    while(pit.hasNext()) {
-                        Particle p = pit.next();
-                        if(p.checkCollision(player)) player.takeDamage(z.getParticleDamage());
-                    }
+            for(int i = 0; i < this.zombiesAlive.size(); i++) {
+                if(this.zombiesAlive.get(i) == z) {
+                    out.putInt(i);
+                    break;
                 }
             }
         }
     }
+    
+    /**
+     * Replaces the wave's state with the state written by saveState().
+     * @param in The buffer to read from.
+     **/
+    public void loadState(StateBuffer in) {
+        this.waveNumber = in.getInt();
+        this.bossWave = in.getBoolean();
+        this.nextZombieSpawn = in.getLong();
+        this.zombiesUnborn = ZombieWave.loadZombies(in);
+        this.zombiesAlive = ZombieWave.loadZombies(in);
+        this.zombiesToDie = new ArrayList<Zombie>();
+        int dying = in.getInt();
+        for(int i = 0; i < dying; i++) this.zombiesToDie.add(this.zombiesAlive.get(in.getInt()));
+    }
+    
+    private static void saveZombies(StateBuffer out, List<Zombie> zombies) {
+        out.putInt(zombies.size());
+        Iterator<Zombie> it = zombies.iterator();
+        while(it.hasNext()) {
+            Zombie z = it.next();
+            out.putInt(z.getType());
+            z.saveState(out);
+        }
+    }
+    
+    private static List<Zombie> loadZombies(StateBuffer in) {
+        int count = in.getInt();
+        List<Zombie> zombies = new ArrayList<Zombie>(count);
+        for(int i = 0; i < count; i++) {
+            Zombie z = ZombieWave.createZombie(in.getInt());
+            z.loadState(in);
+            zombies.add(z);
+        }
+        return zombies;
+    }
+    
+    /**
+     * Creates a blank zombie of the given type for a saved state to be read into.
+     * @param type The type of zombie to create.
+     * @return The new zombie.
+     **/
+    private static Zombie createZombie(int type) {
+        if((type <= 0) || (type >= Globals.ZOMBIE_ARCHETYPES.length) || (Globals.ZOMBIE_ARCHETYPES[type] == null)) 
+            throw new IllegalArgumentException("No such zombie type: " + type);
+        return Globals.ZOMBIE_ARCHETYPES[type].create(new Point2D.Double());
+    }
+    
+    /**
+     * Hurts the player for every zombie they are touching and every glob of
+     * spit that lands on them.
+     * @param player The player.
+     **/
+    public void checkPlayerDamage(Player player) {
+        if(player.hasEffect(Invulnerability.EFFECT_NAME)) return;
+        Iterator<Zombie> it = this.zombiesAlive.iterator();
+        while(it.hasNext()) {
+            Zombie z = it.next();
+            if(player.intersects(z.getRect())) player.takeDamage(Globals.gameTime.perTick(z.getDamage()));
+        }
+        player.takeDamage(PlayerDamageSystem.update(Globals.ENTITIES, player));
+    }
 }
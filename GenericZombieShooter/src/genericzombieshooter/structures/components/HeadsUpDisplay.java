@@ -0,0 +1,247 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures.components;
+
+import genericzombieshooter.GZSFramework;
+import genericzombieshooter.actors.Player;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.structures.RenderFrame;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws the HUD: the panel with the player's health, experience, lives, cash,
+ * ammo and status effects, the wave counter and the weapons loadout.
+ * 
+ * Each part is kept in its own image and only drawn again when something it
+ * shows has changed since the last frame, which is a few times a second at
+ * most, so most frames just copy the three images to the screen.
+ * @author Darin Beaudreau
+ */
+public class HeadsUpDisplay {
+    // Final Variables
+    private static final Font WAVE_FONT = new Font("Impact", Font.PLAIN, 20);
+    private static final Color HEALTH_COLOR = new Color(209, 21, 33);
+    private static final Color POISONED_HEALTH_COLOR = new Color(39, 161, 18);
+    private static final Color EXP_COLOR = new Color(67, 158, 22);
+    private static final int STATS_WIDTH = Globals.W_WIDTH / 2;
+    private static final int STATS_HEIGHT = 140; // The panel, and the row of status icons under it.
+    private static final int WAVE_WIDTH = Globals.W_WIDTH / 2;
+    private static final int WAVE_HEIGHT = 32;
+    private static final int LOADOUT_X = (int)((Globals.W_WIDTH / 2) - (WeaponsLoadout.BAR_WIDTH / 2)) - 2;
+    private static final int LOADOUT_Y = (int)(Globals.W_HEIGHT - (WeaponsLoadout.BAR_HEIGHT + 15)) - 2;
+    private static final int LOADOUT_WIDTH = (int)WeaponsLoadout.BAR_WIDTH + 4;
+    private static final int LOADOUT_HEIGHT = (int)WeaponsLoadout.BAR_HEIGHT + 4;
+    
+    // Member Variables
+    private BufferedImage stats;
+    private BufferedImage wave;
+    private BufferedImage loadout;
+    
+    // What the stats panel was last drawn with.
+    private int health;
+    private int maxHealth;
+    private boolean poisoned;
+    private int exp;
+    private int nextLevelExp;
+    private int level;
+    private int lives;
+    private int cash;
+    private int ammoLeft;
+    private int maxAmmo;
+    private int statusCount;
+    private BufferedImage [] statusImages;
+    private float [] statusOpacity;
+    
+    // What the wave counter was last drawn with.
+    private boolean waveInProgress;
+    private long waveValue; // The wave number, or the seconds until the next wave.
+    
+    // What the loadout was last drawn with.
+    private WeaponsLoadout weapons;
+    private BufferedImage [] weaponImages;
+    private double [] weaponCooldown;
+    private int currentWeapon;
+    
+    public HeadsUpDisplay() {
+        this.stats = null;
+        this.wave = null;
+        this.loadout = null;
+        this.statusImages = new BufferedImage[0];
+        this.statusOpacity = new float[0];
+        this.weaponImages = new BufferedImage[0];
+        this.weaponCooldown = new double[0];
+    }
+    
+    /**
+     * Draws the HUD, updating any part of it that has changed.
+     * @param g2d The graphics object to draw with, in screen coordinates.
+     * @param frame The render frame being drawn.
+     * @param weapons_ The loadout to draw the weapon slots with.
+     **/
+    public void draw(Graphics2D g2d, RenderFrame frame, WeaponsLoadout weapons_) {
+        if((this.stats == null) || this.statsChanged(frame)) this.drawStats(frame);
+        g2d.drawImage(this.stats, 0, 0, null);
+        
+        long value = (frame.waveInProgress?frame.waveNumber:((frame.nextWaveIn / 1000) + 1));
+        if((this.wave == null) || (frame.waveInProgress != this.waveInProgress) || (value != this.waveValue)) {
+            this.waveInProgress = frame.waveInProgress;
+            this.waveValue = value;
+            this.drawWave();
+        }
+        g2d.drawImage(this.wave, (Globals.W_WIDTH - HeadsUpDisplay.WAVE_WIDTH), 0, null);
+        
+        if((this.loadout == null) || (weapons_ != this.weapons) || this.loadoutChanged(frame)) {
+            this.weapons = weapons_;
+            this.drawLoadout(frame);
+        }
+        g2d.drawImage(this.loadout, HeadsUpDisplay.LOADOUT_X, HeadsUpDisplay.LOADOUT_Y, null);
+    }
+    
+    private boolean statsChanged(RenderFrame frame) {
+        if((frame.health != this.health) || (frame.maxHealth != this.maxHealth) || (frame.poisoned != this.poisoned) || 
+           (frame.exp != this.exp) || (frame.nextLevelExp != this.nextLevelExp) || (frame.level != this.level) || 
+           (frame.lives != this.lives) || (frame.cash != this.cash) || 
+           (frame.ammoLeft != this.ammoLeft) || (frame.maxAmmo != this.maxAmmo) || (frame.statusCount != this.statusCount)) return true;
+        for(int i = 0; i < frame.statusCount; i++) {
+            if((frame.statusImages[i] != this.statusImages[i]) || (frame.statusOpacity[i] != this.statusOpacity[i])) return true;
+        }
+        return false;
+    }
+    
+    private void drawStats(RenderFrame frame) {
+        this.health = frame.health;
+        this.maxHealth = frame.maxHealth;
+        this.poisoned = frame.poisoned;
+        this.exp = frame.exp;
+        this.nextLevelExp = frame.nextLevelExp;
+        this.level = frame.level;
+        this.lives = frame.lives;
+        this.cash = frame.cash;
+        this.ammoLeft = frame.ammoLeft;
+        this.maxAmmo = frame.maxAmmo;
+        this.statusCount = frame.statusCount;
+        if(this.statusImages.length < frame.statusCount) {
+            this.statusImages = new BufferedImage[frame.statusImages.length];
+            this.statusOpacity = new float[frame.statusOpacity.length];
+        }
+        System.arraycopy(frame.statusImages, 0, this.statusImages, 0, frame.statusCount);
+        System.arraycopy(frame.statusOpacity, 0, this.statusOpacity, 0, frame.statusCount);
+        
+        if(this.stats == null) this.stats = GZSFramework.createCompatibleImage(HeadsUpDisplay.STATS_WIDTH, HeadsUpDisplay.STATS_HEIGHT);
+        Graphics2D g2d = HeadsUpDisplay.clear(this.stats);
+        { // Begin drawing the health bar.
+            // Draw the gray box under the HUD.
+            g2d.setColor(Color.LIGHT_GRAY);
+            g2d.fillRect(2, 2, (Player.DEFAULT_HEALTH + 20), 94);
+            g2d.setColor(Color.BLACK);
+            g2d.drawRect(2, 2, (Player.DEFAULT_HEALTH + 20), 94);
+            // Draw the black bar behind the red health bar to act as a border.
+            g2d.setColor(Color.BLACK);
+            g2d.fillRect(10, 10, (Player.DEFAULT_HEALTH + 4), 20);
+            // Draw the black bar behind the experience bar to act as a border.
+            g2d.fillRect(10, 32, 154, 20);
+
+            // Only draw the red bar indicating health if player is still alive.
+            if (frame.health > 0) {
+                int healthBarWidth = (int)(((double)frame.health / (double)frame.maxHealth) * Player.DEFAULT_HEALTH);
+                g2d.setColor((frame.poisoned?HeadsUpDisplay.POISONED_HEALTH_COLOR:HeadsUpDisplay.HEALTH_COLOR));
+                g2d.fillRect(12, 12, healthBarWidth, 16);
+                g2d.setColor(Color.WHITE);
+                g2d.drawString(("HP: " + frame.health + "/" + frame.maxHealth), 15, 25);
+            }
+        } // End drawing the health bar.
+        { // Draw the experience bar.
+            int expBarWidth = (int)(((double)frame.exp / (double)frame.nextLevelExp) * 150);
+            g2d.setColor(HeadsUpDisplay.EXP_COLOR);
+            g2d.fillRect(12, 34, ((expBarWidth > 150)?150:expBarWidth), 16);
+            g2d.setColor(Color.WHITE);
+            g2d.drawString(("LVL: " + frame.level), 15, 47);
+        } // End drawing the experience bar.
+        // Draw status messages.
+        g2d.setColor(Color.BLACK);
+        g2d.drawString(("Lives: " + frame.lives), 10, 65);
+        g2d.drawString(("Cash: $" + frame.cash), 10, 78);
+        g2d.drawString(("Ammo: " + frame.ammoLeft + "/" + frame.maxAmmo), 10, 91);
+        { // Draw Status Icons
+            int x = 5;
+            int y = 101;
+            Composite savedComp = g2d.getComposite();
+            for(int i = 0; i < frame.statusCount; i++) {
+                BufferedImage image = frame.statusImages[i];
+                
+                // Draw the image with its opacity and then restore the composite to its previous state.
+                g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, frame.statusOpacity[i]));
+                g2d.drawImage(image, x, y, null);
+                g2d.setComposite(savedComp);
+                
+                // Increase the X value by the icon width + 5.
+                x += image.getWidth() + 5;
+            }
+        } // End Drawing Status Icons
+        g2d.dispose();
+    }
+    
+    private void drawWave() {
+        if(this.wave == null) this.wave = GZSFramework.createCompatibleImage(HeadsUpDisplay.WAVE_WIDTH, HeadsUpDisplay.WAVE_HEIGHT);
+        Graphics2D g2d = HeadsUpDisplay.clear(this.wave);
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(HeadsUpDisplay.WAVE_FONT);
+        String s = (this.waveInProgress?("Current Wave: " + this.waveValue):("Next wave in " + this.waveValue + "..."));
+        int w = g2d.getFontMetrics().stringWidth(s);
+        g2d.drawString(s, (HeadsUpDisplay.WAVE_WIDTH - (w + 20)), 24);
+        g2d.dispose();
+    }
+    
+    private boolean loadoutChanged(RenderFrame frame) {
+        if((frame.currentWeapon != this.currentWeapon) || (frame.weaponImages.length != this.weaponImages.length)) return true;
+        for(int i = 0; i < frame.weaponImages.length; i++) {
+            if((frame.weaponImages[i] != this.weaponImages[i]) || (frame.weaponCooldown[i] != this.weaponCooldown[i])) return true;
+        }
+        return false;
+    }
+    
+    private void drawLoadout(RenderFrame frame) {
+        this.currentWeapon = frame.currentWeapon;
+        this.weaponImages = frame.weaponImages.clone();
+        this.weaponCooldown = frame.weaponCooldown.clone();
+        
+        if(this.loadout == null) this.loadout = GZSFramework.createCompatibleImage(HeadsUpDisplay.LOADOUT_WIDTH, HeadsUpDisplay.LOADOUT_HEIGHT);
+        Graphics2D g2d = HeadsUpDisplay.clear(this.loadout);
+        // The loadout draws itself in screen coordinates.
+        g2d.translate(-HeadsUpDisplay.LOADOUT_X, -HeadsUpDisplay.LOADOUT_Y);
+        this.weapons.draw(g2d, frame);
+        g2d.dispose();
+    }
+    
+    /**
+     * Clears one of the HUD's images so it can be drawn again.
+     * @param image The image to clear.
+     * @return A graphics object for drawing on the image.
+     **/
+    private static Graphics2D clear(BufferedImage image) {
+        Graphics2D g2d = image.createGraphics();
+        g2d.setComposite(AlphaComposite.Clear);
+        g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g2d.setComposite(AlphaComposite.SrcOver);
+        return g2d;
+    }
+}
@@ -16,18 +16,17 @@
  **/
 package genericzombieshooter.structures.components;
 
-import genericzombieshooter.GZSFramework;
 import genericzombieshooter.actors.Player;
+import genericzombieshooter.misc.AssetCache;
 import genericzombieshooter.misc.Images;
 import genericzombieshooter.misc.Sounds;
+import genericzombieshooter.structures.StateBuffer;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
-import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.awt.image.BufferedImage;
 import java.util.HashMap;
 
 /**
@@ -47,7 +46,6 @@ public class LevelScreen {
     private static final String SKILL_POINTS_LABEL_NAME = "Skill Points";
     
     // Member Variables
-    private BufferedImage background;
     private HashMap<String, Rectangle2D.Double> rects;
     
     private int healthLevel;
@@ -55,7 +53,6 @@ public class LevelScreen {
     private int speedLevel;
     
     public LevelScreen() {
-        this.background = GZSFramework.loadImage("/resources/images/GZS_LevelScreen.png");
         this.rects = new HashMap<String, Rectangle2D.Double>();
         { // Add rectangles to map.
             this.rects.put(LevelScreen.EXP_BAR_NAME, new Rectangle2D.Double(482, 187, 242, 22));
@@ -76,9 +73,21 @@ public class LevelScreen {
         this.speedLevel = 0;
     }
     
+    public void saveState(StateBuffer out) {
+        out.putInt(this.healthLevel);
+        out.putInt(this.damageLevel);
+        out.putInt(this.speedLevel);
+    }
+    
+    public void loadState(StateBuffer in) {
+        this.healthLevel = in.getInt();
+        this.damageLevel = in.getInt();
+        this.speedLevel = in.getInt();
+    }
+    
     public void draw(Graphics2D g2d, Player player) {
-        // Draw the background image.
-        g2d.drawImage(this.background, 0, 0, null);
+        // Draw the background image, which is only kept while there's room, since the screen isn't open often.
+        g2d.drawImage(AssetCache.get(Images.LEVEL_SCREEN_PATH), 0, 0, null);
         { // Draw the rectangles in the map.
             FontMetrics metrics = g2d.getFontMetrics();
             { // Draw the experience bar.
@@ -133,9 +142,9 @@ public class LevelScreen {
         } // End drawing mapped rectangles.
     }
     
-    public void click(MouseEvent m, Player player) {
+    public void click(int x, int y, Player player) {
         // Assume click is left mouse since it is checked before it is passed.
-        Point2D.Double mousePos = new Point2D.Double(m.getX(), m.getY());
+        Point2D.Double mousePos = new Point2D.Double(x, y);
         // Offset the mouse position by half the width and height of the mouse cursor image.
         mousePos.x += Images.CROSSHAIR.getWidth() / 2;
         mousePos.y += Images.CROSSHAIR.getHeight() / 2;
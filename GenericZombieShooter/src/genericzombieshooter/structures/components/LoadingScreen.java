@@ -0,0 +1,96 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures.components;
+
+import genericzombieshooter.misc.AssetLoader;
+import genericzombieshooter.misc.Globals;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
+import javax.swing.JPanel;
+import javax.swing.Timer;
+
+/**
+ * Shows the start screen with a progress bar while the game's assets load in
+ * the background. Only compile-time constants are used from Globals, since
+ * creating Globals is part of what is being waited on.
+ * @author Darin Beaudreau
+ */
+public class LoadingScreen extends JPanel {
+    // Final Variables
+    private static final int REPAINT_DELAY = 50;
+    private static final int BAR_WIDTH = 300;
+    private static final int BAR_HEIGHT = 12;
+    private static final int BAR_MARGIN = 40;
+    private static final Font FONT = new Font("Impact", Font.PLAIN, 16);
+    
+    // Member Variables
+    private Timer timer;
+    private BufferedImage splash; // Kept once it's ready, since the game takes it from the loader when it needs it.
+    
+    public LoadingScreen() {
+        setBackground(Color.BLACK);
+        setPreferredSize(new Dimension(Globals.W_WIDTH, Globals.W_HEIGHT));
+        this.timer = new Timer(LoadingScreen.REPAINT_DELAY, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                repaint();
+            }
+        });
+        this.timer.start();
+    }
+    
+    /**
+     * Stops repainting, once the game has replaced the loading screen.
+     **/
+    public void stop() {
+        this.timer.stop();
+    }
+    
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2d = (Graphics2D)g;
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        
+        if(this.splash == null) this.splash = AssetLoader.peekImage(AssetLoader.SPLASH);
+        if(this.splash != null) g2d.drawImage(this.splash, 0, 0, null);
+        
+        { // Begin drawing the progress bar.
+            float progress = AssetLoader.getProgress();
+            int x = (Globals.W_WIDTH - LoadingScreen.BAR_WIDTH) / 2;
+            int y = Globals.W_HEIGHT - LoadingScreen.BAR_MARGIN - LoadingScreen.BAR_HEIGHT;
+            g2d.setColor(Color.BLACK);
+            g2d.fillRect(x, y, LoadingScreen.BAR_WIDTH, LoadingScreen.BAR_HEIGHT);
+            g2d.setColor(Color.RED);
+            g2d.fillRect(x, y, (int)(LoadingScreen.BAR_WIDTH * progress), LoadingScreen.BAR_HEIGHT);
+            g2d.setColor(Color.WHITE);
+            g2d.drawRect(x, y, LoadingScreen.BAR_WIDTH, LoadingScreen.BAR_HEIGHT);
+            
+            String text = "Loading... " + (int)(progress * 100) + "%";
+            g2d.setFont(LoadingScreen.FONT);
+            int textWidth = g2d.getFontMetrics().stringWidth(text);
+            g2d.drawString(text, ((Globals.W_WIDTH - textWidth) / 2), (y - 8));
+        } // End drawing the progress bar.
+    }
+}
@@ -16,8 +16,8 @@
  **/
 package genericzombieshooter.structures.components;
 
-import genericzombieshooter.GZSFramework;
 import genericzombieshooter.actors.Player;
+import genericzombieshooter.misc.AssetCache;
 import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Images;
 import genericzombieshooter.misc.Sounds;
@@ -25,7 +25,6 @@ import genericzombieshooter.structures.weapons.Weapon;
 import java.awt.Color;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
-import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
@@ -47,11 +46,9 @@ public class StoreWindow {
     private static final double ITEM_BUTTON_HEIGHT = 20;
     
     // Member Variables
-    private BufferedImage background;
     private HashMap<String, List<Rectangle2D.Double>> weaponFrames;
     
     public StoreWindow() {
-        this.background = GZSFramework.loadImage("/resources/images/GZS_StoreBackground.png");
         this.weaponFrames = new HashMap<String, List<Rectangle2D.Double>>();
         { // Add weapons to icons map.
             this.createWeaponFrame(Globals.ASSAULT_RIFLE, 
@@ -98,7 +95,9 @@ public class StoreWindow {
     }
     
     public void draw(Graphics2D g2d, Player player) {
-        if(this.background != null) g2d.drawImage(this.background, 0, 0, null);
+        // The background is only kept while there's room, since the store isn't open often.
+        BufferedImage background = AssetCache.get(Images.STORE_SCREEN_PATH);
+        if(background != null) g2d.drawImage(background, 0, 0, null);
         this.drawWeaponFrame(g2d, player, Globals.ASSAULT_RIFLE, Globals.ASSAULT_RIFLE.getImage());
         this.drawWeaponFrame(g2d, player, Globals.SHOTGUN, Globals.SHOTGUN.getImage());
         this.drawWeaponFrame(g2d, player, Globals.FLAMETHROWER, Globals.FLAMETHROWER.getImage());
@@ -144,9 +143,9 @@ public class StoreWindow {
                            (int)((buyAmmo.y + (buyAmmo.height / 2)) + ((metrics.getHeight() / 2) - 3)));
     }
     
-    public void click(MouseEvent m, Player player) {
+    public void click(int x, int y, Player player) {
         // Assume click is left mouse since it is checked before it is passed.
-        Point2D.Double mousePos = new Point2D.Double(m.getX(), m.getY());
+        Point2D.Double mousePos = new Point2D.Double(x, y);
         // Offset the mouse position by half the width and height of the mouse cursor image.
         mousePos.x += Images.CROSSHAIR.getWidth() / 2;
         mousePos.y += Images.CROSSHAIR.getHeight() / 2;
@@ -18,6 +18,7 @@ package genericzombieshooter.structures.components;
 
 import genericzombieshooter.actors.Player;
 import genericzombieshooter.misc.Globals;
+import genericzombieshooter.structures.RenderFrame;
 import genericzombieshooter.structures.weapons.Weapon;
 import java.awt.BasicStroke;
 import java.awt.Color;
@@ -34,6 +35,14 @@ import java.util.HashMap;
 public class WeaponsLoadout {
     public static final double BAR_WIDTH = (10 * 48) + (11 * 4);
     public static final double BAR_HEIGHT = 56;
+    private static final Color COOLDOWN_COLOR = new Color(0, 0, 0, 200);
+    private static final Stroke SELECTED_STROKE = new BasicStroke(3.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
+                                                                  10.0f, new float[]{10.0f}, 0.0f);
+    private static final String [] WEAPON_NAMES = {Globals.HANDGUN.getName(), Globals.ASSAULT_RIFLE.getName(),
+                                                   Globals.SHOTGUN.getName(), Globals.FLAMETHROWER.getName(),
+                                                   Globals.GRENADE.getName(), Globals.LANDMINE.getName(),
+                                                   Globals.FLARE.getName(), Globals.LASERWIRE.getName(),
+                                                   Globals.TURRETWEAPON.getName(), Globals.TELEPORTER.getName()};
     
     private Player player;
     private String currentWeaponName;
@@ -44,7 +53,27 @@ public class WeaponsLoadout {
         this.currentWeaponName = p.getWeapon().getName();
     }
     
-    public void draw(Graphics2D g2d) {
+    /**
+     * Copies the weapon icons, cooldowns and the equipped slot into a render frame.
+     * @param frame The frame being built at the end of the tick.
+     **/
+    public void snapshot(RenderFrame frame) {
+        HashMap<String, Weapon> weaponsMap = this.player.getWeaponsMap();
+        frame.currentWeapon = -1;
+        for(int s = 0; s < 10; s++) {
+            Weapon weapon = weaponsMap.get(WeaponsLoadout.WEAPON_NAMES[s]);
+            if((weapon != null) && this.player.hasWeapon(weapon.getName())) {
+                frame.weaponImages[s] = weapon.getImage();
+                frame.weaponCooldown[s] = weapon.getCooldownPercentage();
+            } else {
+                frame.weaponImages[s] = null;
+                frame.weaponCooldown[s] = -1;
+            }
+            if(this.currentWeaponName.equals(WeaponsLoadout.WEAPON_NAMES[s])) frame.currentWeapon = s;
+        }
+    }
+    
+    public void draw(Graphics2D g2d, RenderFrame frame) {
         Stroke oldStroke = g2d.getStroke();
         { // Draw the bar under the individual weapon slots.
             double x = (Globals.W_WIDTH / 2) - (WeaponsLoadout.BAR_WIDTH / 2);
@@ -56,11 +85,6 @@ public class WeaponsLoadout {
             g2d.draw(rect);
         } // Stop drawing the bar under the weapon slots.
         { // Draw the filler color for the weapon slots.
-            String [] weaponNames = {Globals.HANDGUN.getName(), Globals.ASSAULT_RIFLE.getName(),
-                                                 Globals.SHOTGUN.getName(), Globals.FLAMETHROWER.getName(),
-                                                 Globals.GRENADE.getName(), Globals.LANDMINE.getName(),
-                                                 Globals.FLARE.getName(), Globals.LASERWIRE.getName(),
-                                                 Globals.TURRETWEAPON.getName(), Globals.TELEPORTER.getName()};
             for(int s = 0; s < 10; s++) {
                 int slot = s * 48;
                 int spacing = (s + 1) * 4;
@@ -74,38 +98,26 @@ public class WeaponsLoadout {
                 g2d.setColor(Color.BLACK);
                 g2d.draw(rect);
                 { // Draw Weapon Icon
-                    BufferedImage image = null;
-                    HashMap<String, Weapon> weaponsMap = player.getWeaponsMap();
-                    
-                    int w = s + 1;
-                    Weapon weapon = null;
-                    for(int i = 1; i <= 10; i++) {
-                        if((w == i) && weaponsMap.containsKey(weaponNames[i - 1])) {
-                            weapon = weaponsMap.get(weaponNames[i - 1]);
-                            image = weapon.getImage();
-                            break;
-                        }
-                    }
+                    BufferedImage image = frame.weaponImages[s];
                     if(image != null) g2d.drawImage(image, (int)x, (int)y, null);
                 
                     { // Draw Translucent Box To Show Cooldown
-                        if((weapon != null) && player.hasWeapon(weapon.getName())) {
-                            g2d.setColor(new Color(0, 0, 0, 200));
-                            double width = weapon.getCooldownPercentage() * 48;
+                        if(frame.weaponCooldown[s] >= 0) {
+                            g2d.setColor(WeaponsLoadout.COOLDOWN_COLOR);
+                            double width = frame.weaponCooldown[s] * 48;
                             Rectangle2D.Double coolBox = new Rectangle2D.Double(x, y, width, 48);
                             g2d.fill(coolBox);
                         }
                     } // End drawing translucent cooldown box.
                 } // End drawing weapon icon.
                 // If the current iteration is the slot of the currently equipped weapon...
-                if(this.currentWeaponName.equals(weaponNames[s])) {
+                if(frame.currentWeapon == s) {
                     x += 3;
                     y += 3;
                     size = 42;
                     Rectangle2D.Double border = new Rectangle2D.Double(x, y, size, size);
                     g2d.setColor(Color.WHITE);
-                    g2d.setStroke(new BasicStroke(3.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
-                                                  10.0f, new float[]{10.0f}, 0.0f));
+                    g2d.setStroke(WeaponsLoadout.SELECTED_STROKE);
                     g2d.draw(border);
                 }
             }
@@ -0,0 +1,41 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures.entities;
+
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.structures.RenderFrame;
+
+/**
+ * Draws every entity with an animation, such as the zombies, leaving out the
+ * ones the camera can't see. Each is drawn between where it was at the start
+ * of the tick and where it is now, facing its angle.
+ * @author Darin Beaudreau
+ */
+public class AnimationSystem {
+    public static void draw(EntityWorld world, RenderFrame frame) {
+        int needs = EntityWorld.POSITION | EntityWorld.ANIMATION;
+        long ticks = Globals.gameTime.getTicks();
+        for(int i = 0; i < world.count; i++) {
+            int m = world.mask[i];
+            if(((m & needs) != needs) || ((m & EntityWorld.HIDDEN) != 0)) continue;
+            if(!frame.isVisible(world.x[i], world.y[i], Math.max(world.timeline[i].getWidth(), world.timeline[i].getHeight()))) continue;
+            int index = world.timeline[i].getFrame(ticks - world.startTick[i]);
+            // The shadow is baked into the atlas's pre-rotated frames.
+            frame.drawSprite(world.atlas[i], index, world.angle[i], world.x[i], world.y[i], world.prevX[i], world.prevY[i]);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures.entities;
+
+import genericzombieshooter.structures.SpatialGrid;
+
+/**
+ * Checks everything that does damage against the zombies. Each entity that
+ * lands inside a zombie is used up, and its source's damage is added to the
+ * first zombie it hit.
+ * @author Darin Beaudreau
+ */
+public class DamageSystem {
+    /**
+     * Runs one tick.
+     * @param world The world to check.
+     * @param grid The grid built from this tick's zombies.
+     * @param rows The row of damage each source adds to, or -1 for sources that can't do damage right now.
+     * @param damage The damage done to each zombie, one row per weapon, indexed the same as the grid.
+     **/
+    public static void update(EntityWorld world, SpatialGrid grid, int [] rows, int [][] damage) {
+        int needs = EntityWorld.POSITION | EntityWorld.DAMAGE;
+        int i = 0;
+        while(i < world.count) {
+            int z = -1;
+            if(((world.mask[i] & needs) == needs) && (rows[world.source[i]] >= 0)) {
+                boolean alive = ((world.mask[i] & EntityWorld.LIFETIME) == 0) || (world.life[i] > 0);
+                if(alive) z = grid.findZombieAt(world.x[i], world.y[i]);
+            }
+            if(z >= 0) {
+                damage[rows[world.source[i]]][z] += world.sourceDamage[world.source[i]];
+                world.remove(i);
+            } else i++;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures.entities;
+
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.structures.LightSource;
+import genericzombieshooter.structures.SpriteAtlas;
+import genericzombieshooter.structures.SpriteTimeline;
+import java.awt.image.BufferedImage;
+
+/**
+ * Creates the kinds of entities the game uses. A new kind of entity only
+ * needs a method here; the systems already move, age, draw and collide
+ * anything with the right components.
+ * @author Darin Beaudreau
+ */
+public class EntityFactory {
+    public static final int PROJECTILE = EntityWorld.POSITION | EntityWorld.VELOCITY | EntityWorld.LIFETIME | 
+                                         EntityWorld.COLLIDER | EntityWorld.SPRITE | EntityWorld.DAMAGE;
+    public static final int ZOMBIE = EntityWorld.POSITION | EntityWorld.COLLIDER | EntityWorld.HEALTH | 
+                                     EntityWorld.ANIMATION | EntityWorld.HIDDEN;
+    public static final int ITEM = EntityWorld.POSITION | EntityWorld.LIFETIME | EntityWorld.COLLIDER | 
+                                   EntityWorld.SPRITE | EntityWorld.BLINK | EntityWorld.PICKUP;
+    public static final int LIGHT = EntityWorld.POSITION | EntityWorld.LIGHT;
+    
+    /**
+     * Fires a projectile in a straight line. Moves, draws and collides the
+     * same way a Particle does.
+     * @param world The world to add the projectile to.
+     * @param source The damage source firing it.
+     * @param theta The angle the projectile is fired at. Given in radians.
+     * @param spread The maximum spread for this projectile. Given in degrees.
+     * @param speed How far the projectile moves each 20ms tick.
+     * @param life How many ticks before the projectile disappears.
+     * @param x The starting x coordinate of the projectile.
+     * @param y The starting y coordinate of the projectile.
+     * @param width The width of the projectile.
+     * @param height The height of the projectile.
+     * @param image The image to draw the projectile with, or null for a filled rectangle.
+     * @param color The color to fill the rectangle with, as ARGB.
+     * @param flipped Whether to draw the image turned 180 degrees, like Particle.draw() does.
+     * @return The index of the projectile, or -1 if the source already has as many projectiles as it can.
+     **/
+    public static int createProjectile(EntityWorld world, int source, double theta, double spread, double speed, int life, 
+                                       double x, double y, int width, int height, BufferedImage image, int color, boolean flipped) {
+        // Determine if the angle of the projectile will deviate from its set value.
+        if(spread > 0) {
+            boolean mod = Globals.WEAPON_RANDOM.nextBoolean();
+            double spreadMod = Math.toRadians(Globals.WEAPON_RANDOM.nextDouble() * spread);
+            if(mod) spreadMod = -spreadMod;
+            theta += spreadMod;
+        }
+        if(world.isFull(source)) return -1;
+        
+        int i = world.create(EntityFactory.PROJECTILE);
+        double step = speed * Globals.TICK_SCALE;
+        world.setPosition(i, x, y);
+        world.setVelocity(i, (step * Math.cos(-theta + (Math.PI / 2))), (step * Math.sin(-theta + (Math.PI / 2))));
+        world.setLifetime(i, life);
+        world.setCollider(i, width, height);
+        // The inverse of a rotation is the same rotation the other way.
+        world.setSprite(i, image, color, -(flipped ? (theta - Math.PI) : theta));
+        world.setDamage(i, source);
+        return i;
+    }
+    
+    /**
+     * Spits a glob at the player, which hurts them if it lands. Moves and
+     * draws the same way the zombies' acid particles always have.
+     * @param world The world to add the glob to.
+     * @param source The hostile damage source spitting it.
+     * @param theta The angle the glob is spit at, pointing away from where it goes. Given in radians.
+     * @param speed How far the glob moves each 20ms tick.
+     * @param life How many ticks before the glob disappears.
+     * @param x The starting x coordinate of the glob.
+     * @param y The starting y coordinate of the glob.
+     * @param size The width and height of the glob.
+     * @param image The image to draw the glob with.
+     * @return The index of the glob, or -1 if the source already has as many as it can.
+     **/
+    public static int createSpit(EntityWorld world, int source, double theta, double speed, int life, 
+                                 double x, double y, int size, BufferedImage image) {
+        if(world.isFull(source)) return -1;
+        
+        int i = world.create(EntityFactory.PROJECTILE);
+        double step = speed * Globals.TICK_SCALE;
+        world.setPosition(i, x, y);
+        world.setVelocity(i, -(step * Math.cos(theta)), -(step * Math.sin(theta)));
+        world.setLifetime(i, life);
+        world.setCollider(i, size, size);
+        world.setSprite(i, image, 0, (Math.PI - theta));
+        world.setDamage(i, source);
+        return i;
+    }
+    
+    /**
+     * Creates a zombie's entity. It stays hidden until the zombie spawns.
+     * @param world The world to add the zombie to.
+     * @param x The x coordinate of the zombie's center.
+     * @param y The y coordinate of the zombie's center.
+     * @param atlas The zombie's pre-rotated frames.
+     * @param timeline The zombie's walk cycle.
+     * @param health How much health the zombie starts with.
+     * @return The index of the zombie.
+     **/
+    public static int createZombie(EntityWorld world, double x, double y, SpriteAtlas atlas, SpriteTimeline timeline, double health) {
+        int i = world.create(EntityFactory.ZOMBIE);
+        world.setPosition(i, x, y);
+        world.setCollider(i, timeline.getWidth(), timeline.getHeight());
+        world.setAngle(i, 0);
+        world.setHealth(i, health);
+        world.setAnimation(i, atlas, timeline, Globals.gameTime.getTicks());
+        return i;
+    }
+    
+    /**
+     * Drops an item on the ground, where it blinks for a while before it
+     * disappears.
+     * @param world The world to add the item to.
+     * @param x The x coordinate of the item's center.
+     * @param y The y coordinate of the item's center.
+     * @param icon What the item looks like.
+     * @param duration How long the item stays on the ground, in milliseconds.
+     * @return The index of the item.
+     **/
+    public static int createItem(EntityWorld world, double x, double y, BufferedImage icon, long duration) {
+        int i = world.create(EntityFactory.ITEM);
+        world.setPosition(i, x, y);
+        world.setLifetime(i, Globals.toTicks(duration));
+        world.setCollider(i, icon.getWidth(), icon.getHeight());
+        world.setSprite(i, icon, 0, 0);
+        return i;
+    }
+    
+    /**
+     * Creates a light.
+     * @param world The world to add the light to.
+     * @param x The x coordinate of the center of the light.
+     * @param y The y coordinate of the center of the light.
+     * @param light What the light looks like.
+     * @param life How many ticks the light lasts. Zero if permanent.
+     * @param followsPlayer Whether the light moves with the player as they are drawn between ticks.
+     * @return The index of the light.
+     **/
+    public static int createLight(EntityWorld world, double x, double y, LightSource light, int life, boolean followsPlayer) {
+        int i = world.create(EntityFactory.LIGHT | ((life > 0)?EntityWorld.LIFETIME:0));
+        world.setPosition(i, x, y);
+        world.setLifetime(i, life);
+        world.setLight(i, light, followsPlayer);
+        return i;
+    }
+}
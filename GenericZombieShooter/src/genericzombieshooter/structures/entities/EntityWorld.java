@@ -0,0 +1,536 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures.entities;
+
+import genericzombieshooter.structures.LightSource;
+import genericzombieshooter.structures.SpriteAtlas;
+import genericzombieshooter.structures.SpriteTimeline;
+import genericzombieshooter.structures.StateBuffer;
+import java.awt.image.BufferedImage;
+
+/**
+ * Holds the game's entities as dense arrays of components, one array per
+ * field, instead of one object per entity. An entity is just an index into
+ * the arrays and a mask of which components it has. The systems in this
+ * package each walk the arrays from start to end and only touch the
+ * components they need.
+ * 
+ * Entities are removed by moving the last entity into their slot, so the
+ * arrays stay packed and the order of the entities is not kept. Indices are
+ * only good until the next entity is removed. Anything that needs to hold on
+ * to an entity, such as a zombie or an item, keeps its handle instead, and
+ * looks up where the entity is now with find(). A handle stops matching once
+ * its entity is removed, even if its slot in the handle table is reused.
+ * 
+ * Anything that does damage is created from a damage source, which is
+ * usually a weapon. Each source has its own damage per hit and its own cap
+ * on how many of its entities can be alive at once.
+ * 
+ * Only used from the game thread, except that the zombie steering and damage
+ * phases change the components of their own zombies in parallel.
+ * @author Darin Beaudreau
+ */
+public class EntityWorld {
+    // Final Variables
+    public static final int POSITION = 1; // x, y.
+    public static final int VELOCITY = 2; // How far the entity moves each tick.
+    public static final int LIFETIME = 4; // Ticks until the entity expires.
+    public static final int COLLIDER = 8; // The entity's size.
+    public static final int SPRITE = 16; // An image, or a rectangle in a color, drawn at an angle.
+    public static final int DAMAGE = 32; // The damage source the entity belongs to.
+    public static final int HEALTH = 64; // How much damage the entity can take before it dies.
+    public static final int ANIMATION = 128; // A frame from a sprite atlas, picked by how long the animation has played.
+    public static final int LIGHT = 256; // A light cut out of the darkness around the entity.
+    public static final int BLINK = 512; // The sprite blinks once the entity is about to expire.
+    public static final int PICKUP = 1024; // Lies on the ground for the player to pick up. Drawn under everything else.
+    public static final int HIDDEN = 2048; // Not drawn, such as a zombie that hasn't spawned yet.
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int INDEX_BITS = 20; // A handle is its slot in the handle table, with the slot's generation above it.
+    private static final int INDEX_MASK = (1 << EntityWorld.INDEX_BITS) - 1;
+    private static final int GENERATION_MASK = (1 << (31 - EntityWorld.INDEX_BITS)) - 1;
+    
+    // Member Variables
+    int count;
+    public int size() { return this.count; }
+    int [] mask;
+    int [] handle; // The handle of each entity.
+    
+    double [] x;
+    double [] y;
+    double [] vx;
+    double [] vy;
+    int [] life;
+    int [] width;
+    int [] height;
+    BufferedImage [] image; // Null to fill a rectangle in the entity's color instead.
+    int [] color;
+    double [] angle; // The angle the sprite or animation is drawn at.
+    int [] source;
+    double [] health;
+    SpriteAtlas [] atlas;
+    SpriteTimeline [] timeline;
+    long [] startTick; // The tick the animation started on.
+    double [] prevX; // Where the entity was at the start of the tick, so its animation can be drawn between the two.
+    double [] prevY;
+    LightSource [] light;
+    boolean [] lightFollows; // Whether the light moves with the player as they are drawn between ticks.
+    
+    private int [] slots; // The index of the entity each handle belongs to, or -1 if it has been removed.
+    private int [] generations; // Bumped each time a slot in the handle table is freed.
+    private int slotCount;
+    private int [] freeSlots;
+    private int freeCount;
+    
+    int sourceCount;
+    int [] sourceDamage; // The damage each hit from a source does.
+    boolean [] sourceHostile; // Whether a source's entities hurt the player instead of the zombies.
+    private int [] sourceCapacity;
+    private int [] sourceLive; // How many of each source's entities are alive.
+    public int getCount(int source_) { return this.sourceLive[source_]; }
+    
+    public EntityWorld() {
+        this.count = 0;
+        this.resize(EntityWorld.INITIAL_CAPACITY);
+        this.slotCount = 0;
+        this.slots = new int[EntityWorld.INITIAL_CAPACITY];
+        this.generations = new int[EntityWorld.INITIAL_CAPACITY];
+        this.freeCount = 0;
+        this.freeSlots = new int[EntityWorld.INITIAL_CAPACITY];
+        this.sourceCount = 0;
+        this.sourceDamage = new int[16];
+        this.sourceHostile = new boolean[16];
+        this.sourceCapacity = new int[16];
+        this.sourceLive = new int[16];
+    }
+    
+    /**
+     * Adds a damage source.
+     * @param damage How much damage each hit from the source does.
+     * @param capacity The most entities from the source that can be alive at once.
+     * @return The id of the source.
+     **/
+    public int addSource(int damage, int capacity) {
+        if(this.sourceCount == this.sourceDamage.length) {
+            this.sourceDamage = EntityWorld.grow(this.sourceDamage, (this.sourceCount * 2));
+            this.sourceCapacity = EntityWorld.grow(this.sourceCapacity, (this.sourceCount * 2));
+            this.sourceLive = EntityWorld.grow(this.sourceLive, (this.sourceCount * 2));
+            boolean [] hostile = new boolean[this.sourceCount * 2];
+            System.arraycopy(this.sourceHostile, 0, hostile, 0, this.sourceCount);
+            this.sourceHostile = hostile;
+        }
+        this.sourceDamage[this.sourceCount] = damage;
+        this.sourceHostile[this.sourceCount] = false;
+        this.sourceCapacity[this.sourceCount] = capacity;
+        this.sourceLive[this.sourceCount] = 0;
+        return this.sourceCount++;
+    }
+    
+    /**
+     * Adds a damage source whose entities hurt the player, such as a zombie's spit.
+     * @param damage How much damage each hit on the player does.
+     * @param capacity The most entities from the source that can be alive at once.
+     * @return The id of the source.
+     **/
+    public int addHostileSource(int damage, int capacity) {
+        int source_ = this.addSource(damage, capacity);
+        this.sourceHostile[source_] = true;
+        return source_;
+    }
+    
+    public int getSourceCount() { return this.sourceCount; }
+    public boolean isFull(int source_) { return (this.sourceLive[source_] >= this.sourceCapacity[source_]); }
+    
+    /**
+     * Creates an entity. Its components are set afterward.
+     * @param mask_ The components the entity has.
+     * @return The index of the new entity.
+     **/
+    public int create(int mask_) {
+        if(this.count == this.mask.length) this.resize(this.count * 2);
+        int slot;
+        if(this.freeCount > 0) slot = this.freeSlots[--this.freeCount];
+        else {
+            if(this.slotCount == this.slots.length) {
+                this.slots = EntityWorld.grow(this.slots, (this.slotCount * 2));
+                this.generations = EntityWorld.grow(this.generations, (this.slotCount * 2));
+                this.freeSlots = EntityWorld.grow(this.freeSlots, (this.slotCount * 2));
+            }
+            slot = this.slotCount++;
+        }
+        int i = this.count++;
+        this.slots[slot] = i;
+        this.handle[i] = (this.generations[slot] << EntityWorld.INDEX_BITS) | slot;
+        this.mask[i] = mask_;
+        this.image[i] = null;
+        this.atlas[i] = null;
+        this.timeline[i] = null;
+        this.light[i] = null;
+        return i;
+    }
+    
+    /**
+     * Gets the handle of an entity, which stays the same while other entities come and go.
+     * @param i The index of the entity.
+     * @return The handle.
+     **/
+    public int getHandle(int i) { return this.handle[i]; }
+    
+    /**
+     * Finds where an entity is now.
+     * @param handle_ The handle of the entity.
+     * @return The index of the entity, or -1 if it has been removed.
+     **/
+    public int find(int handle_) {
+        if(handle_ < 0) return -1;
+        int slot = handle_ & EntityWorld.INDEX_MASK;
+        if(slot >= this.slotCount) return -1;
+        int i = this.slots[slot];
+        return (((i >= 0) && (this.handle[i] == handle_))?i:-1);
+    }
+    
+    public int getMask(int i) { return this.mask[i]; }
+    public void addComponents(int i, int mask_) { this.mask[i] |= mask_; }
+    public void removeComponents(int i, int mask_) { this.mask[i] &= ~mask_; }
+    
+    public double getX(int i) { return this.x[i]; }
+    public double getY(int i) { return this.y[i]; }
+    public void setPosition(int i, double x_, double y_) {
+        this.x[i] = x_;
+        this.y[i] = y_;
+    }
+    
+    public void setVelocity(int i, double vx_, double vy_) {
+        this.vx[i] = vx_;
+        this.vy[i] = vy_;
+    }
+    
+    public void setLifetime(int i, int ticks) { this.life[i] = ticks; }
+    
+    public int getWidth(int i) { return this.width[i]; }
+    public int getHeight(int i) { return this.height[i]; }
+    public void setCollider(int i, int width_, int height_) {
+        this.width[i] = width_;
+        this.height[i] = height_;
+    }
+    
+    /**
+     * Sets how the entity is drawn.
+     * @param i The index of the entity.
+     * @param image_ The image to draw, or null to fill the collider's rectangle.
+     * @param color_ The color to fill the rectangle with, as ARGB.
+     * @param angle_ The angle to draw the entity at, in radians.
+     **/
+    public void setSprite(int i, BufferedImage image_, int color_, double angle_) {
+        this.image[i] = image_;
+        this.color[i] = color_;
+        this.angle[i] = angle_;
+    }
+    
+    public double getAngle(int i) { return this.angle[i]; }
+    public void setAngle(int i, double angle_) { this.angle[i] = angle_; }
+    
+    public void setDamage(int i, int source_) {
+        this.source[i] = source_;
+        this.sourceLive[source_]++;
+    }
+    
+    public double getHealth(int i) { return this.health[i]; }
+    public void setHealth(int i, double health_) { this.health[i] = health_; }
+    
+    /**
+     * Sets the animation the entity is drawn with. Call after setPosition(),
+     * since the animation starts out drawn where the entity is.
+     * @param i The index of the entity.
+     * @param atlas_ The pre-rotated frames.
+     * @param timeline_ How long each frame shows.
+     * @param startTick_ The tick the animation started on.
+     **/
+    public void setAnimation(int i, SpriteAtlas atlas_, SpriteTimeline timeline_, long startTick_) {
+        this.atlas[i] = atlas_;
+        this.timeline[i] = timeline_;
+        this.startTick[i] = startTick_;
+        this.prevX[i] = this.x[i];
+        this.prevY[i] = this.y[i];
+    }
+    
+    /**
+     * Gives a loaded entity back the frames of its animation, which
+     * saveState() doesn't write, since they come from whoever created it.
+     * @param i The index of the entity.
+     * @param atlas_ The pre-rotated frames.
+     * @param timeline_ How long each frame shows.
+     **/
+    public void restoreAnimation(int i, SpriteAtlas atlas_, SpriteTimeline timeline_) {
+        this.atlas[i] = atlas_;
+        this.timeline[i] = timeline_;
+    }
+    
+    /**
+     * Remembers where the entity is now as where it was at the start of the
+     * tick, before it moves.
+     * @param i The index of the entity.
+     **/
+    public void markPrevious(int i) {
+        this.prevX[i] = this.x[i];
+        this.prevY[i] = this.y[i];
+    }
+    
+    /**
+     * Sets the light around the entity.
+     * @param i The index of the entity.
+     * @param light_ What the light looks like.
+     * @param follows Whether the light moves with the player as they are drawn between ticks.
+     **/
+    public void setLight(int i, LightSource light_, boolean follows) {
+        this.light[i] = light_;
+        this.lightFollows[i] = follows;
+    }
+    
+    /**
+     * Counts the entities that have all of the given components.
+     * @param mask_ The components to look for.
+     * @return The number of entities with all of them.
+     **/
+    public int count(int mask_) {
+        int n = 0;
+        for(int i = 0; i < this.count; i++) {
+            if((this.mask[i] & mask_) == mask_) n++;
+        }
+        return n;
+    }
+    
+    /**
+     * Removes an entity by moving the last entity into its slot.
+     * @param i The index of the entity to remove.
+     **/
+    public void remove(int i) {
+        if((this.mask[i] & EntityWorld.DAMAGE) != 0) this.sourceLive[this.source[i]]--;
+        { // Free the entity's handle.
+            int slot = this.handle[i] & EntityWorld.INDEX_MASK;
+            this.slots[slot] = -1;
+            this.generations[slot] = (this.generations[slot] + 1) & EntityWorld.GENERATION_MASK;
+            this.freeSlots[this.freeCount++] = slot;
+        } // End freeing the handle.
+        int last = --this.count;
+        if(i != last) {
+            this.mask[i] = this.mask[last];
+            this.handle[i] = this.handle[last];
+            this.slots[this.handle[i] & EntityWorld.INDEX_MASK] = i;
+            this.x[i] = this.x[last];
+            this.y[i] = this.y[last];
+            this.vx[i] = this.vx[last];
+            this.vy[i] = this.vy[last];
+            this.life[i] = this.life[last];
+            this.width[i] = this.width[last];
+            this.height[i] = this.height[last];
+            this.image[i] = this.image[last];
+            this.color[i] = this.color[last];
+            this.angle[i] = this.angle[last];
+            this.source[i] = this.source[last];
+            this.health[i] = this.health[last];
+            this.atlas[i] = this.atlas[last];
+            this.timeline[i] = this.timeline[last];
+            this.startTick[i] = this.startTick[last];
+            this.prevX[i] = this.prevX[last];
+            this.prevY[i] = this.prevY[last];
+            this.light[i] = this.light[last];
+            this.lightFollows[i] = this.lightFollows[last];
+        }
+        this.image[last] = null;
+        this.atlas[last] = null;
+        this.timeline[last] = null;
+        this.light[last] = null;
+    }
+    
+    /**
+     * Removes every entity, such as when a new game starts. Handles to them
+     * won't find anything afterwards.
+     **/
+    public void clear() {
+        while(this.count > 0) this.remove(this.count - 1);
+    }
+    
+    /**
+     * Removes every entity from a damage source.
+     * @param source_ The id of the source.
+     **/
+    public void clear(int source_) {
+        int i = 0;
+        while(i < this.count) {
+            if(((this.mask[i] & EntityWorld.DAMAGE) != 0) && (this.source[i] == source_)) this.remove(i);
+            else i++;
+        }
+    }
+    
+    /**
+     * Writes every entity and the handle table, so that handles held by the
+     * rest of the game still find the same entities once the state is read
+     * back. Only the components an entity has are written.
+     * @param out The buffer to write to.
+     **/
+    public void saveState(StateBuffer out) {
+        out.putInt(this.slotCount);
+        for(int s = 0; s < this.slotCount; s++) out.putInt(this.generations[s]);
+        out.putInt(this.freeCount);
+        for(int s = 0; s < this.freeCount; s++) out.putInt(this.freeSlots[s]);
+        out.putInt(this.count);
+        for(int i = 0; i < this.count; i++) {
+            int m = this.mask[i];
+            out.putInt(m);
+            out.putInt(this.handle[i]);
+            if((m & EntityWorld.POSITION) != 0) {
+                out.putDouble(this.x[i]);
+                out.putDouble(this.y[i]);
+            }
+            if((m & EntityWorld.VELOCITY) != 0) {
+                out.putDouble(this.vx[i]);
+                out.putDouble(this.vy[i]);
+            }
+            if((m & EntityWorld.LIFETIME) != 0) out.putInt(this.life[i]);
+            if((m & EntityWorld.COLLIDER) != 0) {
+                out.putInt(this.width[i]);
+                out.putInt(this.height[i]);
+            }
+            if((m & EntityWorld.SPRITE) != 0) {
+                out.putImage(this.image[i]);
+                out.putInt(this.color[i]);
+            }
+            out.putDouble(this.angle[i]);
+            if((m & EntityWorld.DAMAGE) != 0) out.putInt(this.source[i]);
+            if((m & EntityWorld.HEALTH) != 0) out.putDouble(this.health[i]);
+            if((m & EntityWorld.ANIMATION) != 0) {
+                out.putLong(this.startTick[i]);
+                out.putDouble(this.prevX[i]);
+                out.putDouble(this.prevY[i]);
+            }
+            if((m & EntityWorld.LIGHT) != 0) {
+                this.light[i].saveState(out);
+                out.putBoolean(this.lightFollows[i]);
+            }
+        }
+    }
+    
+    /**
+     * Replaces every entity with the ones written by saveState(). The damage
+     * sources aren't saved, since they are added the same way every time the
+     * game starts. Animations get their frames back from whoever holds their
+     * entities, through restoreAnimation().
+     * @param in The buffer to read from.
+     **/
+    public void loadState(StateBuffer in) {
+        this.clear();
+        for(int s = 0; s < this.sourceCount; s++) this.sourceLive[s] = 0;
+        
+        this.slotCount = 0;
+        int slotCount_ = in.getInt();
+        while(this.slots.length < slotCount_) {
+            this.slots = EntityWorld.grow(this.slots, (this.slots.length * 2));
+            this.generations = EntityWorld.grow(this.generations, (this.generations.length * 2));
+            this.freeSlots = EntityWorld.grow(this.freeSlots, (this.freeSlots.length * 2));
+        }
+        for(int s = 0; s < slotCount_; s++) {
+            this.generations[s] = in.getInt();
+            this.slots[s] = -1;
+        }
+        this.slotCount = slotCount_;
+        this.freeCount = in.getInt();
+        for(int s = 0; s < this.freeCount; s++) this.freeSlots[s] = in.getInt();
+        
+        int entities = in.getInt();
+        if(this.mask.length < entities) this.resize(Math.max(entities, (this.mask.length * 2)));
+        for(int i = 0; i < entities; i++) {
+            int m = in.getInt();
+            this.count++;
+            this.mask[i] = m;
+            this.handle[i] = in.getInt();
+            this.slots[this.handle[i] & EntityWorld.INDEX_MASK] = i;
+            if((m & EntityWorld.POSITION) != 0) this.setPosition(i, in.getDouble(), in.getDouble());
+            if((m & EntityWorld.VELOCITY) != 0) this.setVelocity(i, in.getDouble(), in.getDouble());
+            if((m & EntityWorld.LIFETIME) != 0) this.setLifetime(i, in.getInt());
+            if((m & EntityWorld.COLLIDER) != 0) this.setCollider(i, in.getInt(), in.getInt());
+            this.image[i] = null;
+            if((m & EntityWorld.SPRITE) != 0) {
+                this.image[i] = in.getImage();
+                this.color[i] = in.getInt();
+            }
+            this.angle[i] = in.getDouble();
+            if((m & EntityWorld.DAMAGE) != 0) this.setDamage(i, in.getInt());
+            if((m & EntityWorld.HEALTH) != 0) this.setHealth(i, in.getDouble());
+            this.atlas[i] = null;
+            this.timeline[i] = null;
+            if((m & EntityWorld.ANIMATION) != 0) {
+                this.startTick[i] = in.getLong();
+                this.prevX[i] = in.getDouble();
+                this.prevY[i] = in.getDouble();
+            }
+            this.light[i] = null;
+            if((m & EntityWorld.LIGHT) != 0) {
+                LightSource light_ = new LightSource(0);
+                light_.loadState(in);
+                this.setLight(i, light_, in.getBoolean());
+            }
+        }
+    }
+    
+    private void resize(int size) {
+        this.mask = EntityWorld.grow(this.mask, size);
+        this.handle = EntityWorld.grow(this.handle, size);
+        this.x = EntityWorld.grow(this.x, size);
+        this.y = EntityWorld.grow(this.y, size);
+        this.vx = EntityWorld.grow(this.vx, size);
+        this.vy = EntityWorld.grow(this.vy, size);
+        this.life = EntityWorld.grow(this.life, size);
+        this.width = EntityWorld.grow(this.width, size);
+        this.height = EntityWorld.grow(this.height, size);
+        BufferedImage [] image_ = new BufferedImage[size];
+        if(this.image != null) System.arraycopy(this.image, 0, image_, 0, this.count);
+        this.image = image_;
+        this.color = EntityWorld.grow(this.color, size);
+        this.angle = EntityWorld.grow(this.angle, size);
+        this.source = EntityWorld.grow(this.source, size);
+        this.health = EntityWorld.grow(this.health, size);
+        SpriteAtlas [] atlas_ = new SpriteAtlas[size];
+        if(this.atlas != null) System.arraycopy(this.atlas, 0, atlas_, 0, this.count);
+        this.atlas = atlas_;
+        SpriteTimeline [] timeline_ = new SpriteTimeline[size];
+        if(this.timeline != null) System.arraycopy(this.timeline, 0, timeline_, 0, this.count);
+        this.timeline = timeline_;
+        long [] startTick_ = new long[size];
+        if(this.startTick != null) System.arraycopy(this.startTick, 0, startTick_, 0, this.count);
+        this.startTick = startTick_;
+        this.prevX = EntityWorld.grow(this.prevX, size);
+        this.prevY = EntityWorld.grow(this.prevY, size);
+        LightSource [] light_ = new LightSource[size];
+        if(this.light != null) System.arraycopy(this.light, 0, light_, 0, this.count);
+        this.light = light_;
+        boolean [] follows = new boolean[size];
+        if(this.lightFollows != null) System.arraycopy(this.lightFollows, 0, follows, 0, this.count);
+        this.lightFollows = follows;
+    }
+    
+    private static int [] grow(int [] array, int size) {
+        int [] grown = new int[size];
+        if(array != null) System.arraycopy(array, 0, grown, 0, Math.min(array.length, size));
+        return grown;
+    }
+    
+    private static double [] grow(double [] array, int size) {
+        double [] grown = new double[size];
+        if(array != null) System.arraycopy(array, 0, grown, 0, Math.min(array.length, size));
+        return grown;
+    }
+}
@@ -0,0 +1,46 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures.entities;
+
+/**
+ * Ages every entity with a lifetime, and removes the ones that have expired
+ * or left the arena. Entities that last, such as the zombies, are left to
+ * whoever holds them.
+ * @author Darin Beaudreau
+ */
+public class LifetimeSystem {
+    /**
+     * Runs one tick.
+     * @param world The world to update.
+     * @param width The width of the arena.
+     * @param height The height of the arena.
+     **/
+    public static void update(EntityWorld world, int width, int height) {
+        int i = 0;
+        while(i < world.count) {
+            boolean expired = false;
+            if((world.mask[i] & EntityWorld.LIFETIME) != 0) {
+                expired = (--world.life[i] <= 0);
+                if((world.mask[i] & EntityWorld.POSITION) != 0) {
+                    expired |= (world.x[i] < 0) || (world.x[i] > width) || (world.y[i] < 0) || (world.y[i] > height);
+                }
+            }
+            if(expired) world.remove(i);
+            else i++;
+        }
+    }
+}
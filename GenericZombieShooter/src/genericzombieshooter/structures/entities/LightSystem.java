@@ -0,0 +1,33 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures.entities;
+
+import genericzombieshooter.structures.RenderFrame;
+
+/**
+ * Adds every entity's light to the frame, to be cut out of the shadow layer.
+ * @author Darin Beaudreau
+ */
+public class LightSystem {
+    public static void draw(EntityWorld world, RenderFrame frame) {
+        int needs = EntityWorld.POSITION | EntityWorld.LIGHT;
+        for(int i = 0; i < world.count; i++) {
+            if((world.mask[i] & needs) != needs) continue;
+            world.light[i].draw(frame, world.x[i], world.y[i], world.lightFollows[i]);
+        }
+    }
+}
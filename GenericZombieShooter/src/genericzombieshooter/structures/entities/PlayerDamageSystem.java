@@ -0,0 +1,48 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures.entities;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Checks everything from a hostile source, such as a zombie's spit, against
+ * the player. Each entity that lands inside the player is used up, and its
+ * source's damage is added to the damage the player takes.
+ * @author Darin Beaudreau
+ */
+public class PlayerDamageSystem {
+    /**
+     * Runs one tick.
+     * @param world The world to check.
+     * @param player The area the player takes up.
+     * @return The damage done to the player this tick.
+     **/
+    public static int update(EntityWorld world, Rectangle2D.Double player) {
+        int needs = EntityWorld.POSITION | EntityWorld.DAMAGE;
+        int damage = 0;
+        int i = 0;
+        while(i < world.count) {
+            boolean hit = false;
+            if(((world.mask[i] & needs) == needs) && world.sourceHostile[world.source[i]]) hit = player.contains(world.x[i], world.y[i]);
+            if(hit) {
+                damage += world.sourceDamage[world.source[i]];
+                world.remove(i);
+            } else i++;
+        }
+        return damage;
+    }
+}
@@ -0,0 +1,68 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.structures.entities;
+
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.structures.RenderFrame;
+
+/**
+ * Draws every entity with a sprite, leaving out the ones the camera can't see.
+ * Pickups are drawn in their own pass, under everything else.
+ * @author Darin Beaudreau
+ */
+public class SpriteSystem {
+    // Final Variables
+    private static final int BLINK_START = Globals.toTicks(3000); // How long before it expires an entity starts blinking.
+    private static final int BLINK_TICKS = Globals.toTicks(200); // How long each blink lasts.
+    
+    /**
+     * Draws one pass of sprites.
+     * @param world The world to draw.
+     * @param frame The frame to draw into.
+     * @param pickups Whether to draw the pickups, or everything but them.
+     **/
+    public static void draw(EntityWorld world, RenderFrame frame, boolean pickups) {
+        int needs = EntityWorld.POSITION | EntityWorld.COLLIDER | EntityWorld.SPRITE;
+        int layer = (pickups?EntityWorld.PICKUP:0);
+        for(int i = 0; i < world.count; i++) {
+            int m = world.mask[i];
+            if(((m & needs) != needs) || ((m & EntityWorld.PICKUP) != layer) || ((m & EntityWorld.HIDDEN) != 0)) continue;
+            if(((m & EntityWorld.BLINK) != 0) && SpriteSystem.isBlinking(world.life[i])) continue;
+            if(!frame.isVisible(world.x[i], world.y[i], Math.max(world.width[i], world.height[i]))) continue;
+            double px = world.x[i] - (world.width[i] / 2);
+            double py = world.y[i] - (world.height[i] / 2);
+            if(world.image[i] == null) {
+                frame.setColor(world.color[i]);
+                frame.fillRotatedRect(world.angle[i], world.x[i], world.y[i], px, py, world.width[i], world.height[i]);
+            } else if(world.angle[i] == 0) {
+                frame.drawImage(world.image[i], (int)px, (int)py);
+            } else {
+                frame.drawRotatedImage(world.image[i], world.angle[i], world.x[i], world.y[i], (int)px, (int)py);
+            }
+        }
+    }
+    
+    /**
+     * Works out whether a blinking entity is in the off half of a blink.
+     * @param life The ticks the entity has left.
+     * @return Whether to leave the entity out this frame.
+     **/
+    private static boolean isBlinking(int life) {
+        if(life > SpriteSystem.BLINK_START) return false;
+        return (((SpriteSystem.BLINK_START - life) / SpriteSystem.BLINK_TICKS) % 2) == 0;
+    }
+}
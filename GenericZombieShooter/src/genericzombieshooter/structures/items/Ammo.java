@@ -22,6 +22,7 @@ import genericzombieshooter.misc.Images;
 import genericzombieshooter.misc.Sounds;
 import genericzombieshooter.structures.Item;
 import genericzombieshooter.structures.Message;
+import genericzombieshooter.structures.StateBuffer;
 import java.awt.geom.Point2D;
 
 /**
@@ -36,11 +37,23 @@ public class Ammo extends Item {
     private int ammoCount;
     
     public Ammo(String weapon, int ammoCount, Point2D.Double p) {
-        super(Ammo.ID, "Ammo Pack", Images.AMMO_PACK, Ammo.DURATION);
+        super(Ammo.ID, "Ammo Pack", Images.AMMO_PACK, Ammo.DURATION, p);
         this.weapon = weapon;
         this.ammoCount = ammoCount;
-        this.x = p.x;
-        this.y = p.y;
+    }
+    
+    @Override
+    public void saveState(StateBuffer out) {
+        super.saveState(out);
+        out.putString(this.weapon);
+        out.putInt(this.ammoCount);
+    }
+    
+    @Override
+    public void loadState(StateBuffer in) {
+        super.loadState(in);
+        this.weapon = in.getString();
+        this.ammoCount = in.getInt();
     }
     
     @Override
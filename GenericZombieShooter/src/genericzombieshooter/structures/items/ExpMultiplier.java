@@ -36,9 +36,7 @@ public class ExpMultiplier extends Item {
     public static final long DURATION = 20 * 1000;
     
     public ExpMultiplier(Point2D.Double p) {
-        super(ExpMultiplier.ID, ExpMultiplier.EFFECT_NAME, Images.EXP_MULTIPLIER, ExpMultiplier.DURATION);
-        this.x = p.x;
-        this.y = p.y;
+        super(ExpMultiplier.ID, ExpMultiplier.EFFECT_NAME, Images.EXP_MULTIPLIER, ExpMultiplier.DURATION, p);
     }
     
     @Override
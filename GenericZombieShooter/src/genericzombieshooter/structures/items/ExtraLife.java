@@ -35,9 +35,7 @@ public class ExtraLife extends Item {
     public static final long DURATION = 15 * 1000;
     
     public ExtraLife(Point2D.Double p) {
-        super(ExtraLife.ID, ExtraLife.EFFECT_NAME, Images.EXTRA_LIFE, ExtraLife.DURATION);
-        this.x = p.x;
-        this.y = p.y;
+        super(ExtraLife.ID, ExtraLife.EFFECT_NAME, Images.EXTRA_LIFE, ExtraLife.DURATION, p);
     }
     
     @Override
@@ -22,6 +22,7 @@ import genericzombieshooter.misc.Images;
 import genericzombieshooter.misc.Sounds;
 import genericzombieshooter.structures.Item;
 import genericzombieshooter.structures.Message;
+import genericzombieshooter.structures.StateBuffer;
 import java.awt.geom.Point2D;
 
 /**
@@ -35,10 +36,20 @@ public class HealthPack extends Item {
     private int healAmount;
     
     public HealthPack(int healAmount, Point2D.Double p) {
-        super(HealthPack.ID, "Health Pack", Images.HEALTH_PACK, HealthPack.DURATION);
+        super(HealthPack.ID, "Health Pack", Images.HEALTH_PACK, HealthPack.DURATION, p);
         this.healAmount = healAmount;
-        this.x = p.x;
-        this.y = p.y;
+    }
+    
+    @Override
+    public void saveState(StateBuffer out) {
+        super.saveState(out);
+        out.putInt(this.healAmount);
+    }
+    
+    @Override
+    public void loadState(StateBuffer in) {
+        super.loadState(in);
+        this.healAmount = in.getInt();
     }
     
     @Override
@@ -36,9 +36,7 @@ public class Invulnerability extends Item {
     public static final long DURATION = 10 * 1000;
     
     public Invulnerability(Point2D.Double p) {
-        super(Invulnerability.ID, Invulnerability.EFFECT_NAME, Images.INVULNERABILITY, Invulnerability.DURATION);
-        this.x = p.x;
-        this.y = p.y;
+        super(Invulnerability.ID, Invulnerability.EFFECT_NAME, Images.INVULNERABILITY, Invulnerability.DURATION, p);
     }
     
     @Override
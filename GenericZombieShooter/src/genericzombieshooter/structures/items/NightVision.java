@@ -36,9 +36,7 @@ public class NightVision extends Item {
     public static final long DURATION = 30 * 1000;
     
     public NightVision(Point2D.Double p) {
-        super(NightVision.ID, NightVision.EFFECT_NAME, Images.NIGHT_VISION, NightVision.DURATION);
-        this.x = p.x;
-        this.y = p.y;
+        super(NightVision.ID, NightVision.EFFECT_NAME, Images.NIGHT_VISION, NightVision.DURATION, p);
     }
     
     @Override
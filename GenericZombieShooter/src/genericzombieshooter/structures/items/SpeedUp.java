@@ -37,9 +37,7 @@ public class SpeedUp extends Item {
     public static final int SPEED_MULTIPLIER = 2;
     
     public SpeedUp(Point2D.Double p) {
-        super(SpeedUp.ID, SpeedUp.EFFECT_NAME, Images.SPEED_UP, SpeedUp.DURATION);
-        this.x = p.x;
-        this.y = p.y;
+        super(SpeedUp.ID, SpeedUp.EFFECT_NAME, Images.SPEED_UP, SpeedUp.DURATION, p);
     }
     
     @Override
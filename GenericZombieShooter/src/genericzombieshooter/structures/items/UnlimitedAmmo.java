@@ -36,9 +36,7 @@ public class UnlimitedAmmo extends Item {
     public static final long DURATION = 10 * 1000;
     
     public UnlimitedAmmo(Point2D.Double p) {
-        super(UnlimitedAmmo.ID, UnlimitedAmmo.EFFECT_NAME, Images.UNLIMITED_AMMO, UnlimitedAmmo.DURATION);
-        this.x = p.x;
-        this.y = p.y;
+        super(UnlimitedAmmo.ID, UnlimitedAmmo.EFFECT_NAME, Images.UNLIMITED_AMMO, UnlimitedAmmo.DURATION, p);
     }
     
     @Override
@@ -21,15 +21,11 @@ import genericzombieshooter.actors.Zombie;
 import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Images;
 import genericzombieshooter.misc.Sounds;
-import genericzombieshooter.structures.Particle;
+import genericzombieshooter.structures.entities.EntityFactory;
 import genericzombieshooter.structures.items.UnlimitedAmmo;
 import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
 import java.awt.geom.Point2D;
-import java.awt.geom.Rectangle2D;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -46,11 +42,13 @@ public class AssaultRifle extends Weapon {
     private static final int DAMAGE_PER_PARTICLE = 100;
     private static final double PARTICLE_SPREAD = 5.0;
     private static final int PARTICLE_LIFE = 2000;
+    private static final int MAX_PARTICLES = 64;
     
     public AssaultRifle() {
         super("RTPS", KeyEvent.VK_2, "/resources/images/GZS_RTPS.png", 
               AssaultRifle.DEFAULT_AMMO, AssaultRifle.MAX_AMMO, AssaultRifle.AMMO_PER_USE, 
               10, true);
+        this.damageSource = Globals.ENTITIES.addSource(AssaultRifle.DAMAGE_PER_PARTICLE, AssaultRifle.MAX_PARTICLES);
     }
     
     @Override
@@ -72,74 +70,22 @@ public class AssaultRifle extends Weapon {
     
     @Override
     public void updateWeapon(List<Zombie> zombies) {
-        synchronized(this.particles) {
-            if(!this.particles.isEmpty()) {
-                // Update all particles and remove them if their life has expired or they are out of bounds.
-                Iterator<Particle> it = this.particles.iterator();
-                while(it.hasNext()) {
-                    Particle p = it.next();
-                    p.update();
-                    if(!p.isAlive() || p.outOfBounds()) {
-                        it.remove();
-                        continue;
-                    }
-                }
-            }
-        }
         this.cool();
     }
     
-    @Override
-    public void drawAmmo(Graphics2D g2d) {
-        synchronized(this.particles) {
-            // Draw all particles whose life has not yet expired.
-            if(!this.particles.isEmpty()) {
-                g2d.setColor(Color.ORANGE);
-                Iterator<Particle> it = this.particles.iterator();
-                while(it.hasNext()) {
-                    Particle p = it.next();
-                    if(p.isAlive()) p.draw(g2d);
-                }
-            }
-        }
-    }
-    
     @Override
     public void fire(double theta, Point2D.Double pos, Player player) {
         // If there is enough ammo left...
         if(this.canFire()) {
-            // Create a new bullet and add it to the list.
+            // Create a new bullet and add it to the world.
             int width = 4;
             int height = 10;
-            Particle p = new Particle(theta, AssaultRifle.PARTICLE_SPREAD, 8.0,
-                          (AssaultRifle.PARTICLE_LIFE / (int)Globals.SLEEP_TIME), new Point2D.Double(pos.x, pos.y),
-                           new Dimension(width, height), Images.RTPS_BULLET);
-            this.particles.add(p);
+            EntityFactory.createProjectile(Globals.ENTITIES, this.damageSource, theta, AssaultRifle.PARTICLE_SPREAD, 8.0, Globals.toTicks(AssaultRifle.PARTICLE_LIFE), 
+                                           pos.x, pos.y, width, height, Images.RTPS_BULLET, Color.ORANGE.getRGB(), true);
             // Use up ammo.
             if(!player.hasEffect(UnlimitedAmmo.EFFECT_NAME)) this.consumeAmmo();
             this.resetCooldown();
             Sounds.RTPS.play();
         }
     }
-    
-    @Override
-    public int checkForDamage(Rectangle2D.Double rect) {
-        synchronized(this.particles) {
-            int damage = 0;
-            if(!this.particles.isEmpty()) {
-                // Check all particles for collisions with the target rectangle.
-                Iterator<Particle> it = this.particles.iterator();
-                while(it.hasNext()) {
-                    Particle p = it.next();
-                    // If the particle is still alive and has collided with the target.
-                    if(p.isAlive() && p.checkCollision(rect)) {
-                        // Add the damage of the particle and remove it from the list.
-                        damage += AssaultRifle.DAMAGE_PER_PARTICLE;
-                        it.remove();
-                    }
-                }
-            }
-            return damage;
-        }
-    }
 }
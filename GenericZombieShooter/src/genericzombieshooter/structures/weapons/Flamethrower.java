@@ -21,17 +21,11 @@ import genericzombieshooter.actors.Zombie;
 import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Images;
 import genericzombieshooter.misc.Sounds;
-import genericzombieshooter.structures.Particle;
+import genericzombieshooter.structures.entities.EntityFactory;
 import genericzombieshooter.structures.items.UnlimitedAmmo;
 import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
-import java.awt.geom.AffineTransform;
-import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Point2D;
-import java.awt.geom.Rectangle2D;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -45,15 +39,17 @@ public class Flamethrower extends Weapon {
     private static final int DEFAULT_AMMO = 100;
     private static final int MAX_AMMO = 300;
     private static final int AMMO_PER_USE = 1;
-    private static final int PARTICLES_PER_USE = 8;
+    private static final int PARTICLES_PER_USE = 8; // Per 20ms step.
     private static final int DAMAGE_PER_PARTICLE = 3;
     private static final double PARTICLE_SPREAD = 15.0;
     private static final int PARTICLE_LIFE_MIN = 1000;
     private static final int PARTICLE_LIFE_MAX = 1400;
+    private static final int MAX_PARTICLES = (int)Math.ceil(Flamethrower.PARTICLES_PER_USE * Globals.TICK_SCALE) * (Globals.toTicks(Flamethrower.PARTICLE_LIFE_MAX) + 1);
     
     public Flamethrower() {
         super("The Flammenwerfer", KeyEvent.VK_4, "/resources/images/GZS_Flammenwerfer.png", 
               Flamethrower.DEFAULT_AMMO, Flamethrower.MAX_AMMO, Flamethrower.AMMO_PER_USE, 0, true);
+        this.damageSource = Globals.ENTITIES.addSource(Flamethrower.DAMAGE_PER_PARTICLE, Flamethrower.MAX_PARTICLES);
     }
     
     @Override
@@ -75,98 +71,28 @@ public class Flamethrower extends Weapon {
     
     @Override
     public void updateWeapon(List<Zombie> zombies) {
-        // Update all particles and remove them if their life has expired or they are out of bounds.
-        synchronized(this.particles) {
-            if(!this.particles.isEmpty()) {
-                Iterator<Particle> it = this.particles.iterator();
-                while(it.hasNext()) {
-                    Particle p = it.next();
-                    p.update();
-                    if(!p.isAlive() || p.outOfBounds()) {
-                        it.remove();
-                        continue;
-                    }
-                }
-            }
-        }
         this.cool();
     }
     
-    @Override
-    public void drawAmmo(Graphics2D g2d) {
-        // Draw all particles whose life has not yet expired.
-        synchronized(this.particles) {
-            if(!this.particles.isEmpty()) {
-                g2d.setColor(Color.ORANGE);
-                Iterator<Particle> it = this.particles.iterator();
-                while(it.hasNext()) {
-                    Particle p = it.next();
-                    if(p.isAlive()) p.draw(g2d);
-                }
-            }
-        }
-    }
-    
     @Override
     public void fire(double theta, Point2D.Double pos, Player player) {
-        synchronized(this.particles) {
-            // If there is enough ammo left...
-            if(this.canFire()) {
-                // Generate new particles and add them to the list.
-                for(int i = 0; i < Flamethrower.PARTICLES_PER_USE; i++) {
-                    int life = Flamethrower.PARTICLE_LIFE_MIN + (int)(Globals.r.nextInt((Flamethrower.PARTICLE_LIFE_MAX - Flamethrower.PARTICLE_LIFE_MIN) + 1));
-                    int size = Globals.r.nextInt(8) + 1;
-                    Particle p = new Particle(theta, Flamethrower.PARTICLE_SPREAD, 4.0,
-                                          (life / (int)Globals.SLEEP_TIME), new Point2D.Double(pos.x, pos.y),
-                                           new Dimension(size, size), Images.FIRE_PARTICLE) {
-                        @Override
-                        public void draw(Graphics2D g2d) {
-                            try {
-                                AffineTransform saved = g2d.getTransform();
-                                AffineTransform at = AffineTransform.getRotateInstance(this.theta, this.pos.x, this.pos.y).createInverse();
-                                double x = this.pos.x - (this.size.width / 2);
-                                double y = this.pos.y - (this.size.height / 2);
-                                g2d.setTransform(at);
-                                if(this.image == null) {
-                                    double w = this.size.width;
-                                    double h = this.size.height;
-                                    Rectangle2D.Double rect = new Rectangle2D.Double(x, y, w, h);
-                                    g2d.fill(at.createTransformedShape(rect));
-                                } else {
-                                    g2d.drawImage(this.image, (int)x, (int)y, null);
-                                }
-                                g2d.setTransform(saved);
-                            } catch(NoninvertibleTransformException nte) {}
-                        }
-                    };
-                    this.particles.add(p);
-                }
-                // Use up ammo.
-                if(!player.hasEffect(UnlimitedAmmo.EFFECT_NAME)) this.consumeAmmo();
-                this.resetCooldown();
-                if(!Sounds.FLAMETHROWER.getAudio().playing()) Sounds.FLAMETHROWER.play();
+        // If there is enough ammo left...
+        if(this.canFire()) {
+            // Generate new particles and add them to the world.
+            int particles = Globals.gameTime.perTick(Flamethrower.PARTICLES_PER_USE);
+            for(int i = 0; i < particles; i++) {
+                int life = Flamethrower.PARTICLE_LIFE_MIN + (int)(Globals.WEAPON_RANDOM.nextInt((Flamethrower.PARTICLE_LIFE_MAX - Flamethrower.PARTICLE_LIFE_MIN) + 1));
+                int size = Globals.WEAPON_RANDOM.nextInt(8) + 1;
+                EntityFactory.createProjectile(Globals.ENTITIES, this.damageSource, theta, Flamethrower.PARTICLE_SPREAD, 4.0, Globals.toTicks(life), 
+                                           pos.x, pos.y, size, size, Images.FIRE_PARTICLE, Color.ORANGE.getRGB(), false);
             }
-        }
-    }
-    
-    @Override
-    public int checkForDamage(Rectangle2D.Double rect) {
-        synchronized(this.particles) {
-            int damage = 0;
-            if(!this.particles.isEmpty()) {
-                // Check all particles for collisions with the target rectangle.
-                Iterator<Particle> it = this.particles.iterator();
-                while(it.hasNext()) {
-                    Particle p = it.next();
-                    // If the particle is still alive and has collided with the target.
-                    if(p.isAlive() && p.checkCollision(rect)) {
-                        // Add the damage of the particle and remove it from the list.
-                        damage += Flamethrower.DAMAGE_PER_PARTICLE;
-                        it.remove();
-                    }
-                }
+            // Use up ammo.
+            if(!player.hasEffect(UnlimitedAmmo.EFFECT_NAME)) {
+                int uses = Globals.gameTime.perTick(1);
+                for(int i = 0; (i < uses) && (this.ammoLeft >= Flamethrower.AMMO_PER_USE); i++) this.consumeAmmo();
             }
-            return damage;
+            this.resetCooldown();
+            if(!Sounds.FLAMETHROWER.isPlaying()) Sounds.FLAMETHROWER.play();
         }
     }
 }
@@ -18,15 +18,18 @@ package genericzombieshooter.structures.weapons;
 
 import genericzombieshooter.actors.Player;
 import genericzombieshooter.actors.Zombie;
+import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Images;
 import genericzombieshooter.structures.Animation;
 import genericzombieshooter.structures.LightSource;
+import genericzombieshooter.structures.RenderFrame;
+import genericzombieshooter.structures.SpriteTimeline;
+import genericzombieshooter.structures.StateBuffer;
+import genericzombieshooter.structures.entities.EntityFactory;
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -42,16 +45,17 @@ public class Flare extends Weapon {
     private static final int MAX_AMMO = 3;
     private static final int AMMO_PER_USE = 1;
     private static final int PARTICLE_LIFE = 30 * 1000;
+    private static final SpriteTimeline PARTICLE_TIMELINE = SpriteTimeline.get(Images.FLARE_PARTICLE, 32, 32, 3, 10, true);
     
     // Member Variables
     private List<Animation> flares;
-    private List<LightSource> lights;
+    private List<Integer> lights; // Handles of the lights the flares give off.
     
     public Flare() {
         super("Shiny Stick", KeyEvent.VK_7, "/resources/images/GZS_Flare.png",
               Flare.DEFAULT_AMMO, Flare.MAX_AMMO, Flare.AMMO_PER_USE, 100, false);
-        this.flares = Collections.synchronizedList(new ArrayList<Animation>());
-        this.lights = Collections.synchronizedList(new ArrayList<LightSource>());
+        this.flares = new ArrayList<Animation>();
+        this.lights = new ArrayList<Integer>();
     }
     
     @Override
@@ -65,42 +69,59 @@ public class Flare extends Weapon {
     
     @Override
     public void resetAmmo() {
-        synchronized(this.flares) { this.flares.clear(); }
-        synchronized(this.lights) { this.lights.clear(); }
+        this.flares.clear();
+        Iterator<Integer> it = this.lights.iterator();
+        while(it.hasNext()) {
+            int i = Globals.ENTITIES.find(it.next());
+            if(i >= 0) Globals.ENTITIES.remove(i);
+        }
+        this.lights.clear();
         this.ammoLeft = Flare.DEFAULT_AMMO;
     }
     
     @Override
-    public List<LightSource> getLights() { return this.lights; }
+    public void saveState(StateBuffer out, List<Zombie> zombies) {
+        super.saveState(out, zombies);
+        out.putInt(this.flares.size());
+        for(Animation a : this.flares) a.saveState(out);
+        out.putInt(this.lights.size());
+        for(Integer light : this.lights) out.putInt(light);
+    }
+    
+    @Override
+    public void loadState(StateBuffer in, List<Zombie> zombies) {
+        super.loadState(in, zombies);
+        this.flares.clear();
+        int count = in.getInt();
+        for(int i = 0; i < count; i++) {
+            Animation a = new Animation(Flare.PARTICLE_TIMELINE, 0, 0, Flare.PARTICLE_LIFE);
+            a.loadState(in);
+            this.flares.add(a);
+        }
+        this.lights.clear();
+        count = in.getInt();
+        for(int i = 0; i < count; i++) this.lights.add(in.getInt());
+    }
     
     @Override
     public void updateWeapon(List<Zombie> zombies) {
         { // Update particles.
-            synchronized(this.flares) {
-                if(!this.flares.isEmpty()) {
-                    Iterator<Animation> it = this.flares.iterator();
-                    while(it.hasNext()) {
-                        Animation a = it.next();
-                        a.update();
-                        if(!a.isActive()) {
-                            it.remove();
-                            continue;
-                        }
+            if(!this.flares.isEmpty()) {
+                Iterator<Animation> it = this.flares.iterator();
+                while(it.hasNext()) {
+                    Animation a = it.next();
+                    if(!a.isActive()) {
+                        it.remove();
+                        continue;
                     }
                 }
             }
         } // End particle updates.
-        { // Update light sources.
-            synchronized(this.lights) {
-                if(!this.lights.isEmpty()) {
-                    Iterator<LightSource> it = this.lights.iterator();
-                    while(it.hasNext()) {
-                        LightSource ls = it.next();
-                        if(!ls.isAlive()) {
-                            it.remove();
-                            continue;
-                        }
-                    }
+        { // Forget the lights that have burned out.
+            if(!this.lights.isEmpty()) {
+                Iterator<Integer> it = this.lights.iterator();
+                while(it.hasNext()) {
+                    if(Globals.ENTITIES.find(it.next()) < 0) it.remove();
                 }
             }
         } // End light source updates.
@@ -108,14 +129,12 @@ public class Flare extends Weapon {
     }
     
     @Override
-    public void drawAmmo(Graphics2D g2d) {
-        synchronized(this.flares) {
-            if(!this.flares.isEmpty()) {
-                Iterator<Animation> it = this.flares.iterator();
-                while(it.hasNext()) {
-                    Animation a = it.next();
-                    if(a.isActive()) a.draw(g2d);
-                }
+    public void drawAmmo(RenderFrame frame) {
+        if(!this.flares.isEmpty()) {
+            Iterator<Animation> it = this.flares.iterator();
+            while(it.hasNext()) {
+                Animation a = it.next();
+                if(a.isActive()) a.draw(frame);
             }
         }
     }
@@ -123,20 +142,15 @@ public class Flare extends Weapon {
     @Override
     public void fire(double theta, Point2D.Double pos, Player player) {
         if(this.canFire()) {
-            synchronized(this.flares) {
-                Animation a = new Animation(Images.FLARE_PARTICLE, 32, 32, 3, (int)pos.x, (int)pos.y, 
-                                            10, 0, Flare.PARTICLE_LIFE, true);
-                this.flares.add(a);
-            }
-            synchronized(this.lights) {
-                LightSource ls = new LightSource(new Point2D.Double(pos.x, pos.y), Flare.PARTICLE_LIFE, 150.0f,
-                                                 new float[]{0.0f, 0.6f, 0.8f, 1.0f},
-                                                 new Color[]{new Color(0.0f, 0.0f, 0.0f, 0.0f),
-                                                             new Color(0.0f, 0.0f, 0.0f, 0.75f),
-                                                             new Color(0.0f, 0.0f, 0.0f, 0.9f),
-                                                             Color.BLACK});
-                this.lights.add(ls);
-            }
+            Animation a = new Animation(Flare.PARTICLE_TIMELINE, (int)pos.x, (int)pos.y, Flare.PARTICLE_LIFE);
+            this.flares.add(a);
+            LightSource ls = new LightSource(150.0f, new float[]{0.0f, 0.6f, 0.8f, 1.0f},
+                                             new Color[]{new Color(0.0f, 0.0f, 0.0f, 0.0f),
+                                                         new Color(0.0f, 0.0f, 0.0f, 0.75f),
+                                                         new Color(0.0f, 0.0f, 0.0f, 0.9f),
+                                                         Color.BLACK});
+            int i = EntityFactory.createLight(Globals.ENTITIES, pos.x, pos.y, ls, Globals.toTicks(Flare.PARTICLE_LIFE), false);
+            this.lights.add(Globals.ENTITIES.getHandle(i));
             this.consumeAmmo();
             this.resetCooldown();
             this.fired = true;
@@ -21,14 +21,10 @@ import genericzombieshooter.actors.Zombie;
 import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Images;
 import genericzombieshooter.misc.Sounds;
-import genericzombieshooter.structures.Particle;
+import genericzombieshooter.structures.entities.EntityFactory;
 import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
 import java.awt.geom.Point2D;
-import java.awt.geom.Rectangle2D;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -45,10 +41,12 @@ public class Handgun extends Weapon{
     private static final int DAMAGE_PER_PARTICLE = 75;
     private static final double PARTICLE_SPREAD = 3.0;
     private static final int PARTICLE_LIFE = 1000;
+    private static final int MAX_PARTICLES = 64;
     
     public Handgun() {
         super("Popgun", KeyEvent.VK_1, "/resources/images/GZS_Popgun.png", 
               Handgun.DEFAULT_AMMO, Handgun.MAX_AMMO, Handgun.AMMO_PER_USE, 10, false);
+        this.damageSource = Globals.ENTITIES.addSource(Handgun.DAMAGE_PER_PARTICLE, Handgun.MAX_PARTICLES);
     }
     
     @Override
@@ -70,49 +68,18 @@ public class Handgun extends Weapon{
     
     @Override
     public void updateWeapon(List<Zombie> zombies) {
-        // Update all particles and remove them if their life has expired or they are out of bounds.
-        synchronized(this.particles) {
-            if(!this.particles.isEmpty()) {
-                Iterator<Particle> it = this.particles.iterator();
-                while(it.hasNext()) {
-                    Particle p = it.next();
-                    p.update();
-                    if(!p.isAlive() || p.outOfBounds()) {
-                        it.remove();
-                        continue;
-                    }
-                }
-            }
-        }
         this.cool();
     }
     
-    @Override
-    public void drawAmmo(Graphics2D g2d) {
-        // Draw all particles whose life has not yet expired.
-        synchronized(this.particles) {
-            if(!this.particles.isEmpty()) {
-                g2d.setColor(Color.ORANGE);
-                Iterator<Particle> it = this.particles.iterator();
-                while(it.hasNext()) {
-                    Particle p = it.next();
-                    if(p.isAlive()) p.draw(g2d);
-                }
-            }
-        }
-    }
-    
     @Override
     public void fire(double theta, Point2D.Double pos, Player player) {
         // If there is enough ammo left...
         if(this.canFire()) {
-            // Create a new bullet and add it to the list.
+            // Create a new bullet and add it to the world.
             int width = 4;
             int height = 10;
-            Particle p = new Particle(theta, Handgun.PARTICLE_SPREAD, 8.0,
-                          (Handgun.PARTICLE_LIFE / (int)Globals.SLEEP_TIME), new Point2D.Double(pos.x, pos.y),
-                           new Dimension(width, height), Images.POPGUN_BULLET);
-            this.particles.add(p);
+            EntityFactory.createProjectile(Globals.ENTITIES, this.damageSource, theta, Handgun.PARTICLE_SPREAD, 8.0, Globals.toTicks(Handgun.PARTICLE_LIFE), 
+                                           pos.x, pos.y, width, height, Images.POPGUN_BULLET, Color.ORANGE.getRGB(), true);
             // Use up ammo.
             this.consumeAmmo();
             this.resetCooldown();
@@ -120,25 +87,4 @@ public class Handgun extends Weapon{
             Sounds.POPGUN.play();
         }
     }
-    
-    @Override
-    public int checkForDamage(Rectangle2D.Double rect) {
-        synchronized(this.particles) {
-            int damage = 0;
-            if(!this.particles.isEmpty()) {
-                // Check all particles for collisions with the target rectangle.
-                Iterator<Particle> it = this.particles.iterator();
-                while(it.hasNext()) {
-                    Particle p = it.next();
-                    // If the particle is still alive and has collided with the target.
-                    if(p.isAlive() && p.checkCollision(rect)) {
-                        // Add the damage of the particle and remove it from the list.
-                        damage += Handgun.DAMAGE_PER_PARTICLE;
-                        it.remove();
-                    }
-                }
-            }
-            return damage;
-        }
-    }
 }
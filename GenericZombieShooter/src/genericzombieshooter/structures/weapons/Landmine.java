@@ -23,13 +23,13 @@ import genericzombieshooter.misc.Images;
 import genericzombieshooter.misc.Sounds;
 import genericzombieshooter.structures.Explosion;
 import genericzombieshooter.structures.Particle;
+import genericzombieshooter.structures.RenderFrame;
+import genericzombieshooter.structures.StateBuffer;
 import java.awt.Dimension;
-import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -44,7 +44,7 @@ public class Landmine extends Weapon {
     private static final int DEFAULT_AMMO = 1;
     private static final int MAX_AMMO = 3;
     private static final int AMMO_PER_USE = 1;
-    private static final int DAMAGE_PER_EXPLOSION = (500 / (int)Globals.SLEEP_TIME);
+    private static final int DAMAGE_PER_EXPLOSION = 25; // Per 20ms step.
     private static final int PARTICLE_LIFE = 3 * 60 * 1000;
     
     // Member variables.
@@ -53,7 +53,7 @@ public class Landmine extends Weapon {
     public Landmine() {
         super("Flip-Flop", KeyEvent.VK_6, "/resources/images/GZS_FlipFlop.png",
               Landmine.DEFAULT_AMMO, Landmine.MAX_AMMO, Landmine.AMMO_PER_USE, 50, false);
-        this.explosions = Collections.synchronizedList(new ArrayList<Explosion>());
+        this.explosions = new ArrayList<Explosion>();
     }
     
     @Override
@@ -68,47 +68,67 @@ public class Landmine extends Weapon {
     @Override
     public void resetAmmo() {
         super.resetAmmo();
-        synchronized(this.explosions) { this.explosions.clear(); }
+        this.explosions.clear();
         this.ammoLeft = Landmine.DEFAULT_AMMO;
     }
     
+    @Override
+    public void saveState(StateBuffer out, List<Zombie> zombies) {
+        super.saveState(out, zombies);
+        out.putInt(this.particles.size());
+        for(Particle p : this.particles) p.saveState(out);
+        out.putInt(this.explosions.size());
+        for(Explosion e : this.explosions) e.saveState(out);
+    }
+    
+    @Override
+    public void loadState(StateBuffer in, List<Zombie> zombies) {
+        super.loadState(in, zombies);
+        this.particles.clear();
+        int count = in.getInt();
+        for(int i = 0; i < count; i++) {
+            Particle p = this.createLandmineParticle(0, new Point2D.Double());
+            p.loadState(in);
+            this.particles.add(p);
+        }
+        this.explosions.clear();
+        count = in.getInt();
+        for(int i = 0; i < count; i++) {
+            Explosion e = new Explosion(Images.EXPLOSION_SHEET, new Point2D.Double());
+            e.loadState(in);
+            this.explosions.add(e);
+        }
+    }
+    
     @Override
     public void updateWeapon(List<Zombie> zombies) {
         { // Update particles.
-            synchronized(this.particles) {
-                Iterator<Particle> it = this.particles.iterator();
-                while(it.hasNext()) {
-                    Particle p = it.next();
-                    p.update();
+            Iterator<Particle> it = this.particles.iterator();
+            while(it.hasNext()) {
+                Particle p = it.next();
+                p.update();
 
-                    boolean collision = false;
-                    Iterator<Zombie> zit = zombies.iterator();
-                    while(zit.hasNext()) {
-                        Zombie z = zit.next();
-                        double width = z.getImage().getWidth();
-                        double height = z.getImage().getHeight();
-                        Rectangle2D.Double rect = new Rectangle2D.Double((z.x - (width / 2)), (z.y - (height / 2)), width, height);
-                        if(p.checkCollision(rect)) collision = true;
-                    }
-                    if(!p.isAlive() || collision) {
-                        this.explosions.add(new Explosion(Images.EXPLOSION_SHEET, p.getPos()));
-                        Sounds.EXPLOSION.play();
-                        it.remove();
-                        continue;
-                    }
+                boolean collision = false;
+                Iterator<Zombie> zit = zombies.iterator();
+                while(zit.hasNext()) {
+                    Zombie z = zit.next();
+                    if(p.checkCollision(z.getRect())) collision = true;
+                }
+                if(!p.isAlive() || collision) {
+                    this.explosions.add(new Explosion(Images.EXPLOSION_SHEET, p.getPos()));
+                    Sounds.EXPLOSION.play();
+                    it.remove();
+                    continue;
                 }
             }
         } // End particle updates.
         { // Update explosions.
-            synchronized(this.explosions) {
-                Iterator<Explosion> it = this.explosions.iterator();
-                while(it.hasNext()) {
-                    Explosion e = it.next();
-                    e.getImage().update();
-                    if(!e.getImage().isActive()) {
-                        it.remove();
-                        continue;
-                    }
+            Iterator<Explosion> it = this.explosions.iterator();
+            while(it.hasNext()) {
+                Explosion e = it.next();
+                if(!e.getImage().isActive()) {
+                    it.remove();
+                    continue;
                 }
             }
         } // End explosion updates.
@@ -116,43 +136,37 @@ public class Landmine extends Weapon {
     }
     
     @Override
-    public void drawAmmo(Graphics2D g2d) {
-        synchronized(this.particles) {
-            if(!this.particles.isEmpty()) {
-                Iterator<Particle> it = this.particles.iterator();
-                while(it.hasNext()) {
-                    Particle p = it.next();
-                    if(p.isAlive()) p.draw(g2d);
-                }
+    public void drawAmmo(RenderFrame frame) {
+        if(!this.particles.isEmpty()) {
+            Iterator<Particle> it = this.particles.iterator();
+            while(it.hasNext()) {
+                Particle p = it.next();
+                if(p.isAlive()) p.draw(frame);
             }
         }
-        synchronized(this.explosions) {
-            if(!this.explosions.isEmpty()) {
-                Iterator<Explosion> it = this.explosions.iterator();
-                while(it.hasNext()) {
-                    Explosion e = it.next();
-                    if(e.getImage().isActive()) e.draw(g2d);
-                }
+        if(!this.explosions.isEmpty()) {
+            Iterator<Explosion> it = this.explosions.iterator();
+            while(it.hasNext()) {
+                Explosion e = it.next();
+                if(e.getImage().isActive()) e.draw(frame);
             }
         }
     }
     
     @Override
     public void fire(double theta, Point2D.Double pos, Player player) {
-        synchronized(this.particles) {
-            if(this.canFire()) {
-                Particle p = createLandmineParticle(theta, pos);
-                this.particles.add(p);
-                this.consumeAmmo();
-                this.resetCooldown();
-                this.fired = true;
-                Sounds.LANDMINE_ARMED.play();
-            }
+        if(this.canFire()) {
+            Particle p = createLandmineParticle(theta, pos);
+            this.particles.add(p);
+            this.consumeAmmo();
+            this.resetCooldown();
+            this.fired = true;
+            Sounds.LANDMINE_ARMED.play();
         }
     }
     
     private Particle createLandmineParticle(double theta, Point2D.Double pos) {
-        Particle p = new Particle(theta, 0.0, 0.0, (Landmine.PARTICLE_LIFE / (int)Globals.SLEEP_TIME),
+        Particle p = new Particle(theta, 0.0, 0.0, Globals.toTicks(Landmine.PARTICLE_LIFE),
                                   pos, new Dimension(24, 24), Images.LANDMINE_PARTICLE) {
             @Override
             public void update() {
@@ -160,10 +174,10 @@ public class Landmine extends Weapon {
             }
             
             @Override
-            public void draw(Graphics2D g2d) {
+            public void draw(RenderFrame frame) {
                 double x = this.pos.x - (this.size.width / 2);
                 double y = this.pos.y - (this.size.height / 2);
-                g2d.drawImage(this.image, (int)x, (int)y, null);
+                frame.drawImage(this.image, (int)x, (int)y);
             }
         };
         
@@ -172,22 +186,19 @@ public class Landmine extends Weapon {
     
     @Override
     public int checkForDamage(Rectangle2D.Double rect) {
-        synchronized(this.explosions) {
-            int damage = 0;
-            if(!this.explosions.isEmpty()) {
-                Iterator<Explosion> it = this.explosions.iterator();
-                while(it.hasNext()) {
-                    Explosion e = it.next();
-                    if(e.getImage().isActive()) {
-                        Rectangle2D.Double expRect = new Rectangle2D.Double((e.x - (e.getSize().width / 2)), (e.y - (e.getSize().height / 2)),
-                                                                             e.getSize().width, e.getSize().height);
-                        if(rect.intersects(expRect)) {
-                            damage += Landmine.DAMAGE_PER_EXPLOSION;
-                        }
-                    }
+        int damage = 0;
+        if(!this.explosions.isEmpty()) {
+            Iterator<Explosion> it = this.explosions.iterator();
+            while(it.hasNext()) {
+                // Explosions keep doing damage until updateWeapon() clears the finished ones, after the zombies are hit.
+                Explosion e = it.next();
+                Rectangle2D.Double expRect = new Rectangle2D.Double((e.x - (e.getSize().width / 2)), (e.y - (e.getSize().height / 2)),
+                                                                     e.getSize().width, e.getSize().height);
+                if(rect.intersects(expRect)) {
+                    damage += Globals.gameTime.perTick(Landmine.DAMAGE_PER_EXPLOSION);
                 }
             }
-            return damage;
         }
+        return damage;
     }
 }
@@ -21,16 +21,15 @@ import genericzombieshooter.actors.Zombie;
 import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Images;
 import genericzombieshooter.structures.Particle;
-import java.awt.BasicStroke;
+import genericzombieshooter.structures.RenderFrame;
+import genericzombieshooter.structures.StateBuffer;
 import java.awt.Color;
 import java.awt.Dimension;
-import java.awt.Graphics2D;
 import java.awt.event.KeyEvent;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -52,6 +51,7 @@ public class LaserWire extends Weapon {
     private static final int PARTICLE_LIFE = 2 * 60 * 1000;
     private static final int LASER_LIFE = 30 * 1000;
     private static final int MAX_LASER_DIST = 300;
+    private static final Color LASER_COLOR = new Color(191, 74, 99);
     
     // Member Variables
     private List<Line2D.Double> lasers;
@@ -60,7 +60,7 @@ public class LaserWire extends Weapon {
     public LaserWire() {
         super("Laser Wire", KeyEvent.VK_8, "/resources/images/GZS_LaserWire.png",
               LaserWire.DEFAULT_AMMO, LaserWire.MAX_AMMO, LaserWire.AMMO_PER_USE, 50, false);
-        this.lasers = Collections.synchronizedList(new ArrayList<Line2D.Double>());
+        this.lasers = new ArrayList<Line2D.Double>();
         this.lastDamageDone = 0;
     }
     
@@ -76,7 +76,7 @@ public class LaserWire extends Weapon {
     @Override
     public void resetAmmo() {
         super.resetAmmo();
-        synchronized(this.lasers) { this.lasers.clear(); }
+        this.lasers.clear();
         this.ammoLeft = LaserWire.DEFAULT_AMMO;
     }
     
@@ -86,45 +86,72 @@ public class LaserWire extends Weapon {
         return super.canFire() && lessThanTwoTerminals;
     }
     
+    @Override
+    public void saveState(StateBuffer out, List<Zombie> zombies) {
+        super.saveState(out, zombies);
+        out.putInt(this.particles.size());
+        for(Particle p : this.particles) p.saveState(out);
+        out.putInt(this.lasers.size());
+        for(Line2D.Double line : this.lasers) {
+            out.putDouble(line.x1);
+            out.putDouble(line.y1);
+            out.putDouble(line.x2);
+            out.putDouble(line.y2);
+        }
+        out.putLong(this.lastDamageDone);
+    }
+    
+    @Override
+    public void loadState(StateBuffer in, List<Zombie> zombies) {
+        super.loadState(in, zombies);
+        this.particles.clear();
+        int count = in.getInt();
+        for(int i = 0; i < count; i++) {
+            Particle p = this.createLaserTerminal(0, new Point2D.Double());
+            p.loadState(in);
+            this.particles.add(p);
+        }
+        this.lasers.clear();
+        count = in.getInt();
+        for(int i = 0; i < count; i++) this.lasers.add(new Line2D.Double(in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble()));
+        this.lastDamageDone = in.getLong();
+    }
+    
     @Override
     public void updateWeapon(List<Zombie> zombies) {
         { // Update particles.
-            synchronized(this.particles) {
-                if(!this.particles.isEmpty()) {
-                    Iterator<Particle> it = this.particles.iterator();
-                    while(it.hasNext()) {
-                        Particle p = it.next();
-                        p.update();
-                        
-                        if(!p.isAlive()) {
-                            it.remove();
-                            continue;
-                        }
-                    }
-                } else {
-                    synchronized(this.lasers) {
-                        if(!this.lasers.isEmpty()) this.lasers.clear();
+            if(!this.particles.isEmpty()) {
+                Iterator<Particle> it = this.particles.iterator();
+                while(it.hasNext()) {
+                    Particle p = it.next();
+                    p.update();
+                    
+                    if(!p.isAlive()) {
+                        it.remove();
+                        continue;
                     }
                 }
-                
-                // Check if there are exactly two terminals. If so, create a laser.
-                if((this.particles.size() == 2) && this.lasers.isEmpty()) {
-                    Point2D.Double p1 = this.particles.get(0).getPos();
-                    Point2D.Double p2 = this.particles.get(1).getPos();
-                    /* If the distance between the two terminals is too far,
-                       refund the player's ammo and delete the two terminals placed. */
-                    double xD = p1.x - p2.x;
-                    double yD = p1.y - p2.y;
-                    if((Math.sqrt((xD * xD) + (yD * yD))) >= LaserWire.MAX_LASER_DIST) {
-                        this.particles.clear();
-                        this.ammoLeft = LaserWire.DEFAULT_AMMO;
-                    } else {
-                        this.lasers.add(new Line2D.Double(p1, p2));
-                        int newLife = LaserWire.LASER_LIFE / (int)Globals.SLEEP_TIME;
-                        this.particles.get(0).setLife(newLife);
-                        this.particles.get(1).setLife(newLife);
-                        this.lastDamageDone = Globals.gameTime.getElapsedMillis();
-                    }
+            } else {
+                if(!this.lasers.isEmpty()) this.lasers.clear();
+            }
+            
+            // Check if there are exactly two terminals. If so, create a laser.
+            if((this.particles.size() == 2) && this.lasers.isEmpty()) {
+                Point2D.Double p1 = this.particles.get(0).getPos();
+                Point2D.Double p2 = this.particles.get(1).getPos();
+                /* If the distance between the two terminals is too far,
+                   refund the player's ammo and delete the two terminals placed. */
+                double xD = p1.x - p2.x;
+                double yD = p1.y - p2.y;
+                if((Math.sqrt((xD * xD) + (yD * yD))) >= LaserWire.MAX_LASER_DIST) {
+                    this.particles.clear();
+                    this.ammoLeft = LaserWire.DEFAULT_AMMO;
+                } else {
+                    this.lasers.add(new Line2D.Double(p1, p2));
+                    int newLife = Globals.toTicks(LaserWire.LASER_LIFE);
+                    this.particles.get(0).setLife(newLife);
+                    this.particles.get(1).setLife(newLife);
+                    this.lastDamageDone = Globals.gameTime.getElapsedMillis();
                 }
             }
         } // End particle updates.
@@ -132,35 +159,31 @@ public class LaserWire extends Weapon {
     }
     
     @Override
-    public void drawAmmo(Graphics2D g2d) {
+    public void drawAmmo(RenderFrame frame) {
         { // Draw particles.
-            synchronized(this.particles) {
-                if(!this.particles.isEmpty()) {
-                    Iterator<Particle> it = this.particles.iterator();
-                    while(it.hasNext()) {
-                        Particle p = it.next();
-                        if(p.isAlive()) p.draw(g2d);
-                    }
-                }
-                if(this.particles.size() == 1) {
-                    Point2D.Double pos = this.particles.get(0).getPos();
-                    g2d.setColor(new Color(191, 74, 99));
-                    g2d.setStroke(new BasicStroke(2));
-                    g2d.drawOval((int)(pos.x - LaserWire.MAX_LASER_DIST), (int)(pos.y - LaserWire.MAX_LASER_DIST), 
-                                 (LaserWire.MAX_LASER_DIST * 2), (LaserWire.MAX_LASER_DIST * 2));
+            if(!this.particles.isEmpty()) {
+                Iterator<Particle> it = this.particles.iterator();
+                while(it.hasNext()) {
+                    Particle p = it.next();
+                    if(p.isAlive()) p.draw(frame);
                 }
             }
+            if(this.particles.size() == 1) {
+                Point2D.Double pos = this.particles.get(0).getPos();
+                frame.setColor(LaserWire.LASER_COLOR);
+                frame.setStroke(2.0f);
+                frame.drawOval((int)(pos.x - LaserWire.MAX_LASER_DIST), (int)(pos.y - LaserWire.MAX_LASER_DIST), 
+                             (LaserWire.MAX_LASER_DIST * 2), (LaserWire.MAX_LASER_DIST * 2));
+            }
         } // End drawing particles.
         { // Draw lasers.
-            synchronized(this.lasers) {
-                if(!this.lasers.isEmpty()) {
-                    g2d.setColor(new Color(191, 74, 99));
-                    g2d.setStroke(new BasicStroke(2));
-                    Iterator<Line2D.Double> it = this.lasers.iterator();
-                    while(it.hasNext()) {
-                        Line2D.Double line = it.next();
-                        g2d.draw(line);
-                    }
+            if(!this.lasers.isEmpty()) {
+                frame.setColor(LaserWire.LASER_COLOR);
+                frame.setStroke(2.0f);
+                Iterator<Line2D.Double> it = this.lasers.iterator();
+                while(it.hasNext()) {
+                    Line2D.Double line = it.next();
+                    frame.drawLine(line.x1, line.y1, line.x2, line.y2);
                 }
             }
         } // End drawing lasers.
@@ -168,19 +191,17 @@ public class LaserWire extends Weapon {
     
     @Override
     public void fire(double theta, Point2D.Double pos, Player player) {
-        synchronized(this.particles) {
-            if(this.canFire()) {
-                Particle p = createLaserTerminal(theta, pos);
-                this.particles.add(p);
-                if(this.particles.size() == 2) this.consumeAmmo();
-                this.resetCooldown();
-                this.fired = true;
-            }
+        if(this.canFire()) {
+            Particle p = createLaserTerminal(theta, pos);
+            this.particles.add(p);
+            if(this.particles.size() == 2) this.consumeAmmo();
+            this.resetCooldown();
+            this.fired = true;
         }
     }
     
     private Particle createLaserTerminal(double theta, Point2D.Double pos) {
-        Particle p = new Particle(theta, 0.0, 0.0, (LaserWire.PARTICLE_LIFE / (int)Globals.SLEEP_TIME),
+        Particle p = new Particle(theta, 0.0, 0.0, Globals.toTicks(LaserWire.PARTICLE_LIFE),
                                   pos, new Dimension(16, 16), Images.LASER_TERMINAL) {
             @Override
             public void update() {
@@ -188,10 +209,10 @@ public class LaserWire extends Weapon {
             }
             
             @Override
-            public void draw(Graphics2D g2d) {
+            public void draw(RenderFrame frame) {
                 double x = this.pos.x - (this.size.width / 2);
                 double y = this.pos.y - (this.size.height / 2);
-                g2d.drawImage(this.image, (int)x, (int)y, null);
+                frame.drawImage(this.image, (int)x, (int)y);
             }
         };
         return p;
@@ -199,21 +220,19 @@ public class LaserWire extends Weapon {
     
     @Override
     public int checkForDamage(Rectangle2D.Double rect) {
-        synchronized(this.lasers) {
-            int damage = 0;
-            if(Globals.gameTime.getElapsedMillis() >= (this.lastDamageDone + LaserWire.LASER_COOLDOWN)) {
-                if(!this.lasers.isEmpty()) {
-                    Iterator<Line2D.Double> it = this.lasers.iterator();
-                    while(it.hasNext()) {
-                        Line2D.Double laser = it.next();
-                        if(rect.intersectsLine(laser)) {
-                            damage += LaserWire.DAMAGE_BY_LASER;
-                            this.lastDamageDone = Globals.gameTime.getElapsedMillis();
-                        }
+        int damage = 0;
+        if(Globals.gameTime.getElapsedMillis() >= (this.lastDamageDone + LaserWire.LASER_COOLDOWN)) {
+            if(!this.lasers.isEmpty()) {
+                Iterator<Line2D.Double> it = this.lasers.iterator();
+                while(it.hasNext()) {
+                    Line2D.Double laser = it.next();
+                    if(rect.intersectsLine(laser)) {
+                        damage += LaserWire.DAMAGE_BY_LASER;
+                        this.lastDamageDone = Globals.gameTime.getElapsedMillis();
                     }
                 }
             }
-            return damage;
         }
+        return damage;
     }
 }
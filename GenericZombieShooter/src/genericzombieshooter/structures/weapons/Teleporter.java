@@ -20,6 +20,7 @@ import genericzombieshooter.actors.Player;
 import genericzombieshooter.actors.Zombie;
 import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Sounds;
+import genericzombieshooter.structures.ObstacleMap;
 import java.awt.event.KeyEvent;
 import java.awt.geom.Point2D;
 import java.util.List;
@@ -35,7 +36,7 @@ public class Teleporter extends Weapon {
     private static final int DEFAULT_AMMO = 1;
     private static final int MAX_AMMO = 1;
     private static final int AMMO_PER_USE = 1;
-    private static final long COOLDOWN = ((60 * 1000) / Globals.SLEEP_TIME);
+    private static final long COOLDOWN = Globals.toTicks(60 * 1000);
     private static double MIN_TELEPORT_DISTANCE = 300;
     
     public Teleporter() {
@@ -72,16 +73,32 @@ public class Teleporter extends Weapon {
         }
     }
     
+    /**
+     * Picks a random spot far enough from the player, where the player won't
+     * end up inside an obstacle.
+     * @param player The player being teleported.
+     * @return The new position of the player's top-left corner.
+     **/
     private Point2D.Double getTeleportLocation(Player player) {
         Point2D.Double p = new Point2D.Double();
         boolean validPoint = false;
+        int samples = 0;
         while(!validPoint) {
-            p.x = Globals.r.nextDouble() * (Globals.W_WIDTH - player.width);
-            p.y = Globals.r.nextDouble() * (Globals.W_HEIGHT - player.height);
+            p.x = Globals.WEAPON_RANDOM.nextDouble() * (Globals.ARENA.getWidth() - player.width);
+            p.y = Globals.WEAPON_RANDOM.nextDouble() * (Globals.ARENA.getHeight() - player.height);
             double xD = p.x - player.x;
             double yD = p.y - player.y;
             double dist = Math.sqrt((xD * xD) + (yD * yD));
-            if(dist >= Teleporter.MIN_TELEPORT_DISTANCE) validPoint = true;
+            boolean open = !Globals.OBSTACLES.isBlockedAt((p.x + (player.width / 2)), (p.y + (player.height / 2)));
+            if(!open) samples++;
+            if((dist >= Teleporter.MIN_TELEPORT_DISTANCE) && open) validPoint = true;
+            else if(samples >= ObstacleMap.MAX_SAMPLES) {
+                // Nearly everything is blocked, so settle for the open spot nearest the last one tried.
+                Point2D.Double center = Globals.OBSTACLES.findOpen((p.x + (player.width / 2)), (p.y + (player.height / 2)));
+                p.x = center.x - (player.width / 2);
+                p.y = center.y - (player.height / 2);
+                validPoint = true;
+            }
         }
         return p;
     }
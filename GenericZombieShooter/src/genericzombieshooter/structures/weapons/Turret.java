@@ -16,43 +16,42 @@
  **/
 package genericzombieshooter.structures.weapons;
 
-import genericzombieshooter.GZSFramework;
 import genericzombieshooter.actors.Zombie;
+import genericzombieshooter.misc.AssetCache;
 import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Images;
 import genericzombieshooter.misc.Sounds;
-import genericzombieshooter.structures.Particle;
-import java.awt.BasicStroke;
+import genericzombieshooter.structures.RenderFrame;
+import genericzombieshooter.structures.StateBuffer;
+import genericzombieshooter.structures.entities.EntityFactory;
 import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.RasterFormatException;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 /**
- * An automated turret that fires at nearby zombies.
+ * An automated turret that fires at nearby zombies. Its bullets go into the
+ * entity world under the damage source of the weapon that placed it.
  * @author Darin Beaudreau
  */
 public class Turret extends Point2D.Double {
     // Final Variables
-    private static final int DAMAGE = 100;
+    public static final int DAMAGE = 100;
     private static final double PARTICLE_SPREAD = 5.0;
     private static final long PARTICLE_LIFE = 2000;
     private static final long FIRING_RATE = 400;
     private static final int ATTACK_RADIUS = 250;
+    private static final String PIECES_PATH = "/resources/images/GZS_TurretPieces.png";
     
     // Member Variables
     private BufferedImage turretMount;
     private BufferedImage turretHead;
+    private boolean holdingPieces; // Whether the pieces image is still acquired from the cache.
     
-    private List<Particle> particles;
+    private int damageSource; // The source the turret's bullets are fired from.
     
     private Zombie target; // Used to calculate position to fire at each update.
     private double theta;
@@ -60,16 +59,18 @@ public class Turret extends Point2D.Double {
     private long lastFired;
     private long deathTime;
     
-    public Turret(Point2D.Double pos, long life) {
+    public Turret(Point2D.Double pos, long life, int damageSource) {
         super(pos.x, pos.y);
+        this.damageSource = damageSource;
         try {
-            BufferedImage turretPieces = GZSFramework.loadImage("/resources/images/GZS_TurretPieces.png");
+            // Every turret shares the same pieces, which are only read once.
+            BufferedImage turretPieces = AssetCache.acquire(Turret.PIECES_PATH);
+            this.holdingPieces = true;
             this.turretMount = turretPieces.getSubimage(0, 0, 48, 48);
             this.turretHead = turretPieces.getSubimage(48, 0, 48, 48);
         } catch(RasterFormatException rfe) {
             System.out.println("Problem getting subimages of turret.");
         }
-        this.particles = Collections.synchronizedList(new ArrayList<Particle>());
         this.target = null;
         this.theta = 0;
         this.lastFired = Globals.gameTime.getElapsedMillis();
@@ -79,54 +80,43 @@ public class Turret extends Point2D.Double {
     public boolean isAlive() { return (Globals.gameTime.getElapsedMillis() < this.deathTime); }
     private boolean canFire() { return (Globals.gameTime.getElapsedMillis() >= (this.lastFired + Turret.FIRING_RATE)); }
     
-    public void reset() {
-        synchronized(this.particles) { this.particles.clear(); }
+    /**
+     * Lets go of the turret's images once it has been removed from the field.
+     **/
+    public void dispose() {
+        if(this.holdingPieces) {
+            AssetCache.release(Turret.PIECES_PATH);
+            this.holdingPieces = false;
+        }
     }
     
     public void update(List<Zombie> targets) {
         if(this.isAlive()) {
-            { // Update particles.
-                synchronized(this.particles) {
-                    if(!this.particles.isEmpty()) {
-                        Iterator<Particle> it = this.particles.iterator();
-                        while(it.hasNext()) {
-                            Particle p = it.next();
-                            p.update();
-                            if(!p.isAlive() || p.outOfBounds()) {
-                                it.remove();
-                                continue;
-                            }
-                        }
-                    }
-                }
-            } // End particle updates.
             { // Update zombie target.
                 if(!targets.isEmpty()) {
                     double xD = 1000;
                     double yD = 1000;
                     double dist = Math.sqrt((xD * xD) + (yD * yD));
                     if(this.target != null) {
-                        xD = this.target.x - this.x;
-                        yD = this.target.y - this.y;
+                        xD = this.target.getX() - this.x;
+                        yD = this.target.getY() - this.y;
                         dist = Math.sqrt((xD * xD) + (yD * yD));
                     }
-                    synchronized(targets) {
-                        Iterator<Zombie> it = targets.iterator();
-                        while(it.hasNext()) {
-                            Zombie z = it.next();
-                            double xD2 = z.x - this.x;
-                            double yD2 = z.y - this.y;
-                            double dist2 = Math.sqrt((xD2 * xD2) + (yD2 * yD2));
-                            if((!z.isDead() && (dist2 < dist)) && (dist2 <= Turret.ATTACK_RADIUS)) {
-                                // Switch targets.
-                                this.target = z;
-                            }
+                    Iterator<Zombie> it = targets.iterator();
+                    while(it.hasNext()) {
+                        Zombie z = it.next();
+                        double xD2 = z.getX() - this.x;
+                        double yD2 = z.getY() - this.y;
+                        double dist2 = Math.sqrt((xD2 * xD2) + (yD2 * yD2));
+                        if((!z.isDead() && (dist2 < dist)) && (dist2 <= Turret.ATTACK_RADIUS)) {
+                            // Switch targets.
+                            this.target = z;
                         }
                     }
                     
                     if(this.target != null) {
                         // Update theta for new target.
-                        this.theta = Math.atan2((this.y - this.target.y), (this.x - this.target.x)) - (Math.PI / 2);
+                        this.theta = Math.atan2((this.y - this.target.getY()), (this.x - this.target.getX())) - (Math.PI / 2);
                     }
                 }
             } // End updating target.
@@ -139,51 +129,70 @@ public class Turret extends Point2D.Double {
         }
     }
     
-    public void draw(Graphics2D g2d) {
+    /**
+     * Writes the turret's state. The zombie it is aiming at is written as its
+     * index in the wave's list of zombies.
+     * @param out The buffer to write to.
+     * @param zombies The zombies in the current wave.
+     **/
+    public void saveState(StateBuffer out, List<Zombie> zombies) {
+        out.putDouble(this.x);
+        out.putDouble(this.y);
+        out.putDouble(this.theta);
+        out.putLong(this.lastFired);
+        out.putLong(this.deathTime);
+        int targetIndex = -1;
+        for(int i = 0; i < zombies.size(); i++) {
+            // Zombies are points, so equals() would match any zombie in the same place.
+            if(zombies.get(i) == this.target) {
+                targetIndex = i;
+                break;
+            }
+        }
+        out.putInt(targetIndex);
+    }
+    
+    public void loadState(StateBuffer in, List<Zombie> zombies) {
+        this.x = in.getDouble();
+        this.y = in.getDouble();
+        this.theta = in.getDouble();
+        this.lastFired = in.getLong();
+        this.deathTime = in.getLong();
+        int targetIndex = in.getInt();
+        this.target = ((targetIndex >= 0)?zombies.get(targetIndex):null);
+    }
+    
+    public void draw(RenderFrame frame) {
         { // Draw the turrent's mount.
             if(this.turretMount != null) {
                 int xPos = (int)(this.x - (this.turretMount.getWidth() / 2));
                 int yPos = (int)(this.y - (this.turretMount.getHeight() / 2));
-                g2d.drawImage(this.turretMount, xPos, yPos, null);
+                frame.drawImage(this.turretMount, xPos, yPos);
             } else {
                 int xPos = (int)(this.x - 24);
                 int yPos = (int)(this.y - 24);
-                g2d.setColor(Color.GRAY);
-                g2d.fillRect(xPos, yPos, 48, 48);
+                frame.setColor(Color.GRAY);
+                frame.fillRect(xPos, yPos, 48, 48);
             }
         } // End drawing the turret's mount.
-        { // Draw particles.
-            synchronized(this.particles) {
-                if(!this.particles.isEmpty()) {
-                    Iterator<Particle> it = this.particles.iterator();
-                    while(it.hasNext()) {
-                        Particle p = it.next();
-                        if(p.isAlive()) p.draw(g2d);
-                    }
-                }
-            }
-        } // End drawing particles.
         { // Draw turret head.
-            AffineTransform saved = g2d.getTransform();
-            g2d.setTransform(AffineTransform.getRotateInstance(this.theta, this.x, this.y));
             if(this.turretHead != null) {
                 int xPos = (int)(this.x - (this.turretHead.getWidth() / 2));
                 int yPos = (int)(this.y - (this.turretHead.getHeight() / 2));
-                g2d.drawImage(this.turretHead, xPos, yPos, null);
+                frame.drawRotatedImage(this.turretHead, this.theta, this.x, this.y, xPos, yPos);
             } else {
                 int xPos = (int)(this.x - 18);
                 int yPos = (int)(this.y - 18);
-                g2d.setColor(Color.RED);
-                g2d.fillRect(xPos, yPos, 36, 36);
+                frame.setColor(Color.RED);
+                frame.fillRect(xPos, yPos, 36, 36);
             }
-            g2d.setTransform(saved);
         } // End drawing turret head.
         { // Draw turret's ring of influence.
             int xPos = (int)(this.x - Turret.ATTACK_RADIUS);
             int yPos = (int)(this.y - Turret.ATTACK_RADIUS);
-            g2d.setColor(Color.RED);
-            g2d.setStroke(new BasicStroke(2));
-            g2d.drawOval(xPos, yPos, (Turret.ATTACK_RADIUS * 2), (Turret.ATTACK_RADIUS * 2));
+            frame.setColor(Color.RED);
+            frame.setStroke(2.0f);
+            frame.drawOval(xPos, yPos, (Turret.ATTACK_RADIUS * 2), (Turret.ATTACK_RADIUS * 2));
         } // End drawing ring of influence.
     }
     
@@ -191,29 +200,11 @@ public class Turret extends Point2D.Double {
         if(this.canFire()) {
             Point2D.Double firingPos = new Point2D.Double(this.x, (this.y - 25));
             AffineTransform.getRotateInstance(this.theta, this.x, this.y).transform(firingPos, firingPos);
-            Particle p = new Particle((-this.theta + Math.PI), Turret.PARTICLE_SPREAD, 10.0,
-                                      (int)(Turret.PARTICLE_LIFE / Globals.SLEEP_TIME), firingPos,
-                                      new Dimension(4, 10), Images.RTPS_BULLET);
-            this.particles.add(p);
+            EntityFactory.createProjectile(Globals.ENTITIES, this.damageSource, (-this.theta + Math.PI), Turret.PARTICLE_SPREAD, 10.0, 
+                                           Globals.toTicks(Turret.PARTICLE_LIFE), firingPos.x, firingPos.y, 4, 10, 
+                                           Images.RTPS_BULLET, Color.ORANGE.getRGB(), true);
             this.lastFired = Globals.gameTime.getElapsedMillis();
             Sounds.RTPS.play();
         }
     }
-    
-    public int checkForDamage(Rectangle2D.Double rect) {
-        int damage = 0;
-        synchronized(this.particles) {
-            if(!this.particles.isEmpty()) {
-                Iterator<Particle> it = this.particles.iterator();
-                while(it.hasNext()) {
-                    Particle p = it.next();
-                    if(p.isAlive() && p.checkCollision(rect)) {
-                        damage += Turret.DAMAGE;
-                        it.remove();
-                    }
-                }
-            }
-        }
-        return damage;
-    }
 }
@@ -18,13 +18,13 @@ package genericzombieshooter.structures.weapons;
 
 import genericzombieshooter.actors.Player;
 import genericzombieshooter.actors.Zombie;
+import genericzombieshooter.misc.Globals;
 import genericzombieshooter.misc.Sounds;
-import java.awt.Graphics2D;
+import genericzombieshooter.structures.RenderFrame;
+import genericzombieshooter.structures.StateBuffer;
 import java.awt.event.KeyEvent;
 import java.awt.geom.Point2D;
-import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -40,6 +40,7 @@ public class TurretWeapon extends Weapon {
     private static final int MAX_AMMO = 1;
     private static final int AMMO_PER_USE = 1;
     private static final long TURRET_LIFE = 60 * 1000;
+    private static final int MAX_PARTICLES = 64;
     
     // Member Variables
     private List<Turret> turrets;
@@ -48,7 +49,8 @@ public class TurretWeapon extends Weapon {
         super("Sentry Gun", KeyEvent.VK_9, "/resources/images/GZS_Turret.png",
               TurretWeapon.DEFAULT_AMMO, TurretWeapon.MAX_AMMO, TurretWeapon.AMMO_PER_USE, 
               50, false);
-        this.turrets = Collections.synchronizedList(new ArrayList<Turret>());
+        this.turrets = new ArrayList<Turret>();
+        this.damageSource = Globals.ENTITIES.addSource(Turret.DAMAGE, TurretWeapon.MAX_PARTICLES);
     }
     
     @Override
@@ -62,14 +64,12 @@ public class TurretWeapon extends Weapon {
     
     @Override
     public void resetAmmo() {
-        synchronized(this.turrets) {
-            Iterator<Turret> it = this.turrets.iterator();
-            while(it.hasNext()) {
-                Turret t = it.next();
-                t.reset();
-            }
-            this.turrets.clear(); 
+        super.resetAmmo();
+        Iterator<Turret> it = this.turrets.iterator();
+        while(it.hasNext()) {
+            it.next().dispose();
         }
+        this.turrets.clear(); 
         this.ammoLeft = TurretWeapon.DEFAULT_AMMO;
     }
     
@@ -81,18 +81,39 @@ public class TurretWeapon extends Weapon {
         return superBool && turretsEmpty; 
     }
     
+    @Override
+    public void saveState(StateBuffer out, List<Zombie> zombies) {
+        super.saveState(out, zombies);
+        out.putInt(this.turrets.size());
+        Iterator<Turret> it = this.turrets.iterator();
+        while(it.hasNext()) it.next().saveState(out, zombies);
+    }
+    
+    @Override
+    public void loadState(StateBuffer in, List<Zombie> zombies) {
+        super.loadState(in, zombies);
+        Iterator<Turret> it = this.turrets.iterator();
+        while(it.hasNext()) it.next().dispose();
+        this.turrets.clear();
+        int count = in.getInt();
+        for(int i = 0; i < count; i++) {
+            Turret t = new Turret(new Point2D.Double(), 0, this.damageSource);
+            t.loadState(in, zombies);
+            this.turrets.add(t);
+        }
+    }
+    
     @Override
     public void updateWeapon(List<Zombie> zombies) {
-        synchronized(this.turrets) {
-            if(!this.turrets.isEmpty()) {
-                Iterator<Turret> it = this.turrets.iterator();
-                while(it.hasNext()) {
-                    Turret t = it.next();
-                    if(t.isAlive()) t.update(zombies);
-                    else {
-                        it.remove();
-                        continue;
-                    }
+        if(!this.turrets.isEmpty()) {
+            Iterator<Turret> it = this.turrets.iterator();
+            while(it.hasNext()) {
+                Turret t = it.next();
+                if(t.isAlive()) t.update(zombies);
+                else {
+                    t.dispose();
+                    it.remove();
+                    continue;
                 }
             }
         }
@@ -100,14 +121,12 @@ public class TurretWeapon extends Weapon {
     }
     
     @Override
-    public void drawAmmo(Graphics2D g2d) {
-        synchronized(this.turrets) {
-            if(!this.turrets.isEmpty()) {
-                Iterator<Turret> it = this.turrets.iterator();
-                while(it.hasNext()) {
-                    Turret t = it.next();
-                    if(t.isAlive()) t.draw(g2d);
-                }
+    public void drawAmmo(RenderFrame frame) {
+        if(!this.turrets.isEmpty()) {
+            Iterator<Turret> it = this.turrets.iterator();
+            while(it.hasNext()) {
+                Turret t = it.next();
+                if(t.isAlive()) t.draw(frame);
             }
         }
     }
@@ -115,25 +134,10 @@ public class TurretWeapon extends Weapon {
     @Override
     public void fire(double theta, Point2D.Double pos, Player player) {
         if(this.canFire()) {
-            this.turrets.add(new Turret(pos, TurretWeapon.TURRET_LIFE));
+            this.turrets.add(new Turret(pos, TurretWeapon.TURRET_LIFE, this.damageSource));
             this.consumeAmmo();
             this.resetCooldown();
             Sounds.LANDMINE_ARMED.play();
         }
     }
-    
-    @Override
-    public int checkForDamage(Rectangle2D.Double rect) {
-        int damage = 0;
-        synchronized(this.turrets) {
-            if(!this.turrets.isEmpty()) {
-                Iterator<Turret> it = this.turrets.iterator();
-                while(it.hasNext()) {
-                    Turret t = it.next();
-                    if(t.isAlive()) damage += t.checkForDamage(rect);
-                }
-            }
-        }
-        return damage;
-    }
 }
@@ -19,14 +19,15 @@ package genericzombieshooter.structures.weapons;
 import genericzombieshooter.GZSFramework;
 import genericzombieshooter.actors.Player;
 import genericzombieshooter.actors.Zombie;
-import genericzombieshooter.structures.LightSource;
+import genericzombieshooter.misc.Globals;
 import genericzombieshooter.structures.Particle;
-import java.awt.Graphics2D;
+import genericzombieshooter.structures.RenderFrame;
+import genericzombieshooter.structures.SpatialGrid;
+import genericzombieshooter.structures.StateBuffer;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -78,13 +79,22 @@ public class Weapon {
         return 0;
     }
     public void resetAmmo() {
-        synchronized(this.particles) { this.particles.clear(); }
+        this.particles.clear();
+        if(this.damageSource >= 0) Globals.ENTITIES.clear(this.damageSource);
     }
     
     protected List<Particle> particles;
     public List<Particle> getParticles() { return this.particles; }
+    public int getParticleCount() { 
+        if(this.damageSource >= 0) return Globals.ENTITIES.getCount(this.damageSource);
+        return this.particles.size(); 
+    }
+    
+    // The source of the weapon's projectiles in Globals.ENTITIES, or -1 if it doesn't fire any.
+    // Projectiles are moved, drawn and checked for damage by the entity systems, not by the weapon.
+    protected int damageSource;
+    public int getDamageSource() { return this.damageSource; }
     
-    public List<LightSource> getLights() { return null; }
     
     public Weapon(String name, int key, String filename, int ammoLeft, int maxAmmo, int ammoPerUse, int cooldown, boolean automatic) {
         this.name = name;
@@ -101,14 +111,15 @@ public class Weapon {
         this.cooldown = cooldown;
         this.coolPeriod = cooldown;
         
-        this.particles = Collections.synchronizedList(new ArrayList<Particle>());
+        this.particles = new ArrayList<Particle>();
+        this.damageSource = -1;
     }
     
     public void updateWeapon(List<Zombie> zombies) {
         // To be overridden.
     }
     
-    public void drawAmmo(Graphics2D g2d) {
+    public void drawAmmo(RenderFrame frame) {
         // To be overridden.
     }
     
@@ -121,6 +132,43 @@ public class Weapon {
         return 0;
     }
     
+    /**
+     * Checks every zombie in the grid for damage from this weapon. By default
+     * each zombie is checked in turn with checkForDamage(Rectangle2D.Double).
+     * @param grid The grid built from this tick's zombies.
+     * @param damage The damage done to each zombie, indexed the same as the grid. Added to, not replaced.
+     **/
+    public void checkForDamage(SpatialGrid grid, int [] damage) {
+        Rectangle2D.Double rect = new Rectangle2D.Double();
+        for(int i = 0; i < grid.size(); i++) {
+            if(grid.isActive(i)) damage[i] += this.checkForDamage(grid.getRect(i, rect));
+        }
+    }
+    
+    /**
+     * Writes the weapon's ammo, its cooldown and anything it has put on the field.
+     * @param out The buffer to write to.
+     * @param zombies The zombies in the current wave, so weapons that target a zombie can write which one.
+     **/
+    public void saveState(StateBuffer out, List<Zombie> zombies) {
+        // Can be overridden.
+        out.putInt(this.ammoLeft);
+        out.putBoolean(this.fired);
+        out.putInt(this.cooldown);
+    }
+    
+    /**
+     * Reads back the state written by saveState().
+     * @param in The buffer to read from.
+     * @param zombies The zombies in the current wave, already read back.
+     **/
+    public void loadState(StateBuffer in, List<Zombie> zombies) {
+        // Can be overridden.
+        this.ammoLeft = in.getInt();
+        this.fired = in.getBoolean();
+        this.cooldown = in.getInt();
+    }
+    
     public void consumeAmmo() {
         this.ammoLeft -= this.ammoPerUse;
     }
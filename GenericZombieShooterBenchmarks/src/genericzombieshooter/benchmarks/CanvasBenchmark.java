@@ -0,0 +1,80 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.benchmarks;
+
+import genericzombieshooter.GZSCanvas;
+import genericzombieshooter.GZSFramework;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.structures.components.LevelScreen;
+import genericzombieshooter.structures.components.StoreWindow;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a full frame of GZSCanvas.paintComponent() drawn into a
+ * BufferedImage: background, items, weapons, zombies, the shadow layer and
+ * the HUD. The player fires the assault rifle for a few seconds first so
+ * there are bullets on the screen, and one more tick publishes the render
+ * frame that is drawn.
+ * @author Darin Beaudreau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CanvasBenchmark {
+    private static final int WARMUP_TICKS = 100;
+    
+    @Param({"30", "150", "600"})
+    private int zombies;
+    
+    private GZSCanvas canvas;
+    private BufferedImage frame;
+    
+    @Setup(Level.Trial)
+    public void createCanvas() {
+        GZSFramework framework = Scenarios.createGame(1);
+        Scenarios.fireWeapon(framework, Globals.ASSAULT_RIFLE, this.zombies, CanvasBenchmark.WARMUP_TICKS);
+        this.canvas = new GZSCanvas(framework, new StoreWindow(), new LevelScreen());
+        this.canvas.setSize(Globals.W_WIDTH, Globals.W_HEIGHT);
+        framework.update(); // Publishes a render frame for the canvas to draw.
+        this.frame = new BufferedImage(Globals.W_WIDTH, Globals.W_HEIGHT, BufferedImage.TYPE_INT_RGB);
+    }
+    
+    @Benchmark
+    public BufferedImage paint() {
+        Graphics2D g2d = this.frame.createGraphics();
+        this.canvas.paintComponent(g2d);
+        g2d.dispose();
+        return this.frame;
+    }
+}
@@ -0,0 +1,93 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.benchmarks;
+
+import genericzombieshooter.misc.GameRandom;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.misc.Images;
+import genericzombieshooter.structures.Camera;
+import genericzombieshooter.structures.RenderFrame;
+import genericzombieshooter.structures.entities.EntityFactory;
+import genericzombieshooter.structures.entities.EntityWorld;
+import genericzombieshooter.structures.entities.MovementSystem;
+import genericzombieshooter.structures.entities.SpriteSystem;
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the entity systems over a world full of projectiles, spread
+ * across the arena: moving them one tick, and drawing them into a render
+ * frame. Compare the move benchmark with ParticleBenchmark.
+ * @author Darin Beaudreau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EntityBenchmark {
+    @Param({"100", "1000", "10000"})
+    private int entities;
+    
+    private EntityWorld world;
+    private RenderFrame frame;
+    
+    @Setup(Level.Iteration)
+    public void createEntities() {
+        Globals.seed(1);
+        GameRandom random = new GameRandom(1);
+        this.world = new EntityWorld();
+        int source = this.world.addSource(1, this.entities);
+        for(int i = 0; i < this.entities; i++) {
+            double theta = random.nextDouble() * Math.PI * 2;
+            double x = random.nextInt(Globals.ARENA.getWidth());
+            double y = random.nextInt(Globals.ARENA.getHeight());
+            EntityFactory.createProjectile(this.world, source, theta, 5.0, 10.0, Integer.MAX_VALUE, x, y, 5, 5, 
+                                           (((i % 2) == 0)?Images.POPGUN_BULLET:null), Color.YELLOW.getRGB(), true);
+        }
+        this.frame = new RenderFrame();
+        Camera camera = new Camera(Globals.W_WIDTH, Globals.W_HEIGHT, Globals.ARENA.getWidth(), Globals.ARENA.getHeight());
+        camera.follow((Globals.ARENA.getWidth() / 2), (Globals.ARENA.getHeight() / 2));
+        this.frame.setView(camera);
+    }
+    
+    @Benchmark
+    public EntityWorld move() {
+        MovementSystem.update(this.world);
+        return this.world;
+    }
+    
+    @Benchmark
+    public RenderFrame draw() {
+        this.frame.clear();
+        SpriteSystem.draw(this.world, this.frame, false);
+        return this.frame;
+    }
+}
@@ -0,0 +1,110 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.benchmarks;
+
+import genericzombieshooter.misc.GameRandom;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.structures.FlowField;
+import genericzombieshooter.structures.ObstacleMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures rebuilding the flow field when the player moves into another
+ * cell, and looking up the direction of every zombie in a wave. The arena
+ * has four walls around the middle so most of the field has to path around
+ * them. Larger arenas are made of copies of the window-sized one, each with
+ * its own walls.
+ * @author Darin Beaudreau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FlowFieldBenchmark {
+    @Param({"30", "150", "600"})
+    private int zombies;
+    
+    @Param({"1", "6"})
+    private int scale; // How many copies of the window-sized arena fit across and down.
+    
+    private int width;
+    private int height;
+    private FlowField field;
+    private double [] x;
+    private double [] y;
+    private boolean left; // Which side of the arena the player is on, swapped every rebuild.
+    
+    @Setup(Level.Trial)
+    public void createField() {
+        this.width = Globals.W_WIDTH * this.scale;
+        this.height = Globals.W_HEIGHT * this.scale;
+        ObstacleMap map = new ObstacleMap(this.width, this.height);
+        int tileColumns = Globals.W_WIDTH / ObstacleMap.CELL_SIZE;
+        int tileRows = Globals.W_HEIGHT / ObstacleMap.CELL_SIZE;
+        for(int tx = 0; tx < this.scale; tx++) {
+            for(int ty = 0; ty < this.scale; ty++) {
+                int c0 = tx * tileColumns;
+                int r0 = ty * tileRows;
+                for(int r = 4; r < 16; r++) {
+                    map.block((c0 + 5), (r0 + r));
+                    map.block((c0 + 19), (r0 + r));
+                }
+                for(int c = 8; c < 17; c++) {
+                    map.block((c0 + c), (r0 + 3));
+                    map.block((c0 + c), (r0 + 16));
+                }
+            }
+        }
+        this.field = new FlowField(map);
+        this.field.update((this.width / 2), (this.height / 2));
+        this.x = new double[this.zombies];
+        this.y = new double[this.zombies];
+        GameRandom random = new GameRandom(1);
+        for(int i = 0; i < this.zombies; i++) {
+            this.x[i] = random.nextInt(this.width);
+            this.y[i] = random.nextInt(this.height);
+        }
+        this.left = false;
+    }
+    
+    @Benchmark
+    public boolean rebuild() {
+        this.left = !this.left;
+        return this.field.update((this.left?100:(this.width - 100)), (this.height / 2));
+    }
+    
+    @Benchmark
+    public double steer() {
+        double sum = 0;
+        for(int i = 0; i < this.zombies; i++) sum += this.field.getTheta(this.x[i], this.y[i], (this.width / 2), (this.height / 2));
+        return sum;
+    }
+}
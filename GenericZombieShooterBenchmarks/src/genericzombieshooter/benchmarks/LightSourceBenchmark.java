@@ -0,0 +1,96 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.benchmarks;
+
+import genericzombieshooter.GZSFramework;
+import genericzombieshooter.misc.GameRandom;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.structures.LightSource;
+import genericzombieshooter.structures.RenderFrame;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures drawing flare lights into an offscreen shadow layer, the same way
+ * GZSCanvas does: clear the layer to darkness, then cut each light out of it.
+ * @author Darin Beaudreau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LightSourceBenchmark {
+    @Param({"1", "8", "32"})
+    private int lights;
+    
+    private BufferedImage shadowBuffer;
+    private LightSource [] sources;
+    private double [] x; // Where each light is.
+    private double [] y;
+    private RenderFrame frame;
+    
+    @Setup(Level.Trial)
+    public void createLights() {
+        Scenarios.createGame(1);
+        this.shadowBuffer = GZSFramework.createCompatibleImage(Globals.W_WIDTH, Globals.W_HEIGHT);
+        this.sources = new LightSource[this.lights];
+        this.x = new double[this.lights];
+        this.y = new double[this.lights];
+        this.frame = new RenderFrame();
+        GameRandom random = new GameRandom(1);
+        for(int i = 0; i < this.lights; i++) {
+            this.x[i] = random.nextInt(Globals.W_WIDTH);
+            this.y[i] = random.nextInt(Globals.W_HEIGHT);
+            this.sources[i] = new LightSource(150.0f, new float[]{0.0f, 0.6f, 0.8f, 1.0f},
+                                              new Color[]{new Color(0.0f, 0.0f, 0.0f, 0.0f),
+                                                          new Color(0.0f, 0.0f, 0.0f, 0.75f),
+                                                          new Color(0.0f, 0.0f, 0.0f, 0.9f),
+                                                          Color.BLACK});
+        }
+    }
+    
+    @Benchmark
+    public BufferedImage draw() {
+        Graphics2D sg = this.shadowBuffer.createGraphics();
+        sg.setComposite(AlphaComposite.Src);
+        sg.setColor(Color.BLACK);
+        sg.fillRect(0, 0, Globals.W_WIDTH, Globals.W_HEIGHT);
+        sg.setComposite(AlphaComposite.DstIn);
+        this.frame.clear();
+        for(int i = 0; i < this.sources.length; i++) this.sources[i].draw(this.frame, this.x[i], this.y[i], false);
+        this.frame.drawLights(sg, 0, 0);
+        sg.dispose();
+        return this.shadowBuffer;
+    }
+}
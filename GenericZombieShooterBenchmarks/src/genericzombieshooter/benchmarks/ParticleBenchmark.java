@@ -0,0 +1,71 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.benchmarks;
+
+import genericzombieshooter.misc.GameRandom;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.structures.Particle;
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Particle.update() across a whole population of particles, the way
+ * the weapons that still use Particle lists update them every tick.
+ * @author Darin Beaudreau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParticleBenchmark {
+    @Param({"100", "1000", "10000"})
+    private int particles;
+    
+    private Particle [] population;
+    
+    @Setup(Level.Iteration)
+    public void createParticles() {
+        Globals.seed(1);
+        GameRandom random = new GameRandom(1);
+        this.population = new Particle[this.particles];
+        for(int i = 0; i < this.particles; i++) {
+            double theta = random.nextDouble() * Math.PI * 2;
+            Point2D.Double pos = new Point2D.Double((Globals.W_WIDTH / 2), (Globals.W_HEIGHT / 2));
+            this.population[i] = new Particle(theta, 5.0, 10.0, Integer.MAX_VALUE, pos, new Dimension(5, 5));
+        }
+    }
+    
+    @Benchmark
+    public void update() {
+        for(int i = 0; i < this.population.length; i++) this.population[i].update();
+    }
+}
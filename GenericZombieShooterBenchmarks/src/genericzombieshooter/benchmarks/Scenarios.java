@@ -0,0 +1,137 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.benchmarks;
+
+import genericzombieshooter.GZSFramework;
+import genericzombieshooter.HeadlessSimulation;
+import genericzombieshooter.actors.Player;
+import genericzombieshooter.actors.Zombie;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.misc.Images;
+import genericzombieshooter.structures.items.Invulnerability;
+import genericzombieshooter.structures.weapons.Weapon;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Builds the game states the benchmarks run against. Everything goes through
+ * the headless framework, so no window or sound is ever created.
+ * @author Darin Beaudreau
+ */
+final class Scenarios {
+    private static final int ZOMBIES_PER_WAVE = 3;
+    
+    private Scenarios() {}
+    
+    /**
+     * Creates a headless game that has been started, with the random number
+     * streams seeded so every fork sees the same game.
+     * @param seed The seed for Globals.seed().
+     * @return The new game.
+     **/
+    static GZSFramework createGame(long seed) {
+        System.setProperty("java.awt.headless", "true");
+        Globals.seed(seed);
+        GZSFramework framework = new GZSFramework();
+        Globals.started = true;
+        return framework;
+    }
+    
+    /**
+     * Starts a wave with the given number of zombies, all of them already
+     * spawned at the edges of the screen.
+     * @param framework The game to start the wave in.
+     * @param count The number of zombies.
+     * @return The list of live zombies in the new wave.
+     **/
+    static List<Zombie> startWave(GZSFramework framework, int count) {
+        int waveNumber = Math.max(1, ((count + Scenarios.ZOMBIES_PER_WAVE - 1) / Scenarios.ZOMBIES_PER_WAVE));
+        if((waveNumber % 15) == 0) waveNumber++; // Boss waves only have a handful of zombies.
+        framework.setCurrentWave(waveNumber);
+        Globals.waveInProgress = false;
+        Globals.nextWave = 0;
+        framework.update();
+        
+        List<Zombie> unborn = framework.getWave().getUnbornZombies();
+        List<Zombie> alive = framework.getWave().getZombies();
+        while(!unborn.isEmpty() && (alive.size() < count)) {
+            Zombie z = unborn.remove(0);
+            z.spawn();
+            alive.add(z);
+        }
+        // The zombies left over are taken out of the entity world along with the list.
+        Iterator<Zombie> it = unborn.iterator();
+        while(it.hasNext()) it.next().dispose();
+        unborn.clear();
+        return alive;
+    }
+    
+    /**
+     * Gives the player a weapon with unlimited ammo and has them fire it at
+     * the zombies for a while, so the weapon has a realistic number of
+     * particles, explosions or turrets in play.
+     * @param framework The game to fire the weapon in.
+     * @param weapon The weapon to fire.
+     * @param zombies The number of zombies to fire at.
+     * @param ticks The number of ticks to fire for.
+     * @return The script that aims the weapon, to keep firing with.
+     **/
+    static HeadlessSimulation.InputScript fireWeapon(GZSFramework framework, Weapon weapon, int zombies, int ticks) {
+        Player player = framework.getPlayer();
+        player.addWeapon(weapon);
+        framework.selectWeapon(weapon.getName());
+        Scenarios.startWave(framework, zombies);
+        
+        HeadlessSimulation.InputScript script = new HeadlessSimulation.AutoAimScript(false);
+        for(int i = 0; i < ticks; i++) Scenarios.tick(framework, weapon, script, i);
+        return script;
+    }
+    
+    /**
+     * Runs one tick of the game with the player invulnerable and the weapon
+     * full of ammo.
+     * @param framework The game to update.
+     * @param weapon The weapon being fired.
+     * @param script The script supplying the player's input.
+     * @param tick The number of the tick about to run.
+     **/
+    static void tick(GZSFramework framework, Weapon weapon, HeadlessSimulation.InputScript script, long tick) {
+        framework.getPlayer().addStatusEffect(Invulnerability.ID, Invulnerability.EFFECT_NAME, Images.INVULNERABILITY, 1000, 0);
+        weapon.addAmmo(weapon.getMaxAmmo());
+        script.update(framework, tick);
+        framework.update();
+    }
+    
+    /**
+     * Looks up one of the static weapons by its constant name in Globals.
+     * @param name The name of the constant, such as ASSAULT_RIFLE.
+     * @return The weapon.
+     **/
+    static Weapon getWeapon(String name) {
+        if(name.equals("HANDGUN")) return Globals.HANDGUN;
+        else if(name.equals("ASSAULT_RIFLE")) return Globals.ASSAULT_RIFLE;
+        else if(name.equals("SHOTGUN")) return Globals.SHOTGUN;
+        else if(name.equals("FLAMETHROWER")) return Globals.FLAMETHROWER;
+        else if(name.equals("GRENADE")) return Globals.GRENADE;
+        else if(name.equals("LANDMINE")) return Globals.LANDMINE;
+        else if(name.equals("FLARE")) return Globals.FLARE;
+        else if(name.equals("LASERWIRE")) return Globals.LASERWIRE;
+        else if(name.equals("TURRETWEAPON")) return Globals.TURRETWEAPON;
+        else if(name.equals("TELEPORTER")) return Globals.TELEPORTER;
+        else throw new IllegalArgumentException("Unknown weapon: " + name);
+    }
+}
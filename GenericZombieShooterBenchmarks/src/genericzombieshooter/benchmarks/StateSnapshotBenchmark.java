@@ -0,0 +1,82 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.benchmarks;
+
+import genericzombieshooter.GZSFramework;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.structures.StateBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures GZSFramework.saveState() and loadState() of a game in the middle of
+ * a wave, with the player firing the assault rifle so there are bullets in
+ * play. Both should take well under a frame, so a game can be saved or a
+ * replay keyframe written without a stutter.
+ * @author Darin Beaudreau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StateSnapshotBenchmark {
+    private static final int WARMUP_TICKS = 100;
+    
+    @Param({"30", "150", "600"})
+    private int zombies;
+    
+    private GZSFramework framework;
+    private StateBuffer saved;
+    private StateBuffer buffer;
+    
+    @Setup(Level.Trial)
+    public void createGame() {
+        this.framework = Scenarios.createGame(1);
+        Scenarios.fireWeapon(this.framework, Globals.ASSAULT_RIFLE, this.zombies, StateSnapshotBenchmark.WARMUP_TICKS);
+        this.saved = new StateBuffer();
+        this.framework.saveState(this.saved);
+        this.saved.flip();
+        this.buffer = new StateBuffer();
+    }
+    
+    @Benchmark
+    public StateBuffer save() {
+        this.buffer.clear();
+        this.framework.saveState(this.buffer);
+        return this.buffer;
+    }
+    
+    @Benchmark
+    public GZSFramework restore() {
+        this.saved.getBuffer().rewind();
+        this.framework.loadState(this.saved);
+        return this.framework;
+    }
+}
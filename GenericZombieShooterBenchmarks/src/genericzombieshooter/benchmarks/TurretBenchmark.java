@@ -0,0 +1,72 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.benchmarks;
+
+import genericzombieshooter.GZSFramework;
+import genericzombieshooter.actors.Zombie;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.structures.weapons.Turret;
+import java.awt.geom.Point2D;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Turret.update(), which is mostly the search for the nearest
+ * zombie in range. Game time doesn't move, so the turret only fires once and
+ * the zombies stay where they spawned.
+ * @author Darin Beaudreau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TurretBenchmark {
+    private static final long TURRET_LIFE = 1000000000L;
+    
+    @Param({"30", "150", "600"})
+    private int zombies;
+    
+    private List<Zombie> targets;
+    private Turret turret;
+    
+    @Setup(Level.Trial)
+    public void createTurret() {
+        GZSFramework framework = Scenarios.createGame(1);
+        this.targets = Scenarios.startWave(framework, this.zombies);
+        this.turret = new Turret(new Point2D.Double((Globals.W_WIDTH / 2), (Globals.W_HEIGHT / 2)), TurretBenchmark.TURRET_LIFE, 
+                                 Globals.TURRETWEAPON.getDamageSource());
+    }
+    
+    @Benchmark
+    public void update() {
+        this.turret.update(this.targets);
+    }
+}
@@ -0,0 +1,101 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.benchmarks;
+
+import genericzombieshooter.GZSFramework;
+import genericzombieshooter.HeadlessSimulation;
+import genericzombieshooter.misc.Globals;
+import genericzombieshooter.structures.SpatialGrid;
+import genericzombieshooter.structures.entities.DamageSystem;
+import genericzombieshooter.structures.weapons.Weapon;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures Weapon.checkForDamage() for each weapon that can hurt zombies, or
+ * DamageSystem.update() for the weapons whose projectiles are in the entity world.
+ * The player fires the weapon at a wave of zombies for a few seconds first,
+ * and the game is advanced by one tick before every call, so the weapon
+ * always has the particles, explosions or turrets it would have in play.
+ * @author Darin Beaudreau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WeaponDamageBenchmark {
+    private static final int WARMUP_TICKS = 250;
+    
+    @Param({"HANDGUN", "ASSAULT_RIFLE", "SHOTGUN", "FLAMETHROWER", "GRENADE", "LANDMINE", "LASERWIRE", "TURRETWEAPON"})
+    private String weaponName;
+    
+    @Param({"150"})
+    private int zombies;
+    
+    private GZSFramework framework;
+    private Weapon weapon;
+    private HeadlessSimulation.InputScript script;
+    private long tick;
+    private SpatialGrid grid;
+    private int [][] damage;
+    private int [] sourceRows; // Only the weapon being measured adds damage from the entity world.
+    
+    @Setup(Level.Trial)
+    public void createGame() {
+        this.framework = Scenarios.createGame(1);
+        this.weapon = Scenarios.getWeapon(this.weaponName);
+        this.script = Scenarios.fireWeapon(this.framework, this.weapon, this.zombies, WeaponDamageBenchmark.WARMUP_TICKS);
+        this.tick = WeaponDamageBenchmark.WARMUP_TICKS;
+        this.grid = new SpatialGrid(Globals.ARENA.getWidth(), Globals.ARENA.getHeight());
+        this.damage = new int[1][this.zombies * 2];
+        this.sourceRows = new int[Globals.ENTITIES.getSourceCount()];
+        Arrays.fill(this.sourceRows, -1);
+        if(this.weapon.getDamageSource() >= 0) this.sourceRows[this.weapon.getDamageSource()] = 0;
+    }
+    
+    @Setup(Level.Invocation)
+    public void advance() {
+        // Bring in a fresh wave once most of the zombies are dead.
+        if(this.framework.getWave().getZombies().size() < (this.zombies / 2)) Scenarios.startWave(this.framework, this.zombies);
+        Scenarios.tick(this.framework, this.weapon, this.script, this.tick++);
+        this.grid.build(this.framework.getWave().getZombies());
+        if(this.damage[0].length < this.grid.size()) this.damage[0] = new int[this.grid.size() * 2];
+        Arrays.fill(this.damage[0], 0);
+    }
+    
+    @Benchmark
+    public void checkForDamage(Blackhole bh) {
+        if(this.weapon.getDamageSource() >= 0) DamageSystem.update(Globals.ENTITIES, this.grid, this.sourceRows, this.damage);
+        else this.weapon.checkForDamage(this.grid, this.damage[0]);
+        bh.consume(this.damage);
+    }
+}
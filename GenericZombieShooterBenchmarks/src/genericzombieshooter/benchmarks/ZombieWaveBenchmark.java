@@ -0,0 +1,84 @@
+/**
+    This file is part of Generic Zombie Shooter.
+
+    Generic Zombie Shooter is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Generic Zombie Shooter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Generic Zombie Shooter.  If not, see <http://www.gnu.org/licenses/>.
+ **/
+package genericzombieshooter.benchmarks;
+
+import genericzombieshooter.GZSFramework;
+import genericzombieshooter.actors.Zombie;
+import genericzombieshooter.structures.ZombieWave;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one tick of ZombieWave.update(): moving every zombie toward the
+ * player, building the collision grid and working out weapon damage. The
+ * zombies are put back where they started before every call so they don't
+ * all end up stacked on the player.
+ * @author Darin Beaudreau
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ZombieWaveBenchmark {
+    @Param({"30", "150", "600"})
+    private int zombies;
+    
+    private GZSFramework framework;
+    private ZombieWave wave;
+    private List<Zombie> alive;
+    private double [] startX;
+    private double [] startY;
+    
+    @Setup(Level.Trial)
+    public void createWave() {
+        this.framework = Scenarios.createGame(1);
+        this.alive = Scenarios.startWave(this.framework, this.zombies);
+        this.wave = this.framework.getWave();
+        this.startX = new double[this.alive.size()];
+        this.startY = new double[this.alive.size()];
+        for(int i = 0; i < this.alive.size(); i++) {
+            this.startX[i] = this.alive.get(i).getX();
+            this.startY[i] = this.alive.get(i).getY();
+        }
+    }
+    
+    @Setup(Level.Invocation)
+    public void resetZombies() {
+        for(int i = 0; i < this.startX.length; i++) {
+            this.alive.get(i).setLocation(this.startX[i], this.startY[i]);
+        }
+    }
+    
+    @Benchmark
+    public void update() {
+        this.wave.update(this.framework.getPlayer(), this.framework.getItemFactory());
+    }
+}